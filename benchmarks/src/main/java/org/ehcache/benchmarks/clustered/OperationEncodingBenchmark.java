@@ -0,0 +1,98 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.clustered;
+
+import org.ehcache.clustered.client.internal.store.operations.Operation;
+import org.ehcache.clustered.client.internal.store.operations.PutOperation;
+import org.ehcache.clustered.client.internal.store.operations.codecs.OperationsCodec;
+import org.ehcache.impl.serialization.LongSerializer;
+import org.ehcache.impl.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy and the compact encoding of clustered operations, both in encoding cost and in bytes sent:
+ * the {@code encodedBytes} and {@code encodedOperations} counters give the average number of bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OperationEncodingBenchmark {
+
+  @Param({"false", "true"})
+  public boolean compact;
+
+  @Param({"16", "256", "4096"})
+  public int valueSize;
+
+  private OperationsCodec<Long, String> codec;
+  private Operation<Long, String> operation;
+  private ByteBuffer encoded;
+
+  @Setup
+  public void setUp() {
+    codec = new OperationsCodec<>(new LongSerializer(), new StringSerializer(), compact);
+    char[] value = new char[valueSize];
+    Arrays.fill(value, 'v');
+    operation = new PutOperation<>(1234567L, new String(value), System.currentTimeMillis());
+    encoded = codec.encode(operation);
+  }
+
+  @Benchmark
+  public ByteBuffer encode(EncodedSize size) {
+    ByteBuffer buffer = codec.encode(operation);
+    size.encodedOperations++;
+    size.encodedBytes += buffer.remaining();
+    return buffer;
+  }
+
+  @Benchmark
+  public Operation<Long, String> decode() {
+    return codec.decode(encoded.duplicate());
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class EncodedSize {
+    public long encodedOperations;
+    public long encodedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      encodedOperations = 0;
+      encodedBytes = 0;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.clustered;
+
+import org.ehcache.clustered.common.internal.messages.ChainCodec;
+import org.ehcache.clustered.common.internal.store.Chain;
+import org.ehcache.clustered.server.KeySegmentMapper;
+import org.ehcache.clustered.server.offheap.OffHeapServerStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terracotta.offheapstore.buffersource.OffHeapBufferSource;
+import org.terracotta.offheapstore.paging.UnlimitedPageSource;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.ehcache.clustered.common.internal.store.Util.getChain;
+
+/**
+ * Measures the server side cost of appending message payloads to an {@link OffHeapServerStore} and of reading chains
+ * back out and encoding them for a response. Run with {@code -prof gc} to see the garbage produced per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ServerStoreBenchmark {
+
+  private static final int KEYS = 1024;
+  private static final int MESSAGE_HEADER_SIZE = 64;
+
+  @Param({"32", "1024"})
+  public int payloadSize;
+
+  @Param({"4", "32"})
+  public int chainLength;
+
+  private final ChainCodec chainCodec = new ChainCodec();
+
+  private OffHeapServerStore store;
+  private ByteBuffer payload;
+  private long appends;
+
+  @Setup
+  public void setUp() {
+    store = new OffHeapServerStore(new UnlimitedPageSource(new OffHeapBufferSource()), new KeySegmentMapper(16));
+
+    // payloads reach the store as slices of the received message
+    ByteBuffer message = ByteBuffer.allocate(MESSAGE_HEADER_SIZE + payloadSize);
+    message.position(MESSAGE_HEADER_SIZE);
+    payload = message.slice().asReadOnlyBuffer();
+
+    for (long key = 0; key < KEYS; key++) {
+      for (int i = 0; i < chainLength; i++) {
+        store.append(key, payload.duplicate());
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    store.close();
+  }
+
+  @Benchmark
+  public void append() {
+    long key = appends++ % KEYS;
+    if (appends % (KEYS * chainLength) == 0) {
+      // compacts every chain once each key received chainLength appends, bounding the store size
+      Chain compacted = getChain(false, payload.duplicate());
+      for (long k = 0; k < KEYS; k++) {
+        store.replaceAtHead(k, store.get(k), compacted);
+      }
+    }
+    store.append(key, payload.duplicate());
+  }
+
+  @Benchmark
+  public Chain get() {
+    return store.get(appends++ % KEYS);
+  }
+
+  @Benchmark
+  public byte[] getAndEncode() {
+    return chainCodec.encode(store.get(appends++ % KEYS));
+  }
+}
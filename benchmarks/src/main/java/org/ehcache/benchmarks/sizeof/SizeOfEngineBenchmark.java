@@ -0,0 +1,159 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.sizeof;
+
+import org.ehcache.core.spi.store.heap.LimitExceededException;
+import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
+import org.ehcache.impl.copy.IdentityCopier;
+import org.ehcache.impl.internal.sizeof.DefaultSizeOfEngine;
+import org.ehcache.impl.internal.sizeof.LayoutCachingSizeOfEngine;
+import org.ehcache.impl.internal.store.heap.holders.CopiedOnHeapValueHolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration.DEFAULT_MAX_OBJECT_SIZE;
+import static org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration.DEFAULT_OBJECT_GRAPH_SIZE;
+
+/**
+ * Compares the cost of sizing a heap mapping with the {@link DefaultSizeOfEngine}, with the
+ * {@link LayoutCachingSizeOfEngine} and with the latter using estimators for {@code String} and {@code byte[]}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SizeOfEngineBenchmark {
+
+  @Param({"BYTES", "DTO", "MAP"})
+  public Graph graph;
+
+  private SizeOfEngine defaultEngine;
+  private SizeOfEngine layoutCachingEngine;
+  private SizeOfEngine estimatingEngine;
+
+  private Long key;
+  private CopiedOnHeapValueHolder<Object> holder;
+
+  @Setup
+  public void setUp() {
+    defaultEngine = new DefaultSizeOfEngine(DEFAULT_OBJECT_GRAPH_SIZE, DEFAULT_MAX_OBJECT_SIZE);
+    layoutCachingEngine = new LayoutCachingSizeOfEngine(DEFAULT_OBJECT_GRAPH_SIZE, DEFAULT_MAX_OBJECT_SIZE);
+
+    Map<Class<?>, SizeOfEstimator<?>> estimators = new HashMap<>();
+    estimators.put(String.class, (SizeOfEstimator<String>) s -> 24L + 16L + 2L * s.length());
+    estimators.put(byte[].class, (SizeOfEstimator<byte[]>) b -> 16L + b.length);
+    estimatingEngine = new LayoutCachingSizeOfEngine(DEFAULT_OBJECT_GRAPH_SIZE, DEFAULT_MAX_OBJECT_SIZE, estimators);
+
+    key = 1234567L;
+    holder = new CopiedOnHeapValueHolder<>(graph.create(), 0L, false, new IdentityCopier<>());
+  }
+
+  @Benchmark
+  public long defaultSizeOf() throws LimitExceededException {
+    return defaultEngine.sizeof(key, holder);
+  }
+
+  @Benchmark
+  public long layoutCachingSizeOf() throws LimitExceededException {
+    return layoutCachingEngine.sizeof(key, holder);
+  }
+
+  @Benchmark
+  public long estimatingSizeOf() throws LimitExceededException {
+    return estimatingEngine.sizeof(key, holder);
+  }
+
+  public enum Graph {
+    BYTES {
+      @Override
+      Object create() {
+        return new byte[1024];
+      }
+    },
+    DTO {
+      @Override
+      Object create() {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+          orders.add(new Order(1000L + i, "SKU-" + i, i * 3, new Date()));
+        }
+        return new Customer(42L, "Jane", "Doe", "jane.doe@example.com", orders);
+      }
+    },
+    MAP {
+      @Override
+      Object create() {
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < 32; i++) {
+          map.put("entry-" + i, i * 1000);
+        }
+        return map;
+      }
+    };
+
+    abstract Object create();
+  }
+
+  static final class Customer {
+    private final long id;
+    private final String firstName;
+    private final String lastName;
+    private final String email;
+    private final List<Order> orders;
+
+    Customer(long id, String firstName, String lastName, String email, List<Order> orders) {
+      this.id = id;
+      this.firstName = firstName;
+      this.lastName = lastName;
+      this.email = email;
+      this.orders = orders;
+    }
+  }
+
+  static final class Order {
+    private final long id;
+    private final String sku;
+    private final int quantity;
+    private final Date date;
+
+    Order(long id, String sku, int quantity, Date date) {
+      this.id = id;
+      this.sku = sku;
+      this.quantity = quantity;
+      this.date = date;
+    }
+  }
+}
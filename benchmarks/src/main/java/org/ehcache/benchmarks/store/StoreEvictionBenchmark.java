@@ -0,0 +1,88 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.store;
+
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.expiry.Expirations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of writes against a full store, where the key space is {@code keySpaceRatio} times larger
+ * than the store capacity so that most writes cause an eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StoreEvictionBenchmark {
+
+  @Param({"HEAP", "OFFHEAP", "DISK", "HEAP_OFFHEAP", "HEAP_DISK", "HEAP_OFFHEAP_DISK"})
+  public Tiers tiers;
+
+  @Param({"10000"})
+  public int capacity;
+
+  @Param({"10"})
+  public int keySpaceRatio;
+
+  @Param({"16"})
+  public int keySize;
+
+  @Param({"128", "4096"})
+  public int valueSize;
+
+  private StoreHarness harness;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    harness = new StoreHarness(tiers, capacity, capacity * keySpaceRatio, keySize, valueSize, Expirations.noExpiration());
+    harness.populate(harness.keyCount());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    harness.close();
+  }
+
+  @Benchmark
+  public Store.PutStatus putUnderPressure() throws Exception {
+    return harness.store().put(harness.key(ThreadLocalRandom.current().nextInt(harness.keyCount())), harness.value());
+  }
+
+  @Benchmark
+  public Store.ValueHolder<byte[]> computeIfAbsentUnderPressure() throws Exception {
+    final byte[] value = harness.value();
+    return harness.store().computeIfAbsent(harness.key(ThreadLocalRandom.current().nextInt(harness.keyCount())), k -> value);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.store;
+
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a read-through style access pattern against a store whose mappings expire after {@code timeToLiveMillis},
+ * so that short lived mappings exercise the expiry paths of each tier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StoreExpiryBenchmark {
+
+  @Param({"HEAP", "OFFHEAP", "DISK", "HEAP_OFFHEAP", "HEAP_DISK", "HEAP_OFFHEAP_DISK"})
+  public Tiers tiers;
+
+  @Param({"10000"})
+  public int entries;
+
+  @Param({"16"})
+  public int keySize;
+
+  @Param({"128"})
+  public int valueSize;
+
+  @Param({"1", "1000"})
+  public long timeToLiveMillis;
+
+  private StoreHarness harness;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    harness = new StoreHarness(tiers, entries, entries, keySize, valueSize,
+        Expirations.timeToLiveExpiration(new Duration(timeToLiveMillis, TimeUnit.MILLISECONDS)));
+    harness.populate(entries);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    harness.close();
+  }
+
+  @Benchmark
+  public Store.ValueHolder<byte[]> getOrCompute() throws Exception {
+    final byte[] value = harness.value();
+    return harness.store().computeIfAbsent(harness.key(ThreadLocalRandom.current().nextInt(entries)), k -> value);
+  }
+
+  @Benchmark
+  public Store.ValueHolder<byte[]> get() throws Exception {
+    return harness.store().get(harness.key(ThreadLocalRandom.current().nextInt(entries)));
+  }
+}
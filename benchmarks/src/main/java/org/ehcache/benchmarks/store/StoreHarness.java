@@ -0,0 +1,176 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.store;
+
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.core.config.store.StoreEventSourceConfiguration;
+import org.ehcache.core.internal.service.ServiceLocator;
+import org.ehcache.core.internal.store.StoreConfigurationImpl;
+import org.ehcache.core.internal.store.StoreSupport;
+import org.ehcache.core.spi.service.DiskResourceService;
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.expiry.Expiry;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.persistence.DefaultDiskResourceService;
+import org.ehcache.impl.persistence.DefaultLocalPersistenceService;
+import org.ehcache.impl.serialization.ByteArraySerializer;
+import org.ehcache.impl.serialization.StringSerializer;
+import org.ehcache.spi.persistence.PersistableResourceService.PersistenceSpaceIdentifier;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.ehcache.core.internal.service.ServiceLocator.dependencySet;
+
+/**
+ * Creates a {@link Store} through the {@link Store.Provider} SPI the same way a cache manager does, outside of any
+ * cache so that benchmarks measure the store alone.
+ * <P>
+ *   Keys are fixed length strings and values byte arrays, so that both sizes can be parameterized.
+ * </P>
+ */
+final class StoreHarness {
+
+  private static final String ALIAS = "benchmark";
+
+  private final File root;
+  private final ServiceLocator serviceLocator;
+  private final Store.Provider provider;
+  private final Store<String, byte[]> store;
+  private final DiskResourceService diskResourceService;
+  private final PersistenceSpaceIdentifier<?> persistenceSpace;
+  private final String[] keys;
+  private final byte[] value;
+
+  StoreHarness(Tiers tiers, int capacity, int keyCount, int keySize, int valueSize,
+               Expiry<? super String, ? super byte[]> expiry) throws Exception {
+    this.root = Files.createTempDirectory("ehcache-benchmark").toFile();
+    this.serviceLocator = dependencySet()
+        .with(new DefaultLocalPersistenceService(new DefaultPersistenceConfiguration(root)))
+        .with(new DefaultDiskResourceService())
+        .with(Store.Provider.class)
+        .build();
+    serviceLocator.startAllServices();
+
+    ResourcePools resourcePools = tiers.resourcePools(capacity, keySize + valueSize);
+    CacheConfiguration<String, byte[]> cacheConfiguration = CacheConfigurationBuilder
+        .newCacheConfigurationBuilder(String.class, byte[].class, resourcePools)
+        .withExpiry(expiry)
+        .build();
+
+    List<ServiceConfiguration<?>> serviceConfigs = new ArrayList<>();
+    if (resourcePools.getResourceTypeSet().contains(ResourceType.Core.DISK)) {
+      diskResourceService = serviceLocator.getService(DiskResourceService.class);
+      persistenceSpace = diskResourceService.getPersistenceSpaceIdentifier(ALIAS, cacheConfiguration);
+      serviceConfigs.add(persistenceSpace);
+    } else {
+      diskResourceService = null;
+      persistenceSpace = null;
+    }
+
+    this.provider = StoreSupport.selectStoreProvider(serviceLocator, resourcePools.getResourceTypeSet(), serviceConfigs);
+    this.store = provider.createStore(new StoreConfigurationImpl<>(cacheConfiguration,
+            StoreEventSourceConfiguration.DEFAULT_DISPATCHER_CONCURRENCY, new StringSerializer(), new ByteArraySerializer()),
+        serviceConfigs.toArray(new ServiceConfiguration<?>[serviceConfigs.size()]));
+    provider.initStore(store);
+
+    this.keys = new String[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = key(i, keySize);
+    }
+    this.value = new byte[valueSize];
+    Arrays.fill(value, (byte) 0x5a);
+  }
+
+  Store<String, byte[]> store() {
+    return store;
+  }
+
+  String key(int index) {
+    return keys[index];
+  }
+
+  int keyCount() {
+    return keys.length;
+  }
+
+  byte[] value() {
+    return value;
+  }
+
+  /**
+   * Populates the store with the first {@code count} keys.
+   *
+   * @param count the number of mappings to install
+   */
+  void populate(int count) throws Exception {
+    for (int i = 0; i < count; i++) {
+      store.put(keys[i], value);
+    }
+  }
+
+  void close() throws Exception {
+    try {
+      provider.releaseStore(store);
+      if (persistenceSpace != null) {
+        diskResourceService.releasePersistenceSpaceIdentifier(persistenceSpace);
+      }
+      serviceLocator.stopAllServices();
+    } finally {
+      delete(root.toPath());
+    }
+  }
+
+  private static String key(int index, int keySize) {
+    StringBuilder sb = new StringBuilder(keySize);
+    String suffix = Integer.toString(index);
+    for (int i = suffix.length(); i < keySize; i++) {
+      sb.append('k');
+    }
+    return sb.append(suffix).toString();
+  }
+
+  private static void delete(Path path) throws IOException {
+    if (Files.exists(path)) {
+      Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    }
+  }
+}
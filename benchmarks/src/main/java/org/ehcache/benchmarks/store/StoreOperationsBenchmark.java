@@ -0,0 +1,143 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.store;
+
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.expiry.Expirations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of single key and bulk {@link Store} operations against a fully populated store.
+ * <P>
+ *   Thread count is controlled with the JMH {@code -t} option.
+ * </P>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StoreOperationsBenchmark {
+
+  @Param({"HEAP", "OFFHEAP", "DISK", "HEAP_OFFHEAP", "HEAP_DISK", "HEAP_OFFHEAP_DISK"})
+  public Tiers tiers;
+
+  @Param({"10000"})
+  public int entries;
+
+  @Param({"16"})
+  public int keySize;
+
+  @Param({"128", "4096"})
+  public int valueSize;
+
+  @Param({"16"})
+  public int bulkSize;
+
+  private StoreHarness harness;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    harness = new StoreHarness(tiers, entries, entries, keySize, valueSize, Expirations.noExpiration());
+    harness.populate(entries);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    harness.close();
+  }
+
+  @Benchmark
+  public Store.ValueHolder<byte[]> get() throws Exception {
+    return harness.store().get(randomKey());
+  }
+
+  @Benchmark
+  public Store.PutStatus put() throws Exception {
+    return harness.store().put(randomKey(), harness.value());
+  }
+
+  @Benchmark
+  public Store.ValueHolder<byte[]> compute() throws Exception {
+    final byte[] value = harness.value();
+    return harness.store().compute(randomKey(), (k, v) -> value);
+  }
+
+  @Benchmark
+  public Store.ValueHolder<byte[]> computeIfAbsent() throws Exception {
+    final byte[] value = harness.value();
+    return harness.store().computeIfAbsent(randomKey(), k -> value);
+  }
+
+  @Benchmark
+  public Map<String, Store.ValueHolder<byte[]>> bulkComputeIfAbsent() throws Exception {
+    final byte[] value = harness.value();
+    return harness.store().bulkComputeIfAbsent(randomKeys(), keys -> {
+      List<Map.Entry<String, byte[]>> result = new ArrayList<>();
+      for (String key : keys) {
+        result.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+      }
+      return result;
+    });
+  }
+
+  @Benchmark
+  public Map<String, Store.ValueHolder<byte[]>> bulkCompute() throws Exception {
+    final byte[] value = harness.value();
+    return harness.store().bulkCompute(randomKeys(), entries -> {
+      List<Map.Entry<String, byte[]>> result = new ArrayList<>();
+      for (Map.Entry<? extends String, ? extends byte[]> entry : entries) {
+        result.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value));
+      }
+      return result;
+    });
+  }
+
+  private String randomKey() {
+    return harness.key(ThreadLocalRandom.current().nextInt(entries));
+  }
+
+  private Set<String> randomKeys() {
+    Set<String> keys = new HashSet<>();
+    while (keys.size() < bulkSize) {
+      keys.add(randomKey());
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.benchmarks.store;
+
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+
+/**
+ * The tier combinations exercised by the store benchmarks.
+ * <P>
+ *   Tiers are sized from a capacity expressed in entries: the authoritative tier can hold {@code capacity} mappings
+ *   while caching tiers hold a tenth of them, so that multi tier combinations exercise faulting and invalidation.
+ * </P>
+ */
+public enum Tiers {
+  HEAP {
+    @Override
+    ResourcePools resourcePools(long capacity, long entrySize) {
+      return ResourcePoolsBuilder.newResourcePoolsBuilder().heap(capacity, EntryUnit.ENTRIES).build();
+    }
+  },
+  OFFHEAP {
+    @Override
+    ResourcePools resourcePools(long capacity, long entrySize) {
+      return ResourcePoolsBuilder.newResourcePoolsBuilder().offheap(megabytes(capacity, entrySize), MemoryUnit.MB).build();
+    }
+  },
+  DISK {
+    @Override
+    ResourcePools resourcePools(long capacity, long entrySize) {
+      return ResourcePoolsBuilder.newResourcePoolsBuilder().disk(megabytes(capacity, entrySize), MemoryUnit.MB).build();
+    }
+  },
+  HEAP_OFFHEAP {
+    @Override
+    ResourcePools resourcePools(long capacity, long entrySize) {
+      return ResourcePoolsBuilder.newResourcePoolsBuilder()
+          .heap(cachingCapacity(capacity), EntryUnit.ENTRIES)
+          .offheap(megabytes(capacity, entrySize), MemoryUnit.MB).build();
+    }
+  },
+  HEAP_DISK {
+    @Override
+    ResourcePools resourcePools(long capacity, long entrySize) {
+      return ResourcePoolsBuilder.newResourcePoolsBuilder()
+          .heap(cachingCapacity(capacity), EntryUnit.ENTRIES)
+          .disk(megabytes(capacity, entrySize), MemoryUnit.MB).build();
+    }
+  },
+  HEAP_OFFHEAP_DISK {
+    @Override
+    ResourcePools resourcePools(long capacity, long entrySize) {
+      long diskSize = megabytes(capacity, entrySize);
+      return ResourcePoolsBuilder.newResourcePoolsBuilder()
+          .heap(cachingCapacity(capacity), EntryUnit.ENTRIES)
+          .offheap(Math.max(1L, diskSize / 2), MemoryUnit.MB)
+          .disk(Math.max(2L, diskSize), MemoryUnit.MB).build();
+    }
+  };
+
+  /**
+   * Rough per mapping overhead of the offheap and disk tiers, in bytes.
+   */
+  private static final long MAPPING_OVERHEAD = 128L;
+
+  /**
+   * Creates resource pools able to hold about {@code capacity} mappings of {@code entrySize} bytes.
+   *
+   * @param capacity the capacity in entries of the authoritative tier
+   * @param entrySize the serialized size of a key and value pair
+   * @return the resource pools
+   */
+  abstract ResourcePools resourcePools(long capacity, long entrySize);
+
+  private static long cachingCapacity(long capacity) {
+    return Math.max(1L, capacity / 10);
+  }
+
+  private static long megabytes(long capacity, long entrySize) {
+    long bytes = capacity * (entrySize + MAPPING_OVERHEAD);
+    return Math.max(1L, (bytes + MemoryUnit.MB.toBytes(1) - 1) / MemoryUnit.MB.toBytes(1));
+  }
+}
@@ -26,6 +26,10 @@ import org.ehcache.spi.service.ServiceConfiguration;
 public class ClusteredStoreConfiguration implements ServiceConfiguration<ClusteredStore.Provider> {
 
   private final Consistency consistency;
+  private final int segments;
+  private final int nearCacheSize;
+  private final boolean compactEncoding;
+  private final int appendWindow;
 
   /**
    * Creates a new configuration with consistency set to {@link Consistency#EVENTUAL EVENTUAL}.
@@ -40,7 +44,83 @@ public class ClusteredStoreConfiguration implements ServiceConfiguration<Cluster
    * @param consistency the {@code Consistency}
    */
   public ClusteredStoreConfiguration(Consistency consistency) {
+    this(consistency, 0);
+  }
+
+  /**
+   * Creates a new configuration with the provided {@link Consistency} and server store segment count.
+   * <p>
+   * The segment count must be a multiple of the concurrency of the server, {@code 0} leaves the choice to the server.
+   *
+   * @param consistency the {@code Consistency}
+   * @param segments the number of segments of the server store
+   */
+  public ClusteredStoreConfiguration(Consistency consistency, int segments) {
+    this(consistency, segments, 0);
+  }
+
+  /**
+   * Creates a new configuration with the provided {@link Consistency}, server store segment count and near cache size.
+   * <p>
+   * The near cache holds resolved values on the client and is kept coherent by the server invalidations,
+   * a size of {@code 0} disables it.
+   *
+   * @param consistency the {@code Consistency}
+   * @param segments the number of segments of the server store
+   * @param nearCacheSize the maximum number of values held in the near cache
+   */
+  public ClusteredStoreConfiguration(Consistency consistency, int segments, int nearCacheSize) {
+    this(consistency, segments, nearCacheSize, false);
+  }
+
+  /**
+   * Creates a new configuration with the provided {@link Consistency}, server store segment count, near cache size
+   * and operation encoding.
+   * <p>
+   * The compact encoding writes operations with variable length headers and compresses large values. It is recorded
+   * on the server store, all the clients of a clustered tier must use the same encoding.
+   *
+   * @param consistency the {@code Consistency}
+   * @param segments the number of segments of the server store
+   * @param nearCacheSize the maximum number of values held in the near cache
+   * @param compactEncoding {@code true} to use the compact operation encoding
+   */
+  public ClusteredStoreConfiguration(Consistency consistency, int segments, int nearCacheSize, boolean compactEncoding) {
+    this(consistency, segments, nearCacheSize, compactEncoding, 0);
+  }
+
+  /**
+   * Creates a new configuration with the provided {@link Consistency}, server store segment count, near cache size,
+   * operation encoding and append window.
+   * <p>
+   * With a positive append window, puts on an {@link Consistency#EVENTUAL EVENTUAL} store return without waiting for
+   * the server to acknowledge them, up to {@code appendWindow} of them being in flight. A window of {@code 0} waits
+   * for each put, {@link Consistency#STRONG STRONG} stores require it.
+   *
+   * @param consistency the {@code Consistency}
+   * @param segments the number of segments of the server store
+   * @param nearCacheSize the maximum number of values held in the near cache
+   * @param compactEncoding {@code true} to use the compact operation encoding
+   * @param appendWindow the maximum number of unacknowledged puts
+   */
+  public ClusteredStoreConfiguration(Consistency consistency, int segments, int nearCacheSize, boolean compactEncoding, int appendWindow) {
+    if (segments < 0) {
+      throw new IllegalArgumentException("Segment count must be positive or 0 : " + segments);
+    }
+    if (nearCacheSize < 0) {
+      throw new IllegalArgumentException("Near cache size must be positive or 0 : " + nearCacheSize);
+    }
+    if (appendWindow < 0) {
+      throw new IllegalArgumentException("Append window must be positive or 0 : " + appendWindow);
+    }
+    if (appendWindow > 0 && consistency == Consistency.STRONG) {
+      throw new IllegalArgumentException("Append window requires " + Consistency.EVENTUAL + " consistency");
+    }
     this.consistency = consistency;
+    this.segments = segments;
+    this.nearCacheSize = nearCacheSize;
+    this.compactEncoding = compactEncoding;
+    this.appendWindow = appendWindow;
   }
 
   /**
@@ -59,4 +139,40 @@ public class ClusteredStoreConfiguration implements ServiceConfiguration<Cluster
   public Consistency getConsistency() {
     return consistency;
   }
+
+  /**
+   * Returns the number of segments requested for the server store.
+   *
+   * @return the segment count, {@code 0} if left to the server
+   */
+  public int getSegments() {
+    return segments;
+  }
+
+  /**
+   * Returns the maximum number of values held in the near cache.
+   *
+   * @return the near cache size, {@code 0} if disabled
+   */
+  public int getNearCacheSize() {
+    return nearCacheSize;
+  }
+
+  /**
+   * Indicates whether operations are written in the compact encoding.
+   *
+   * @return {@code true} if the compact encoding is used
+   */
+  public boolean isCompactEncoding() {
+    return compactEncoding;
+  }
+
+  /**
+   * Returns the maximum number of puts left unacknowledged by the server.
+   *
+   * @return the append window, {@code 0} if each put waits for its acknowledgement
+   */
+  public int getAppendWindow() {
+    return appendWindow;
+  }
 }
@@ -26,6 +26,10 @@ import org.ehcache.config.Builder;
 public class ClusteredStoreConfigurationBuilder implements Builder<ClusteredStoreConfiguration> {
 
   private final Consistency consistency;
+  private final int segments;
+  private final int nearCacheSize;
+  private final boolean compactEncoding;
+  private final int appendWindow;
 
   /**
    * Creates a new builder instance with the provided {@link Consistency} configured.
@@ -38,7 +42,63 @@ public class ClusteredStoreConfigurationBuilder implements Builder<ClusteredStor
   }
 
   ClusteredStoreConfigurationBuilder(Consistency consistency) {
+    this(consistency, 0, 0, false, 0);
+  }
+
+  private ClusteredStoreConfigurationBuilder(Consistency consistency, int segments, int nearCacheSize, boolean compactEncoding, int appendWindow) {
     this.consistency = consistency;
+    this.segments = segments;
+    this.nearCacheSize = nearCacheSize;
+    this.compactEncoding = compactEncoding;
+    this.appendWindow = appendWindow;
+  }
+
+  /**
+   * Returns a new builder with the number of segments of the server store configured.
+   * <p>
+   * The segment count must be a multiple of the concurrency of the server.
+   *
+   * @param segments the number of segments
+   * @return a new {@code Builder} instance
+   */
+  public ClusteredStoreConfigurationBuilder withSegments(int segments) {
+    return new ClusteredStoreConfigurationBuilder(consistency, segments, nearCacheSize, compactEncoding, appendWindow);
+  }
+
+  /**
+   * Returns a new builder with a client-side near cache holding up to {@code size} resolved values.
+   *
+   * @param size the maximum number of values held, {@code 0} disables the near cache
+   * @return a new {@code Builder} instance
+   */
+  public ClusteredStoreConfigurationBuilder withNearCache(int size) {
+    return new ClusteredStoreConfigurationBuilder(consistency, segments, size, compactEncoding, appendWindow);
+  }
+
+  /**
+   * Returns a new builder writing operations in the compact encoding, with variable length headers and compressed
+   * large values.
+   * <p>
+   * All the clients of a clustered tier must use the same encoding.
+   *
+   * @return a new {@code Builder} instance
+   */
+  public ClusteredStoreConfigurationBuilder withCompactEncoding() {
+    return new ClusteredStoreConfigurationBuilder(consistency, segments, nearCacheSize, true, appendWindow);
+  }
+
+  /**
+   * Returns a new builder letting puts return before the server acknowledged them, with at most {@code window} of
+   * them in flight.
+   * <p>
+   * Only {@link Consistency#EVENTUAL EVENTUAL} stores accept an append window. Pending puts are flushed before the
+   * store is cleared or closed.
+   *
+   * @param window the maximum number of unacknowledged puts, {@code 0} waits for each put
+   * @return a new {@code Builder} instance
+   */
+  public ClusteredStoreConfigurationBuilder withAppendWindow(int window) {
+    return new ClusteredStoreConfigurationBuilder(consistency, segments, nearCacheSize, compactEncoding, window);
   }
 
   /**
@@ -46,6 +106,6 @@ public class ClusteredStoreConfigurationBuilder implements Builder<ClusteredStor
    */
   @Override
   public ClusteredStoreConfiguration build() {
-    return new ClusteredStoreConfiguration(consistency);
+    return new ClusteredStoreConfiguration(consistency, segments, nearCacheSize, compactEncoding, appendWindow);
   }
 }
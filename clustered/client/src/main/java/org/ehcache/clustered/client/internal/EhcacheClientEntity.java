@@ -16,7 +16,9 @@
 
 package org.ehcache.clustered.client.internal;
 
+import org.ehcache.clustered.client.config.ClusteringServiceConfiguration;
 import org.ehcache.clustered.client.config.TimeoutDuration;
+import org.ehcache.clustered.client.internal.config.ExperimentalClusteringServiceConfiguration;
 import org.ehcache.clustered.client.internal.service.ClusteredTierDestructionException;
 import org.ehcache.clustered.client.internal.service.ClusteredTierManagerConfigurationException;
 import org.ehcache.clustered.client.internal.service.ClusteredTierCreationException;
@@ -60,6 +62,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.ServerStoreOp.BATCHED_GET;
+import static org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.ServerStoreOp.ITERATOR_BATCH;
 import static org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.ServerStoreOp.GET;
 import static org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.ServerStoreOp.getServerStoreOp;
 
@@ -220,26 +224,49 @@ public class EhcacheClientEntity implements Entity {
     }
   }
 
-  public void createCache(String name, ServerStoreConfiguration serverStoreConfiguration)
+  /**
+   * Creates a server store and attaches this client to it.
+   *
+   * @return the number of segments the server store is split into, {@code 0} if unknown
+   */
+  public int createCache(String name, ServerStoreConfiguration serverStoreConfiguration)
       throws ClusteredTierCreationException, TimeoutException {
     try {
-      invokeInternal(timeouts.getLifecycleOperationTimeout(), messageFactory.createServerStore(name, serverStoreConfiguration), true);
+      EhcacheEntityResponse response = invokeInternal(timeouts.getLifecycleOperationTimeout(), messageFactory.createServerStore(name, serverStoreConfiguration), true);
       caches.add(name);
+      return segmentCount(response);
     } catch (ClusterException e) {
       throw new ClusteredTierCreationException("Error creating clustered tier '" + name + "'", e);
     }
   }
 
-  public void validateCache(String name, ServerStoreConfiguration serverStoreConfiguration)
+  /**
+   * Attaches this client to an existing server store.
+   *
+   * @return the number of segments the server store is split into, {@code 0} if unknown
+   */
+  public int validateCache(String name, ServerStoreConfiguration serverStoreConfiguration)
       throws ClusteredTierValidationException, TimeoutException {
     try {
-      invokeInternal(timeouts.getLifecycleOperationTimeout(), messageFactory.validateServerStore(name , serverStoreConfiguration), false);
+      EhcacheEntityResponse response = invokeInternal(timeouts.getLifecycleOperationTimeout(), messageFactory.validateServerStore(name , serverStoreConfiguration), false);
       caches.add(name);
+      return segmentCount(response);
     } catch (ClusterException e) {
       throw new ClusteredTierValidationException("Error validating clustered tier '" + name + "'", e);
     }
   }
 
+  /**
+   * Returns the segment count carried by a server store lifecycle response, {@code 0} if there is none.
+   */
+  private static int segmentCount(EhcacheEntityResponse response) {
+    if (response != null && response.getType() == Type.SERVER_STORE_SEGMENTS) {
+      return ((EhcacheEntityResponse.ServerStoreSegments) response).getSegmentCount();
+    } else {
+      return 0;
+    }
+  }
+
   public void releaseCache(String name) throws ClusteredTierReleaseException, TimeoutException {
     try {
       invokeInternal(timeouts.getLifecycleOperationTimeout(), messageFactory.releaseServerStore(name), false);
@@ -283,7 +310,7 @@ public class EhcacheClientEntity implements Entity {
     return invokeInternal(timeLimit, message, replicate);
   }
 
-  private static final Set<ServerStoreOp> GET_STORE_OPS = EnumSet.of(GET);
+  private static final Set<ServerStoreOp> GET_STORE_OPS = EnumSet.of(GET, BATCHED_GET, ITERATOR_BATCH);
 
   private EhcacheEntityResponse invokeInternal(TimeoutDuration timeLimit, EhcacheEntityMessage message, boolean replicate)
       throws ClusterException, TimeoutException {
@@ -371,6 +398,28 @@ public class EhcacheClientEntity implements Entity {
       return new Builder();
     }
 
+    /**
+     * Gets the timeouts configured by the given clustering service configuration, defaulting those it does not set.
+     *
+     * @param configuration the clustering service configuration
+     *
+     * @return a new {@code Timeouts} instance
+     */
+    public static Timeouts of(ClusteringServiceConfiguration configuration) {
+      Builder builder = builder();
+      builder.setReadOperationTimeout(configuration.getReadOperationTimeout());
+      if (configuration instanceof ExperimentalClusteringServiceConfiguration) {
+        ExperimentalClusteringServiceConfiguration experimentalConfiguration = (ExperimentalClusteringServiceConfiguration)configuration;
+        if (experimentalConfiguration.getMutativeOperationTimeout() != null) {
+          builder.setMutativeOperationTimeout(experimentalConfiguration.getMutativeOperationTimeout());
+        }
+        if (experimentalConfiguration.getLifecycleOperationTimeout() != null) {
+          builder.setLifecycleOperationTimeout(experimentalConfiguration.getLifecycleOperationTimeout());
+        }
+      }
+      return builder.build();
+    }
+
     @Override
     public String toString() {
       return "Timeouts{" +
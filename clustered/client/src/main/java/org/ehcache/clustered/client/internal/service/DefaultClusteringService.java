@@ -19,13 +19,13 @@ package org.ehcache.clustered.client.internal.service;
 import org.ehcache.CachePersistenceException;
 import org.ehcache.clustered.client.config.ClusteredResourcePool;
 import org.ehcache.clustered.client.config.ClusteredResourceType;
+import org.ehcache.clustered.client.config.ClusteredStoreConfiguration;
 import org.ehcache.clustered.client.config.ClusteringServiceConfiguration;
 import org.ehcache.clustered.client.internal.EhcacheClientEntity;
 import org.ehcache.clustered.client.internal.EhcacheClientEntityFactory;
 import org.ehcache.clustered.client.internal.EhcacheEntityCreationException;
 import org.ehcache.clustered.client.internal.EhcacheEntityNotFoundException;
 import org.ehcache.clustered.client.internal.EhcacheEntityValidationException;
-import org.ehcache.clustered.client.internal.config.ExperimentalClusteringServiceConfiguration;
 import org.ehcache.clustered.client.internal.store.EventualServerStoreProxy;
 import org.ehcache.clustered.client.internal.store.ServerStoreProxy;
 import org.ehcache.clustered.client.internal.store.StrongServerStoreProxy;
@@ -90,18 +90,7 @@ class DefaultClusteringService implements ClusteringService, EntityService {
     this.clusterUri = extractClusterUri(ehcacheUri);
     this.entityIdentifier = clusterUri.relativize(ehcacheUri).getPath();
 
-    EhcacheClientEntity.Timeouts.Builder timeoutsBuilder = EhcacheClientEntity.Timeouts.builder();
-    timeoutsBuilder.setReadOperationTimeout(configuration.getReadOperationTimeout());
-    if (configuration instanceof ExperimentalClusteringServiceConfiguration) {
-      ExperimentalClusteringServiceConfiguration experimentalConfiguration = (ExperimentalClusteringServiceConfiguration)configuration;
-      if (experimentalConfiguration.getMutativeOperationTimeout() != null) {
-        timeoutsBuilder.setMutativeOperationTimeout(experimentalConfiguration.getMutativeOperationTimeout());
-      }
-      if (experimentalConfiguration.getLifecycleOperationTimeout() != null) {
-        timeoutsBuilder.setLifecycleOperationTimeout(experimentalConfiguration.getLifecycleOperationTimeout());
-      }
-    }
-    this.operationTimeouts = timeoutsBuilder.build();
+    this.operationTimeouts = EhcacheClientEntity.Timeouts.of(configuration);
   }
 
   private static URI extractClusterUri(URI uri) {
@@ -343,11 +332,21 @@ class DefaultClusteringService implements ClusteringService, EntityService {
   public <K, V> ServerStoreProxy getServerStoreProxy(final ClusteredCacheIdentifier cacheIdentifier,
                                                      final Store.Configuration<K, V> storeConfig,
                                                      Consistency configuredConsistency) throws CachePersistenceException {
+    return getServerStoreProxy(cacheIdentifier, storeConfig, new ClusteredStoreConfiguration(configuredConsistency));
+  }
+
+  @Override
+  public <K, V> ServerStoreProxy getServerStoreProxy(final ClusteredCacheIdentifier cacheIdentifier,
+                                                     final Store.Configuration<K, V> storeConfig,
+                                                     ClusteredStoreConfiguration clusteredStoreConfig) throws CachePersistenceException {
     final String cacheId = cacheIdentifier.getId();
 
+    final Consistency configuredConsistency = clusteredStoreConfig.getConsistency();
     if (configuredConsistency == null) {
       throw new NullPointerException("Consistency cannot be null");
     }
+    final int segments = clusteredStoreConfig.getSegments();
+    final boolean compactEncoding = clusteredStoreConfig.isCompactEncoding();
 
     /*
      * This method is expected to be called with exactly ONE ClusteredResourcePool specified.
@@ -374,22 +373,26 @@ class DefaultClusteringService implements ClusteringService, EntityService {
         null, // TODO: Need actual value type -- cache wrappers can wrap key/value types
         (storeConfig.getKeySerializer() == null ? null : storeConfig.getKeySerializer().getClass().getName()),
         (storeConfig.getValueSerializer() == null ? null : storeConfig.getValueSerializer().getClass().getName()),
-        configuredConsistency
+        configuredConsistency,
+        segments,
+        compactEncoding
     );
 
+    // the server store may have been created with a segment count other than the requested one
+    int serverSegments;
     try {
       if (configuration.isAutoCreate()) {
         try {
-          entity.createCache(cacheId, clientStoreConfiguration);
+          serverSegments = entity.createCache(cacheId, clientStoreConfiguration);
         } catch (ClusteredTierCreationException e) {
           // An InvalidStoreException means the cache already exists. That's fine, the validateCache will then work
           if (!(e.getCause() instanceof InvalidStoreException)) {
             throw e;
           }
-          entity.validateCache(cacheId, clientStoreConfiguration);
+          serverSegments = entity.validateCache(cacheId, clientStoreConfiguration);
         }
       } else {
-        entity.validateCache(cacheId, clientStoreConfiguration);
+        serverSegments = entity.validateCache(cacheId, clientStoreConfiguration);
       }
     } catch (ClusteredTierException e) {
       throw new CachePersistenceException("Unable to create clustered tier proxy '" + cacheIdentifier.getId() + "' for entity '" + entityIdentifier + "'", e);
@@ -399,12 +402,12 @@ class DefaultClusteringService implements ClusteringService, EntityService {
           + "'; validate operation timed out", e);
     }
 
-    ServerStoreMessageFactory messageFactory = new ServerStoreMessageFactory(cacheId, entity.getClientId());
+    ServerStoreMessageFactory messageFactory = new ServerStoreMessageFactory(cacheId, entity.getClientId(), compactEncoding);
     switch (configuredConsistency) {
       case STRONG:
-        return new StrongServerStoreProxy(messageFactory, entity);
+        return new StrongServerStoreProxy(messageFactory, entity, serverSegments == 0 ? segments : serverSegments);
       case EVENTUAL:
-        return new EventualServerStoreProxy(messageFactory, entity);
+        return new EventualServerStoreProxy(messageFactory, entity, serverSegments == 0 ? segments : serverSegments);
       default:
         throw new AssertionError("Unknown consistency : " + configuredConsistency);
     }
@@ -0,0 +1,162 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.client.config.TimeoutDuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends appends to a server store without waiting for their acknowledgement, bounding the number in flight.
+ * <p>
+ * Once the window is full, callers wait for the oldest appends to be acknowledged. Pending appends cannot be
+ * attributed to a caller anymore, so their failures are logged. A wait longer than the configured timeout fails with a
+ * {@link TimeoutException}, the append waited for staying in flight.
+ * <p>
+ * Reads are not ordered against pending appends on the server, so a reader must {@link #flush(long) flush} the
+ * hash it is about to read. It would otherwise be able to fetch, and cache, the chain from before its own append.
+ */
+class AppendPipeline {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AppendPipeline.class);
+
+  private final ServerStoreProxy storeProxy;
+  private final int window;
+  private final TimeoutDuration timeout;
+  private final Deque<PendingAppend> inFlight = new ArrayDeque<PendingAppend>();
+  private final Map<Long, Future<Void>> latestByHash = new HashMap<Long, Future<Void>>();
+
+  /**
+   * @param storeProxy the proxy the appends are sent through
+   * @param window the maximum number of unacknowledged appends, concurrent callers may briefly exceed it by one each
+   * @param timeout the longest a caller waits for an append to be acknowledged
+   */
+  AppendPipeline(ServerStoreProxy storeProxy, int window, TimeoutDuration timeout) {
+    if (window <= 0) {
+      throw new IllegalArgumentException("Append window must be positive : " + window);
+    }
+    this.storeProxy = storeProxy;
+    this.window = window;
+    this.timeout = timeout;
+  }
+
+  void append(long hash, ByteBuffer payLoad) throws TimeoutException {
+    awaitInFlight(window - 1);
+    Future<Void> future = storeProxy.appendAsync(hash, payLoad);
+    synchronized (inFlight) {
+      inFlight.addLast(new PendingAppend(hash, future));
+      latestByHash.put(hash, future);
+    }
+  }
+
+  /**
+   * Waits until all the appends sent so far are acknowledged.
+   */
+  void flush() throws TimeoutException {
+    awaitInFlight(0);
+  }
+
+  /**
+   * Waits until all the appends sent so far for the given hash are acknowledged.
+   * <p>
+   * Appends to a hash are applied in order on the server, so this only waits for the latest of them.
+   */
+  void flush(long hash) throws TimeoutException {
+    Future<Void> latest;
+    synchronized (inFlight) {
+      latest = latestByHash.get(hash);
+    }
+    if (latest != null) {
+      await(latest);
+    }
+  }
+
+  int inFlight() {
+    synchronized (inFlight) {
+      return inFlight.size();
+    }
+  }
+
+  private void awaitInFlight(int max) throws TimeoutException {
+    while (true) {
+      PendingAppend oldest;
+      synchronized (inFlight) {
+        while (!inFlight.isEmpty() && inFlight.peekFirst().future.isDone()) {
+          PendingAppend done = inFlight.pollFirst();
+          complete(done, await(done.future));
+        }
+        if (inFlight.size() <= max) {
+          return;
+        }
+        oldest = inFlight.peekFirst();
+      }
+      Throwable failure = await(oldest.future);
+      synchronized (inFlight) {
+        if (inFlight.remove(oldest)) {
+          complete(oldest, failure);
+        }
+      }
+    }
+  }
+
+  private void complete(PendingAppend append, Throwable failure) {
+    if (latestByHash.get(append.hash) == append.future) {
+      latestByHash.remove(append.hash);
+    }
+    if (failure != null) {
+      LOGGER.warn("Append to clustered tier '{}' failed", storeProxy.getCacheId(), failure);
+    }
+  }
+
+  /**
+   * Waits for the given append to be acknowledged.
+   *
+   * @return the failure of the append, {@code null} if it succeeded
+   * @throws TimeoutException if the append is not acknowledged within the timeout
+   */
+  private Throwable await(Future<Void> future) throws TimeoutException {
+    try {
+      future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+
+  private static final class PendingAppend {
+    private final long hash;
+    private final Future<Void> future;
+
+    PendingAppend(long hash, Future<Void> future) {
+      this.hash = hash;
+      this.future = future;
+    }
+  }
+}
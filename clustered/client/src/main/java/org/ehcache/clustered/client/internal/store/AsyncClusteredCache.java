@@ -0,0 +1,82 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.client.internal.store.operations.PutOperation;
+import org.ehcache.clustered.client.internal.store.operations.RemoveOperation;
+import org.ehcache.core.spi.store.StoreAccessException;
+
+import java.util.concurrent.Future;
+
+/**
+ * Non-blocking access to a {@link ClusteredStore}.
+ * <p>
+ * Each operation sends its message to the server before returning, leaving the caller free to issue further
+ * operations while earlier ones are in flight. Failures of an in flight operation are reported through the
+ * {@link java.util.concurrent.ExecutionException} thrown by {@link Future#get()}.
+ * <p>
+ * For a strongly consistent store, mutations of a key block while a previous mutation of the same key is still awaiting
+ * its invalidation, and the returned future completes only once all clients have been invalidated.
+ * <p>
+ * Instances are obtained from the {@link ClusteredStore.Provider} handed to the cache manager, through
+ * {@link ClusteredStore.Provider#async(String, Class, Class)}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class AsyncClusteredCache<K, V> {
+
+  private final ClusteredStore<K, V> store;
+
+  AsyncClusteredCache(ClusteredStore<K, V> store) {
+    this.store = store;
+  }
+
+  /**
+   * Retrieves the value mapped to the given key.
+   *
+   * @param key the key
+   * @return a future of the value, {@code null} if there is no mapping
+   * @throws StoreAccessException if the request cannot be sent
+   */
+  public Future<V> getAsync(K key) throws StoreAccessException {
+    return store.getAsync(key);
+  }
+
+  /**
+   * Maps the given value to the given key.
+   *
+   * @param key the key
+   * @param value the value
+   * @return a future completing once the mapping is installed
+   * @throws StoreAccessException if the request cannot be sent
+   */
+  public Future<Void> putAsync(K key, V value) throws StoreAccessException {
+    return store.appendAsync(new PutOperation<K, V>(key, value, store.currentTimeMillis()));
+  }
+
+  /**
+   * Removes the mapping of the given key.
+   *
+   * @param key the key
+   * @return a future completing once the mapping is removed
+   * @throws StoreAccessException if the request cannot be sent
+   */
+  public Future<Void> removeAsync(K key) throws StoreAccessException {
+    return store.appendAsync(new RemoveOperation<K, V>(key, store.currentTimeMillis()));
+  }
+}
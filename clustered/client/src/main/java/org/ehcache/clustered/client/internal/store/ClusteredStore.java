@@ -20,9 +20,12 @@ import org.ehcache.Cache;
 import org.ehcache.CachePersistenceException;
 import org.ehcache.clustered.client.config.ClusteredResourceType;
 import org.ehcache.clustered.client.config.ClusteredStoreConfiguration;
+import org.ehcache.clustered.client.config.TimeoutDuration;
+import org.ehcache.clustered.client.internal.EhcacheClientEntity;
 import org.ehcache.clustered.client.internal.store.operations.ChainResolver;
 import org.ehcache.clustered.client.internal.store.operations.ConditionalRemoveOperation;
 import org.ehcache.clustered.client.internal.store.operations.ConditionalReplaceOperation;
+import org.ehcache.clustered.client.internal.store.operations.Operation;
 import org.ehcache.clustered.client.internal.store.operations.PutIfAbsentOperation;
 import org.ehcache.clustered.client.internal.store.operations.PutOperation;
 import org.ehcache.clustered.client.internal.store.operations.RemoveOperation;
@@ -31,8 +34,9 @@ import org.ehcache.clustered.client.internal.store.operations.Result;
 import org.ehcache.clustered.client.internal.store.operations.codecs.OperationsCodec;
 import org.ehcache.clustered.client.service.ClusteringService;
 import org.ehcache.clustered.client.service.ClusteringService.ClusteredCacheIdentifier;
-import org.ehcache.clustered.common.Consistency;
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.IteratorBatchResponse;
 import org.ehcache.clustered.common.internal.store.Chain;
+import org.ehcache.clustered.common.internal.store.Element;
 import org.ehcache.config.ResourceType;
 import org.ehcache.core.CacheConfigurationChangeListener;
 import org.ehcache.core.Ehcache;
@@ -67,16 +71,21 @@ import org.terracotta.statistics.StatisticsManager;
 import org.terracotta.statistics.observer.OperationObserver;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import static org.ehcache.core.exceptions.StorePassThroughException.handleRuntimeException;
@@ -89,14 +98,24 @@ import static org.terracotta.statistics.StatisticBuilder.operation;
 public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
 
   private static final String STATISTICS_TAG = "Clustered";
+  private static final int ITERATOR_BATCH_SIZE = 128;
+  private static final NullaryFunction<Boolean> REPLACE_EQUALS_TRUE = new NullaryFunction<Boolean>() {
+    @Override
+    public Boolean apply() {
+      return Boolean.TRUE;
+    }
+  };
   private static final int TIER_HEIGHT = ClusteredResourceType.Types.UNKNOWN.getTierHeight();  //TierHeight is the same for all ClusteredResourceType.Types
 
   private final OperationsCodec<K, V> codec;
   private final ChainResolver<K, V> resolver;
 
   private final TimeSource timeSource;
+  private final NearCache<K, V> nearCache;
+  private final int appendWindow;
 
   private volatile ServerStoreProxy storeProxy;
+  private volatile AppendPipeline appendPipeline;
   private volatile InvalidationValve invalidationValve;
 
   private final OperationObserver<StoreOperationOutcomes.GetOutcome> getObserver;
@@ -111,10 +130,12 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
   private final OperationObserver<AuthoritativeTierOperationOutcomes.GetAndFaultOutcome> getAndFaultObserver;
 
 
-  private ClusteredStore(final OperationsCodec<K, V> codec, final ChainResolver<K, V> resolver, TimeSource timeSource) {
+  private ClusteredStore(final OperationsCodec<K, V> codec, final ChainResolver<K, V> resolver, TimeSource timeSource, int nearCacheSize, int appendWindow) {
     this.codec = codec;
     this.resolver = resolver;
     this.timeSource = timeSource;
+    this.nearCache = new NearCache<K, V>(nearCacheSize, timeSource, codec.getValueSerializer());
+    this.appendWindow = appendWindow;
 
     this.getObserver = operation(StoreOperationOutcomes.GetOutcome.class).of(this).named("get").tag(STATISTICS_TAG).build();
     this.putObserver = operation(StoreOperationOutcomes.PutOutcome.class).of(this).named("put").tag(STATISTICS_TAG).build();
@@ -160,8 +181,51 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
    * For tests
    */
   ClusteredStore(OperationsCodec<K, V> codec, ChainResolver<K, V> resolver, ServerStoreProxy proxy, TimeSource timeSource) {
-    this(codec, resolver, timeSource);
+    this(codec, resolver, proxy, timeSource, 0);
+  }
+
+  /**
+   * For tests
+   */
+  ClusteredStore(OperationsCodec<K, V> codec, ChainResolver<K, V> resolver, ServerStoreProxy proxy, TimeSource timeSource, int nearCacheSize) {
+    this(codec, resolver, proxy, timeSource, nearCacheSize, 0);
+  }
+
+  /**
+   * For tests
+   */
+  ClusteredStore(OperationsCodec<K, V> codec, ChainResolver<K, V> resolver, ServerStoreProxy proxy, TimeSource timeSource, int nearCacheSize, int appendWindow) {
+    this(codec, resolver, timeSource, nearCacheSize, appendWindow);
+    setStoreProxy(proxy, EhcacheClientEntity.Timeouts.builder().build().getMutativeOperationTimeout());
+  }
+
+  /**
+   * @param appendTimeout the longest a put waits for the acknowledgement of the puts sent before it
+   */
+  private void setStoreProxy(ServerStoreProxy proxy, TimeoutDuration appendTimeout) {
     this.storeProxy = proxy;
+    this.appendPipeline = appendWindow == 0 ? null : new AppendPipeline(proxy, appendWindow, appendTimeout);
+  }
+
+  /**
+   * Waits until the puts sent without waiting for their acknowledgement are acknowledged.
+   */
+  void flushAppends() throws TimeoutException {
+    AppendPipeline pipeline = appendPipeline;
+    if (pipeline != null) {
+      pipeline.flush();
+    }
+  }
+
+  /**
+   * Waits until the puts sent for the given hash without waiting for their acknowledgement are acknowledged, so that
+   * a read that follows cannot overtake them.
+   */
+  private void flushAppends(long hash) throws TimeoutException {
+    AppendPipeline pipeline = appendPipeline;
+    if (pipeline != null) {
+      pipeline.flush(hash);
+    }
   }
 
   @Override
@@ -184,28 +248,191 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
   }
 
   private V getInternal(K key) throws StoreAccessException, TimeoutException {
-    V value = null;
+    long hash = key.hashCode();
+    V value = nearCache.get(hash, key);
+    if (value != null) {
+      return value;
+    }
+    flushAppends(hash);
+    Object reservation = nearCache.reserve(hash);
     try {
-      Chain chain = storeProxy.get(key.hashCode());
-      if(!chain.isEmpty()) {
-        ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
-
-        if (resolvedChain.isCompacted()) {
-          Chain compactedChain = resolvedChain.getCompactedChain();
-          storeProxy.replaceAtHead(key.hashCode(), chain, compactedChain);
-        }
-
+      Chain chain = storeProxy.get(hash);
+      if (!chain.isEmpty()) {
+        ResolvedChain<K, V> resolvedChain = resolve(key, chain);
         Result<V> resolvedResult = resolvedChain.getResolvedResult(key);
         if (resolvedResult != null) {
           value = resolvedResult.getValue();
+          nearCache.install(hash, reservation, key, value, resolvedChain.getExpirationTime());
         }
       }
     } catch (RuntimeException re) {
       handleRuntimeException(re);
+    } finally {
+      nearCache.release(hash, reservation);
     }
     return value;
   }
 
+  private V resolveValue(K key, Chain chain) {
+    V value = null;
+    if(!chain.isEmpty()) {
+      Result<V> resolvedResult = resolve(key, chain).getResolvedResult(key);
+      if (resolvedResult != null) {
+        value = resolvedResult.getValue();
+      }
+    }
+    return value;
+  }
+
+  private ResolvedChain<K, V> resolve(K key, Chain chain) {
+    long now = timeSource.getTimeMillis();
+    ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, now);
+    if (resolvedChain.isCompacted()) {
+      Chain compactedChain = resolvedChain.getCompactedChain();
+      storeProxy.replaceAtHead(key.hashCode(), chain, compactedChain, timeToLive(resolvedChain.getCompactedChainExpirationTime(), now));
+    }
+    return resolvedChain;
+  }
+
+  /**
+   * Turns an expiration time of this store's time source into the time to live the server measures against its own
+   * clock.
+   */
+  private static long timeToLive(long expirationTime, long now) {
+    return expirationTime == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0L, expirationTime - now);
+  }
+
+  /**
+   * Resolves every key found in the given chain head and, if that shortens it, asks the server to replace the head
+   * with its compacted form. Only local work is done besides the asynchronous replace, so this is safe to run on the
+   * thread delivering server messages.
+   */
+  void compact(long hash, Chain chain) {
+    Set<K> keys = new LinkedHashSet<K>();
+    for (Element element : chain) {
+      keys.add(codec.decode(element.getPayload()).getKey());
+    }
+    long now = timeSource.getTimeMillis();
+    Chain compacted = chain;
+    long expirationTime = Long.MAX_VALUE;
+    for (K key : keys) {
+      ResolvedChain<K, V> resolvedChain = resolver.resolve(compacted, key, now);
+      if (resolvedChain.isCompacted()) {
+        compacted = resolvedChain.getCompactedChain();
+        expirationTime = resolvedChain.getCompactedChainExpirationTime();
+      }
+    }
+    if (compacted != chain) {
+      storeProxy.replaceAtHead(hash, chain, compacted, timeToLive(expirationTime, now));
+    }
+  }
+
+  /**
+   * Appends to the chain of the given hash, dropping the near cached value for that hash whatever the outcome.
+   */
+  private Chain getAndAppend(long hash, ByteBuffer payload) throws TimeoutException {
+    try {
+      return storeProxy.getAndAppend(hash, payload);
+    } finally {
+      nearCache.invalidate(hash);
+    }
+  }
+
+  Future<V> getAsync(final K key) throws StoreAccessException {
+    try {
+      flushAppends(key.hashCode());
+      return new TransformingFuture<Chain, V>(storeProxy.getAsync(key.hashCode())) {
+        @Override
+        V transform(Chain chain) {
+          return resolveValue(key, chain);
+        }
+      };
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return null;
+    } catch (TimeoutException e) {
+      throw new StoreAccessTimeoutException(e);
+    }
+  }
+
+  Future<Void> appendAsync(Operation<K, V> operation) throws StoreAccessException {
+    try {
+      final long hash = operation.getKey().hashCode();
+      invalidateCached(hash);
+      return new TransformingFuture<Void, Void>(storeProxy.appendAsync(hash, codec.encode(operation))) {
+        @Override
+        Void transform(Void result) throws StoreAccessException {
+          invalidateCached(hash);
+          return result;
+        }
+
+        @Override
+        void onFailure(Throwable cause) {
+          nearCache.invalidate(hash);
+        }
+      };
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return null;
+    }
+  }
+
+  /**
+   * Drops the values cached for the given hash by the near cache and, when this store is an authoritative tier, by the
+   * caching tier above it. Asynchronous mutations do not go through that caching tier.
+   */
+  private void invalidateCached(long hash) throws StoreAccessException {
+    nearCache.invalidate(hash);
+    InvalidationValve valve = invalidationValve;
+    if (valve != null) {
+      valve.invalidateAllWithHash(hash);
+    }
+  }
+
+  long currentTimeMillis() {
+    return timeSource.getTimeMillis();
+  }
+
+  /**
+   * Appends the given operations in as few round-trips as possible and resolves, for each key whose chain came back,
+   * the result it had before the append. Chains shortened by the resolution are compacted as for single key operations.
+   *
+   * @return the previous result of each appended key, mapped to {@code null} when the key had no value
+   */
+  private Map<K, Result<V>> silentBulkAppend(List<? extends Operation<K, V>> operations) throws StoreAccessException {
+    try {
+      long[] hashes = new long[operations.size()];
+      List<ByteBuffer> payloads = new ArrayList<ByteBuffer>(operations.size());
+      for (int i = 0; i < hashes.length; i++) {
+        Operation<K, V> operation = operations.get(i);
+        hashes[i] = operation.getKey().hashCode();
+        payloads.add(codec.encode(operation));
+      }
+      List<Chain> chains;
+      try {
+        chains = storeProxy.bulkGetAndAppend(hashes, payloads);
+      } finally {
+        for (long hash : hashes) {
+          nearCache.invalidate(hash);
+        }
+      }
+      Map<K, Result<V>> results = new HashMap<K, Result<V>>();
+      for (int i = 0; i < hashes.length; i++) {
+        Chain chain = chains.get(i);
+        if (chain != null) {
+          K key = operations.get(i).getKey();
+          results.put(key, resolve(key, chain).getResolvedResult(key));
+        }
+      }
+      return results;
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return Collections.emptyMap();
+    } catch (TimeoutException e) {
+      throw new StoreAccessTimeoutException(e);
+    }
+  }
+
   @Override
   public boolean containsKey(final K key) throws StoreAccessException {
     try {
@@ -239,7 +466,17 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     try {
       PutOperation<K, V> operation = new PutOperation<K, V>(key, value, timeSource.getTimeMillis());
       ByteBuffer payload = codec.encode(operation);
-      Chain chain = storeProxy.getAndAppend(key.hashCode(), payload);
+      AppendPipeline pipeline = appendPipeline;
+      if (pipeline != null) {
+        // the previous value is not fetched, so every pipelined put counts as a put
+        try {
+          pipeline.append(key.hashCode(), payload);
+        } finally {
+          nearCache.invalidate(key.hashCode());
+        }
+        return PutStatus.PUT;
+      }
+      Chain chain = getAndAppend(key.hashCode(), payload);
       ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
       if(resolvedChain.getResolvedResult(key) == null) {
         return PutStatus.PUT;
@@ -260,7 +497,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     try {
       PutIfAbsentOperation<K, V> operation = new PutIfAbsentOperation<K, V>(key, value, timeSource.getTimeMillis());
       ByteBuffer payload = codec.encode(operation);
-      Chain chain = storeProxy.getAndAppend(key.hashCode(), payload);
+      Chain chain = getAndAppend(key.hashCode(), payload);
       ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
       Result<V> result = resolvedChain.getResolvedResult(key);
       if(result == null) {
@@ -294,7 +531,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     try {
       RemoveOperation<K, V> operation = new RemoveOperation<K, V>(key, timeSource.getTimeMillis());
       ByteBuffer payload = codec.encode(operation);
-      Chain chain = storeProxy.getAndAppend(key.hashCode(), payload);
+      Chain chain = getAndAppend(key.hashCode(), payload);
       ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
       if(resolvedChain.getResolvedResult(key) != null) {
         return true;
@@ -315,7 +552,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     try {
       ConditionalRemoveOperation<K, V> operation = new ConditionalRemoveOperation<K, V>(key, value, timeSource.getTimeMillis());
       ByteBuffer payload = codec.encode(operation);
-      Chain chain = storeProxy.getAndAppend(key.hashCode(), payload);
+      Chain chain = getAndAppend(key.hashCode(), payload);
       ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
       Result<V> result = resolvedChain.getResolvedResult(key);
       if(result != null) {
@@ -344,7 +581,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     try {
       ReplaceOperation<K, V> operation = new ReplaceOperation<K, V>(key, value, timeSource.getTimeMillis());
       ByteBuffer payload = codec.encode(operation);
-      Chain chain = storeProxy.getAndAppend(key.hashCode(), payload);
+      Chain chain = getAndAppend(key.hashCode(), payload);
       ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
       Result<V> result = resolvedChain.getResolvedResult(key);
       if(result == null) {
@@ -368,7 +605,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     try {
       ConditionalReplaceOperation<K, V> operation = new ConditionalReplaceOperation<K, V>(key, oldValue, newValue, timeSource.getTimeMillis());
       ByteBuffer payload = codec.encode(operation);
-      Chain chain = storeProxy.getAndAppend(key.hashCode(), payload);
+      Chain chain = getAndAppend(key.hashCode(), payload);
       ResolvedChain<K, V> resolvedChain = resolver.resolve(chain, key, timeSource.getTimeMillis());
       Result<V> result = resolvedChain.getResolvedResult(key);
       if(result != null) {
@@ -394,11 +631,14 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
   @Override
   public void clear() throws StoreAccessException {
     try {
+      flushAppends();
       storeProxy.clear();
     } catch (RuntimeException re) {
       handleRuntimeException(re);
     } catch (TimeoutException e) {
       throw new StoreAccessTimeoutException(e);
+    } finally {
+      nearCache.invalidateAll();
     }
   }
 
@@ -410,29 +650,177 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
 
   @Override
   public Iterator<Cache.Entry<K, ValueHolder<V>>> iterator() {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    return new ClusteredStoreIterator();
+  }
+
+  /**
+   * Walks the server store segment by segment, fetching at most {@link #ITERATOR_BATCH_SIZE} chains per round-trip.
+   * <p>
+   * The iteration is weakly consistent: concurrent mutations may or may not be observed, and a segment resized by
+   * the server between two batches may cause some of its mappings to be returned twice or skipped.
+   */
+  private class ClusteredStoreIterator implements Iterator<Cache.Entry<K, ValueHolder<V>>> {
+
+    private final Deque<Cache.Entry<K, ValueHolder<V>>> batch = new ArrayDeque<Cache.Entry<K, ValueHolder<V>>>();
+    private int segment = 0;
+    private int cursor = 0;
+    private StoreAccessException failure;
+
+    @Override
+    public boolean hasNext() {
+      while (batch.isEmpty() && failure == null && segment != IteratorBatchResponse.ITERATION_COMPLETE) {
+        try {
+          fetchBatch();
+        } catch (StoreAccessException e) {
+          failure = e;
+        }
+      }
+      return !batch.isEmpty() || failure != null;
+    }
+
+    @Override
+    public Cache.Entry<K, ValueHolder<V>> next() throws StoreAccessException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (batch.isEmpty()) {
+        StoreAccessException e = failure;
+        failure = null;
+        segment = IteratorBatchResponse.ITERATION_COMPLETE;
+        throw e;
+      }
+      return batch.poll();
+    }
+
+    private void fetchBatch() throws StoreAccessException {
+      IteratorBatchResponse response;
+      try {
+        response = storeProxy.iteratorBatch(segment, cursor, ITERATOR_BATCH_SIZE);
+      } catch (TimeoutException e) {
+        throw new StoreAccessTimeoutException(e);
+      } catch (RuntimeException re) {
+        handleRuntimeException(re);
+        return;
+      }
+
+      List<Chain> chains = response.getChains();
+      long now = timeSource.getTimeMillis();
+      for (Chain chain : chains) {
+        if (chain.isEmpty()) {
+          continue;
+        }
+        Set<K> chainKeys = new LinkedHashSet<K>();
+        for (Element element : chain) {
+          chainKeys.add(codec.decode(element.getPayload()).getKey());
+        }
+        for (K key : chainKeys) {
+          Result<V> result = resolver.resolve(chain, key, now).getResolvedResult(key);
+          if (result != null) {
+            batch.add(entry(key, new ClusteredValueHolder<V>(result.getValue())));
+          }
+        }
+      }
+
+      segment = response.getNextSegment();
+      cursor = response.getNextCursor();
+    }
+  }
+
+  private static <K, V> Cache.Entry<K, ValueHolder<V>> entry(final K key, final ValueHolder<V> value) {
+    return new Cache.Entry<K, ValueHolder<V>>() {
+      @Override
+      public K getKey() {
+        return key;
+      }
+
+      @Override
+      public ValueHolder<V> getValue() {
+        return value;
+      }
+    };
   }
 
   @Override
   public ValueHolder<V> compute(final K key, final BiFunction<? super K, ? super V, ? extends V> mappingFunction)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    return compute(key, mappingFunction, REPLACE_EQUALS_TRUE);
   }
 
+  /**
+   * Computes optimistically: the mapping function is applied to the current value and the outcome is appended as a
+   * conditional operation, which the chain resolver applies only if the value is still the one the function saw.
+   * When a concurrent write got there first the function is applied again to the value that write left, until the
+   * conditional operation wins.
+   */
   @Override
   public ValueHolder<V> compute(final K key, final BiFunction<? super K, ? super V, ? extends V> mappingFunction, final NullaryFunction<Boolean> replaceEqual)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    try {
+      V oldValue = getInternal(key);
+      while (true) {
+        V newValue = mappingFunction.apply(key, oldValue);
+        Operation<K, V> operation;
+        if (oldValue == null) {
+          if (newValue == null) {
+            return null;
+          }
+          operation = new PutIfAbsentOperation<K, V>(key, newValue, timeSource.getTimeMillis());
+        } else if (newValue == null) {
+          operation = new ConditionalRemoveOperation<K, V>(key, oldValue, timeSource.getTimeMillis());
+        } else if (newValue.equals(oldValue) && !replaceEqual.apply()) {
+          return new ClusteredValueHolder<V>(oldValue);
+        } else {
+          operation = new ConditionalReplaceOperation<K, V>(key, oldValue, newValue, timeSource.getTimeMillis());
+        }
+
+        Chain chain = getAndAppend(key.hashCode(), codec.encode(operation));
+        Result<V> previous = resolver.resolve(chain, key, timeSource.getTimeMillis()).getResolvedResult(key);
+        V previousValue = previous == null ? null : previous.getValue();
+        if (oldValue == null ? previousValue == null : oldValue.equals(previousValue)) {
+          return newValue == null ? null : new ClusteredValueHolder<V>(newValue);
+        }
+        oldValue = previousValue;
+      }
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return null;
+    } catch (TimeoutException e) {
+      throw new StoreAccessTimeoutException(e);
+    }
   }
 
+  /**
+   * A hit costs a single read. On a miss the mapping function runs locally and its value is appended as a
+   * {@link PutIfAbsentOperation}; the chain fetched back with the append tells whether a concurrent installer won, in
+   * which case its value is returned instead.
+   */
   @Override
   public ValueHolder<V> computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    try {
+      V value = getInternal(key);
+      if (value != null) {
+        return new ClusteredValueHolder<V>(value);
+      }
+
+      V newValue = mappingFunction.apply(key);
+      if (newValue == null) {
+        return null;
+      }
+      PutIfAbsentOperation<K, V> operation = new PutIfAbsentOperation<K, V>(key, newValue, timeSource.getTimeMillis());
+      Chain chain = getAndAppend(key.hashCode(), codec.encode(operation));
+      Result<V> previous = resolver.resolve(chain, key, timeSource.getTimeMillis()).getResolvedResult(key);
+      if (previous == null) {
+        return new ClusteredValueHolder<V>(newValue);
+      } else {
+        return new ClusteredValueHolder<V>(previous.getValue());
+      }
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return null;
+    } catch (TimeoutException e) {
+      throw new StoreAccessTimeoutException(e);
+    }
   }
 
   /**
@@ -445,18 +833,27 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     if(remappingFunction instanceof Ehcache.PutAllFunction) {
       Ehcache.PutAllFunction<K, V> putAllFunction = (Ehcache.PutAllFunction<K, V>)remappingFunction;
       Map<K, V> entriesToRemap = putAllFunction.getEntriesToRemap();
+      List<PutOperation<K, V>> operations = new ArrayList<PutOperation<K, V>>(entriesToRemap.size());
+      long now = timeSource.getTimeMillis();
       for(Map.Entry<K, V> entry: entriesToRemap.entrySet()) {
-        PutStatus putStatus = silentPut(entry.getKey(), entry.getValue());
-        if(putStatus == PutStatus.PUT || putStatus == PutStatus.UPDATE) {
+        operations.add(new PutOperation<K, V>(entry.getKey(), entry.getValue(), now));
+      }
+      Map<K, Result<V>> appended = silentBulkAppend(operations);
+      for (PutOperation<K, V> operation : operations) {
+        if (appended.containsKey(operation.getKey())) {
           putAllFunction.getActualPutCount().incrementAndGet();
-          valueHolderMap.put(entry.getKey(), new ClusteredValueHolder<V>(entry.getValue()));
+          valueHolderMap.put(operation.getKey(), new ClusteredValueHolder<V>(operation.getValue()));
         }
       }
     } else if(remappingFunction instanceof Ehcache.RemoveAllFunction) {
       Ehcache.RemoveAllFunction<K, V> removeAllFunction = (Ehcache.RemoveAllFunction<K, V>)remappingFunction;
+      List<RemoveOperation<K, V>> operations = new ArrayList<RemoveOperation<K, V>>(keys.size());
+      long now = timeSource.getTimeMillis();
       for (K key : keys) {
-        boolean removed = silentRemove(key);
-        if(removed) {
+        operations.add(new RemoveOperation<K, V>(key, now));
+      }
+      for (Result<V> previous : silentBulkAppend(operations).values()) {
+        if(previous != null) {
           removeAllFunction.getActualRemoveCount().incrementAndGet();
         }
       }
@@ -469,8 +866,22 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
   @Override
   public Map<K, ValueHolder<V>> bulkCompute(final Set<? extends K> keys, final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction, final NullaryFunction<Boolean> replaceEqual)
       throws StoreAccessException {
-    // TODO: Make appropriate ServerStoreProxy call
-    throw new UnsupportedOperationException("Implement me");
+    if (remappingFunction instanceof Ehcache.PutAllFunction || remappingFunction instanceof Ehcache.RemoveAllFunction) {
+      return bulkCompute(keys, remappingFunction);
+    }
+
+    Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    for (K key : keys) {
+      ValueHolder<V> newValue = compute(key, new BiFunction<K, V, V>() {
+        @Override
+        public V apply(K k, V oldValue) {
+          Set<Map.Entry<K, V>> entrySet = Collections.singletonMap(k, oldValue).entrySet();
+          return remappingFunction.apply(entrySet).iterator().next().getValue();
+        }
+      }, replaceEqual);
+      result.put(key, newValue);
+    }
+    return result;
   }
 
   /**
@@ -481,13 +892,32 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
       throws StoreAccessException {
     if(mappingFunction instanceof Ehcache.GetAllFunction) {
       Map<K, ValueHolder<V>> map  = new HashMap<K, ValueHolder<V>>();
-      for (K key : keys) {
-        V value;
-        try {
-          value = getInternal(key);
-        } catch (TimeoutException e) {
-          // This timeout handling is safe **only** in the context of a get/read operation!
-          value = null;
+      List<K> keyList = new ArrayList<K>(keys);
+      long[] hashes = new long[keyList.size()];
+      for (int i = 0; i < hashes.length; i++) {
+        hashes[i] = keyList.get(i).hashCode();
+      }
+      List<Chain> chains = null;
+      try {
+        for (long hash : hashes) {
+          flushAppends(hash);
+        }
+        chains = storeProxy.bulkGet(hashes);
+      } catch (TimeoutException e) {
+        // This timeout handling is safe **only** in the context of a get/read operation!
+        chains = null;
+      } catch (RuntimeException re) {
+        handleRuntimeException(re);
+      }
+      for (int i = 0; i < hashes.length; i++) {
+        K key = keyList.get(i);
+        V value = null;
+        if (chains != null) {
+          try {
+            value = resolveValue(key, chains.get(i));
+          } catch (RuntimeException re) {
+            handleRuntimeException(re);
+          }
         }
         ValueHolder<V> holder = null;
         if(value != null) {
@@ -564,6 +994,37 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
     private final Map<Store<?, ?>, StoreConfig> createdStores = new ConcurrentWeakIdentityHashMap<Store<?, ?>, StoreConfig>();
     private final Map<ClusteredStore<?, ?>, Collection<TierOperationStatistic<?, ?>>> tierOperationStatistics = new ConcurrentWeakIdentityHashMap<ClusteredStore<?, ?>, Collection<TierOperationStatistic<?, ?>>>();
 
+    /**
+     * Returns a non-blocking view of the clustered tier of the given cache.
+     * <p>
+     * Only the caches of the cache manager this provider was handed to, through
+     * {@code CacheManagerBuilder.using(Service)}, can be found.
+     *
+     * @param alias the alias of the cache
+     * @param keyType the key type of the cache
+     * @param valueType the value type of the cache
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return an {@link AsyncClusteredCache} backed by the clustered tier of the cache
+     * @throws IllegalArgumentException if this provider has no clustered tier for that cache, or one of other types
+     */
+    public <K, V> AsyncClusteredCache<K, V> async(String alias, Class<K> keyType, Class<V> valueType) {
+      for (Map.Entry<Store<?, ?>, StoreConfig> entry : createdStores.entrySet()) {
+        StoreConfig storeConfig = entry.getValue();
+        if (storeConfig.getCacheIdentifier().getId().equals(alias)) {
+          Configuration<?, ?> configuration = storeConfig.getStoreConfig();
+          if (!keyType.equals(configuration.getKeyType()) || !valueType.equals(configuration.getValueType())) {
+            throw new IllegalArgumentException("Clustered tier '" + alias + "' maps " + configuration.getKeyType().getName()
+                + " to " + configuration.getValueType().getName() + ", not " + keyType.getName() + " to " + valueType.getName());
+          }
+          @SuppressWarnings("unchecked")
+          ClusteredStore<K, V> store = (ClusteredStore<K, V>) entry.getKey();
+          return new AsyncClusteredCache<K, V>(store);
+        }
+      }
+      throw new IllegalArgumentException("No clustered tier for cache '" + alias + "'");
+    }
+
     @Override
     public <K, V> ClusteredStore<K, V> createStore(final Configuration<K, V> storeConfig, final ServiceConfiguration<?>... serviceConfigs) {
       ClusteredStore<K, V> store = createStoreInternal(storeConfig, serviceConfigs);
@@ -619,13 +1080,15 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
 
       TimeSource timeSource = serviceProvider.getService(TimeSourceService.class).getTimeSource();
 
-      OperationsCodec<K, V> codec = new OperationsCodec<K, V>(storeConfig.getKeySerializer(), storeConfig.getValueSerializer());
+      OperationsCodec<K, V> codec = new OperationsCodec<K, V>(storeConfig.getKeySerializer(), storeConfig.getValueSerializer(),
+          clusteredStoreConfiguration.isCompactEncoding());
       ChainResolver<K, V> resolver = new ChainResolver<K, V>(codec, storeConfig.getExpiry());
 
 
-      ClusteredStore<K, V> store = new ClusteredStore<K, V>(codec, resolver, timeSource);
+      ClusteredStore<K, V> store = new ClusteredStore<K, V>(codec, resolver, timeSource, clusteredStoreConfiguration.getNearCacheSize(),
+          clusteredStoreConfiguration.getAppendWindow());
 
-      createdStores.put(store, new StoreConfig(cacheId, storeConfig, clusteredStoreConfiguration.getConsistency()));
+      createdStores.put(store, new StoreConfig(cacheId, storeConfig, clusteredStoreConfiguration));
       return store;
     }
 
@@ -635,7 +1098,13 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
         throw new IllegalArgumentException("Given clustered tier is not managed by this provider : " + resource);
       }
       ClusteredStore clusteredStore = (ClusteredStore)resource;
-      this.clusteringService.releaseServerStoreProxy(clusteredStore.storeProxy);
+      try {
+        clusteredStore.flushAppends();
+      } catch (TimeoutException e) {
+        LOGGER.warn("Puts to clustered tier '{}' were not acknowledged before its release", clusteredStore.storeProxy.getCacheId(), e);
+      } finally {
+        this.clusteringService.releaseServerStoreProxy(clusteredStore.storeProxy);
+      }
       StatisticsManager.nodeFor(clusteredStore).clean();
       tierOperationStatistics.remove(clusteredStore);
     }
@@ -649,7 +1118,9 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
       final ClusteredStore clusteredStore = (ClusteredStore) resource;
       ClusteredCacheIdentifier cacheIdentifier = storeConfig.getCacheIdentifier();
       try {
-        clusteredStore.storeProxy = clusteringService.getServerStoreProxy(cacheIdentifier, storeConfig.getStoreConfig(), storeConfig.getConsistency());
+        clusteredStore.setStoreProxy(clusteringService.getServerStoreProxy(cacheIdentifier, storeConfig.getStoreConfig(),
+            storeConfig.getClusteredStoreConfig()),
+            EhcacheClientEntity.Timeouts.of(clusteringService.getConfiguration()).getMutativeOperationTimeout());
       } catch (CachePersistenceException e) {
         throw new RuntimeException("Unable to create clustered tier proxy - " + cacheIdentifier, e);
       }
@@ -678,6 +1149,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
       clusteredStore.storeProxy.addInvalidationListener(new ServerStoreProxy.InvalidationListener() {
         @Override
         public void onInvalidateHash(long hash) {
+          clusteredStore.nearCache.invalidate(hash);
           Enum result = StoreOperationOutcomes.EvictionOutcome.SUCCESS;
           clusteredStore.evictionObserver.begin();
           if (clusteredStore.invalidationValve != null) {
@@ -695,6 +1167,7 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
 
         @Override
         public void onInvalidateAll() {
+          clusteredStore.nearCache.invalidateAll();
           if (clusteredStore.invalidationValve != null) {
             try {
               LOGGER.debug("CLIENT: calling invalidation valve for all");
@@ -706,6 +1179,17 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
           }
         }
       });
+
+      clusteredStore.storeProxy.addCompactionListener(new ServerStoreProxy.ChainCompactionListener() {
+        @Override
+        public void onCompactionRequest(long hash, Chain chain) {
+          try {
+            clusteredStore.compact(hash, chain);
+          } catch (RuntimeException re) {
+            LOGGER.warn("Error compacting chain of hash {}", hash, re);
+          }
+        }
+      });
     }
 
     @Override
@@ -774,12 +1258,12 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
 
     private final ClusteredCacheIdentifier cacheIdentifier;
     private final Store.Configuration storeConfig;
-    private final Consistency consistency;
+    private final ClusteredStoreConfiguration clusteredStoreConfig;
 
-    StoreConfig(ClusteredCacheIdentifier cacheIdentifier, Configuration storeConfig, Consistency consistency) {
+    StoreConfig(ClusteredCacheIdentifier cacheIdentifier, Configuration storeConfig, ClusteredStoreConfiguration clusteredStoreConfig) {
       this.cacheIdentifier = cacheIdentifier;
       this.storeConfig = storeConfig;
-      this.consistency = consistency;
+      this.clusteredStoreConfig = clusteredStoreConfig;
     }
 
     public Configuration getStoreConfig() {
@@ -790,8 +1274,8 @@ public class ClusteredStore<K, V> implements AuthoritativeTier<K, V> {
       return this.cacheIdentifier;
     }
 
-    public Consistency getConsistency() {
-      return consistency;
+    public ClusteredStoreConfiguration getClusteredStoreConfig() {
+      return clusteredStoreConfig;
     }
   }
 }
@@ -18,6 +18,7 @@ package org.ehcache.clustered.client.internal.store;
 import org.ehcache.clustered.client.internal.EhcacheClientEntity;
 import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse;
 import org.ehcache.clustered.common.internal.messages.ServerStoreMessageFactory;
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.IteratorBatchResponse;
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -38,7 +40,11 @@ public class EventualServerStoreProxy implements ServerStoreProxy {
   private final List<InvalidationListener> invalidationListeners = new CopyOnWriteArrayList<InvalidationListener>();
 
   public EventualServerStoreProxy(final ServerStoreMessageFactory messageFactory, final EhcacheClientEntity entity) {
-    this.delegate = new NoInvalidationServerStoreProxy(messageFactory, entity);
+    this(messageFactory, entity, 0);
+  }
+
+  public EventualServerStoreProxy(final ServerStoreMessageFactory messageFactory, final EhcacheClientEntity entity, int segments) {
+    this.delegate = new NoInvalidationServerStoreProxy(messageFactory, entity, segments);
     entity.addResponseListener(EhcacheEntityResponse.ServerInvalidateHash.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.ServerInvalidateHash>() {
       @Override
       public void onResponse(EhcacheEntityResponse.ServerInvalidateHash response) {
@@ -70,6 +76,25 @@ public class EventualServerStoreProxy implements ServerStoreProxy {
         }
       }
     });
+    entity.addResponseListener(EhcacheEntityResponse.ClientInvalidateHashes.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.ClientInvalidateHashes>() {
+      @Override
+      public void onResponse(EhcacheEntityResponse.ClientInvalidateHashes response) {
+        final String cacheId = response.getCacheId();
+        final long[] keys = response.getKeys();
+        final int invalidationId = response.getInvalidationId();
+
+        if (cacheId.equals(messageFactory.getCacheId())) {
+          LOGGER.debug("CLIENT: doing work to invalidate {} hashes from cache {} (ID {})", keys.length, cacheId, invalidationId);
+          for (long key : keys) {
+            for (InvalidationListener listener : invalidationListeners) {
+              listener.onInvalidateHash(key);
+            }
+          }
+        } else {
+          LOGGER.debug("CLIENT: on cache {}, ignoring invalidation on unrelated cache : {}", messageFactory.getCacheId(), response.getCacheId());
+        }
+      }
+    });
     entity.addResponseListener(EhcacheEntityResponse.ClientInvalidateAll.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.ClientInvalidateAll>() {
       @Override
       public void onResponse(EhcacheEntityResponse.ClientInvalidateAll response) {
@@ -103,6 +128,11 @@ public class EventualServerStoreProxy implements ServerStoreProxy {
     return invalidationListeners.remove(listener);
   }
 
+  @Override
+  public void addCompactionListener(ChainCompactionListener listener) {
+    delegate.addCompactionListener(listener);
+  }
+
   @Override
   public Chain get(long key) throws TimeoutException {
     return delegate.get(key);
@@ -118,11 +148,46 @@ public class EventualServerStoreProxy implements ServerStoreProxy {
     return delegate.getAndAppend(key, payLoad);
   }
 
+  @Override
+  public List<Chain> bulkGet(long[] keys) throws TimeoutException {
+    return delegate.bulkGet(keys);
+  }
+
+  @Override
+  public List<Chain> bulkGetAndAppend(long[] keys, List<ByteBuffer> payLoads) throws TimeoutException {
+    return delegate.bulkGetAndAppend(keys, payLoads);
+  }
+
+  @Override
+  public IteratorBatchResponse iteratorBatch(int segment, int cursor, int batchSize) throws TimeoutException {
+    return delegate.iteratorBatch(segment, cursor, batchSize);
+  }
+
+  @Override
+  public Future<Chain> getAsync(long key) {
+    return delegate.getAsync(key);
+  }
+
+  @Override
+  public Future<Void> appendAsync(long key, ByteBuffer payLoad) {
+    return delegate.appendAsync(key, payLoad);
+  }
+
+  @Override
+  public Future<Chain> getAndAppendAsync(long key, ByteBuffer payLoad) {
+    return delegate.getAndAppendAsync(key, payLoad);
+  }
+
   @Override
   public void replaceAtHead(long key, Chain expect, Chain update) {
     delegate.replaceAtHead(key, expect, update);
   }
 
+  @Override
+  public void replaceAtHead(long key, Chain expect, Chain update, long timeToLive) {
+    delegate.replaceAtHead(key, expect, update, timeToLive);
+  }
+
   @Override
   public void clear() throws TimeoutException {
     delegate.clear();
@@ -0,0 +1,170 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.core.spi.time.TimeSource;
+import org.ehcache.spi.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded, client-side cache of resolved values, keyed by the key hash used on the server.
+ * <p>
+ * Entries are only ever dropped, never updated in place: the store invalidates a hash after each of its own
+ * mutations and the server invalidations of other clients are routed here through the store's invalidation
+ * listener.
+ * <p>
+ * Values are held in their serialized form and deserialized on each {@link #get(long, Object) get}, so that like
+ * every other read of a clustered store each caller gets its own copy.
+ * <p>
+ * A reader has to {@link #reserve(long) reserve} a hash before fetching its chain from the server and can only
+ * {@link #install(long, Object, Object, Object, long) install} the resolved value if the reservation survived the
+ * round-trip. Any invalidation in between drops the reservation, so a value fetched before a concurrent mutation
+ * can never be installed after it.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+class NearCache<K, V> {
+
+  private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+  private final int capacity;
+  private final TimeSource timeSource;
+  private final Serializer<V> valueSerializer;
+  private final ConcurrentMap<Long, Object> entries;
+
+  /**
+   * Creates a near cache holding up to {@code capacity} values, a capacity of {@code 0} disables it.
+   *
+   * @param capacity the maximum number of values held
+   * @param timeSource the time source used to check expiry
+   * @param valueSerializer the serializer of the values held
+   */
+  NearCache(int capacity, TimeSource timeSource, Serializer<V> valueSerializer) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Near cache capacity must be positive or 0 : " + capacity);
+    }
+    this.capacity = capacity;
+    this.timeSource = timeSource;
+    this.valueSerializer = valueSerializer;
+    this.entries = capacity == 0 ? null : new ConcurrentHashMap<Long, Object>();
+  }
+
+  boolean isEnabled() {
+    return entries != null;
+  }
+
+  /**
+   * Returns a copy of the value held for the given key, or {@code null} if there is none, it expired or cannot be
+   * deserialized.
+   */
+  V get(long hash, K key) {
+    if (entries == null) {
+      return null;
+    }
+    Object held = entries.get(hash);
+    if (held instanceof Entry) {
+      @SuppressWarnings("unchecked")
+      Entry<K> entry = (Entry<K>) held;
+      if (entry.key.equals(key)) {
+        if (entry.expirationTime == NO_EXPIRY || timeSource.getTimeMillis() < entry.expirationTime) {
+          try {
+            return valueSerializer.read(entry.binaryValue.duplicate());
+          } catch (ClassNotFoundException e) {
+            // dropped below, the caller reads through to the server
+          }
+        }
+        entries.remove(hash, entry);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reserves the given hash ahead of a fetch from the server.
+   *
+   * @return the reservation to pass to {@link #install(long, Object, Object, Object, long)} and {@link #release(long, Object)}
+   */
+  Object reserve(long hash) {
+    if (entries == null) {
+      return null;
+    }
+    Object reservation = new Object();
+    if (entries.put(hash, reservation) == null && entries.size() > capacity) {
+      evictOtherThan(hash);
+    }
+    return reservation;
+  }
+
+  /**
+   * Installs a resolved value if the reservation is still in place.
+   *
+   * @param expirationTime the time at which the value expires, {@link Long#MIN_VALUE} if it never does
+   */
+  void install(long hash, Object reservation, K key, V value, long expirationTime) {
+    if (entries != null && reservation != null) {
+      entries.replace(hash, reservation, new Entry<K>(key, valueSerializer.serialize(value), expirationTime));
+    }
+  }
+
+  /**
+   * Drops the reservation if it was not used.
+   */
+  void release(long hash, Object reservation) {
+    if (entries != null && reservation != null) {
+      entries.remove(hash, reservation);
+    }
+  }
+
+  void invalidate(long hash) {
+    if (entries != null) {
+      entries.remove(hash);
+    }
+  }
+
+  void invalidateAll() {
+    if (entries != null) {
+      entries.clear();
+    }
+  }
+
+  private void evictOtherThan(long hash) {
+    Iterator<Long> hashes = entries.keySet().iterator();
+    while (hashes.hasNext()) {
+      if (hashes.next() != hash) {
+        hashes.remove();
+        return;
+      }
+    }
+  }
+
+  private static final class Entry<K> {
+    private final K key;
+    private final ByteBuffer binaryValue;
+    private final long expirationTime;
+
+    Entry(K key, ByteBuffer binaryValue, long expirationTime) {
+      this.key = key;
+      this.binaryValue = binaryValue;
+      this.expirationTime = expirationTime;
+    }
+  }
+}
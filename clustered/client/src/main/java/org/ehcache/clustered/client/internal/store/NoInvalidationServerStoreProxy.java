@@ -17,11 +17,22 @@
 package org.ehcache.clustered.client.internal.store;
 
 import org.ehcache.clustered.client.internal.EhcacheClientEntity;
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityMessage;
 import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse;
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.IteratorBatchResponse;
 import org.ehcache.clustered.common.internal.messages.ServerStoreMessageFactory;
 import org.ehcache.clustered.common.internal.store.Chain;
+import org.ehcache.clustered.common.internal.store.KeySegments;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.entity.InvokeFuture;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -29,12 +40,41 @@ import java.util.concurrent.TimeoutException;
  */
 class NoInvalidationServerStoreProxy implements ServerStoreProxy {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(NoInvalidationServerStoreProxy.class);
+
+  /**
+   * Upper bound on the number of keys sent in a single batched message.
+   */
+  static final int MAX_BATCH_SIZE = 256;
+
   private final ServerStoreMessageFactory messageFactory;
   private final EhcacheClientEntity entity;
+  private final int segments;
+  private final List<ChainCompactionListener> compactionListeners = new CopyOnWriteArrayList<ChainCompactionListener>();
 
   NoInvalidationServerStoreProxy(ServerStoreMessageFactory messageFactory, final EhcacheClientEntity entity) {
+    this(messageFactory, entity, 0);
+  }
+
+  /**
+   * @param segments the segment count reported by the server store, {@code 0} if unknown
+   */
+  NoInvalidationServerStoreProxy(final ServerStoreMessageFactory messageFactory, final EhcacheClientEntity entity, int segments) {
+    this.segments = segments == 0 ? KeySegments.DEFAULT_SEGMENT_COUNT : segments;
     this.messageFactory = messageFactory;
     this.entity = entity;
+    entity.addResponseListener(EhcacheEntityResponse.ChainCompactionRequest.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.ChainCompactionRequest>() {
+      @Override
+      public void onResponse(EhcacheEntityResponse.ChainCompactionRequest response) {
+        if (response.getCacheId().equals(messageFactory.getCacheId())) {
+          long key = response.getKey();
+          LOGGER.debug("CLIENT: on cache {}, server requesting chain of hash {} to be compacted", messageFactory.getCacheId(), key);
+          for (ChainCompactionListener listener : compactionListeners) {
+            listener.onCompactionRequest(key, response.getChain());
+          }
+        }
+      }
+    });
   }
 
   @Override
@@ -52,6 +92,11 @@ class NoInvalidationServerStoreProxy implements ServerStoreProxy {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void addCompactionListener(ChainCompactionListener listener) {
+    compactionListeners.add(listener);
+  }
+
   @Override
   public Chain get(long key) throws TimeoutException {
     EhcacheEntityResponse response;
@@ -99,11 +144,151 @@ class NoInvalidationServerStoreProxy implements ServerStoreProxy {
     }
   }
 
+  @Override
+  public List<Chain> bulkGet(long[] keys) throws TimeoutException {
+    List<Chain> chains = new ArrayList<Chain>(keys.length);
+    for (int from = 0; from < keys.length; from += MAX_BATCH_SIZE) {
+      long[] batch = Arrays.copyOfRange(keys, from, Math.min(keys.length, from + MAX_BATCH_SIZE));
+      chains.addAll(invokeBatched(messageFactory.batchedGetOperation(batch), false, batch.length, "bulkGet"));
+    }
+    return chains;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Appends are grouped by the server segment their key maps to, so that each batch is processed by
+   * a single segment on the server. When the server runs with more data segments than the store was
+   * configured with, batches may span several of them and are then processed exclusively.
+   */
+  @Override
+  public List<Chain> bulkGetAndAppend(long[] keys, List<ByteBuffer> payLoads) throws TimeoutException {
+    if (keys.length != payLoads.size()) {
+      throw new IllegalArgumentException("Expected " + keys.length + " payloads but got " + payLoads.size());
+    }
+    List<List<Integer>> groups = new ArrayList<List<Integer>>(segments);
+    for (int i = 0; i < segments; i++) {
+      groups.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < keys.length; i++) {
+      groups.get(KeySegments.segmentFor(keys[i], segments)).add(i);
+    }
+
+    Chain[] chains = new Chain[keys.length];
+    for (List<Integer> group : groups) {
+      for (int from = 0; from < group.size(); from += MAX_BATCH_SIZE) {
+        List<Integer> indices = group.subList(from, Math.min(group.size(), from + MAX_BATCH_SIZE));
+        long[] batchKeys = new long[indices.size()];
+        List<ByteBuffer> batchPayLoads = new ArrayList<ByteBuffer>(indices.size());
+        for (int i = 0; i < batchKeys.length; i++) {
+          batchKeys[i] = keys[indices.get(i)];
+          batchPayLoads.add(payLoads.get(indices.get(i)));
+        }
+        List<Chain> results = invokeBatched(messageFactory.batchedGetAndAppendOperation(batchKeys, batchPayLoads), true, batchKeys.length, "bulkGetAndAppend");
+        for (int i = 0; i < batchKeys.length; i++) {
+          chains[indices.get(i)] = results.get(i);
+        }
+      }
+    }
+    return Arrays.asList(chains);
+  }
+
+  private List<Chain> invokeBatched(EhcacheEntityMessage message, boolean replicate, int expectedSize, String operation) throws TimeoutException {
+    EhcacheEntityResponse response;
+    try {
+      response = entity.invoke(message, replicate);
+    } catch (TimeoutException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServerStoreProxyException(e);
+    }
+    if (response != null && response.getType() == EhcacheEntityResponse.Type.BATCHED_GET_RESPONSE) {
+      List<Chain> chains = ((EhcacheEntityResponse.BatchedGetResponse)response).getChains();
+      if (chains.size() != expectedSize) {
+        throw new ServerStoreProxyException("Response for " + operation + " operation had " + chains.size() + " chains, expected " + expectedSize);
+      }
+      return chains;
+    } else {
+      throw new ServerStoreProxyException("Response for " + operation + " operation was invalid : " +
+                                          (response != null ? response.getType().toString() : "null message"));
+    }
+  }
+
+  @Override
+  public IteratorBatchResponse iteratorBatch(int segment, int cursor, int batchSize) throws TimeoutException {
+    EhcacheEntityResponse response;
+    try {
+      response = entity.invoke(messageFactory.iteratorBatchOperation(segment, cursor, batchSize), false);
+    } catch (TimeoutException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ServerStoreProxyException(e);
+    }
+    if (response != null && response.getType() == EhcacheEntityResponse.Type.ITERATOR_BATCH_RESPONSE) {
+      return (IteratorBatchResponse)response;
+    } else {
+      throw new ServerStoreProxyException("Response for iteratorBatch operation was invalid : " +
+                                          (response != null ? response.getType().toString() : "null message"));
+    }
+  }
+
+  @Override
+  public Future<Chain> getAsync(long key) {
+    return new ServerStoreFuture<Chain>(invokeAsync(messageFactory.getOperation(key), false)) {
+      @Override
+      Chain convert(EhcacheEntityResponse response) {
+        return chainFrom(response, "get");
+      }
+    };
+  }
+
+  @Override
+  public Future<Void> appendAsync(long key, ByteBuffer payLoad) {
+    return new ServerStoreFuture<Void>(invokeAsync(messageFactory.appendOperation(key, payLoad), true)) {
+      @Override
+      Void convert(EhcacheEntityResponse response) {
+        return null;
+      }
+    };
+  }
+
+  @Override
+  public Future<Chain> getAndAppendAsync(long key, ByteBuffer payLoad) {
+    return new ServerStoreFuture<Chain>(invokeAsync(messageFactory.getAndAppendOperation(key, payLoad), true)) {
+      @Override
+      Chain convert(EhcacheEntityResponse response) {
+        return chainFrom(response, "getAndAppend");
+      }
+    };
+  }
+
+  private InvokeFuture<EhcacheEntityResponse> invokeAsync(EhcacheEntityMessage message, boolean replicate) {
+    try {
+      return entity.invokeAsync(message, replicate);
+    } catch (Exception e) {
+      throw new ServerStoreProxyException(e);
+    }
+  }
+
+  private static Chain chainFrom(EhcacheEntityResponse response, String operation) {
+    if (response != null && response.getType() == EhcacheEntityResponse.Type.GET_RESPONSE) {
+      return ((EhcacheEntityResponse.GetResponse)response).getChain();
+    } else {
+      throw new ServerStoreProxyException("Response for " + operation + " operation was invalid : " +
+                                          (response != null ? response.getType().toString() : "null message"));
+    }
+  }
+
   @Override
   public void replaceAtHead(long key, Chain expect, Chain update) {
+    replaceAtHead(key, expect, update, Long.MAX_VALUE);
+  }
+
+  @Override
+  public void replaceAtHead(long key, Chain expect, Chain update, long timeToLive) {
     // TODO: Optimize this method to just send sequences for expect Chain
     try {
-      entity.invokeAsync(messageFactory.replaceAtHeadOperation(key, expect, update), true);
+      entity.invokeAsync(messageFactory.replaceAtHeadOperation(key, expect, update, timeToLive), true);
     } catch (Exception e) {
       throw new ServerStoreProxyException(e);
     }
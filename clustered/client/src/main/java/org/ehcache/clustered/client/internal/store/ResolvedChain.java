@@ -43,6 +43,20 @@ public interface ResolvedChain<K, V> {
    */
   boolean isCompacted();
 
+  /**
+   * Returns the time at which the resolved result expires.
+   *
+   * @return the expiration time in milliseconds, {@link Long#MIN_VALUE} if the result does not expire
+   */
+  long getExpirationTime();
+
+  /**
+   * Returns the time at which every operation of the compacted chain is known to be expired.
+   *
+   * @return the expiration time in milliseconds, {@link Long#MAX_VALUE} if unknown
+   */
+  long getCompactedChainExpirationTime();
+
   /**
    * Represents the {@link ResolvedChain} result of a resolver that resolves
    * all the keys in a {@link Chain}
@@ -52,15 +66,37 @@ public interface ResolvedChain<K, V> {
     private final Chain compactedChain;
     private final Map<K, Result<V>> resolvedOperations;
     private final boolean compacted;
+    private final long expirationTime;
+    private final long compactedChainExpirationTime;
 
     public Impl(Chain compactedChain, Map<K, Result<V>> resolvedOperations, boolean compacted) {
+      this(compactedChain, resolvedOperations, compacted, Long.MIN_VALUE);
+    }
+
+    public Impl(Chain compactedChain, Map<K, Result<V>> resolvedOperations, boolean compacted, long expirationTime) {
+      this(compactedChain, resolvedOperations, compacted, expirationTime, Long.MAX_VALUE);
+    }
+
+    public Impl(Chain compactedChain, Map<K, Result<V>> resolvedOperations, boolean compacted, long expirationTime,
+                long compactedChainExpirationTime) {
       this.compactedChain = compactedChain;
       this.resolvedOperations = resolvedOperations;
       this.compacted = compacted;
+      this.expirationTime = expirationTime;
+      this.compactedChainExpirationTime = compactedChainExpirationTime;
     }
 
     public Impl(Chain compactedChain, K key, Result<V> result, boolean compacted) {
-      this(compactedChain, Collections.singletonMap(key, result), compacted);
+      this(compactedChain, key, result, compacted, Long.MIN_VALUE);
+    }
+
+    public Impl(Chain compactedChain, K key, Result<V> result, boolean compacted, long expirationTime) {
+      this(compactedChain, Collections.singletonMap(key, result), compacted, expirationTime);
+    }
+
+    public Impl(Chain compactedChain, K key, Result<V> result, boolean compacted, long expirationTime,
+                long compactedChainExpirationTime) {
+      this(compactedChain, Collections.singletonMap(key, result), compacted, expirationTime, compactedChainExpirationTime);
     }
 
     public Chain getCompactedChain() {
@@ -75,5 +111,15 @@ public interface ResolvedChain<K, V> {
     public boolean isCompacted() {
       return compacted;
     }
+
+    @Override
+    public long getExpirationTime() {
+      return expirationTime;
+    }
+
+    @Override
+    public long getCompactedChainExpirationTime() {
+      return compactedChainExpirationTime;
+    }
   }
 }
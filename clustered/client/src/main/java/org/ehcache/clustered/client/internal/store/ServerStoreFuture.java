@@ -0,0 +1,95 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse;
+import org.terracotta.entity.InvokeFuture;
+import org.terracotta.exception.EntityException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Future} over the response to a server store message, converting the response on retrieval.
+ * <p>
+ * Messages cannot be withdrawn once sent, so these futures cannot be cancelled.
+ *
+ * @param <T> the type of the converted result
+ */
+abstract class ServerStoreFuture<T> implements Future<T> {
+
+  private final InvokeFuture<EhcacheEntityResponse> future;
+
+  ServerStoreFuture(InvokeFuture<EhcacheEntityResponse> future) {
+    this.future = future;
+  }
+
+  /**
+   * Converts a non-failure response into the result of this future.
+   *
+   * @param response the response received from the server
+   * @return the result of this future
+   * @throws ServerStoreProxyException if the response is not of the expected type
+   */
+  abstract T convert(EhcacheEntityResponse response) throws ServerStoreProxyException;
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return future.isDone();
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    try {
+      return handle(future.get());
+    } catch (EntityException e) {
+      throw new ExecutionException(e);
+    }
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    try {
+      return handle(future.getWithTimeout(timeout, unit));
+    } catch (EntityException e) {
+      throw new ExecutionException(e);
+    }
+  }
+
+  private T handle(EhcacheEntityResponse response) throws ExecutionException {
+    if (response != null && response.getType() == EhcacheEntityResponse.Type.FAILURE) {
+      throw new ExecutionException(((EhcacheEntityResponse.Failure) response).getCause());
+    }
+    try {
+      return convert(response);
+    } catch (ServerStoreProxyException e) {
+      throw new ExecutionException(e);
+    }
+  }
+}
@@ -15,8 +15,15 @@
  */
 package org.ehcache.clustered.client.internal.store;
 
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.IteratorBatchResponse;
+import org.ehcache.clustered.common.internal.store.Chain;
 import org.ehcache.clustered.common.internal.store.ServerStore;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
 /**
  * @author Ludovic Orban
  */
@@ -39,6 +46,19 @@ public interface ServerStoreProxy extends ServerStore {
     void onInvalidateAll();
   }
 
+  /**
+   * The chain compaction listener
+   */
+  interface ChainCompactionListener {
+    /**
+     * Callback for server requests to compact the head of a chain
+     *
+     * @param hash the hash of the chain
+     * @param chain the chain head to compact
+     */
+    void onCompactionRequest(long hash, Chain chain);
+  }
+
   /**
    * Gets the identifier linking a client-side cache to a {@code ServerStore} instance.
    *
@@ -60,4 +80,92 @@ public interface ServerStoreProxy extends ServerStore {
    */
   boolean removeInvalidationListener(InvalidationListener listener);
 
+  /**
+   * Add a listener called when the server asks for a chain to be compacted.
+   *
+   * @param listener the listener to add
+   */
+  void addCompactionListener(ChainCompactionListener listener);
+
+  /**
+   * Replaces the head of the chain like {@link #replaceAtHead(long, Chain, Chain)}, telling the server when the
+   * update expires so that it can evict it in preference to live chains once that time is past.
+   *
+   * @param key hashcode of the key
+   * @param expect the expected head of the chain
+   * @param update the replacement of the head
+   * @param timeToLive the time in milliseconds, from now, after which {@code update} is known to be expired,
+   *                   {@link Long#MAX_VALUE} if unknown; being relative it is measured against the server's own clock
+   */
+  void replaceAtHead(long key, Chain expect, Chain update, long timeToLive);
+
+  /**
+   * Returns the Chains associated with the provided hashes, using as few round-trips as possible.
+   *
+   * @param keys hashcodes of the keys
+   * @return the {@link Chain}s associated with the hashes, in the order of {@code keys}
+   *
+   * @throws TimeoutException if the get exceeds the timeout configured for read operations
+   * @see #get(long)
+   */
+  List<Chain> bulkGet(long[] keys) throws TimeoutException;
+
+  /**
+   * Atomically appends each payLoad to the Chain associated with the matching hash, using as few
+   * round-trips as possible, and returns the Chains as they were before the appends.
+   * <p>
+   * Each individual append is atomic but the batch as a whole is not.
+   *
+   * @param keys hashcodes of the keys
+   * @param payLoads the payLoads to append, in the order of {@code keys}
+   * @return the {@link Chain}s associated with the hashes before the appends, in the order of {@code keys}
+   *
+   * @throws TimeoutException if the append exceeds the timeout configured for mutative operations
+   * @see #getAndAppend(long, ByteBuffer)
+   */
+  List<Chain> bulkGetAndAppend(long[] keys, List<ByteBuffer> payLoads) throws TimeoutException;
+
+  /**
+   * Fetches the next batch of an iteration over the server store.
+   * <p>
+   * An iteration starts with segment {@code 0} and cursor {@code 0}. Each following batch is requested from the
+   * returned {@link IteratorBatchResponse#getNextSegment() next segment} and
+   * {@link IteratorBatchResponse#getNextCursor() next cursor}.
+   *
+   * @param segment the segment to walk
+   * @param cursor the position within {@code segment} to resume from
+   * @param batchSize the maximum number of chains to return
+   * @return the batch of keys and chains
+   * @throws TimeoutException if the fetch exceeds the timeout configured for read operations
+   */
+  IteratorBatchResponse iteratorBatch(int segment, int cursor, int batchSize) throws TimeoutException;
+
+  /**
+   * Asynchronous variant of {@link #get(long)}.
+   * <p>
+   * The message is sent before this method returns, the returned future completes once the response arrives.
+   *
+   * @param key hashcode of the key
+   * @return a future of the {@link Chain} associated with the hash
+   */
+  Future<Chain> getAsync(long key);
+
+  /**
+   * Asynchronous variant of {@link #append(long, ByteBuffer)}.
+   *
+   * @param key to which the payLoad has to be appended
+   * @param payLoad to be appended
+   * @return a future completing once the append is acknowledged
+   */
+  Future<Void> appendAsync(long key, ByteBuffer payLoad);
+
+  /**
+   * Asynchronous variant of {@link #getAndAppend(long, ByteBuffer)}.
+   *
+   * @param key to which the payLoad has to be appended
+   * @param payLoad to be appended
+   * @return a future of the Chain associated with the key before payLoad was appended
+   */
+  Future<Chain> getAndAppendAsync(long key, ByteBuffer payLoad);
+
 }
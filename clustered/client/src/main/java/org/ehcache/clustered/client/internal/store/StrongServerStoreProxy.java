@@ -19,18 +19,23 @@ import org.ehcache.clustered.client.internal.EhcacheClientEntity;
 import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse;
 import org.ehcache.clustered.common.internal.messages.ReconnectMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreMessageFactory;
+import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.IteratorBatchResponse;
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
@@ -40,6 +45,11 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(StrongServerStoreProxy.class);
 
+  /**
+   * Interval at which a mutation blocked behind an asynchronous one checks whether the latter failed.
+   */
+  private static final long ASYNC_CLAIM_POLL_MILLIS = 100;
+
   private final ServerStoreProxy delegate;
   private final ConcurrentMap<Long, CountDownLatch> hashInvalidationsInProgress = new ConcurrentHashMap<Long, CountDownLatch>();
   private final Lock invalidateAllLock = new ReentrantLock();
@@ -48,7 +58,11 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
   private final EhcacheClientEntity entity;
 
   public StrongServerStoreProxy(final ServerStoreMessageFactory messageFactory, final EhcacheClientEntity entity) {
-    this.delegate = new NoInvalidationServerStoreProxy(messageFactory, entity);
+    this(messageFactory, entity, 0);
+  }
+
+  public StrongServerStoreProxy(final ServerStoreMessageFactory messageFactory, final EhcacheClientEntity entity, int segments) {
+    this.delegate = new NoInvalidationServerStoreProxy(messageFactory, entity, segments);
     this.entity = entity;
     entity.addReconnectListener(new EhcacheClientEntity.ReconnectListener() {
       @Override
@@ -75,6 +89,23 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
         }
       }
     });
+    entity.addResponseListener(EhcacheEntityResponse.HashesInvalidationDone.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.HashesInvalidationDone>() {
+      @Override
+      public void onResponse(EhcacheEntityResponse.HashesInvalidationDone response) {
+        if (response.getCacheId().equals(messageFactory.getCacheId())) {
+          long[] keys = response.getKeys();
+          LOGGER.debug("CLIENT: on cache {}, server notified that clients invalidated {} hashes", messageFactory.getCacheId(), keys.length);
+          for (long key : keys) {
+            CountDownLatch countDownLatch = hashInvalidationsInProgress.remove(key);
+            if (countDownLatch != null) {
+              countDownLatch.countDown();
+            }
+          }
+        } else {
+          LOGGER.debug("CLIENT: on cache {}, ignoring invalidation on unrelated cache : {}", messageFactory.getCacheId(), response.getCacheId());
+        }
+      }
+    });
     entity.addResponseListener(EhcacheEntityResponse.AllInvalidationDone.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.AllInvalidationDone>() {
       @Override
       public void onResponse(EhcacheEntityResponse.AllInvalidationDone response) {
@@ -138,6 +169,33 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
         }
       }
     });
+    entity.addResponseListener(EhcacheEntityResponse.ClientInvalidateHashes.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.ClientInvalidateHashes>() {
+      @Override
+      public void onResponse(EhcacheEntityResponse.ClientInvalidateHashes response) {
+        final String cacheId = response.getCacheId();
+        final long[] keys = response.getKeys();
+        final int invalidationId = response.getInvalidationId();
+
+        if (cacheId.equals(messageFactory.getCacheId())) {
+          LOGGER.debug("CLIENT: doing work to invalidate {} hashes from cache {} (ID {})", keys.length, cacheId, invalidationId);
+          for (long key : keys) {
+            for (InvalidationListener listener : invalidationListeners) {
+              listener.onInvalidateHash(key);
+            }
+          }
+
+          try {
+            LOGGER.debug("CLIENT: ack'ing invalidation of {} hashes from cache {} (ID {})", keys.length, cacheId, invalidationId);
+            entity.invokeAsync(messageFactory.clientInvalidationAck(invalidationId), false);
+          } catch (Exception e) {
+            //TODO: what should be done here?
+            LOGGER.error("error acking client invalidation of {} hashes on cache {}", keys.length, cacheId, e);
+          }
+        } else {
+          LOGGER.debug("CLIENT: on cache {}, ignoring invalidation on unrelated cache : {}", messageFactory.getCacheId(), response.getCacheId());
+        }
+      }
+    });
     entity.addResponseListener(EhcacheEntityResponse.ClientInvalidateAll.class, new EhcacheClientEntity.ResponseListener<EhcacheEntityResponse.ClientInvalidateAll>() {
       @Override
       public void onResponse(EhcacheEntityResponse.ClientInvalidateAll response) {
@@ -182,18 +240,45 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
     });
   }
 
-  private <T> T performWaitingForHashInvalidation(long key, NullaryFunction<T> c) throws InterruptedException, TimeoutException {
-    CountDownLatch latch = new CountDownLatch(1);
+  private <L extends CountDownLatch> L claimHashInvalidation(long key, L latch) throws InterruptedException {
     while (true) {
       if (!entity.isConnected()) {
         throw new IllegalStateException("Clustered tier manager disconnected");
       }
       CountDownLatch countDownLatch = hashInvalidationsInProgress.putIfAbsent(key, latch);
       if (countDownLatch == null) {
-        break;
+        return latch;
+      }
+      awaitHashClaim(key, countDownLatch);
+    }
+  }
+
+  /**
+   * Waits for the release of a hash claimed by another mutation.
+   * <p>
+   * A failed asynchronous mutation never gets its invalidation acknowledged, so its claim is released here once its
+   * failure is seen, whether or not its future is ever retrieved.
+   */
+  private void awaitHashClaim(long key, CountDownLatch claim) throws InterruptedException {
+    if (claim instanceof AsyncHashClaim) {
+      AsyncHashClaim asyncClaim = (AsyncHashClaim) claim;
+      while (!asyncClaim.await(ASYNC_CLAIM_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (asyncClaim.hasFailed()) {
+          hashInvalidationsInProgress.remove(key, asyncClaim);
+          asyncClaim.countDown();
+          return;
+        }
       }
-      awaitOnLatch(countDownLatch);
+      if (!entity.isConnected()) {
+        throw new IllegalStateException("Clustered tier manager disconnected");
+      }
+    } else {
+      awaitOnLatch(claim);
     }
+  }
+
+  private <T> T performWaitingForHashInvalidation(long key, NullaryFunction<T> c) throws InterruptedException, TimeoutException {
+    CountDownLatch latch = claimHashInvalidation(key, new CountDownLatch(1));
 
     try {
       T result = c.apply();
@@ -211,6 +296,115 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
     }
   }
 
+  /**
+   * Asynchronous variant of {@link #performWaitingForHashInvalidation(long, NullaryFunction)}.
+   * <p>
+   * The hash is claimed before the message is sent, so this still blocks while another mutation of the same hash
+   * is awaiting its invalidation. The claim is released when the server reports the invalidation done, or by the
+   * next mutation of the hash if this one failed. The returned future only waits for that release.
+   */
+  private <T> Future<T> performAsyncWaitingForHashInvalidation(final long key, NullaryFunction<Future<T>> c) {
+    final AsyncHashClaim claim;
+    try {
+      claim = claimHashInvalidation(key, new AsyncHashClaim());
+    } catch (InterruptedException ie) {
+      throw new RuntimeException(ie);
+    }
+
+    Future<T> future;
+    try {
+      future = c.apply();
+    } catch (Exception ex) {
+      hashInvalidationsInProgress.remove(key, claim);
+      claim.countDown();
+
+      if (ex instanceof RuntimeException) {
+        throw (RuntimeException)ex;
+      }
+      throw new RuntimeException(ex);
+    }
+    claim.mutation = future;
+
+    return new TransformingFuture<T, T>(future) {
+      @Override
+      T transform(T result) throws InterruptedException {
+        awaitOnLatch(claim);
+        LOGGER.debug("CLIENT: key {} invalidated on all clients, completing future", key);
+        return result;
+      }
+
+      @Override
+      void onFailure(Throwable cause) {
+        hashInvalidationsInProgress.remove(key, claim);
+        claim.countDown();
+      }
+    };
+  }
+
+  /**
+   * Multi-key variant of {@link #performWaitingForHashInvalidation(long, NullaryFunction)}.
+   * <p>
+   * Keys are claimed in ascending order so that concurrent batches cannot deadlock on each other.
+   */
+  private <T> T performWaitingForHashInvalidations(long[] keys, NullaryFunction<T> c) throws InterruptedException, TimeoutException {
+    TreeSet<Long> sortedKeys = new TreeSet<Long>();
+    for (long key : keys) {
+      sortedKeys.add(key);
+    }
+
+    List<CountDownLatch> latches = new ArrayList<CountDownLatch>(sortedKeys.size());
+    try {
+      for (Long key : sortedKeys) {
+        CountDownLatch latch = new CountDownLatch(1);
+        while (true) {
+          if (!entity.isConnected()) {
+            throw new IllegalStateException("Clustered tier manager disconnected");
+          }
+          CountDownLatch countDownLatch = hashInvalidationsInProgress.putIfAbsent(key, latch);
+          if (countDownLatch == null) {
+            break;
+          }
+          awaitHashClaim(key, countDownLatch);
+        }
+        latches.add(latch);
+      }
+    } catch (RuntimeException e) {
+      releaseLatches(sortedKeys, latches);
+      throw e;
+    } catch (InterruptedException e) {
+      releaseLatches(sortedKeys, latches);
+      throw e;
+    }
+
+    try {
+      T result = c.apply();
+      for (CountDownLatch latch : latches) {
+        awaitOnLatch(latch);
+      }
+      LOGGER.debug("CLIENT: {} keys invalidated on all clients, unblocking call", sortedKeys.size());
+      return result;
+    } catch (Exception ex) {
+      releaseLatches(sortedKeys, latches);
+
+      if (ex instanceof TimeoutException) {
+        throw (TimeoutException)ex;
+      }
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private void releaseLatches(Set<Long> keys, List<CountDownLatch> latches) {
+    int i = 0;
+    for (Long key : keys) {
+      if (i == latches.size()) {
+        break;
+      }
+      CountDownLatch latch = latches.get(i++);
+      hashInvalidationsInProgress.remove(key, latch);
+      latch.countDown();
+    }
+  }
+
   private <T> T performWaitingForAllInvalidation(NullaryFunction<T> c) throws InterruptedException, TimeoutException {
     CountDownLatch newLatch = new CountDownLatch(1);
     while (true) {
@@ -254,6 +448,34 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
     }
   }
 
+  /**
+   * Claim of a hash by an asynchronous mutation, which keeps the mutation's future to detect its failure.
+   */
+  private static final class AsyncHashClaim extends CountDownLatch {
+
+    private volatile Future<?> mutation;
+
+    AsyncHashClaim() {
+      super(1);
+    }
+
+    boolean hasFailed() {
+      Future<?> future = mutation;
+      if (future == null || !future.isDone()) {
+        return false;
+      }
+      try {
+        future.get();
+        return false;
+      } catch (ExecutionException e) {
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+
   private void awaitOnLatch(CountDownLatch countDownLatch) throws InterruptedException {
     int totalAwaitTime = 0;
     int backoff = 1;
@@ -283,6 +505,11 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
     return invalidationListeners.remove(listener);
   }
 
+  @Override
+  public void addCompactionListener(ChainCompactionListener listener) {
+    delegate.addCompactionListener(listener);
+  }
+
   @Override
   public Chain get(long key) throws TimeoutException {
     return delegate.get(key);
@@ -317,11 +544,65 @@ public class StrongServerStoreProxy implements ServerStoreProxy {
     }
   }
 
+  @Override
+  public List<Chain> bulkGet(long[] keys) throws TimeoutException {
+    return delegate.bulkGet(keys);
+  }
+
+  @Override
+  public List<Chain> bulkGetAndAppend(final long[] keys, final List<ByteBuffer> payLoads) throws TimeoutException {
+    try {
+      return performWaitingForHashInvalidations(keys, new NullaryFunction<List<Chain>>() {
+        @Override
+        public List<Chain> apply() throws TimeoutException {
+          return delegate.bulkGetAndAppend(keys, payLoads);
+        }
+      });
+    } catch (InterruptedException ie) {
+      throw new RuntimeException(ie);
+    }
+  }
+
+  @Override
+  public IteratorBatchResponse iteratorBatch(int segment, int cursor, int batchSize) throws TimeoutException {
+    return delegate.iteratorBatch(segment, cursor, batchSize);
+  }
+
+  @Override
+  public Future<Chain> getAsync(long key) {
+    return delegate.getAsync(key);
+  }
+
+  @Override
+  public Future<Void> appendAsync(final long key, final ByteBuffer payLoad) {
+    return performAsyncWaitingForHashInvalidation(key, new NullaryFunction<Future<Void>>() {
+      @Override
+      public Future<Void> apply() {
+        return delegate.appendAsync(key, payLoad);
+      }
+    });
+  }
+
+  @Override
+  public Future<Chain> getAndAppendAsync(final long key, final ByteBuffer payLoad) {
+    return performAsyncWaitingForHashInvalidation(key, new NullaryFunction<Future<Chain>>() {
+      @Override
+      public Future<Chain> apply() {
+        return delegate.getAndAppendAsync(key, payLoad);
+      }
+    });
+  }
+
   @Override
   public void replaceAtHead(long key, Chain expect, Chain update) {
     delegate.replaceAtHead(key, expect, update);
   }
 
+  @Override
+  public void replaceAtHead(long key, Chain expect, Chain update, long timeToLive) {
+    delegate.replaceAtHead(key, expect, update, timeToLive);
+  }
+
   @Override
   public void clear() throws TimeoutException {
     try {
@@ -0,0 +1,108 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link Future} applying a transformation to the result of another {@code Future}.
+ * <p>
+ * The transformation runs on the thread retrieving the result, every time it is retrieved.
+ *
+ * @param <S> the type of the source result
+ * @param <T> the type of the transformed result
+ */
+abstract class TransformingFuture<S, T> implements Future<T> {
+
+  private final Future<S> source;
+
+  TransformingFuture(Future<S> source) {
+    this.source = source;
+  }
+
+  /**
+   * Transforms the source result.
+   *
+   * @param result the result of the source future
+   * @return the transformed result
+   * @throws Exception if the transformation fails, reported as the cause of an {@link ExecutionException}
+   */
+  abstract T transform(S result) throws Exception;
+
+  /**
+   * Called when the source future failed, before the failure is reported to the caller.
+   *
+   * @param cause the failure of the source future
+   */
+  void onFailure(Throwable cause) {
+    // no-op by default
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return source.cancel(mayInterruptIfRunning);
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return source.isCancelled();
+  }
+
+  @Override
+  public boolean isDone() {
+    return source.isDone();
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    S result;
+    try {
+      result = source.get();
+    } catch (ExecutionException e) {
+      onFailure(e.getCause());
+      throw e;
+    }
+    return doTransform(result);
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    S result;
+    try {
+      result = source.get(timeout, unit);
+    } catch (ExecutionException e) {
+      onFailure(e.getCause());
+      throw e;
+    }
+    return doTransform(result);
+  }
+
+  private T doTransform(S result) throws InterruptedException, ExecutionException {
+    try {
+      return transform(result);
+    } catch (InterruptedException e) {
+      throw e;
+    } catch (ExecutionException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ExecutionException(e);
+    }
+  }
+}
@@ -81,7 +81,7 @@ abstract class BaseKeyValueOperation<K, V> implements Operation<K, V> {
   @Override
   public ByteBuffer encode(final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
     ByteBuffer keyBuf = keySerializer.serialize(key);
-    ByteBuffer valueBuf = valueHolder.encode(valueSerializer);
+    ByteBuffer valueBuf = valueHolder.encode(valueSerializer).duplicate();
 
     int size = BYTE_SIZE_BYTES +   // Operation type
                INT_SIZE_BYTES +    // Size of the key payload
@@ -65,6 +65,7 @@ public class ChainResolver<K, V> {
     ChainBuilder chainBuilder = new ChainBuilder();
     long expirationTime = Long.MIN_VALUE;
     int keyMatch = 0;
+    boolean otherKeys = false;
     boolean compacted = false;
     for (Element element : chain) {
       ByteBuffer payload = element.getPayload();
@@ -122,6 +123,7 @@ public class ChainResolver<K, V> {
           }
         }
       } else {
+        otherKeys = true;
         payload.rewind();
         chainBuilder = chainBuilder.add(payload);
       }
@@ -134,9 +136,11 @@ public class ChainResolver<K, V> {
         ByteBuffer payload = codec.encode(resolvedOperation);
         chainBuilder = chainBuilder.add(payload);
       }
-      return new ResolvedChain.Impl<K, V>(chainBuilder.build(), key, result, true);
+      // the expiry of the operations on other keys is only known when resolving them
+      long compactedChainExpirationTime = (otherKeys || result == null || expirationTime == Long.MIN_VALUE) ? Long.MAX_VALUE : expirationTime;
+      return new ResolvedChain.Impl<K, V>(chainBuilder.build(), key, result, true, expirationTime, compactedChainExpirationTime);
     } else {
-      return new ResolvedChain.Impl<K, V>(chain, key, result, false);
+      return new ResolvedChain.Impl<K, V>(chain, key, result, false, expirationTime);
     }
   }
 }
@@ -110,8 +110,8 @@ public class ConditionalReplaceOperation<K, V> implements Operation<K, V>, Resul
   @Override
   public ByteBuffer encode(final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
     ByteBuffer keyBuf = keySerializer.serialize(key);
-    ByteBuffer oldValueBuf = oldValueHolder.encode(valueSerializer);
-    ByteBuffer valueBuf = newValueHolder.encode(valueSerializer);
+    ByteBuffer oldValueBuf = oldValueHolder.encode(valueSerializer).duplicate();
+    ByteBuffer valueBuf = newValueHolder.encode(valueSerializer).duplicate();
 
     ByteBuffer buffer = ByteBuffer.allocate(BYTE_SIZE_BYTES +   // Operation type
                                             INT_SIZE_BYTES +    // Size of the key payload
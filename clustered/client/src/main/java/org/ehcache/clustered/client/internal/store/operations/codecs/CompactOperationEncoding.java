@@ -0,0 +1,188 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store.operations.codecs;
+
+import org.ehcache.clustered.client.internal.store.operations.OperationCode;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.ehcache.clustered.client.internal.store.operations.Operation.BYTE_SIZE_BYTES;
+import static org.ehcache.clustered.client.internal.store.operations.Operation.INT_SIZE_BYTES;
+import static org.ehcache.clustered.client.internal.store.operations.Operation.LONG_SIZE_BYTES;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.getVarInt;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.getVarLong;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.putVarInt;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.putVarLong;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.varIntSize;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.varLongSize;
+
+/**
+ * Converts encoded operations between their fixed width layout and a compact layout.
+ * <p>
+ * An operation is encoded as its op code, an eight byte time stamp, a four byte key size (absent for
+ * {@link OperationCode#REMOVE REMOVE}, whose key is the whole remainder), the key and the remaining value bytes.
+ * The compact layout flags the op code with {@link #COMPACT_FLAG}, writes the time stamp and key size as variable
+ * length integers and deflates the remaining bytes when they are at least {@link #COMPRESSION_THRESHOLD} long and
+ * shrink when compressed.
+ */
+final class CompactOperationEncoding {
+
+  static final byte COMPACT_FLAG = (byte) 0x80;
+  static final int COMPRESSION_THRESHOLD = 1024;
+
+  private static final byte RAW = 0;
+  private static final byte DEFLATED = 1;
+
+  private CompactOperationEncoding() {
+  }
+
+  static boolean isCompact(ByteBuffer buffer) {
+    return (buffer.get(buffer.position()) & COMPACT_FLAG) != 0;
+  }
+
+  static ByteBuffer compact(ByteBuffer encoded) {
+    ByteBuffer buffer = encoded.duplicate();
+    byte opCode = buffer.get();
+    long timeStamp = buffer.getLong();
+    int keySize = hasKeySize(opCode) ? buffer.getInt() : -1;
+    int keyStart = buffer.position();
+
+    int restStart = keyStart + Math.max(keySize, 0);
+    int restSize = buffer.limit() - restStart;
+    byte[] deflated = null;
+    int deflatedSize = 0;
+    if (restSize >= COMPRESSION_THRESHOLD) {
+      byte[] rest = new byte[restSize];
+      buffer.position(restStart);
+      buffer.get(rest);
+      deflated = new byte[restSize];
+      deflatedSize = deflate(rest, deflated);
+      if (deflatedSize < 0) {
+        deflated = null;
+      }
+    }
+
+    int size = 1 + varLongSize(timeStamp) + 1;
+    if (keySize >= 0) {
+      size += varIntSize(keySize) + keySize;
+    }
+    if (deflated == null) {
+      size += restSize;
+    } else {
+      size += varIntSize(restSize) + deflatedSize;
+    }
+
+    ByteBuffer compact = ByteBuffer.allocate(size);
+    compact.put((byte) (opCode | COMPACT_FLAG));
+    putVarLong(compact, timeStamp);
+    if (keySize >= 0) {
+      putVarInt(compact, keySize);
+      compact.put(slice(encoded, keyStart, keySize));
+    }
+    if (deflated == null) {
+      compact.put(RAW);
+      compact.put(slice(encoded, restStart, restSize));
+    } else {
+      compact.put(DEFLATED);
+      putVarInt(compact, restSize);
+      compact.put(deflated, 0, deflatedSize);
+    }
+    compact.flip();
+    return compact;
+  }
+
+  static ByteBuffer expand(ByteBuffer compact) {
+    ByteBuffer buffer = compact.duplicate();
+    byte opCode = (byte) (buffer.get() & ~COMPACT_FLAG);
+    long timeStamp = getVarLong(buffer);
+    int keySize = hasKeySize(opCode) ? getVarInt(buffer) : -1;
+    ByteBuffer key = null;
+    if (keySize >= 0) {
+      key = slice(buffer, buffer.position(), keySize);
+      buffer.position(buffer.position() + keySize);
+    }
+
+    byte restEncoding = buffer.get();
+    ByteBuffer rest;
+    if (restEncoding == RAW) {
+      rest = buffer.slice();
+    } else if (restEncoding == DEFLATED) {
+      int restSize = getVarInt(buffer);
+      byte[] deflated = new byte[buffer.remaining()];
+      buffer.get(deflated);
+      rest = ByteBuffer.wrap(inflate(deflated, restSize));
+    } else {
+      throw new CodecException("Unknown operation value encoding : " + restEncoding);
+    }
+
+    int size = BYTE_SIZE_BYTES + LONG_SIZE_BYTES + (key == null ? 0 : INT_SIZE_BYTES + keySize) + rest.remaining();
+    ByteBuffer expanded = ByteBuffer.allocate(size);
+    expanded.put(opCode);
+    expanded.putLong(timeStamp);
+    if (key != null) {
+      expanded.putInt(keySize);
+      expanded.put(key);
+    }
+    expanded.put(rest);
+    expanded.flip();
+    return expanded;
+  }
+
+  private static boolean hasKeySize(byte opCode) {
+    return OperationCode.valueOf(opCode) != OperationCode.REMOVE;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int position, int size) {
+    ByteBuffer slice = buffer.duplicate();
+    slice.limit(position + size).position(position);
+    return slice;
+  }
+
+  /**
+   * @return the deflated size, {@code -1} if the input does not shrink
+   */
+  private static int deflate(byte[] input, byte[] output) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(input);
+      deflater.finish();
+      int size = deflater.deflate(output);
+      return deflater.finished() && size < input.length ? size : -1;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] input, int size) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(input);
+      byte[] output = new byte[size];
+      if (inflater.inflate(output) != size || !inflater.finished()) {
+        throw new CodecException("Truncated compressed operation value");
+      }
+      return output;
+    } catch (DataFormatException e) {
+      throw new CodecException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -26,18 +26,41 @@ public class OperationsCodec<K, V> {
 
   private final Serializer<K> keySerializer;
   private final Serializer<V> valueSerializer;
+  private final boolean compact;
 
 
   public OperationsCodec(final Serializer<K> keySerializer, final Serializer<V> valueSerializer) {
+    this(keySerializer, valueSerializer, false);
+  }
+
+  /**
+   * Creates a codec for the given serializers.
+   * <p>
+   * Operations in either encoding are decoded, {@code compact} only selects the encoding of written operations.
+   *
+   * @param keySerializer the key serializer
+   * @param valueSerializer the value serializer
+   * @param compact {@code true} to encode operations in the compact encoding
+   */
+  public OperationsCodec(final Serializer<K> keySerializer, final Serializer<V> valueSerializer, boolean compact) {
     this.keySerializer = keySerializer;
     this.valueSerializer = valueSerializer;
+    this.compact = compact;
   }
 
   public ByteBuffer encode(Operation<K, V> operation) {
-    return operation.encode(keySerializer, valueSerializer);
+    ByteBuffer encoded = operation.encode(keySerializer, valueSerializer);
+    if (compact) {
+      return CompactOperationEncoding.compact(encoded);
+    } else {
+      return encoded;
+    }
   }
 
   public Operation<K, V> decode(ByteBuffer buffer) {
+    if (CompactOperationEncoding.isCompact(buffer)) {
+      buffer = CompactOperationEncoding.expand(buffer);
+    }
     OperationCode opCode = OperationCode.valueOf(buffer.get());
     buffer.rewind();
     return opCode.decode(buffer, keySerializer, valueSerializer);
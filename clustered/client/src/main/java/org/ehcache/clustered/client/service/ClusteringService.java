@@ -17,6 +17,7 @@
 package org.ehcache.clustered.client.service;
 
 import org.ehcache.CachePersistenceException;
+import org.ehcache.clustered.client.config.ClusteredStoreConfiguration;
 import org.ehcache.clustered.client.config.ClusteringServiceConfiguration;
 import org.ehcache.clustered.client.internal.store.ServerStoreProxy;
 import org.ehcache.clustered.common.Consistency;
@@ -53,6 +54,26 @@ public interface ClusteringService extends PersistableResourceService {
    */
   <K, V> ServerStoreProxy getServerStoreProxy(ClusteredCacheIdentifier cacheIdentifier, final Store.Configuration<K, V> storeConfig, Consistency consistency) throws CachePersistenceException;
 
+  /**
+   * Gets a {@link ServerStoreProxy} though which a server-resident {@code ServerStore} is accessed, configured by
+   * the {@link ClusteredStoreConfiguration} of the store: its consistency, segment count and operation encoding.
+   * <p>
+   * All the clients of a {@code ServerStore} must agree on its segment count and operation encoding.
+   *
+   * @param <K> the cache-exposed key type
+   * @param <V> the cache-exposed value type
+   *
+   * @param cacheIdentifier the {@code ClusteredCacheIdentifier} for the cache for which a
+   *                        {@link ServerStoreProxy} is requested
+   * @param storeConfig the configuration used for the {@link Store} for which the {@link ServerStoreProxy}
+   *                    is requested
+   * @param clusteredStoreConfig the clustered configuration of the store
+   * @return a new {@link ServerStoreProxy}
+   *
+   * @throws CachePersistenceException if the {@code cacheIdentifier} is unknown or the {@code ServerStoreProxy} cannot be created
+   */
+  <K, V> ServerStoreProxy getServerStoreProxy(ClusteredCacheIdentifier cacheIdentifier, final Store.Configuration<K, V> storeConfig, ClusteredStoreConfiguration clusteredStoreConfig) throws CachePersistenceException;
+
   /**
    * Releases access to a {@link ServerStoreProxy} and the server-resident {@code ServerStore} it represents.
    *
@@ -0,0 +1,190 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.client.config.TimeoutDuration;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class AppendPipelineTest {
+
+  private static final TimeoutDuration TIMEOUT = TimeoutDuration.of(5, TimeUnit.SECONDS);
+
+  private final ServerStoreProxy proxy = mock(ServerStoreProxy.class);
+
+  @Test
+  public void testAppendsBelowWindowDoNotWait() throws Exception {
+    Future<Void> first = pending();
+    Future<Void> second = pending();
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(first, second);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 2, TIMEOUT);
+
+    pipeline.append(1L, ByteBuffer.allocate(0));
+    pipeline.append(2L, ByteBuffer.allocate(0));
+
+    assertThat(pipeline.inFlight(), is(2));
+    verify(first, never()).get(anyLong(), any(TimeUnit.class));
+    verify(second, never()).get(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testFullWindowWaitsForOldestAppend() throws Exception {
+    Future<Void> first = pending();
+    Future<Void> second = pending();
+    Future<Void> third = pending();
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(first, second, third);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 2, TIMEOUT);
+
+    pipeline.append(1L, ByteBuffer.allocate(0));
+    pipeline.append(2L, ByteBuffer.allocate(0));
+    pipeline.append(3L, ByteBuffer.allocate(0));
+
+    assertThat(pipeline.inFlight(), is(2));
+    verify(first).get(TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+    verify(second, never()).get(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testAcknowledgedAppendsAreDropped() throws Exception {
+    Future<Void> first = mock(Future.class);
+    when(first.isDone()).thenReturn(true);
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(first, pending());
+    AppendPipeline pipeline = new AppendPipeline(proxy, 4, TIMEOUT);
+
+    pipeline.append(1L, ByteBuffer.allocate(0));
+    pipeline.append(2L, ByteBuffer.allocate(0));
+
+    assertThat(pipeline.inFlight(), is(1));
+  }
+
+  @Test
+  public void testFlushWaitsForAllAppends() throws Exception {
+    Future<Void> first = pending();
+    Future<Void> second = pending();
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(first, second);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 8, TIMEOUT);
+    pipeline.append(1L, ByteBuffer.allocate(0));
+    pipeline.append(2L, ByteBuffer.allocate(0));
+
+    pipeline.flush();
+
+    assertThat(pipeline.inFlight(), is(0));
+    verify(first).get(anyLong(), any(TimeUnit.class));
+    verify(second).get(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testHashFlushWaitsOnlyForThatHash() throws Exception {
+    Future<Void> first = pending();
+    Future<Void> second = pending();
+    Future<Void> third = pending();
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(first, second, third);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 8, TIMEOUT);
+    pipeline.append(1L, ByteBuffer.allocate(0));
+    pipeline.append(2L, ByteBuffer.allocate(0));
+    pipeline.append(1L, ByteBuffer.allocate(0));
+
+    pipeline.flush(1L);
+    pipeline.flush(3L);
+
+    verify(first, never()).get(anyLong(), any(TimeUnit.class));
+    verify(second, never()).get(anyLong(), any(TimeUnit.class));
+    verify(third).get(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test
+  public void testFailedAppendDoesNotFailFlush() throws Exception {
+    Future<Void> failed = pending();
+    when(failed.get(anyLong(), any(TimeUnit.class))).thenThrow(new ExecutionException(new RuntimeException("failed append")));
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(failed);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 8, TIMEOUT);
+    pipeline.append(1L, ByteBuffer.allocate(0));
+
+    pipeline.flush();
+
+    assertThat(pipeline.inFlight(), is(0));
+  }
+
+  @Test
+  public void testTimedOutAppendStaysInFlight() throws Exception {
+    Future<Void> slow = pending();
+    when(slow.get(anyLong(), any(TimeUnit.class))).thenThrow(new TimeoutException());
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(slow);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 8, TIMEOUT);
+    pipeline.append(1L, ByteBuffer.allocate(0));
+
+    try {
+      pipeline.flush();
+      fail("Expected TimeoutException");
+    } catch (TimeoutException e) {
+      // expected
+    }
+    try {
+      pipeline.flush(1L);
+      fail("Expected TimeoutException");
+    } catch (TimeoutException e) {
+      // expected
+    }
+    assertThat(pipeline.inFlight(), is(1));
+  }
+
+  @Test
+  public void testInterruptedFlushStopsWaiting() throws Exception {
+    Future<Void> interrupted = pending();
+    when(interrupted.get(anyLong(), any(TimeUnit.class))).thenThrow(new InterruptedException());
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(interrupted);
+    AppendPipeline pipeline = new AppendPipeline(proxy, 8, TIMEOUT);
+    pipeline.append(1L, ByteBuffer.allocate(0));
+
+    try {
+      pipeline.flush();
+      fail("Expected RuntimeException");
+    } catch (RuntimeException e) {
+      assertThat(e.getCause(), instanceOf(InterruptedException.class));
+    }
+    assertThat(Thread.interrupted(), is(true));
+    verify(interrupted).get(anyLong(), any(TimeUnit.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyWindowRejected() {
+    new AppendPipeline(proxy, 0, TIMEOUT);
+  }
+
+  private static Future<Void> pending() {
+    Future<Void> future = mock(Future.class);
+    when(future.isDone()).thenReturn(false);
+    return future;
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.Cache;
+import org.ehcache.PersistentCacheManager;
+import org.ehcache.clustered.client.internal.UnitTestConnectionService;
+import org.ehcache.clustered.client.internal.UnitTestConnectionService.PassthroughServerBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.ehcache.clustered.client.config.builders.ClusteredResourcePoolBuilder.clusteredDedicated;
+import static org.ehcache.clustered.client.config.builders.ClusteringServiceConfigurationBuilder.cluster;
+import static org.ehcache.config.builders.CacheConfigurationBuilder.newCacheConfigurationBuilder;
+import static org.ehcache.config.builders.CacheManagerBuilder.newCacheManagerBuilder;
+import static org.ehcache.config.builders.ResourcePoolsBuilder.newResourcePoolsBuilder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class AsyncClusteredCacheTest {
+
+  private static final URI CLUSTER_URI = URI.create("terracotta://example.com:9540/my-application");
+
+  private ClusteredStore.Provider storeProvider;
+  private PersistentCacheManager cacheManager;
+
+  @Before
+  public void setUp() throws Exception {
+    UnitTestConnectionService.add(CLUSTER_URI,
+        new PassthroughServerBuilder()
+            .resource("primary-server-resource", 64, MemoryUnit.MB)
+            .build());
+
+    storeProvider = new ClusteredStore.Provider();
+    cacheManager = newCacheManagerBuilder()
+        .with(cluster(CLUSTER_URI).autoCreate())
+        .using(storeProvider)
+        .withCache("clustered-cache", newCacheConfigurationBuilder(Long.class, String.class,
+            newResourcePoolsBuilder().heap(10, EntryUnit.ENTRIES)
+                .with(clusteredDedicated("primary-server-resource", 2, MemoryUnit.MB))))
+        .build(true);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    cacheManager.close();
+    UnitTestConnectionService.remove(CLUSTER_URI);
+  }
+
+  @Test
+  public void testAsyncOperationsAreSeenByTheCache() throws Exception {
+    Cache<Long, String> cache = cacheManager.getCache("clustered-cache", Long.class, String.class);
+    AsyncClusteredCache<Long, String> asyncCache = storeProvider.async("clustered-cache", Long.class, String.class);
+
+    cache.put(1L, "one");
+    assertThat(cache.get(1L), is("one"));
+
+    asyncCache.putAsync(1L, "another one").get();
+    assertThat(asyncCache.getAsync(1L).get(), is("another one"));
+    assertThat(cache.get(1L), is("another one"));
+
+    asyncCache.removeAsync(1L).get();
+    assertThat(asyncCache.getAsync(1L).get(), nullValue());
+    assertThat(cache.get(1L), nullValue());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownCacheRejected() {
+    storeProvider.async("unknown-cache", Long.class, String.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMismatchedTypesRejected() {
+    storeProvider.async("clustered-cache", String.class, String.class);
+  }
+}
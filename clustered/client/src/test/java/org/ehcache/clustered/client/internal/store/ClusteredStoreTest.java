@@ -16,6 +16,7 @@
 
 package org.ehcache.clustered.client.internal.store;
 
+import org.ehcache.Cache;
 import org.ehcache.clustered.client.TestTimeSource;
 import org.ehcache.clustered.client.config.ClusteredResourcePool;
 import org.ehcache.clustered.client.config.builders.ClusteredResourcePoolBuilder;
@@ -28,8 +29,10 @@ import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.common.internal.ServerStoreConfiguration;
 import org.ehcache.clustered.common.internal.messages.ServerStoreMessageFactory;
 import org.ehcache.clustered.common.internal.store.Chain;
+import org.ehcache.clustered.common.internal.store.Element;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.Ehcache;
+import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.core.spi.store.StoreAccessException;
@@ -51,9 +54,12 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.ehcache.clustered.util.StatisticsTestUtils.validateStat;
 import static org.ehcache.clustered.util.StatisticsTestUtils.validateStats;
@@ -66,6 +72,8 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -75,6 +83,10 @@ public class ClusteredStoreTest {
   private static final URI CLUSTER_URI = URI.create("terracotta://localhost:9510");
 
   ClusteredStore<Long, String> store;
+  ServerStoreProxy serverStoreProxy;
+  OperationsCodec<Long, String> codec;
+  ChainResolver<Long, String> resolver;
+  TestTimeSource testTimeSource;
 
   @Before
   public void setup() throws Exception {
@@ -101,12 +113,12 @@ public class ClusteredStoreTest {
     );
     clientEntity.createCache(CACHE_IDENTIFIER, serverStoreConfiguration);
     ServerStoreMessageFactory factory = new ServerStoreMessageFactory(CACHE_IDENTIFIER, clientEntity.getClientId());
-    ServerStoreProxy serverStoreProxy = new NoInvalidationServerStoreProxy(factory, clientEntity);
+    serverStoreProxy = new NoInvalidationServerStoreProxy(factory, clientEntity);
 
-    TestTimeSource testTimeSource = new TestTimeSource();
+    testTimeSource = new TestTimeSource();
 
-    OperationsCodec<Long, String> codec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer());
-    ChainResolver<Long, String> resolver = new ChainResolver<Long, String>(codec, Expirations.noExpiration());
+    codec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer());
+    resolver = new ChainResolver<Long, String>(codec, Expirations.noExpiration());
     store = new ClusteredStore<Long, String>(codec, resolver, serverStoreProxy, testTimeSource);
   }
 
@@ -155,6 +167,42 @@ public class ClusteredStoreTest {
     store.get(1L);
   }
 
+  @Test
+  public void testPutWithAppendWindowDoesNotWaitForServer() throws Exception {
+    ServerStoreProxy proxy = mock(ServerStoreProxy.class);
+    Future<Void> pending = mock(Future.class);
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(pending);
+    OperationsCodec<Long, String> codec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer());
+    ClusteredStore<Long, String> store = new ClusteredStore<Long, String>(codec, null, proxy, new TestTimeSource(), 0, 16);
+
+    assertThat(store.put(1L, "one"), is(Store.PutStatus.PUT));
+
+    verify(proxy).appendAsync(eq(1L), any(ByteBuffer.class));
+    verify(proxy, never()).getAndAppend(anyLong(), any(ByteBuffer.class));
+    verify(pending, never()).get();
+
+    store.clear();
+    verify(pending).get();
+    verify(proxy).clear();
+  }
+
+  @Test
+  public void testGetWaitsForPipelinedPutOfSameHash() throws Exception {
+    ServerStoreProxy proxy = mock(ServerStoreProxy.class);
+    Future<Void> pending = mock(Future.class);
+    when(proxy.appendAsync(anyLong(), any(ByteBuffer.class))).thenReturn(pending);
+    when(proxy.get(anyLong())).thenReturn(new ChainBuilder().build());
+    OperationsCodec<Long, String> codec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer());
+    ClusteredStore<Long, String> store = new ClusteredStore<Long, String>(codec, null, proxy, new TestTimeSource(), 0, 16);
+
+    store.put(1L, "one");
+    store.get(2L);
+    verify(pending, never()).get();
+
+    store.get(1L);
+    verify(pending).get();
+  }
+
   @Test
   public void testGetTimeout() throws Exception {
     ServerStoreProxy proxy = mock(ServerStoreProxy.class);
@@ -182,7 +230,7 @@ public class ClusteredStoreTest {
     ClusteredStore<Long, String> clusteredStore = new ClusteredStore<Long, String>(operationsCodec, chainResolver,
                                                                                     serverStoreProxy, timeSource);
     clusteredStore.get(42L);
-    verify(serverStoreProxy).replaceAtHead(eq(42L), eq(chain), any(Chain.class));
+    verify(serverStoreProxy).replaceAtHead(eq(42L), eq(chain), any(Chain.class), anyLong());
   }
 
   @Test
@@ -204,6 +252,7 @@ public class ClusteredStoreTest {
                                                                                     serverStoreProxy, timeSource);
     clusteredStore.get(42L);
     verify(serverStoreProxy, never()).replaceAtHead(eq(42L), eq(chain), any(Chain.class));
+    verify(serverStoreProxy, never()).replaceAtHead(eq(42L), eq(chain), any(Chain.class), anyLong());
   }
 
   @Test
@@ -439,6 +488,31 @@ public class ClusteredStoreTest {
     validateStats(store, EnumSet.of(StoreOperationOutcomes.PutOutcome.PUT));  //outcome of the initial store put
   }
 
+  @Test
+  public void testBulkComputePutAllThatCompactsInvokesReplace() throws Exception {
+    TestTimeSource timeSource = new TestTimeSource();
+    timeSource.advanceTime(134556L);
+    long now = timeSource.getTimeMillis();
+    OperationsCodec<Long, String> operationsCodec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer());
+    ChainResolver chainResolver = mock(ChainResolver.class);
+    ResolvedChain<Long, String> resolvedChain = mock(ResolvedChain.class);
+    when(resolvedChain.isCompacted()).thenReturn(true);
+    when(chainResolver.resolve(any(Chain.class), eq(42L), eq(now))).thenReturn(resolvedChain);
+    ServerStoreProxy serverStoreProxy = mock(ServerStoreProxy.class);
+    Chain chain = mock(Chain.class);
+    when(chain.isEmpty()).thenReturn(false);
+    when(serverStoreProxy.bulkGetAndAppend(any(long[].class), any(List.class))).thenReturn(Collections.singletonList(chain));
+
+    ClusteredStore<Long, String> clusteredStore = new ClusteredStore<Long, String>(operationsCodec, chainResolver,
+                                                                                    serverStoreProxy, timeSource);
+    Ehcache.PutAllFunction<Long, String> putAllFunction = new Ehcache.PutAllFunction<Long, String>(null, Collections.singletonMap(42L, "value"), null);
+    Map<Long, Store.ValueHolder<String>> valueHolderMap = clusteredStore.bulkCompute(Collections.singleton(42L), putAllFunction);
+
+    assertThat(valueHolderMap.get(42L).value(), is("value"));
+    assertThat(putAllFunction.getActualPutCount().get(), is(1));
+    verify(serverStoreProxy).replaceAtHead(eq(42L), eq(chain), any(Chain.class), anyLong());
+  }
+
   @Test
   public void testBulkComputeRemoveAll() throws Exception {
     store.put(1L, "one");
@@ -483,4 +557,169 @@ public class ClusteredStoreTest {
     store.bulkComputeIfAbsent(new HashSet<Long>(Arrays.asList(1L, 2L)), mappingFunction);
   }
 
-}
\ No newline at end of file
+  @Test
+  public void testCompute() throws Exception {
+    BiFunction<Long, String, String> append = new BiFunction<Long, String, String>() {
+      @Override
+      public String apply(Long key, String oldValue) {
+        return oldValue == null ? "one" : oldValue + "!";
+      }
+    };
+    assertThat(store.compute(1L, append).value(), is("one"));
+    assertThat(store.compute(1L, append).value(), is("one!"));
+    assertThat(store.get(1L).value(), is("one!"));
+
+    BiFunction<Long, String, String> remove = new BiFunction<Long, String, String>() {
+      @Override
+      public String apply(Long key, String oldValue) {
+        return null;
+      }
+    };
+    assertThat(store.compute(1L, remove), nullValue());
+    assertThat(store.get(1L), nullValue());
+  }
+
+  @Test
+  public void testComputeLosingRaceReappliesFunction() throws Exception {
+    store.put(1L, "one");
+    final AtomicInteger invocations = new AtomicInteger();
+    BiFunction<Long, String, String> racing = new BiFunction<Long, String, String>() {
+      @Override
+      public String apply(Long key, String oldValue) {
+        if (invocations.incrementAndGet() == 1) {
+          try {
+            store.put(key, "concurrent");
+          } catch (StoreAccessException e) {
+            throw new AssertionError(e);
+          }
+        }
+        return oldValue + "!";
+      }
+    };
+    assertThat(store.compute(1L, racing).value(), is("concurrent!"));
+    assertThat(invocations.get(), is(2));
+    assertThat(store.get(1L).value(), is("concurrent!"));
+  }
+
+  @Test
+  public void testComputeIfAbsentLosingRaceReturnsInstalledValue() throws Exception {
+    Function<Long, String> racing = new Function<Long, String>() {
+      @Override
+      public String apply(Long key) {
+        try {
+          store.put(key, "concurrent");
+        } catch (StoreAccessException e) {
+          throw new AssertionError(e);
+        }
+        return "computed" + key;
+      }
+    };
+    assertThat(store.computeIfAbsent(1L, racing).value(), is("concurrent"));
+    assertThat(store.get(1L).value(), is("concurrent"));
+  }
+
+  @Test
+  public void testComputeIfAbsent() throws Exception {
+    Function<Long, String> mappingFunction = new Function<Long, String>() {
+      @Override
+      public String apply(Long key) {
+        return "computed" + key;
+      }
+    };
+    assertThat(store.computeIfAbsent(1L, mappingFunction).value(), is("computed1"));
+    assertThat(store.get(1L).value(), is("computed1"));
+
+    store.put(2L, "two");
+    assertThat(store.computeIfAbsent(2L, mappingFunction).value(), is("two"));
+  }
+
+  @Test
+  public void testComputeIfAbsentDoesNotInstallNull() throws Exception {
+    Function<Long, String> mappingFunction = new Function<Long, String>() {
+      @Override
+      public String apply(Long key) {
+        return null;
+      }
+    };
+    assertThat(store.computeIfAbsent(1L, mappingFunction), nullValue());
+    assertThat(store.get(1L), nullValue());
+  }
+
+  @Test
+  public void testIterator() throws Exception {
+    Map<Long, String> expected = new HashMap<Long, String>();
+    for (long i = 0; i < 300; i++) {
+      store.put(i, "value" + i);
+      expected.put(i, "value" + i);
+    }
+    store.remove(42L);
+    expected.remove(42L);
+
+    Map<Long, String> iterated = new HashMap<Long, String>();
+    Store.Iterator<Cache.Entry<Long, Store.ValueHolder<String>>> iterator = store.iterator();
+    while (iterator.hasNext()) {
+      Cache.Entry<Long, Store.ValueHolder<String>> entry = iterator.next();
+      assertThat(iterated.put(entry.getKey(), entry.getValue().value()), nullValue());
+    }
+
+    assertThat(iterated, is(expected));
+  }
+
+  @Test
+  public void testIteratorOnEmptyStore() throws Exception {
+    assertThat(store.iterator().hasNext(), is(false));
+  }
+
+  @Test
+  public void testNearCacheServesRepeatedReads() throws Exception {
+    ServerStoreProxy proxy = spy(serverStoreProxy);
+    ClusteredStore<Long, String> nearCachedStore = new ClusteredStore<Long, String>(codec, resolver, proxy, testTimeSource, 16);
+    nearCachedStore.put(1L, "one");
+
+    assertThat(nearCachedStore.get(1L).value(), is("one"));
+    assertThat(nearCachedStore.get(1L).value(), is("one"));
+    assertThat(nearCachedStore.containsKey(1L), is(true));
+    verify(proxy, times(1)).get(1L);
+  }
+
+  @Test
+  public void testNearCacheDroppedOnLocalMutation() throws Exception {
+    ServerStoreProxy proxy = spy(serverStoreProxy);
+    ClusteredStore<Long, String> nearCachedStore = new ClusteredStore<Long, String>(codec, resolver, proxy, testTimeSource, 16);
+    nearCachedStore.put(1L, "one");
+    assertThat(nearCachedStore.get(1L).value(), is("one"));
+
+    nearCachedStore.put(1L, "two");
+    assertThat(nearCachedStore.get(1L).value(), is("two"));
+    nearCachedStore.remove(1L);
+    assertThat(nearCachedStore.get(1L), nullValue());
+    nearCachedStore.put(1L, "three");
+    assertThat(nearCachedStore.get(1L).value(), is("three"));
+    nearCachedStore.clear();
+    assertThat(nearCachedStore.get(1L), nullValue());
+    verify(proxy, times(5)).get(1L);
+  }
+
+  @Test
+  public void testCompactShortensChainAndKeepsValue() throws Exception {
+    store.put(1L, "one");
+    store.put(1L, "two");
+    store.put(1L, "three");
+    Chain chain = serverStoreProxy.get(1L);
+    assertThat(chainLength(chain), is(3));
+
+    store.compact(1L, chain);
+
+    assertThat(chainLength(serverStoreProxy.get(1L)), is(1));
+    assertThat(store.get(1L).value(), is("three"));
+  }
+
+  private static int chainLength(Chain chain) {
+    int length = 0;
+    for (Element element : chain) {
+      length++;
+    }
+    return length;
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store;
+
+import org.ehcache.clustered.client.TestTimeSource;
+import org.ehcache.impl.serialization.StringSerializer;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class NearCacheTest {
+
+  private final TestTimeSource timeSource = new TestTimeSource();
+
+  @Test
+  public void testEachGetReturnsItsOwnCopy() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(16, timeSource, new StringSerializer());
+    String value = new String("bar");
+    nearCache.install(1L, nearCache.reserve(1L), "foo", value, Long.MIN_VALUE);
+
+    String first = nearCache.get(1L, "foo");
+    String second = nearCache.get(1L, "foo");
+    assertThat(first, is("bar"));
+    assertThat(second, is("bar"));
+    assertThat(first, not(sameInstance(second)));
+    assertThat(first, not(sameInstance(value)));
+  }
+
+  @Test
+  public void testDisabledNearCacheHoldsNothing() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(0, timeSource, new StringSerializer());
+    Object reservation = nearCache.reserve(1L);
+    nearCache.install(1L, reservation, "foo", "bar", Long.MIN_VALUE);
+
+    assertThat(nearCache.isEnabled(), is(false));
+    assertThat(nearCache.get(1L, "foo"), nullValue());
+  }
+
+  @Test
+  public void testInstalledValueIsServed() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(16, timeSource, new StringSerializer());
+    nearCache.install(1L, nearCache.reserve(1L), "foo", "bar", Long.MIN_VALUE);
+
+    assertThat(nearCache.get(1L, "foo"), is("bar"));
+  }
+
+  @Test
+  public void testCollidingKeyIsNotServed() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(16, timeSource, new StringSerializer());
+    nearCache.install(1L, nearCache.reserve(1L), "foo", "bar", Long.MIN_VALUE);
+
+    assertThat(nearCache.get(1L, "baz"), nullValue());
+  }
+
+  @Test
+  public void testInvalidationDropsReservation() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(16, timeSource, new StringSerializer());
+    Object reservation = nearCache.reserve(1L);
+    nearCache.invalidate(1L);
+    nearCache.install(1L, reservation, "foo", "bar", Long.MIN_VALUE);
+
+    assertThat(nearCache.get(1L, "foo"), nullValue());
+  }
+
+  @Test
+  public void testInvalidateAllDropsReservation() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(16, timeSource, new StringSerializer());
+    Object reservation = nearCache.reserve(1L);
+    nearCache.invalidateAll();
+    nearCache.install(1L, reservation, "foo", "bar", Long.MIN_VALUE);
+
+    assertThat(nearCache.get(1L, "foo"), nullValue());
+  }
+
+  @Test
+  public void testExpiredValueIsNotServed() {
+    NearCache<String, String> nearCache = new NearCache<String, String>(16, timeSource, new StringSerializer());
+    nearCache.install(1L, nearCache.reserve(1L), "foo", "bar", 100L);
+
+    timeSource.advanceTime(99L);
+    assertThat(nearCache.get(1L, "foo"), is("bar"));
+    timeSource.advanceTime(1L);
+    assertThat(nearCache.get(1L, "foo"), nullValue());
+  }
+
+  @Test
+  public void testCapacityIsBounded() {
+    NearCache<Long, String> nearCache = new NearCache<Long, String>(2, timeSource, new StringSerializer());
+    for (long key = 0; key < 3; key++) {
+      nearCache.install(key, nearCache.reserve(key), key, "value", Long.MIN_VALUE);
+    }
+
+    int held = 0;
+    for (long key = 0; key < 3; key++) {
+      if (nearCache.get(key, key) != null) {
+        held++;
+      }
+    }
+    assertThat(held, is(2));
+    assertThat(nearCache.get(2L, 2L), is("value"));
+  }
+}
@@ -37,6 +37,7 @@ import java.net.URI;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Properties;
+import java.util.concurrent.Future;
 
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
 import static org.ehcache.clustered.common.internal.store.Util.getChain;
@@ -172,6 +173,26 @@ public class NoInvalidationServerStoreProxyTest {
     assertThat(chain.isEmpty(), is(true));
   }
 
+  @Test
+  public void testAsyncAppendThenGet() throws Exception {
+    Future<Void> first = serverStoreProxy.appendAsync(30L, createPayload(30L));
+    Future<Void> second = serverStoreProxy.appendAsync(30L, createPayload(300L));
+    first.get();
+    second.get();
+
+    Chain chain = serverStoreProxy.getAsync(30L).get();
+    assertChainHas(chain, 30L, 300L);
+  }
+
+  @Test
+  public void testAsyncGetAndAppend() throws Exception {
+    Chain chain = serverStoreProxy.getAndAppendAsync(31L, createPayload(31L)).get();
+    assertThat(chain.isEmpty(), is(true));
+
+    chain = serverStoreProxy.getAndAppendAsync(31L, createPayload(310L)).get();
+    assertChainHas(chain, 31L);
+  }
+
   private static void assertChainHas(Chain chain, long... payLoads) {
     Iterator<Element> elements = chain.iterator();
     for (long payLoad : payLoads) {
@@ -203,6 +203,29 @@ public class StrongServerStoreProxyTest {
     serverStoreProxy2.removeInvalidationListener(listener);
   }
 
+  @Test
+  public void testHashInvalidationListenerWithAsyncAppend() throws Exception {
+    final AtomicReference<Long> invalidatedHash = new AtomicReference<Long>();
+
+    ServerStoreProxy.InvalidationListener listener = new ServerStoreProxy.InvalidationListener() {
+      @Override
+      public void onInvalidateHash(long hash) {
+        invalidatedHash.set(hash);
+      }
+
+      @Override
+      public void onInvalidateAll() {
+        throw new AssertionError("Should not be called");
+      }
+    };
+    serverStoreProxy2.addInvalidationListener(listener);
+
+    serverStoreProxy1.appendAsync(7L, createPayload(7L)).get();
+
+    assertThat(invalidatedHash.get(), is(7L));
+    serverStoreProxy2.removeInvalidationListener(listener);
+  }
+
   @Test
   public void testConcurrentHashInvalidationListenerWithAppend() throws Exception {
     final AtomicBoolean invalidating = new AtomicBoolean();
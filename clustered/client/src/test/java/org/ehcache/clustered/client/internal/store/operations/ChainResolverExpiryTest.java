@@ -266,6 +266,44 @@ public class ChainResolverExpiryTest {
     assertThat(resolvedChain.isCompacted(), is(true));
   }
 
+  @Test
+  public void testCompactedChainExpirationTimeIsTheResolvedExpiry() {
+    Expiry<Long, String> expiry = mock(Expiry.class);
+    ChainResolver<Long, String> chainResolver = new ChainResolver(codec, expiry);
+
+    when(expiry.getExpiryForCreation(anyLong(), anyString())).thenReturn(new Duration(1L, TimeUnit.SECONDS));
+
+    List<Operation<Long, String>> list = new ArrayList<Operation<Long, String>>();
+    list.add(new PutOperation<Long, String>(1L, "One", timeSource.getTimeMillis()));
+    list.add(new PutOperation<Long, String>(1L, "Second", timeSource.getTimeMillis()));
+
+    Chain chain = getChainFromOperations(list);
+
+    ResolvedChain<Long, String> resolvedChain = chainResolver.resolve(chain, 1L, timeSource.getTimeMillis());
+
+    assertThat(resolvedChain.isCompacted(), is(true));
+    assertThat(resolvedChain.getCompactedChainExpirationTime(), is(timeSource.getTimeMillis() + 1000L));
+  }
+
+  @Test
+  public void testCompactedChainExpirationTimeIsUnknownWithOtherKeys() {
+    Expiry<Long, String> expiry = mock(Expiry.class);
+    ChainResolver<Long, String> chainResolver = new ChainResolver(codec, expiry);
+
+    when(expiry.getExpiryForCreation(anyLong(), anyString())).thenReturn(new Duration(1L, TimeUnit.SECONDS));
+
+    List<Operation<Long, String>> list = new ArrayList<Operation<Long, String>>();
+    list.add(new PutOperation<Long, String>(1L, "One", timeSource.getTimeMillis()));
+    list.add(new PutOperation<Long, String>(2L, "Two", timeSource.getTimeMillis()));
+
+    Chain chain = getChainFromOperations(list);
+
+    ResolvedChain<Long, String> resolvedChain = chainResolver.resolve(chain, 1L, timeSource.getTimeMillis());
+
+    assertThat(resolvedChain.isCompacted(), is(true));
+    assertThat(resolvedChain.getCompactedChainExpirationTime(), is(Long.MAX_VALUE));
+  }
+
   private Chain getChainFromOperations(List<Operation<Long, String>> operations) {
     ChainBuilder chainBuilder = new ChainBuilder();
     for(Operation<Long, String> operation: operations) {
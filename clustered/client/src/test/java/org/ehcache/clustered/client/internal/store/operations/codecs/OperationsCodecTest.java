@@ -0,0 +1,109 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.client.internal.store.operations.codecs;
+
+import org.ehcache.clustered.client.internal.store.operations.ConditionalRemoveOperation;
+import org.ehcache.clustered.client.internal.store.operations.ConditionalReplaceOperation;
+import org.ehcache.clustered.client.internal.store.operations.Operation;
+import org.ehcache.clustered.client.internal.store.operations.PutIfAbsentOperation;
+import org.ehcache.clustered.client.internal.store.operations.PutOperation;
+import org.ehcache.clustered.client.internal.store.operations.RemoveOperation;
+import org.ehcache.clustered.client.internal.store.operations.ReplaceOperation;
+import org.ehcache.impl.serialization.LongSerializer;
+import org.ehcache.impl.serialization.StringSerializer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class OperationsCodecTest {
+
+  private static final long TIME_STAMP = 1479311234567L;
+
+  private final OperationsCodec<Long, String> codec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer());
+  private final OperationsCodec<Long, String> compactCodec = new OperationsCodec<Long, String>(new LongSerializer(), new StringSerializer(), true);
+
+  @Test
+  public void testCompactEncodingRoundTrip() {
+    for (Operation<Long, String> operation : operations("value")) {
+      Operation<Long, String> decoded = compactCodec.decode(compactCodec.encode(operation));
+      assertSameOperation(decoded, operation);
+    }
+  }
+
+  @Test
+  public void testCompactEncodingShorter() {
+    for (Operation<Long, String> operation : operations("value")) {
+      assertThat(compactCodec.encode(operation).remaining(), lessThan(codec.encode(operation).remaining()));
+    }
+  }
+
+  @Test
+  public void testBothEncodingsDecoded() {
+    for (Operation<Long, String> operation : operations("value")) {
+      assertSameOperation(codec.decode(compactCodec.encode(operation)), operation);
+      assertSameOperation(compactCodec.decode(codec.encode(operation)), operation);
+    }
+  }
+
+  @Test
+  public void testLargeValuesCompressed() {
+    char[] chars = new char[4 * CompactOperationEncoding.COMPRESSION_THRESHOLD];
+    Arrays.fill(chars, 'a');
+    String value = new String(chars);
+
+    for (Operation<Long, String> operation : operations(value)) {
+      ByteBuffer encoded = compactCodec.encode(operation);
+      if (!(operation instanceof RemoveOperation)) {
+        assertThat(encoded.remaining(), lessThan(CompactOperationEncoding.COMPRESSION_THRESHOLD));
+      }
+      assertSameOperation(compactCodec.decode(encoded), operation);
+    }
+  }
+
+  @Test
+  public void testExpirationTimeStampEncoded() {
+    PutOperation<Long, String> operation = new PutOperation<Long, String>(1L, "value", -TIME_STAMP);
+
+    Operation<Long, String> decoded = compactCodec.decode(compactCodec.encode(operation));
+
+    assertThat(decoded.isExpiryAvailable(), is(true));
+    assertThat(decoded.expirationTime(), is(TIME_STAMP));
+  }
+
+  private static List<Operation<Long, String>> operations(String value) {
+    return Arrays.<Operation<Long, String>>asList(
+        new PutOperation<Long, String>(1L, value, TIME_STAMP),
+        new RemoveOperation<Long, String>(2L, TIME_STAMP),
+        new PutIfAbsentOperation<Long, String>(3L, value, TIME_STAMP),
+        new ConditionalRemoveOperation<Long, String>(4L, value, TIME_STAMP),
+        new ReplaceOperation<Long, String>(5L, value, TIME_STAMP),
+        new ConditionalReplaceOperation<Long, String>(6L, value, value + "-new", TIME_STAMP));
+  }
+
+  private static void assertSameOperation(Operation<Long, String> decoded, Operation<Long, String> operation) {
+    assertThat(decoded.getOpCode(), is(operation.getOpCode()));
+    assertThat(decoded.getKey(), is(operation.getKey()));
+    assertThat(decoded.timeStamp(), is(operation.timeStamp()));
+    assertThat(decoded.toString(), is(operation.toString()));
+  }
+}
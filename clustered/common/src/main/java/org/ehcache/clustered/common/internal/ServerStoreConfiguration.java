@@ -39,6 +39,8 @@ public class ServerStoreConfiguration implements Serializable {
   private final String keySerializerType;
   private final String valueSerializerType;
   private final Consistency consistency;
+  private final int segmentCount;
+  private final boolean compactEncoding;
   // TODO: Loader/Writer configuration ...
 
   public ServerStoreConfiguration(PoolAllocation poolAllocation,
@@ -49,6 +51,45 @@ public class ServerStoreConfiguration implements Serializable {
                                   String keySerializerType,
                                   String valueSerializerType,
                                   Consistency consistency) {
+    this(poolAllocation, storedKeyType, storedValueType, actualKeyType, actualValueType, keySerializerType, valueSerializerType, consistency, 0);
+  }
+
+  /**
+   * Creates a configuration requesting a specific number of segments for the store.
+   *
+   * @param segmentCount the number of segments, {@code 0} to use the segment count of the clustered tier manager
+   */
+  public ServerStoreConfiguration(PoolAllocation poolAllocation,
+                                  String storedKeyType,
+                                  String storedValueType,
+                                  String actualKeyType,
+                                  String actualValueType,
+                                  String keySerializerType,
+                                  String valueSerializerType,
+                                  Consistency consistency,
+                                  int segmentCount) {
+    this(poolAllocation, storedKeyType, storedValueType, actualKeyType, actualValueType, keySerializerType, valueSerializerType, consistency, segmentCount, false);
+  }
+
+  /**
+   * Creates a configuration requesting a specific number of segments and operation encoding for the store.
+   *
+   * @param segmentCount the number of segments, {@code 0} to use the segment count of the clustered tier manager
+   * @param compactEncoding {@code true} if the clients of the store write their operations in the compact encoding
+   */
+  public ServerStoreConfiguration(PoolAllocation poolAllocation,
+                                  String storedKeyType,
+                                  String storedValueType,
+                                  String actualKeyType,
+                                  String actualValueType,
+                                  String keySerializerType,
+                                  String valueSerializerType,
+                                  Consistency consistency,
+                                  int segmentCount,
+                                  boolean compactEncoding) {
+    if (segmentCount < 0) {
+      throw new IllegalArgumentException("Segment count must be positive or 0 : " + segmentCount);
+    }
     this.poolAllocation = poolAllocation;
     this.storedKeyType = storedKeyType;
     this.storedValueType = storedValueType;
@@ -57,6 +98,8 @@ public class ServerStoreConfiguration implements Serializable {
     this.keySerializerType = keySerializerType;
     this.valueSerializerType = valueSerializerType;
     this.consistency = consistency;
+    this.segmentCount = segmentCount;
+    this.compactEncoding = compactEncoding;
   }
 
   public PoolAllocation getPoolAllocation() {
@@ -91,6 +134,20 @@ public class ServerStoreConfiguration implements Serializable {
     return consistency;
   }
 
+  /**
+   * @return the number of segments requested for the store, {@code 0} if none was requested
+   */
+  public int getSegmentCount() {
+    return segmentCount;
+  }
+
+  /**
+   * @return {@code true} if the clients of the store write their operations in the compact encoding
+   */
+  public boolean isCompactEncoding() {
+    return compactEncoding;
+  }
+
   public boolean isCompatible(ServerStoreConfiguration otherConfiguration, StringBuilder sb) {
 
     boolean isCompatible;
@@ -126,6 +183,14 @@ public class ServerStoreConfiguration implements Serializable {
     isCompatible &= compareField(sb, "keySerializerType", keySerializerType, otherConfiguration.getKeySerializerType());
     isCompatible &= compareField(sb, "valueSerializerType", valueSerializerType, otherConfiguration.getValueSerializerType());
     isCompatible &= compareConsistencyField(sb, consistency, otherConfiguration.getConsistency());
+    if (otherConfiguration.getSegmentCount() != 0 && otherConfiguration.getSegmentCount() != segmentCount) {
+      appendFault(sb, "segmentCount", segmentCount, otherConfiguration.getSegmentCount());
+      isCompatible &= false;
+    }
+    if (otherConfiguration.isCompactEncoding() != compactEncoding) {
+      appendFault(sb, "compactEncoding", compactEncoding, otherConfiguration.isCompactEncoding());
+      isCompatible &= false;
+    }
 
     return isCompatible;
   }
@@ -22,90 +22,174 @@ import org.ehcache.clustered.common.internal.store.SequencedElement;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.getVarInt;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.getVarLong;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.putVarInt;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.putVarLong;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.varIntSize;
+import static org.ehcache.clustered.common.internal.messages.CodecUtil.varLongSize;
 import static org.ehcache.clustered.common.internal.store.Util.getElement;
 import static org.ehcache.clustered.common.internal.store.Util.getChain;
 
+/**
+ * Encodes chains for the wire.
+ * <p>
+ * Chains are written in the original fixed width layout unless the compact layout is requested, which is only done
+ * for server stores configured with the compact encoding. The compact layout writes variable length payload sizes
+ * and, for sequenced chains, each sequence number as its difference to the previous one. Both layouts are decoded.
+ */
 public class ChainCodec {
 
   private static final byte NON_SEQUENCED_CHAIN = 0;
   private static final byte SEQUENCED_CHAIN = 1;
-  private static final byte SEQ_NUM_OFFSET = 8;
-  private static final byte ELEMENT_PAYLOAD_OFFSET = 4;
+  private static final byte COMPACT_NON_SEQUENCED_CHAIN = 2;
+  private static final byte COMPACT_SEQUENCED_CHAIN = 3;
+  private static final byte SEQ_NUM_SIZE = 8;
+  private static final byte ELEMENT_PAYLOAD_SIZE = 4;
 
-  //TODO: optimize too many bytebuffer allocation
   public byte[] encode(Chain chain) {
-    ByteBuffer msg = null;
-    boolean firstIteration = true ;
+    return encode(chain, false);
+  }
+
+  /**
+   * Encodes {@code chain} in the requested layout.
+   *
+   * @param chain the chain to encode
+   * @param compact {@code true} to use the compact layout
+   * @return the encoded chain
+   */
+  public byte[] encode(Chain chain, boolean compact) {
+    ByteBuffer buffer = ByteBuffer.allocate(encodedSize(chain, compact));
+    encode(chain, buffer, compact);
+    return buffer.array();
+  }
+
+  /**
+   * Returns the number of bytes {@link #encode(Chain, ByteBuffer, boolean)} writes for {@code chain}.
+   *
+   * @param chain the chain to encode
+   * @param compact {@code true} to use the compact layout
+   * @return the encoded size
+   */
+  public int encodedSize(Chain chain, boolean compact) {
+    Iterator<Element> iterator = chain.iterator();
+    if (!iterator.hasNext()) {
+      return 0;
+    }
+    boolean isSequenced = iterator.next() instanceof SequencedElement;
+
+    int size = 1;
+    long previousSequence = 0;
     for (Element element : chain) {
-      if (firstIteration) {
-        firstIteration = false;
-        ByteBuffer buffer = ByteBuffer.allocate(1);
-        if (element instanceof SequencedElement) {
-          buffer.put(SEQUENCED_CHAIN);
-        } else {
-          buffer.put(NON_SEQUENCED_CHAIN);
+      int payloadSize = element.getPayload().remaining();
+      if (compact) {
+        if (isSequenced) {
+          long sequence = ((SequencedElement) element).getSequenceNumber();
+          size += varLongSize(sequence - previousSequence);
+          previousSequence = sequence;
         }
-        buffer.flip();
-        msg = combine(buffer, encodeElement(element));
-        continue;
-      }
-      if (msg == null) {
-        throw new IllegalArgumentException("Message cannot be null");
+        size += varIntSize(payloadSize) + payloadSize;
+      } else {
+        size += (isSequenced ? SEQ_NUM_SIZE : 0) + ELEMENT_PAYLOAD_SIZE + payloadSize;
       }
-      msg = combine(msg, encodeElement(element));
     }
-    return msg != null ? msg.array() : new byte[0];
+    return size;
   }
 
-  public Chain decode(byte[] payload) {
-    final List<Element> elements = new ArrayList<Element>();
-    if (payload.length != 0) {
-      ByteBuffer buffer = ByteBuffer.wrap(payload);
-      boolean isSequenced = buffer.get() == 1;
-      if (isSequenced) {
-        while (buffer.hasRemaining()) {
-          long sequence = buffer.getLong();
-          elements.add(getElement(sequence, getElementPayLoad(buffer)));
+  /**
+   * Encodes {@code chain} at the position of {@code buffer}, letting callers write it straight into a larger message.
+   *
+   * @param chain the chain to encode
+   * @param buffer the target buffer, with at least {@link #encodedSize(Chain, boolean)} bytes remaining
+   * @param compact {@code true} to use the compact layout
+   */
+  public void encode(Chain chain, ByteBuffer buffer, boolean compact) {
+    Iterator<Element> iterator = chain.iterator();
+    if (!iterator.hasNext()) {
+      return;
+    }
+    boolean isSequenced = iterator.next() instanceof SequencedElement;
+
+    if (compact) {
+      buffer.put(isSequenced ? COMPACT_SEQUENCED_CHAIN : COMPACT_NON_SEQUENCED_CHAIN);
+    } else {
+      buffer.put(isSequenced ? SEQUENCED_CHAIN : NON_SEQUENCED_CHAIN);
+    }
+    long previousSequence = 0;
+    for (Element element : chain) {
+      ByteBuffer payload = element.getPayload();
+      if (compact) {
+        if (isSequenced) {
+          long sequence = ((SequencedElement) element).getSequenceNumber();
+          putVarLong(buffer, sequence - previousSequence);
+          previousSequence = sequence;
         }
+        putVarInt(buffer, payload.remaining());
       } else {
-        while (buffer.hasRemaining()) {
-          elements.add(getElement(getElementPayLoad(buffer)));
+        if (isSequenced) {
+          buffer.putLong(((SequencedElement) element).getSequenceNumber());
         }
+        buffer.putInt(payload.remaining());
       }
+      buffer.put(payload);
     }
-    return getChain(elements);
   }
 
-  private static ByteBuffer combine(ByteBuffer buffer1, ByteBuffer buffer2) {
-    ByteBuffer byteBuffer = ByteBuffer.allocate(buffer1.remaining() + buffer2.remaining());
-    byteBuffer.put(buffer1);
-    byteBuffer.put(buffer2);
-    byteBuffer.flip();
-    return byteBuffer;
+  public Chain decode(byte[] payload) {
+    return decode(ByteBuffer.wrap(payload));
   }
 
-  private static ByteBuffer encodeElement(Element element) {
-    ByteBuffer buffer = null;
-    if (element instanceof SequencedElement) {
-      buffer = ByteBuffer.allocate(SEQ_NUM_OFFSET + ELEMENT_PAYLOAD_OFFSET + element.getPayload().remaining());
-      buffer.putLong(((SequencedElement)element).getSequenceNumber());
-    } else {
-      buffer = ByteBuffer.allocate(ELEMENT_PAYLOAD_OFFSET + element.getPayload().remaining());
+  /**
+   * Decodes the chain held in the remaining bytes of {@code payload}, the decoded elements are slices of it.
+   *
+   * @param payload the encoded chain
+   * @return the decoded chain
+   */
+  public Chain decode(ByteBuffer payload) {
+    final List<Element> elements = new ArrayList<Element>();
+    if (payload.hasRemaining()) {
+      ByteBuffer buffer = payload.slice();
+      byte chainType = buffer.get();
+      switch (chainType) {
+        case NON_SEQUENCED_CHAIN:
+          while (buffer.hasRemaining()) {
+            elements.add(getElement(getElementPayLoad(buffer, buffer.getInt())));
+          }
+          break;
+        case SEQUENCED_CHAIN:
+          while (buffer.hasRemaining()) {
+            long sequence = buffer.getLong();
+            elements.add(getElement(sequence, getElementPayLoad(buffer, buffer.getInt())));
+          }
+          break;
+        case COMPACT_NON_SEQUENCED_CHAIN:
+          while (buffer.hasRemaining()) {
+            elements.add(getElement(getElementPayLoad(buffer, getVarInt(buffer))));
+          }
+          break;
+        case COMPACT_SEQUENCED_CHAIN:
+          long sequence = 0;
+          while (buffer.hasRemaining()) {
+            sequence += getVarLong(buffer);
+            elements.add(getElement(sequence, getElementPayLoad(buffer, getVarInt(buffer))));
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown chain encoding : " + chainType);
+      }
     }
-    buffer.putInt(element.getPayload().remaining());
-    buffer.put(element.getPayload());
-    buffer.flip();
-    return buffer;
+    return getChain(elements);
   }
 
-  private static ByteBuffer getElementPayLoad(ByteBuffer buffer) {
-    int payloadSize = buffer.getInt();
+  private static ByteBuffer getElementPayLoad(ByteBuffer buffer, int payloadSize) {
+    int limit = buffer.limit();
     buffer.limit(buffer.position() + payloadSize);
     ByteBuffer elementPayload = buffer.slice();
     buffer.position(buffer.limit());
-    buffer.limit(buffer.capacity());
+    buffer.limit(limit);
     return elementPayload;
   }
 }
@@ -37,4 +37,80 @@ public final class CodecUtil {
     return new String(arr);
   }
 
+  /**
+   * Returns a view of the next {@code length} bytes of {@code buffer} and moves its position past them.
+   */
+  public static ByteBuffer getSlice(ByteBuffer buffer, int length) {
+    ByteBuffer slice = buffer.slice();
+    slice.limit(length);
+    buffer.position(buffer.position() + length);
+    return slice;
+  }
+
+  /**
+   * Writes an unsigned variable length integer, seven bits per byte, least significant group first.
+   */
+  public static void putVarInt(ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  public static int getVarInt(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed variable length integer");
+  }
+
+  public static int varIntSize(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      size++;
+      value >>>= 7;
+    }
+    return size;
+  }
+
+  /**
+   * Writes a signed long as a zig-zag encoded variable length integer, so that small negative values stay short.
+   */
+  public static void putVarLong(ByteBuffer buffer, long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    buffer.put((byte) zigZag);
+  }
+
+  public static long getVarLong(ByteBuffer buffer) {
+    long zigZag = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      byte b = buffer.get();
+      zigZag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new IllegalArgumentException("Malformed variable length long");
+  }
+
+  public static int varLongSize(long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    int size = 1;
+    while ((zigZag & ~0x7FL) != 0) {
+      size++;
+      zigZag >>>= 7;
+    }
+    return size;
+  }
+
 }
@@ -21,6 +21,8 @@ import org.ehcache.clustered.common.internal.exceptions.ClusterException;
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.terracotta.entity.EntityResponse;
 
+import java.util.List;
+
 public abstract class EhcacheEntityResponse implements EntityResponse {
 
   public enum Type {
@@ -33,6 +35,12 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
     CLIENT_INVALIDATE_ALL((byte) 6),
     SERVER_INVALIDATE_HASH((byte) 7),
     MAP_VALUE((byte) 8),
+    BATCHED_GET_RESPONSE((byte) 9),
+    ITERATOR_BATCH_RESPONSE((byte) 10),
+    CHAIN_COMPACTION_REQUEST((byte) 11),
+    CLIENT_INVALIDATE_HASHES((byte) 12),
+    HASHES_INVALIDATION_DONE((byte) 13),
+    SERVER_STORE_SEGMENTS((byte) 14),
     ;
 
     private final byte opCode;
@@ -65,6 +73,18 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
           return SERVER_INVALIDATE_HASH;
         case 8:
           return MAP_VALUE;
+        case 9:
+          return BATCHED_GET_RESPONSE;
+        case 10:
+          return ITERATOR_BATCH_RESPONSE;
+        case 11:
+          return CHAIN_COMPACTION_REQUEST;
+        case 12:
+          return CLIENT_INVALIDATE_HASHES;
+        case 13:
+          return HASHES_INVALIDATION_DONE;
+        case 14:
+          return SERVER_STORE_SEGMENTS;
         default:
           throw new IllegalArgumentException("Store operation not defined for : " + opCode);
       }
@@ -110,9 +130,15 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
   public static class GetResponse extends EhcacheEntityResponse {
 
     private final Chain chain;
+    private final boolean compactEncoding;
 
     GetResponse(Chain chain) {
+      this(chain, false);
+    }
+
+    GetResponse(Chain chain, boolean compactEncoding) {
       this.chain = chain;
+      this.compactEncoding = compactEncoding;
     }
 
     @Override
@@ -124,6 +150,109 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
       return chain;
     }
 
+    /**
+     * @return {@code true} if the chain must be written in the compact layout of the server store
+     */
+    public boolean isCompactEncoding() {
+      return compactEncoding;
+    }
+
+  }
+
+  public static class BatchedGetResponse extends EhcacheEntityResponse {
+
+    private final List<Chain> chains;
+    private final boolean compactEncoding;
+
+    BatchedGetResponse(List<Chain> chains) {
+      this(chains, false);
+    }
+
+    BatchedGetResponse(List<Chain> chains, boolean compactEncoding) {
+      this.chains = chains;
+      this.compactEncoding = compactEncoding;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.BATCHED_GET_RESPONSE;
+    }
+
+    public List<Chain> getChains() {
+      return chains;
+    }
+
+    /**
+     * @return {@code true} if the chains must be written in the compact layout of the server store
+     */
+    public boolean isCompactEncoding() {
+      return compactEncoding;
+    }
+
+  }
+
+  /**
+   * A batch of an iteration over the store: the keys and chains returned and where the iteration continues.
+   */
+  public static class IteratorBatchResponse extends EhcacheEntityResponse {
+
+    public static final int ITERATION_COMPLETE = -1;
+
+    private final long[] keys;
+    private final List<Chain> chains;
+    private final int nextSegment;
+    private final int nextCursor;
+    private final boolean compactEncoding;
+
+    IteratorBatchResponse(long[] keys, List<Chain> chains, int nextSegment, int nextCursor) {
+      this(keys, chains, nextSegment, nextCursor, false);
+    }
+
+    IteratorBatchResponse(long[] keys, List<Chain> chains, int nextSegment, int nextCursor, boolean compactEncoding) {
+      if (keys.length != chains.size()) {
+        throw new IllegalArgumentException("Keys and chains sizes differ : " + keys.length + " != " + chains.size());
+      }
+      this.keys = keys;
+      this.chains = chains;
+      this.nextSegment = nextSegment;
+      this.nextCursor = nextCursor;
+      this.compactEncoding = compactEncoding;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.ITERATOR_BATCH_RESPONSE;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+
+    public List<Chain> getChains() {
+      return chains;
+    }
+
+    /**
+     * @return the segment the next batch must be requested from, or {@link #ITERATION_COMPLETE}
+     */
+    public int getNextSegment() {
+      return nextSegment;
+    }
+
+    /**
+     * @return the position within {@link #getNextSegment()} the next batch must be requested from
+     */
+    public int getNextCursor() {
+      return nextCursor;
+    }
+
+    /**
+     * @return {@code true} if the chains must be written in the compact layout of the server store
+     */
+    public boolean isCompactEncoding() {
+      return compactEncoding;
+    }
+
   }
 
   public static HashInvalidationDone hashInvalidationDone(String cacheId, long key) {
@@ -154,6 +283,37 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
 
   }
 
+  public static HashesInvalidationDone hashesInvalidationDone(String cacheId, long[] keys) {
+    return new HashesInvalidationDone(cacheId, keys);
+  }
+
+  /**
+   * Coalesced form of {@link HashInvalidationDone}, notifying the invalidation of several hashes at once.
+   */
+  public static class HashesInvalidationDone extends EhcacheEntityResponse {
+    private final String cacheId;
+    private final long[] keys;
+
+    HashesInvalidationDone(String cacheId, long[] keys) {
+      this.cacheId = cacheId;
+      this.keys = keys;
+    }
+
+    public String getCacheId() {
+      return cacheId;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.HASHES_INVALIDATION_DONE;
+    }
+
+  }
+
   public static AllInvalidationDone allInvalidationDone(String cacheId) {
     return new AllInvalidationDone(cacheId);
   }
@@ -176,6 +336,59 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
 
   }
 
+  public static ChainCompactionRequest chainCompactionRequest(String cacheId, long key, Chain chain) {
+    return new ChainCompactionRequest(cacheId, key, chain, false);
+  }
+
+  public static ChainCompactionRequest chainCompactionRequest(String cacheId, long key, Chain chain, boolean compactEncoding) {
+    return new ChainCompactionRequest(cacheId, key, chain, compactEncoding);
+  }
+
+  /**
+   * Asks a client to resolve the given chain head and replace it with its compacted form.
+   */
+  public static class ChainCompactionRequest extends EhcacheEntityResponse {
+    private final String cacheId;
+    private final long key;
+    private final Chain chain;
+    private final boolean compactEncoding;
+
+    public ChainCompactionRequest(String cacheId, long key, Chain chain) {
+      this(cacheId, key, chain, false);
+    }
+
+    public ChainCompactionRequest(String cacheId, long key, Chain chain, boolean compactEncoding) {
+      this.cacheId = cacheId;
+      this.key = key;
+      this.chain = chain;
+      this.compactEncoding = compactEncoding;
+    }
+
+    public String getCacheId() {
+      return cacheId;
+    }
+
+    public long getKey() {
+      return key;
+    }
+
+    public Chain getChain() {
+      return chain;
+    }
+
+    /**
+     * @return {@code true} if the chain must be written in the compact layout of the server store
+     */
+    public boolean isCompactEncoding() {
+      return compactEncoding;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.CHAIN_COMPACTION_REQUEST;
+    }
+  }
+
   public static ServerInvalidateHash serverInvalidateHash(String cacheId, long key) {
     return new ServerInvalidateHash(cacheId, key);
   }
@@ -236,6 +449,42 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
     }
   }
 
+  public static ClientInvalidateHashes clientInvalidateHashes(String cacheId, long[] keys, int invalidationId) {
+    return new ClientInvalidateHashes(cacheId, keys, invalidationId);
+  }
+
+  /**
+   * Coalesced form of {@link ClientInvalidateHash}, acknowledged once for all its hashes.
+   */
+  public static class ClientInvalidateHashes extends EhcacheEntityResponse {
+    private final String cacheId;
+    private final long[] keys;
+    private final int invalidationId;
+
+    public ClientInvalidateHashes(String cacheId, long[] keys, int invalidationId) {
+      this.cacheId = cacheId;
+      this.keys = keys;
+      this.invalidationId = invalidationId;
+    }
+
+    public String getCacheId() {
+      return cacheId;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+
+    public int getInvalidationId() {
+      return invalidationId;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.CLIENT_INVALIDATE_HASHES;
+    }
+  }
+
   public static ClientInvalidateAll clientInvalidateAll(String cacheId, int invalidationId) {
     return new ClientInvalidateAll(cacheId, invalidationId);
   }
@@ -263,6 +512,28 @@ public abstract class EhcacheEntityResponse implements EntityResponse {
     }
   }
 
+  /**
+   * Response to the creation of or the attachment to a server store, carrying the number of segments the server
+   * store is split into so that clients group multi-key operations the way the server schedules them.
+   */
+  public static class ServerStoreSegments extends EhcacheEntityResponse {
+
+    private final int segmentCount;
+
+    public ServerStoreSegments(int segmentCount) {
+      this.segmentCount = segmentCount;
+    }
+
+    public int getSegmentCount() {
+      return segmentCount;
+    }
+
+    @Override
+    public Type getType() {
+      return Type.SERVER_STORE_SEGMENTS;
+    }
+  }
+
   public static MapValue mapValue(Object value) {
     return new MapValue(value);
   }
@@ -19,12 +19,18 @@ package org.ehcache.clustered.common.internal.messages;
 import org.ehcache.clustered.common.internal.exceptions.ClusterException;
 import org.ehcache.clustered.common.internal.store.Chain;
 
+import java.util.List;
+
 public class EhcacheEntityResponseFactory {
 
   public EhcacheEntityResponse success() {
     return EhcacheEntityResponse.Success.INSTANCE;
   }
 
+  public EhcacheEntityResponse serverStoreSegments(int segmentCount) {
+    return new EhcacheEntityResponse.ServerStoreSegments(segmentCount);
+  }
+
   public EhcacheEntityResponse failure(ClusterException cause) {
     return new EhcacheEntityResponse.Failure(cause);
   }
@@ -32,4 +38,24 @@ public class EhcacheEntityResponseFactory {
   public EhcacheEntityResponse response(Chain chain) {
     return new EhcacheEntityResponse.GetResponse(chain);
   }
+
+  public EhcacheEntityResponse response(Chain chain, boolean compactEncoding) {
+    return new EhcacheEntityResponse.GetResponse(chain, compactEncoding);
+  }
+
+  public EhcacheEntityResponse response(List<Chain> chains) {
+    return new EhcacheEntityResponse.BatchedGetResponse(chains);
+  }
+
+  public EhcacheEntityResponse response(List<Chain> chains, boolean compactEncoding) {
+    return new EhcacheEntityResponse.BatchedGetResponse(chains, compactEncoding);
+  }
+
+  public EhcacheEntityResponse iteratorBatch(long[] keys, List<Chain> chains, int nextSegment, int nextCursor) {
+    return new EhcacheEntityResponse.IteratorBatchResponse(keys, chains, nextSegment, nextCursor);
+  }
+
+  public EhcacheEntityResponse iteratorBatch(long[] keys, List<Chain> chains, int nextSegment, int nextCursor, boolean compactEncoding) {
+    return new EhcacheEntityResponse.IteratorBatchResponse(keys, chains, nextSegment, nextCursor, compactEncoding);
+  }
 }
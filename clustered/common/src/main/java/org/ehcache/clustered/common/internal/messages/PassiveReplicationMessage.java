@@ -18,6 +18,7 @@ package org.ehcache.clustered.common.internal.messages;
 
 import org.ehcache.clustered.common.internal.store.Chain;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -30,7 +31,8 @@ public abstract class PassiveReplicationMessage extends EhcacheEntityMessage {
     CLIENTID_TRACK_OP((byte) 42),
     CLEAR_INVALIDATION_COMPLETE((byte) 43),
     INVALIDATION_COMPLETE((byte) 44),
-    SERVER_STORE_LIFECYCLE_REPLICATION_OP((byte) 45)
+    SERVER_STORE_LIFECYCLE_REPLICATION_OP((byte) 45),
+    BATCHED_CHAIN_REPLICATION_OP((byte) 46)
     ;
 
     private final byte replicationOpCode;
@@ -56,6 +58,8 @@ public abstract class PassiveReplicationMessage extends EhcacheEntityMessage {
           return INVALIDATION_COMPLETE;
         case 45:
           return SERVER_STORE_LIFECYCLE_REPLICATION_OP;
+        case 46:
+          return BATCHED_CHAIN_REPLICATION_OP;
         default:
           throw new IllegalArgumentException("Replication operation not defined for : " + replicationOpCode);
       }
@@ -136,6 +140,49 @@ public abstract class PassiveReplicationMessage extends EhcacheEntityMessage {
     }
   }
 
+  public static class BatchedChainReplicationMessage extends ClientIDTrackerMessage implements BatchedConcurrentEntityMessage {
+
+    private final String cacheId;
+    private final long[] keys;
+    private final List<Chain> chains;
+
+    public BatchedChainReplicationMessage(String cacheId, long[] keys, List<Chain> chains, long msgId, UUID clientId) {
+      super(msgId, clientId);
+      if (keys.length != chains.size()) {
+        throw new IllegalArgumentException("Expected " + keys.length + " chains but got " + chains.size());
+      }
+      this.cacheId = cacheId;
+      this.keys = keys;
+      this.chains = chains;
+    }
+
+    public String getCacheId() {
+      return this.cacheId;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+
+    public List<Chain> getChains() {
+      return chains;
+    }
+
+    @Override
+    public ReplicationOp operation() {
+      return ReplicationOp.BATCHED_CHAIN_REPLICATION_OP;
+    }
+
+    @Override
+    public long[] concurrencyKeys() {
+      long[] concurrencyKeys = new long[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        concurrencyKeys[i] = this.cacheId.hashCode() + keys[i];
+      }
+      return concurrencyKeys;
+    }
+  }
+
   public static class ClearInvalidationCompleteMessage extends PassiveReplicationMessage implements ConcurrentEntityMessage {
     private final String cacheId;
 
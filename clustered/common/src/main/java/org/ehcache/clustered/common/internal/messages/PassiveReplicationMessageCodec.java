@@ -21,6 +21,8 @@ import org.ehcache.clustered.common.internal.store.Chain;
 import org.ehcache.clustered.common.internal.store.Util;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 
@@ -30,6 +32,8 @@ class PassiveReplicationMessageCodec {
   private static final byte CACHE_ID_LEN_SIZE = 4;
   private static final byte KEY_SIZE = 8;
   private static final byte MESSAGE_ID_SIZE = 24;
+  private static final byte KEY_COUNT_SIZE = 4;
+  private static final byte CHAIN_LEN_SIZE = 4;
 
   private ChainCodec chainCodec = new ChainCodec();
 
@@ -56,6 +60,33 @@ class PassiveReplicationMessageCodec {
         encodedMsg.putLong(chainReplicationMessage.getKey());
         encodedMsg.put(encodedChain);
         return encodedMsg.array();
+      case BATCHED_CHAIN_REPLICATION_OP: {
+        PassiveReplicationMessage.BatchedChainReplicationMessage batchedMessage = (PassiveReplicationMessage.BatchedChainReplicationMessage)message;
+        long[] keys = batchedMessage.getKeys();
+        List<byte[]> encodedChains = new ArrayList<byte[]>(keys.length);
+        int encodedChainsSize = 0;
+        for (Chain chain : batchedMessage.getChains()) {
+          byte[] encoded = chainCodec.encode(chain);
+          encodedChains.add(encoded);
+          encodedChainsSize += encoded.length;
+        }
+        int batchedCacheIdLen = batchedMessage.getCacheId().length();
+        encodedMsg = ByteBuffer.allocate(OP_CODE_SIZE + MESSAGE_ID_SIZE + CACHE_ID_LEN_SIZE + 2 * batchedCacheIdLen + KEY_COUNT_SIZE +
+                                         (KEY_SIZE + CHAIN_LEN_SIZE) * keys.length + encodedChainsSize);
+        encodedMsg.put(batchedMessage.getOpCode());
+        encodedMsg.put(ClusteredEhcacheIdentity.serialize(batchedMessage.getClientId()));
+        encodedMsg.putLong(batchedMessage.getId());
+        encodedMsg.putInt(batchedCacheIdLen);
+        CodecUtil.putStringAsCharArray(encodedMsg, batchedMessage.getCacheId());
+        encodedMsg.putInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+          byte[] encoded = encodedChains.get(i);
+          encodedMsg.putLong(keys[i]);
+          encodedMsg.putInt(encoded.length);
+          encodedMsg.put(encoded);
+        }
+        return encodedMsg.array();
+      }
       case CLEAR_INVALIDATION_COMPLETE:
         PassiveReplicationMessage.ClearInvalidationCompleteMessage clearInvalidationCompleteMessage = (PassiveReplicationMessage.ClearInvalidationCompleteMessage)message;
         encodedMsg = ByteBuffer.allocate(OP_CODE_SIZE + 2 * clearInvalidationCompleteMessage.getCacheId().length());
@@ -96,10 +127,20 @@ class PassiveReplicationMessageCodec {
         int length = byteBuffer.getInt();
         cacheId = CodecUtil.getStringFromBuffer(byteBuffer, length);
         key = byteBuffer.getLong();
-        byte[] encodedChain = new byte[byteBuffer.remaining()];
-        byteBuffer.get(encodedChain);
-        Chain chain = chainCodec.decode(encodedChain);
+        Chain chain = chainCodec.decode(byteBuffer.slice());
         return new PassiveReplicationMessage.ChainReplicationMessage(cacheId, key, chain, msgId, clientId);
+      case BATCHED_CHAIN_REPLICATION_OP: {
+        clientId = getClientId(byteBuffer);
+        msgId = byteBuffer.getLong();
+        cacheId = CodecUtil.getStringFromBuffer(byteBuffer, byteBuffer.getInt());
+        long[] keys = new long[byteBuffer.getInt()];
+        List<Chain> chains = new ArrayList<Chain>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+          keys[i] = byteBuffer.getLong();
+          chains.add(chainCodec.decode(CodecUtil.getSlice(byteBuffer, byteBuffer.getInt())));
+        }
+        return new PassiveReplicationMessage.BatchedChainReplicationMessage(cacheId, keys, chains, msgId, clientId);
+      }
       case CLIENTID_TRACK_OP:
         clientId = getClientId(byteBuffer);
         msgId = byteBuffer.getLong();
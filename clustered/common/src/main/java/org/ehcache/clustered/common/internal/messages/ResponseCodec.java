@@ -17,20 +17,34 @@
 package org.ehcache.clustered.common.internal.messages;
 
 import org.ehcache.clustered.common.internal.exceptions.ClusterException;
+import org.ehcache.clustered.common.internal.store.Chain;
 import org.ehcache.clustered.common.internal.store.Util;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.AllInvalidationDone;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.ChainCompactionRequest;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.ClientInvalidateAll;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.ClientInvalidateHash;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.ClientInvalidateHashes;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.HashInvalidationDone;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.HashesInvalidationDone;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.ServerInvalidateHash;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.MapValue;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.ServerStoreSegments;
 
 class ResponseCodec {
 
   private static final byte OP_CODE_SIZE = 1;
+  private static final byte CHAIN_COUNT_SIZE = 4;
+  private static final byte CHAIN_LEN_SIZE = 4;
+  private static final byte KEY_SIZE = 8;
+  private static final byte SEGMENT_SIZE = 4;
+  private static final byte CURSOR_SIZE = 4;
+  private static final byte CACHE_ID_LEN_SIZE = 4;
+  private static final byte INVALIDATION_ID_SIZE = 4;
 
   private final ChainCodec chainCodec;
 
@@ -51,14 +65,15 @@ class ResponseCodec {
         buffer = ByteBuffer.allocate(OP_CODE_SIZE);
         buffer.put(EhcacheEntityResponse.Type.SUCCESS.getOpCode());
         return buffer.array();
-      case GET_RESPONSE:
-        EhcacheEntityResponse.GetResponse getResponse = (EhcacheEntityResponse.GetResponse)response;
-        byte[] encodedChain = chainCodec.encode(getResponse.getChain());
-        int chainLen = encodedChain.length;
-        buffer = ByteBuffer.allocate(OP_CODE_SIZE + chainLen);
+      case GET_RESPONSE: {
+        EhcacheEntityResponse.GetResponse getResponse = (EhcacheEntityResponse.GetResponse) response;
+        Chain chain = getResponse.getChain();
+        boolean compact = getResponse.isCompactEncoding();
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + chainCodec.encodedSize(chain, compact));
         buffer.put(EhcacheEntityResponse.Type.GET_RESPONSE.getOpCode());
-        buffer.put(encodedChain);
+        chainCodec.encode(chain, buffer, compact);
         return buffer.array();
+      }
       case HASH_INVALIDATION_DONE: {
         HashInvalidationDone hashInvalidationDone = (HashInvalidationDone) response;
         buffer = ByteBuffer.allocate(OP_CODE_SIZE + hashInvalidationDone.getCacheId().length() * 2 + 8);
@@ -107,6 +122,89 @@ class ResponseCodec {
         buffer.put(encodedMapValue);
         return buffer.array();
       }
+      case BATCHED_GET_RESPONSE: {
+        EhcacheEntityResponse.BatchedGetResponse batchedGetResponse = (EhcacheEntityResponse.BatchedGetResponse) response;
+        List<Chain> chains = batchedGetResponse.getChains();
+        boolean compact = batchedGetResponse.isCompactEncoding();
+        int[] encodedSizes = new int[chains.size()];
+        int encodedChainsSize = 0;
+        for (int i = 0; i < encodedSizes.length; i++) {
+          encodedSizes[i] = chainCodec.encodedSize(chains.get(i), compact);
+          encodedChainsSize += CHAIN_LEN_SIZE + encodedSizes[i];
+        }
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + CHAIN_COUNT_SIZE + encodedChainsSize);
+        buffer.put(EhcacheEntityResponse.Type.BATCHED_GET_RESPONSE.getOpCode());
+        buffer.putInt(encodedSizes.length);
+        for (int i = 0; i < encodedSizes.length; i++) {
+          buffer.putInt(encodedSizes[i]);
+          chainCodec.encode(chains.get(i), buffer, compact);
+        }
+        return buffer.array();
+      }
+      case ITERATOR_BATCH_RESPONSE: {
+        EhcacheEntityResponse.IteratorBatchResponse iteratorBatch = (EhcacheEntityResponse.IteratorBatchResponse) response;
+        long[] keys = iteratorBatch.getKeys();
+        List<byte[]> encodedChains = new ArrayList<byte[]>(keys.length);
+        int encodedChainsSize = 0;
+        for (Chain chain : iteratorBatch.getChains()) {
+          byte[] encoded = chainCodec.encode(chain, iteratorBatch.isCompactEncoding());
+          encodedChains.add(encoded);
+          encodedChainsSize += KEY_SIZE + CHAIN_LEN_SIZE + encoded.length;
+        }
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + SEGMENT_SIZE + CURSOR_SIZE + CHAIN_COUNT_SIZE + encodedChainsSize);
+        buffer.put(EhcacheEntityResponse.Type.ITERATOR_BATCH_RESPONSE.getOpCode());
+        buffer.putInt(iteratorBatch.getNextSegment());
+        buffer.putInt(iteratorBatch.getNextCursor());
+        buffer.putInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+          byte[] encoded = encodedChains.get(i);
+          buffer.putLong(keys[i]);
+          buffer.putInt(encoded.length);
+          buffer.put(encoded);
+        }
+        return buffer.array();
+      }
+      case CHAIN_COMPACTION_REQUEST: {
+        ChainCompactionRequest compactionRequest = (ChainCompactionRequest) response;
+        String cacheId = compactionRequest.getCacheId();
+        byte[] encoded = chainCodec.encode(compactionRequest.getChain(), compactionRequest.isCompactEncoding());
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + KEY_SIZE + CACHE_ID_LEN_SIZE + cacheId.length() * 2 + encoded.length);
+        buffer.put(EhcacheEntityResponse.Type.CHAIN_COMPACTION_REQUEST.getOpCode());
+        buffer.putLong(compactionRequest.getKey());
+        buffer.putInt(cacheId.length());
+        CodecUtil.putStringAsCharArray(buffer, cacheId);
+        buffer.put(encoded);
+        return buffer.array();
+      }
+      case CLIENT_INVALIDATE_HASHES: {
+        ClientInvalidateHashes clientInvalidateHashes = (ClientInvalidateHashes) response;
+        String cacheId = clientInvalidateHashes.getCacheId();
+        long[] keys = clientInvalidateHashes.getKeys();
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + INVALIDATION_ID_SIZE + CACHE_ID_LEN_SIZE + cacheId.length() * 2 + CHAIN_COUNT_SIZE + keys.length * KEY_SIZE);
+        buffer.put(EhcacheEntityResponse.Type.CLIENT_INVALIDATE_HASHES.getOpCode());
+        buffer.putInt(clientInvalidateHashes.getInvalidationId());
+        buffer.putInt(cacheId.length());
+        CodecUtil.putStringAsCharArray(buffer, cacheId);
+        putKeys(buffer, keys);
+        return buffer.array();
+      }
+      case HASHES_INVALIDATION_DONE: {
+        HashesInvalidationDone hashesInvalidationDone = (HashesInvalidationDone) response;
+        String cacheId = hashesInvalidationDone.getCacheId();
+        long[] keys = hashesInvalidationDone.getKeys();
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + CACHE_ID_LEN_SIZE + cacheId.length() * 2 + CHAIN_COUNT_SIZE + keys.length * KEY_SIZE);
+        buffer.put(EhcacheEntityResponse.Type.HASHES_INVALIDATION_DONE.getOpCode());
+        buffer.putInt(cacheId.length());
+        CodecUtil.putStringAsCharArray(buffer, cacheId);
+        putKeys(buffer, keys);
+        return buffer.array();
+      }
+      case SERVER_STORE_SEGMENTS: {
+        buffer = ByteBuffer.allocate(OP_CODE_SIZE + SEGMENT_SIZE);
+        buffer.put(EhcacheEntityResponse.Type.SERVER_STORE_SEGMENTS.getOpCode());
+        buffer.putInt(((ServerStoreSegments) response).getSegmentCount());
+        return buffer.array();
+      }
       default:
         throw new UnsupportedOperationException("The operation is not supported : " + response.getType());
     }
@@ -157,8 +255,71 @@ class ResponseCodec {
       case MAP_VALUE: {
         return EhcacheEntityResponse.mapValue(Util.unmarshall(payArr));
       }
+      case BATCHED_GET_RESPONSE: {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(payArr);
+        int count = byteBuffer.getInt();
+        List<Chain> chains = new ArrayList<Chain>(count);
+        for (int i = 0; i < count; i++) {
+          byte[] encodedChain = new byte[byteBuffer.getInt()];
+          byteBuffer.get(encodedChain);
+          chains.add(chainCodec.decode(encodedChain));
+        }
+        return new EhcacheEntityResponse.BatchedGetResponse(chains);
+      }
+      case ITERATOR_BATCH_RESPONSE: {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(payArr);
+        int nextSegment = byteBuffer.getInt();
+        int nextCursor = byteBuffer.getInt();
+        int count = byteBuffer.getInt();
+        long[] keys = new long[count];
+        List<Chain> chains = new ArrayList<Chain>(count);
+        for (int i = 0; i < count; i++) {
+          keys[i] = byteBuffer.getLong();
+          byte[] encodedChain = new byte[byteBuffer.getInt()];
+          byteBuffer.get(encodedChain);
+          chains.add(chainCodec.decode(encodedChain));
+        }
+        return new EhcacheEntityResponse.IteratorBatchResponse(keys, chains, nextSegment, nextCursor);
+      }
+      case CHAIN_COMPACTION_REQUEST: {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(payArr);
+        long key = byteBuffer.getLong();
+        String cacheId = CodecUtil.getStringFromBuffer(byteBuffer, byteBuffer.getInt());
+        byte[] encodedChain = new byte[byteBuffer.remaining()];
+        byteBuffer.get(encodedChain);
+        return EhcacheEntityResponse.chainCompactionRequest(cacheId, key, chainCodec.decode(encodedChain));
+      }
+      case CLIENT_INVALIDATE_HASHES: {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(payArr);
+        int invalidationId = byteBuffer.getInt();
+        String cacheId = CodecUtil.getStringFromBuffer(byteBuffer, byteBuffer.getInt());
+        return EhcacheEntityResponse.clientInvalidateHashes(cacheId, getKeys(byteBuffer), invalidationId);
+      }
+      case HASHES_INVALIDATION_DONE: {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(payArr);
+        String cacheId = CodecUtil.getStringFromBuffer(byteBuffer, byteBuffer.getInt());
+        return EhcacheEntityResponse.hashesInvalidationDone(cacheId, getKeys(byteBuffer));
+      }
+      case SERVER_STORE_SEGMENTS: {
+        return new EhcacheEntityResponse.ServerStoreSegments(ByteBuffer.wrap(payArr).getInt());
+      }
       default:
         throw new UnsupportedOperationException("The operation is not supported with opCode : " + type);
     }
   }
+
+  private static void putKeys(ByteBuffer buffer, long[] keys) {
+    buffer.putInt(keys.length);
+    for (long key : keys) {
+      buffer.putLong(key);
+    }
+  }
+
+  private static long[] getKeys(ByteBuffer buffer) {
+    long[] keys = new long[buffer.getInt()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = buffer.getLong();
+    }
+    return keys;
+  }
 }
@@ -19,16 +19,30 @@ package org.ehcache.clustered.common.internal.messages;
 import org.ehcache.clustered.common.internal.store.Chain;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.UUID;
 
 public class ServerStoreMessageFactory {
 
   private final String cacheId;
   private final UUID clientId;
+  private final boolean compactEncoding;
 
   public ServerStoreMessageFactory(String cacheId, UUID clientId) {
+    this(cacheId, clientId, false);
+  }
+
+  /**
+   * Creates a factory for the messages of a server store.
+   *
+   * @param cacheId the server store identifier
+   * @param clientId the client identifier
+   * @param compactEncoding {@code true} if the server store uses the compact encoding, in which chains are then sent
+   */
+  public ServerStoreMessageFactory(String cacheId, UUID clientId, boolean compactEncoding) {
     this.cacheId = cacheId;
     this.clientId = clientId;
+    this.compactEncoding = compactEncoding;
   }
 
   public EhcacheEntityMessage getOperation(long key) {
@@ -44,7 +58,11 @@ public class ServerStoreMessageFactory {
   }
 
   public EhcacheEntityMessage replaceAtHeadOperation(long key, Chain expect, Chain update) {
-    return new ServerStoreOpMessage.ReplaceAtHeadMessage(this.cacheId, key, expect, update, clientId);
+    return new ServerStoreOpMessage.ReplaceAtHeadMessage(this.cacheId, key, expect, update, Long.MAX_VALUE, clientId, compactEncoding);
+  }
+
+  public EhcacheEntityMessage replaceAtHeadOperation(long key, Chain expect, Chain update, long timeToLive) {
+    return new ServerStoreOpMessage.ReplaceAtHeadMessage(this.cacheId, key, expect, update, timeToLive, clientId, compactEncoding);
   }
 
   public EhcacheEntityMessage clientInvalidationAck(int invalidationId) {
@@ -55,6 +73,18 @@ public class ServerStoreMessageFactory {
     return new ServerStoreOpMessage.ClearMessage(this.cacheId, clientId);
   }
 
+  public EhcacheEntityMessage batchedGetOperation(long[] keys) {
+    return new ServerStoreOpMessage.BatchedGetMessage(this.cacheId, keys);
+  }
+
+  public EhcacheEntityMessage iteratorBatchOperation(int segment, int cursor, int batchSize) {
+    return new ServerStoreOpMessage.IteratorBatchMessage(this.cacheId, segment, cursor, batchSize);
+  }
+
+  public EhcacheEntityMessage batchedGetAndAppendOperation(long[] keys, List<ByteBuffer> payloads) {
+    return new ServerStoreOpMessage.BatchedGetAndAppendMessage(this.cacheId, keys, payloads, clientId);
+  }
+
   public String getCacheId() {
     return cacheId;
   }
@@ -18,6 +18,9 @@ package org.ehcache.clustered.common.internal.messages;
 
 import org.ehcache.clustered.common.internal.ClusteredEhcacheIdentity;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.AppendMessage;
+import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.BatchedGetAndAppendMessage;
+import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.BatchedGetMessage;
+import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.IteratorBatchMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.ClearMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.GetAndAppendMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.GetMessage;
@@ -26,6 +29,8 @@ import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.Clien
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.ServerStoreOp;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 class ServerStoreOpCodec {
@@ -33,9 +38,15 @@ class ServerStoreOpCodec {
   private static final byte STORE_OP_CODE_SIZE = 1;
   private static final byte CACHE_ID_LEN_SIZE = 4;
   private static final byte KEY_SIZE = 8;
+  private static final byte TIME_TO_LIVE_SIZE = 8;
   private static final byte CHAIN_LEN_SIZE = 4;
   private static final byte INVALIDATION_ID_LEN_SIZE = 4;
   private static final byte MESSAGE_ID_SIZE = 24;
+  private static final byte KEY_COUNT_SIZE = 4;
+  private static final byte PAYLOAD_LEN_SIZE = 4;
+  private static final byte SEGMENT_SIZE = 4;
+  private static final byte CURSOR_SIZE = 4;
+  private static final byte BATCH_SIZE_SIZE = 4;
 
   private final ChainCodec chainCodec;
 
@@ -72,11 +83,12 @@ class ServerStoreOpCodec {
         return encodedMsg.array();
       case REPLACE:
         ReplaceAtHeadMessage replaceAtHeadMessage = (ReplaceAtHeadMessage)message;
-        byte[] encodedExpectedChain = chainCodec.encode(replaceAtHeadMessage.getExpect());
-        byte[] encodedUpdatedChain = chainCodec.encode(replaceAtHeadMessage.getUpdate());
+        byte[] encodedExpectedChain = chainCodec.encode(replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.isCompactEncoding());
+        byte[] encodedUpdatedChain = chainCodec.encode(replaceAtHeadMessage.getUpdate(), replaceAtHeadMessage.isCompactEncoding());
         encodedMsg = ByteBuffer.allocate(STORE_OP_CODE_SIZE + CACHE_ID_LEN_SIZE + KEY_SIZE + MESSAGE_ID_SIZE + 2 * cacheIdLen +
-                                         CHAIN_LEN_SIZE + encodedExpectedChain.length + encodedUpdatedChain.length);
+                                         TIME_TO_LIVE_SIZE + CHAIN_LEN_SIZE + encodedExpectedChain.length + encodedUpdatedChain.length);
         putCacheIdKeyAndOpCode(encodedMsg, replaceAtHeadMessage, replaceAtHeadMessage.getKey());
+        encodedMsg.putLong(replaceAtHeadMessage.getTimeToLive());
         encodedMsg.putInt(encodedExpectedChain.length);
         encodedMsg.put(encodedExpectedChain);
         encodedMsg.put(encodedUpdatedChain);
@@ -96,6 +108,49 @@ class ServerStoreOpCodec {
         encodedMsg.putLong(message.getId());
         CodecUtil.putStringAsCharArray(encodedMsg, clearMessage.getCacheId());
         return encodedMsg.array();
+      case BATCHED_GET:
+        BatchedGetMessage batchedGetMessage = (BatchedGetMessage)message;
+        long[] getKeys = batchedGetMessage.getKeys();
+        encodedMsg = ByteBuffer.allocate(STORE_OP_CODE_SIZE + KEY_COUNT_SIZE + KEY_SIZE * getKeys.length + 2 * cacheIdLen);
+        encodedMsg.put(batchedGetMessage.getOpCode());
+        encodedMsg.putInt(getKeys.length);
+        for (long key : getKeys) {
+          encodedMsg.putLong(key);
+        }
+        CodecUtil.putStringAsCharArray(encodedMsg, batchedGetMessage.getCacheId());
+        return encodedMsg.array();
+      case BATCHED_GET_AND_APPEND:
+        BatchedGetAndAppendMessage batchedGetAndAppendMessage = (BatchedGetAndAppendMessage)message;
+        long[] appendKeys = batchedGetAndAppendMessage.getKeys();
+        List<ByteBuffer> payloads = batchedGetAndAppendMessage.getPayloads();
+        int payloadsSize = 0;
+        for (ByteBuffer payload : payloads) {
+          payloadsSize += payload.remaining();
+        }
+        encodedMsg = ByteBuffer.allocate(STORE_OP_CODE_SIZE + MESSAGE_ID_SIZE + CACHE_ID_LEN_SIZE + 2 * cacheIdLen + KEY_COUNT_SIZE +
+                                         (KEY_SIZE + PAYLOAD_LEN_SIZE) * appendKeys.length + payloadsSize);
+        encodedMsg.put(batchedGetAndAppendMessage.getOpCode());
+        encodedMsg.put(ClusteredEhcacheIdentity.serialize(message.getClientId()));
+        encodedMsg.putLong(message.getId());
+        encodedMsg.putInt(cacheIdLen);
+        CodecUtil.putStringAsCharArray(encodedMsg, batchedGetAndAppendMessage.getCacheId());
+        encodedMsg.putInt(appendKeys.length);
+        for (int i = 0; i < appendKeys.length; i++) {
+          ByteBuffer payload = payloads.get(i).duplicate();
+          encodedMsg.putLong(appendKeys[i]);
+          encodedMsg.putInt(payload.remaining());
+          encodedMsg.put(payload);
+        }
+        return encodedMsg.array();
+      case ITERATOR_BATCH:
+        IteratorBatchMessage iteratorBatchMessage = (IteratorBatchMessage)message;
+        encodedMsg = ByteBuffer.allocate(STORE_OP_CODE_SIZE + SEGMENT_SIZE + CURSOR_SIZE + BATCH_SIZE_SIZE + 2 * cacheIdLen);
+        encodedMsg.put(iteratorBatchMessage.getOpCode());
+        encodedMsg.putInt(iteratorBatchMessage.getSegment());
+        encodedMsg.putInt(iteratorBatchMessage.getCursor());
+        encodedMsg.putInt(iteratorBatchMessage.getBatchSize());
+        CodecUtil.putStringAsCharArray(encodedMsg, iteratorBatchMessage.getCacheId());
+        return encodedMsg.array();
       default:
         throw new UnsupportedOperationException("This operation is not supported : " + message.operation());
     }
@@ -148,14 +203,12 @@ class ServerStoreOpCodec {
         msgId = msg.getLong();
         cacheId = readStringFromBufferWithSize(msg);
         key = msg.getLong();
+        long timeToLive = msg.getLong();
         int expectChainLen = msg.getInt();
-        byte[] encodedExpectChain = new byte[expectChainLen];
-        msg.get(encodedExpectChain);
-        int updateChainLen = msg.remaining();
-        byte[] encodedUpdateChain = new byte[updateChainLen];
-        msg.get(encodedUpdateChain);
+        ByteBuffer encodedExpectChain = CodecUtil.getSlice(msg, expectChainLen);
+        ByteBuffer encodedUpdateChain = msg.slice();
         decodecMsg = new ReplaceAtHeadMessage(cacheId, key, chainCodec.decode(encodedExpectChain),
-            chainCodec.decode(encodedUpdateChain), clientId);
+            chainCodec.decode(encodedUpdateChain), timeToLive, clientId);
         decodecMsg.setId(msgId);
         return decodecMsg;
       case CLIENT_INVALIDATION_ACK:
@@ -169,6 +222,39 @@ class ServerStoreOpCodec {
         decodecMsg = new ClearMessage(cacheId, clientId);
         decodecMsg.setId(msgId);
         return decodecMsg;
+      case BATCHED_GET: {
+        long[] keys = new long[msg.getInt()];
+        for (int i = 0; i < keys.length; i++) {
+          keys[i] = msg.getLong();
+        }
+        cacheId = CodecUtil.getStringFromBuffer(msg, msg.remaining() / 2);
+        return new BatchedGetMessage(cacheId, keys);
+      }
+      case BATCHED_GET_AND_APPEND: {
+        clientId = getClientId(msg);
+        msgId = msg.getLong();
+        cacheId = readStringFromBufferWithSize(msg);
+        long[] keys = new long[msg.getInt()];
+        List<ByteBuffer> payloads = new ArrayList<ByteBuffer>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+          keys[i] = msg.getLong();
+          int payloadSize = msg.getInt();
+          msg.limit(msg.position() + payloadSize);
+          payloads.add(msg.slice().asReadOnlyBuffer());
+          msg.position(msg.limit());
+          msg.limit(msg.capacity());
+        }
+        decodecMsg = new BatchedGetAndAppendMessage(cacheId, keys, payloads, clientId);
+        decodecMsg.setId(msgId);
+        return decodecMsg;
+      }
+      case ITERATOR_BATCH: {
+        int segment = msg.getInt();
+        int cursor = msg.getInt();
+        int batchSize = msg.getInt();
+        cacheId = CodecUtil.getStringFromBuffer(msg, msg.remaining() / 2);
+        return new IteratorBatchMessage(cacheId, segment, cursor, batchSize);
+      }
       default:
         throw new UnsupportedOperationException("This operation code is not supported : " + opCode);
     }
@@ -19,6 +19,7 @@ package org.ehcache.clustered.common.internal.messages;
 import org.ehcache.clustered.common.internal.store.Chain;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.UUID;
 
 public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
@@ -30,6 +31,9 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     CLIENT_INVALIDATION_ACK((byte) 14),
     CLEAR((byte) 15),
     GET((byte) 16),
+    BATCHED_GET((byte) 17),
+    BATCHED_GET_AND_APPEND((byte) 18),
+    ITERATOR_BATCH((byte) 19),
     ;
 
     private final byte storeOpCode;
@@ -56,6 +60,12 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
           return CLEAR;
         case 16:
           return GET;
+        case 17:
+          return BATCHED_GET;
+        case 18:
+          return BATCHED_GET_AND_APPEND;
+        case 19:
+          return ITERATOR_BATCH;
         default:
           throw new IllegalArgumentException("Store operation not defined for : " + storeOpCode);
       }
@@ -188,12 +198,24 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
 
     private final Chain expect;
     private final Chain update;
+    private final long timeToLive;
+    private final boolean compactEncoding;
 
     ReplaceAtHeadMessage(String cacheId, long key, Chain expect, Chain update, UUID clientId) {
+      this(cacheId, key, expect, update, Long.MAX_VALUE, clientId);
+    }
+
+    ReplaceAtHeadMessage(String cacheId, long key, Chain expect, Chain update, long timeToLive, UUID clientId) {
+      this(cacheId, key, expect, update, timeToLive, clientId, false);
+    }
+
+    ReplaceAtHeadMessage(String cacheId, long key, Chain expect, Chain update, long timeToLive, UUID clientId, boolean compactEncoding) {
       super(cacheId, key);
       this.expect = expect;
       this.update = update;
+      this.timeToLive = timeToLive;
       this.clientId = clientId;
+      this.compactEncoding = compactEncoding;
     }
 
     @Override
@@ -208,6 +230,23 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     public Chain getUpdate() {
       return update;
     }
+
+    /**
+     * Returns the time in milliseconds after which the update is known to be expired, counted from when the client
+     * sent it. Being relative, it does not depend on how the client and server clocks agree.
+     *
+     * @return the time to live of the update, {@link Long#MAX_VALUE} if unknown
+     */
+    public long getTimeToLive() {
+      return timeToLive;
+    }
+
+    /**
+     * @return {@code true} if the chains must be written in the compact layout of the server store
+     */
+    public boolean isCompactEncoding() {
+      return compactEncoding;
+    }
   }
 
   public static class ClientInvalidationAck extends ServerStoreOpMessage {
@@ -242,5 +281,97 @@ public abstract class ServerStoreOpMessage extends EhcacheEntityMessage {
     }
   }
 
-}
+  public static class BatchedGetMessage extends ServerStoreOpMessage {
+
+    private final long[] keys;
+
+    BatchedGetMessage(String cacheId, long[] keys) {
+      super(cacheId);
+      this.keys = keys;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.BATCHED_GET;
+    }
+  }
+
+  /**
+   * Requests the next batch of chains of an iteration over the store.
+   * <p>
+   * The cursor is the segment being walked and the position within it the previous batch stopped at, so the server
+   * holds no per-iteration state and each batch only visits the keys it returns.
+   */
+  public static class IteratorBatchMessage extends ServerStoreOpMessage {
+
+    private final int segment;
+    private final int cursor;
+    private final int batchSize;
+
+    IteratorBatchMessage(String cacheId, int segment, int cursor, int batchSize) {
+      super(cacheId);
+      this.segment = segment;
+      this.cursor = cursor;
+      this.batchSize = batchSize;
+    }
+
+    public int getSegment() {
+      return segment;
+    }
+
+    /**
+     * @return the position within the segment to resume from, {@code 0} for the start of the segment
+     */
+    public int getCursor() {
+      return cursor;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.ITERATOR_BATCH;
+    }
+  }
+
+  public static class BatchedGetAndAppendMessage extends ServerStoreOpMessage implements BatchedConcurrentEntityMessage {
+
+    private final long[] keys;
+    private final List<ByteBuffer> payloads;
+
+    BatchedGetAndAppendMessage(String cacheId, long[] keys, List<ByteBuffer> payloads, UUID clientId) {
+      super(cacheId);
+      if (keys.length != payloads.size()) {
+        throw new IllegalArgumentException("Expected " + keys.length + " payloads but got " + payloads.size());
+      }
+      this.keys = keys;
+      this.payloads = payloads;
+      this.clientId = clientId;
+    }
+
+    public long[] getKeys() {
+      return keys;
+    }
+
+    public List<ByteBuffer> getPayloads() {
+      return payloads;
+    }
+
+    @Override
+    public ServerStoreOp operation() {
+      return ServerStoreOp.BATCHED_GET_AND_APPEND;
+    }
 
+    @Override
+    public long[] concurrencyKeys() {
+      return keys;
+    }
+  }
+
+}
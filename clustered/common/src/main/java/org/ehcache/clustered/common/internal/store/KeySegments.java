@@ -0,0 +1,78 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.common.internal.store;
+
+/**
+ * Maps the concurrency key of a server store operation to the server side segment processing it.
+ * <p>
+ * The mapping is shared between the server, which uses it to schedule operations, and the client,
+ * which uses it to group multi-key operations so that each batch is handled by a single segment.
+ */
+public final class KeySegments {
+
+  /**
+   * The number of data segments a clustered tier manager uses.
+   */
+  public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+  private KeySegments() {
+    // static only
+  }
+
+  /**
+   * Returns the segment the given concurrency key maps to.
+   * <p>
+   * The key is {@link #spread(long) spread} first, so that structured keys such as small integers or hashes
+   * sharing their low bits still distribute evenly. For any {@code n} dividing {@code segments}, the result taken
+   * modulo {@code n} is the segment the key maps to among {@code n} segments.
+   *
+   * @param key the concurrency key
+   * @param segments the number of segments
+   * @return the segment index, in {@code [0, segments)}
+   */
+  public static int segmentFor(long key, int segments) {
+    long mod = spread(key) % segments;
+    return (int) (mod < 0 ? mod + segments : mod);
+  }
+
+  /**
+   * Applies the 64-bit MurmurHash3 finalizer to the given key.
+   *
+   * @param key the key to spread
+   * @return the mixed key
+   */
+  public static long spread(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return key;
+  }
+
+  /**
+   * Checks the given segment count can be used for a server store of a clustered tier manager running with
+   * {@code concurrency} data segments.
+   *
+   * @param segments the requested segment count
+   * @param concurrency the segment count of the clustered tier manager
+   * @return {@code true} if {@code segments} is a positive multiple of {@code concurrency}
+   */
+  public static boolean isCompatible(int segments, int concurrency) {
+    return segments > 0 && segments % concurrency == 0;
+  }
+}
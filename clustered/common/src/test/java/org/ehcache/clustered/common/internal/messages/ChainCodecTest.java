@@ -21,6 +21,8 @@ import org.ehcache.clustered.common.internal.store.Element;
 import org.ehcache.clustered.common.internal.store.SequencedElement;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import static org.junit.Assert.assertEquals;
@@ -29,6 +31,7 @@ import static org.hamcrest.Matchers.is;
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
 import static org.ehcache.clustered.common.internal.store.Util.readPayLoad;
 import static org.ehcache.clustered.common.internal.store.Util.getChain;
+import static org.ehcache.clustered.common.internal.store.Util.getElement;
 
 public class ChainCodecTest {
 
@@ -105,6 +108,86 @@ public class ChainCodecTest {
     assertThat(decoded.isEmpty(), is(true));
   }
 
+  @Test
+  public void testSequencedChainWithLargeSequenceNumbers() {
+    Chain chain = getChain(Arrays.<Element>asList(
+        getElement(Long.MAX_VALUE - 1, createPayload(1L)), getElement(Long.MAX_VALUE, createPayload(2L)), getElement(-5L, createPayload(3L))));
+
+    Chain decoded = CHAIN_CODEC.decode(CHAIN_CODEC.encode(chain, true));
+
+    Util.assertChainHas(decoded, 1L, 2L, 3L);
+    assertSameSequenceChain(chain, decoded);
+  }
+
+  @Test
+  public void testFixedWidthChainDecoded() {
+    ByteBuffer legacy = ByteBuffer.allocate(1 + 2 * (8 + 4 + 8));
+    legacy.put((byte) 1);
+    legacy.putLong(10L).putInt(8).putLong(1L);
+    legacy.putLong(11L).putInt(8).putLong(2L);
+
+    Chain decoded = CHAIN_CODEC.decode(legacy.array());
+
+    Util.assertChainHas(decoded, 1L, 2L);
+    assertSameSequenceChain(getChain(true, createPayload(1L), createPayload(2L)), decoded, 10L);
+  }
+
+  @Test
+  public void testCompactEncodingSize() {
+    Chain chain = getChain(true, createPayload(1L), createPayload(2L), createPayload(3L));
+
+    // chain type, then per element a one byte sequence delta and a one byte payload size
+    assertThat(CHAIN_CODEC.encode(chain, true).length, is(1 + 3 * (1 + 1 + 8)));
+  }
+
+  @Test
+  public void testFixedWidthEncodingByDefault() {
+    Chain chain = getChain(true, createPayload(1L), createPayload(2L), createPayload(3L));
+
+    byte[] encoded = CHAIN_CODEC.encode(chain);
+
+    assertThat(encoded[0], is((byte) 1));
+    assertThat(encoded.length, is(1 + 3 * (8 + 4 + 8)));
+    assertSameSequenceChain(chain, CHAIN_CODEC.decode(encoded));
+  }
+
+  @Test
+  public void testCompactChainsDecoded() {
+    Chain chain = getChain(false, createPayload(1L), createPayload(2L));
+    Chain sequenced = getChain(true, createPayload(1L), createPayload(2L));
+
+    Util.assertChainHas(CHAIN_CODEC.decode(CHAIN_CODEC.encode(chain, true)), 1L, 2L);
+    Chain decoded = CHAIN_CODEC.decode(CHAIN_CODEC.encode(sequenced, true));
+    Util.assertChainHas(decoded, 1L, 2L);
+    assertSameSequenceChain(sequenced, decoded);
+  }
+
+  @Test
+  public void testDecodeFromBufferRegion() {
+    Chain chain = getChain(true, createPayload(1L), createPayload(2L));
+    byte[] encoded = CHAIN_CODEC.encode(chain);
+    ByteBuffer message = ByteBuffer.allocate(encoded.length + 16);
+    message.putLong(42L).put(encoded).putLong(43L).flip();
+    message.position(8);
+    message.limit(8 + encoded.length);
+
+    Chain decoded = CHAIN_CODEC.decode(message);
+
+    Iterator<Element> elements = decoded.iterator();
+    assertThat(readPayLoad(elements.next().getPayload()), is(1L));
+    assertThat(readPayLoad(elements.next().getPayload()), is(2L));
+    assertThat(elements.hasNext(), is(false));
+    assertSameSequenceChain(chain, decoded);
+  }
+
+  private static void assertSameSequenceChain(Chain original, Chain decoded, long offset) {
+    Iterator<Element> decodedIterator = decoded.iterator();
+    for (Element element : original) {
+      assertEquals(((SequencedElement) element).getSequenceNumber() + offset,
+                   ((SequencedElement) decodedIterator.next()).getSequenceNumber());
+    }
+  }
+
   private static void assertSameSequenceChain(Chain original, Chain decoded) {
     Iterator<Element> decodedIterator = decoded.iterator();
     for (Element element : original) {
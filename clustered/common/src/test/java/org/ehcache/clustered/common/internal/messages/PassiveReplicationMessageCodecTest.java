@@ -16,6 +16,7 @@
 
 package org.ehcache.clustered.common.internal.messages;
 
+import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.BatchedChainReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ChainReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ClearInvalidationCompleteMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ClientIDTrackerMessage;
@@ -23,6 +24,7 @@ import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.UUID;
 
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
@@ -68,6 +70,26 @@ public class PassiveReplicationMessageCodecTest {
 
   }
 
+  @Test
+  public void testBatchedChainReplicationMessageCodec() {
+    Chain first = getChain(false, createPayload(2L), createPayload(20L));
+    Chain second = getChain(true, createPayload(3L));
+    BatchedChainReplicationMessage batchedMessage = new BatchedChainReplicationMessage("test", new long[] {2L, 3L},
+        Arrays.asList(first, second), 200L, UUID.randomUUID());
+
+    PassiveReplicationMessageCodec passiveReplicationMessageCodec = new PassiveReplicationMessageCodec();
+
+    BatchedChainReplicationMessage decodedMsg = (BatchedChainReplicationMessage)passiveReplicationMessageCodec.decode(passiveReplicationMessageCodec
+        .encode(batchedMessage));
+
+    assertThat(decodedMsg.getCacheId(), is(batchedMessage.getCacheId()));
+    assertThat(decodedMsg.getClientId(), is(batchedMessage.getClientId()));
+    assertThat(decodedMsg.getId(), is(batchedMessage.getId()));
+    assertThat(decodedMsg.getKeys(), is(batchedMessage.getKeys()));
+    assertTrue(chainsEqual(decodedMsg.getChains().get(0), first));
+    assertTrue(chainsEqual(decodedMsg.getChains().get(1), second));
+  }
+
   @Test
   public void testClearInvalidationCompleteMessage() {
     ClearInvalidationCompleteMessage clearInvalidationCompleteMessage = new ClearInvalidationCompleteMessage("test");
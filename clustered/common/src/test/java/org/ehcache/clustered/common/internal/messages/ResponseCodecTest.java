@@ -20,7 +20,9 @@ import org.ehcache.clustered.common.internal.exceptions.IllegalMessageException;
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
 import static org.ehcache.clustered.common.internal.store.Util.getChain;
@@ -57,6 +59,19 @@ public class ResponseCodecTest {
     Util.assertChainHas(decodedChain, 1L, 11L, 111L);
   }
 
+  @Test
+  public void testGetResponseChainLayoutFollowsStoreEncoding() {
+    Chain chain = getChain(false, createPayload(1L), createPayload(11L));
+
+    byte[] fixedWidth = RESPONSE_CODEC.encode(RESPONSE_FACTORY.response(chain));
+    byte[] compact = RESPONSE_CODEC.encode(RESPONSE_FACTORY.response(chain, true));
+
+    // op code, chain type, then per element a four or a one byte payload size
+    assertThat(fixedWidth.length, is(1 + 1 + 2 * (4 + 8)));
+    assertThat(compact.length, is(1 + 1 + 2 * (1 + 8)));
+    Util.assertChainHas(((EhcacheEntityResponse.GetResponse) RESPONSE_CODEC.decode(compact)).getChain(), 1L, 11L);
+  }
+
   @Test
   public void testMapValueCodec() throws Exception {
     Object subject = new Date();
@@ -65,4 +80,84 @@ public class ResponseCodecTest {
         (EhcacheEntityResponse.MapValue) RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(mapValue));
     assertThat(decoded.getValue(), equalTo(subject));
   }
+
+  @Test
+  public void testBatchedGetResponseCodec() {
+    EhcacheEntityResponse batchedGetResponse = RESPONSE_FACTORY.response(Arrays.asList(
+        getChain(false, createPayload(1L), createPayload(11L)),
+        getChain(false),
+        getChain(true, createPayload(3L))));
+
+    EhcacheEntityResponse decoded = RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(batchedGetResponse));
+
+    List<Chain> decodedChains = ((EhcacheEntityResponse.BatchedGetResponse) decoded).getChains();
+
+    assertThat(decodedChains.size(), is(3));
+    Util.assertChainHas(decodedChains.get(0), 1L, 11L);
+    assertThat(decodedChains.get(1).isEmpty(), is(true));
+    Util.assertChainHas(decodedChains.get(2), 3L);
+  }
+
+  @Test
+  public void testIteratorBatchResponseCodec() {
+    EhcacheEntityResponse iteratorBatchResponse = RESPONSE_FACTORY.iteratorBatch(new long[] {2L, 7L}, Arrays.asList(
+        getChain(false, createPayload(2L)),
+        getChain(false, createPayload(7L), createPayload(77L))), 5, 64);
+
+    EhcacheEntityResponse.IteratorBatchResponse decoded =
+        (EhcacheEntityResponse.IteratorBatchResponse) RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(iteratorBatchResponse));
+
+    assertThat(decoded.getNextSegment(), is(5));
+    assertThat(decoded.getNextCursor(), is(64));
+    assertThat(decoded.getKeys(), is(new long[] {2L, 7L}));
+    assertThat(decoded.getChains().size(), is(2));
+    Util.assertChainHas(decoded.getChains().get(0), 2L);
+    Util.assertChainHas(decoded.getChains().get(1), 7L, 77L);
+  }
+
+  @Test
+  public void testChainCompactionRequestCodec() {
+    EhcacheEntityResponse compactionRequest = EhcacheEntityResponse.chainCompactionRequest("foo", 42L,
+        getChain(true, createPayload(4L), createPayload(44L)));
+
+    EhcacheEntityResponse.ChainCompactionRequest decoded =
+        (EhcacheEntityResponse.ChainCompactionRequest) RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(compactionRequest));
+
+    assertThat(decoded.getCacheId(), is("foo"));
+    assertThat(decoded.getKey(), is(42L));
+    Util.assertChainHas(decoded.getChain(), 4L, 44L);
+  }
+
+  @Test
+  public void testClientInvalidateHashesCodec() {
+    EhcacheEntityResponse invalidation = EhcacheEntityResponse.clientInvalidateHashes("foo", new long[] {1L, 42L, -7L}, 123);
+
+    EhcacheEntityResponse.ClientInvalidateHashes decoded =
+        (EhcacheEntityResponse.ClientInvalidateHashes) RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(invalidation));
+
+    assertThat(decoded.getCacheId(), is("foo"));
+    assertThat(decoded.getKeys(), equalTo(new long[] {1L, 42L, -7L}));
+    assertThat(decoded.getInvalidationId(), is(123));
+  }
+
+  @Test
+  public void testServerStoreSegmentsCodec() {
+    EhcacheEntityResponse segments = RESPONSE_FACTORY.serverStoreSegments(64);
+
+    EhcacheEntityResponse.ServerStoreSegments decoded =
+        (EhcacheEntityResponse.ServerStoreSegments) RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(segments));
+
+    assertThat(decoded.getSegmentCount(), is(64));
+  }
+
+  @Test
+  public void testHashesInvalidationDoneCodec() {
+    EhcacheEntityResponse done = EhcacheEntityResponse.hashesInvalidationDone("foo", new long[] {3L, 4L});
+
+    EhcacheEntityResponse.HashesInvalidationDone decoded =
+        (EhcacheEntityResponse.HashesInvalidationDone) RESPONSE_CODEC.decode(RESPONSE_CODEC.encode(done));
+
+    assertThat(decoded.getCacheId(), is("foo"));
+    assertThat(decoded.getKeys(), equalTo(new long[] {3L, 4L}));
+  }
 }
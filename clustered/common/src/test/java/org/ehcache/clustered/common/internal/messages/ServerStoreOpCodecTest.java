@@ -19,6 +19,8 @@ package org.ehcache.clustered.common.internal.messages;
 import org.junit.Test;
 
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.UUID;
 
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
@@ -89,9 +91,24 @@ public class ServerStoreOpCodecTest {
     assertThat(decodedReplaceAtHeadMessage.getId(), is(-1L));
     Util.assertChainHas(decodedReplaceAtHeadMessage.getExpect(), 10L, 100L, 1000L);
     Util.assertChainHas(decodedReplaceAtHeadMessage.getUpdate(), 2000L);
+    assertThat(decodedReplaceAtHeadMessage.getTimeToLive(), is(Long.MAX_VALUE));
     assertEquals(replaceAtHeadMessage.getClientId(), decodedReplaceAtHeadMessage.getClientId());
   }
 
+  @Test
+  public void testReplaceAtHeadMessageWithExpirationTimeCodec() {
+    EhcacheEntityMessage replaceAtHeadMessage = MESSAGE_FACTORY.replaceAtHeadOperation(10L,
+        getChain(true, createPayload(10L), createPayload(100L)),
+        getChain(false, createPayload(2000L)), 42L);
+
+    EhcacheEntityMessage decodedMsg = STORE_OP_CODEC.decode(STORE_OP_CODEC.encode((ServerStoreOpMessage)replaceAtHeadMessage));
+    ServerStoreOpMessage.ReplaceAtHeadMessage decodedReplaceAtHeadMessage = (ServerStoreOpMessage.ReplaceAtHeadMessage) decodedMsg;
+
+    assertThat(decodedReplaceAtHeadMessage.getTimeToLive(), is(42L));
+    Util.assertChainHas(decodedReplaceAtHeadMessage.getExpect(), 10L, 100L);
+    Util.assertChainHas(decodedReplaceAtHeadMessage.getUpdate(), 2000L);
+  }
+
   @Test
   public void testClearMessageCodec() throws Exception {
     EhcacheEntityMessage clearMessage = MESSAGE_FACTORY.clearOperation();
@@ -112,4 +129,46 @@ public class ServerStoreOpCodecTest {
     assertThat(decodedInvalidationAckMessage.getCacheId(), is("test"));
     assertThat(decodedInvalidationAckMessage.getInvalidationId(), is(123));
   }
+
+  @Test
+  public void testBatchedGetMessageCodec() {
+    EhcacheEntityMessage batchedGetMessage = MESSAGE_FACTORY.batchedGetOperation(new long[] {1L, -2L, 3L});
+
+    EhcacheEntityMessage decodedMsg = STORE_OP_CODEC.decode(STORE_OP_CODEC.encode((ServerStoreOpMessage)batchedGetMessage));
+    ServerStoreOpMessage.BatchedGetMessage decodedBatchedGetMessage = (ServerStoreOpMessage.BatchedGetMessage) decodedMsg;
+
+    assertThat(decodedBatchedGetMessage.getCacheId(), is("test"));
+    assertThat(decodedBatchedGetMessage.getKeys(), is(new long[] {1L, -2L, 3L}));
+  }
+
+  @Test
+  public void testIteratorBatchMessageCodec() {
+    EhcacheEntityMessage iteratorMessage = MESSAGE_FACTORY.iteratorBatchOperation(3, 42, 128);
+
+    EhcacheEntityMessage decodedMsg = STORE_OP_CODEC.decode(STORE_OP_CODEC.encode((ServerStoreOpMessage)iteratorMessage));
+    ServerStoreOpMessage.IteratorBatchMessage decodedIteratorMessage = (ServerStoreOpMessage.IteratorBatchMessage) decodedMsg;
+
+    assertThat(decodedIteratorMessage.getCacheId(), is("test"));
+    assertThat(decodedIteratorMessage.getSegment(), is(3));
+    assertThat(decodedIteratorMessage.getCursor(), is(42));
+    assertThat(decodedIteratorMessage.getBatchSize(), is(128));
+  }
+
+  @Test
+  public void testBatchedGetAndAppendMessageCodec() {
+    EhcacheEntityMessage batchedMessage = MESSAGE_FACTORY.batchedGetAndAppendOperation(new long[] {1L, 17L},
+        Arrays.<ByteBuffer>asList(createPayload(10L), createPayload(170L, 64)));
+
+    EhcacheEntityMessage decodedMsg = STORE_OP_CODEC.decode(STORE_OP_CODEC.encode((ServerStoreOpMessage)batchedMessage));
+    ServerStoreOpMessage.BatchedGetAndAppendMessage decodedBatchedMessage = (ServerStoreOpMessage.BatchedGetAndAppendMessage) decodedMsg;
+
+    assertThat(decodedBatchedMessage.getCacheId(), is("test"));
+    assertThat(decodedBatchedMessage.getKeys(), is(new long[] {1L, 17L}));
+    assertThat(decodedBatchedMessage.getPayloads().size(), is(2));
+    assertThat(readPayLoad(decodedBatchedMessage.getPayloads().get(0)), is(10L));
+    assertThat(decodedBatchedMessage.getPayloads().get(1).remaining(), is(64));
+    assertThat(readPayLoad(decodedBatchedMessage.getPayloads().get(1)), is(170L));
+    assertThat(decodedBatchedMessage.getId(), is(-1L));
+    assertEquals(batchedMessage.getClientId(), decodedBatchedMessage.getClientId());
+  }
 }
@@ -16,6 +16,7 @@
 package org.ehcache.clustered.management;
 
 import org.ehcache.Cache;
+import org.ehcache.clustered.common.internal.store.KeySegments;
 import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
 import org.junit.BeforeClass;
@@ -426,6 +427,24 @@ public class ClusteringManagementServiceTest extends AbstractClusteringManagemen
     SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:RemovedSlotCount", StatisticType.COUNTER_HISTORY));
     SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:DataSize", StatisticType.SIZE_HISTORY));
     SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:TableCapacity", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ChainLengthMean", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ChainLengthMax", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ChainLength99th", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ChainCompactionRequests", StatisticType.COUNTER_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ElementSizeMean", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ElementSizeMax", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:ElementSize99th", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:AppendLatencyMean", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:AppendLatency99th", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:GetLatencyMean", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:GetLatency99th", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:InvalidationLatencyMean", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:InvalidationLatency99th", StatisticType.SIZE_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:Evictions", StatisticType.COUNTER_HISTORY));
+    SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:MaxSegmentEvictions", StatisticType.COUNTER_HISTORY));
+    for (int i = 0; i < KeySegments.DEFAULT_SEGMENT_COUNT; i++) {
+      SERVER_STORE_DESCRIPTORS.add(new StatisticDescriptor("Store:Segment" + i + "Evictions", StatisticType.COUNTER_HISTORY));
+    }
   }
 
 }
@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.ehcache.clustered.common.internal.messages.BatchedConcurrentEntityMessage;
 import org.ehcache.clustered.common.internal.messages.ConcurrentEntityMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage;
 import org.terracotta.entity.ConcurrencyStrategy;
@@ -46,8 +47,11 @@ public final class ConcurrencyStrategies {
 
     @Override
     public int concurrencyKey(EntityMessage entityMessage) {
-      if (entityMessage instanceof ServerStoreOpMessage.GetMessage) {
+      if (entityMessage instanceof ServerStoreOpMessage.GetMessage || entityMessage instanceof ServerStoreOpMessage.BatchedGetMessage
+          || entityMessage instanceof ServerStoreOpMessage.IteratorBatchMessage) {
         return UNIVERSAL_KEY;
+      } else if (entityMessage instanceof BatchedConcurrentEntityMessage) {
+        return batchConcurrencyKey(((BatchedConcurrentEntityMessage) entityMessage).concurrencyKeys());
       } else if (entityMessage instanceof ConcurrentEntityMessage) {
         ConcurrentEntityMessage concurrentEntityMessage = (ConcurrentEntityMessage) entityMessage;
         return DATA_CONCURRENCY_KEY_OFFSET + mapper.getSegmentForKey(concurrentEntityMessage.concurrencyKey());
@@ -56,6 +60,23 @@ public final class ConcurrencyStrategies {
       }
     }
 
+    /**
+     * A batch confined to a single segment runs on that segment, while a batch spanning several
+     * segments runs exclusively so that its replication cannot be reordered with single key operations.
+     */
+    private int batchConcurrencyKey(long[] keys) {
+      if (keys.length == 0) {
+        return DEFAULT_KEY;
+      }
+      int segment = mapper.getSegmentForKey(keys[0]);
+      for (int i = 1; i < keys.length; i++) {
+        if (mapper.getSegmentForKey(keys[i]) != segment) {
+          return MANAGEMENT_KEY;
+        }
+      }
+      return DATA_CONCURRENCY_KEY_OFFSET + segment;
+    }
+
     @Override
     public Set<Integer> getKeysForSynchronization() {
       Set<Integer> result = new LinkedHashSet<>();
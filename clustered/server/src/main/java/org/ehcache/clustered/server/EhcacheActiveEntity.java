@@ -15,11 +15,14 @@
  */
 package org.ehcache.clustered.server;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -47,6 +50,7 @@ import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse;
 
 import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponseFactory;
 import org.ehcache.clustered.common.internal.messages.LifecycleMessage;
+import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.BatchedChainReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ClearInvalidationCompleteMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ClientIDTrackerMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.InvalidationCompleteMessage;
@@ -57,10 +61,12 @@ import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage.KeyBasedServerStoreOpMessage;
 import org.ehcache.clustered.common.internal.messages.StateRepositoryOpMessage;
 import org.ehcache.clustered.common.internal.store.Chain;
+import org.ehcache.clustered.common.internal.store.Element;
 import org.ehcache.clustered.common.internal.store.ServerStore;
-import org.ehcache.clustered.server.internal.messages.EntityDataSyncMessage;
+import org.ehcache.clustered.server.internal.messages.EntityBatchedDataSyncMessage;
 import org.ehcache.clustered.server.internal.messages.EntityStateSyncMessage;
 import org.ehcache.clustered.server.management.Management;
+import org.ehcache.clustered.server.offheap.OffHeapChainMap;
 import org.ehcache.clustered.server.state.EhcacheStateService;
 import org.ehcache.clustered.server.state.InvalidationTracker;
 import org.ehcache.clustered.server.state.config.EhcacheStateServiceConfig;
@@ -79,9 +85,12 @@ import org.terracotta.entity.ServiceRegistry;
 import org.terracotta.offheapresource.OffHeapResources;
 
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.allInvalidationDone;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.chainCompactionRequest;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.clientInvalidateAll;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.clientInvalidateHash;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.clientInvalidateHashes;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.hashInvalidationDone;
+import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.hashesInvalidationDone;
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.serverInvalidateHash;
 
 import static org.ehcache.clustered.common.internal.messages.LifecycleMessage.ConfigureStoreManager;
@@ -99,6 +108,34 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
 
   private static final Logger LOGGER = LoggerFactory.getLogger(EhcacheActiveEntity.class);
 
+  /**
+   * System property setting the approximate number of chain bytes carried by each data sync message sent to a passive.
+   */
+  static final String SYNC_BATCH_BYTES_PROPERTY = "org.ehcache.clustered.server.sync.batch.bytes";
+  private static final int SYNC_BATCH_BYTES = Integer.getInteger(SYNC_BATCH_BYTES_PROPERTY, 4 * 1024 * 1024);
+  private static final int SYNC_ENTRY_OVERHEAD = 12;
+  private static final int SYNC_ELEMENT_OVERHEAD = 12;
+
+  /**
+   * System property setting the chain length at which the appending client is asked to compact a chain.
+   */
+  static final String COMPACTION_CHAIN_LENGTH_PROPERTY = "org.ehcache.clustered.server.compaction.chain.length";
+  private static final int COMPACTION_CHAIN_LENGTH = Integer.getInteger(COMPACTION_CHAIN_LENGTH_PROPERTY, 64);
+
+  /**
+   * System property setting the maximum number of hashes carried by a single coalesced invalidation message.
+   */
+  static final String INVALIDATION_BATCH_SIZE_PROPERTY = "org.ehcache.clustered.server.invalidation.batch.size";
+  private static final int INVALIDATION_BATCH_SIZE = Integer.getInteger(INVALIDATION_BATCH_SIZE_PROPERTY, 128);
+
+  /**
+   * System property setting how long, in milliseconds, hash invalidations may be held back to be coalesced with later
+   * ones. With the default of {@code 0} invalidations are only coalesced within an operation: a write to a strong
+   * clustered tier does not complete before its invalidation is acknowledged, so any window adds to its latency.
+   */
+  static final String INVALIDATION_BATCH_WINDOW_PROPERTY = "org.ehcache.clustered.server.invalidation.batch.window.millis";
+  private static final long INVALIDATION_BATCH_WINDOW = Long.getLong(INVALIDATION_BATCH_WINDOW_PROPERTY, 0L);
+
   private final UUID identity;
   private final Set<String> offHeapResourceIdentifiers;
 
@@ -119,9 +156,12 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
   private final EhcacheEntityResponseFactory responseFactory;
   private final ConcurrentMap<Integer, InvalidationHolder> clientsWaitingForInvalidation = new ConcurrentHashMap<>();
   private final AtomicInteger invalidationIdGenerator = new AtomicInteger();
+  private final ConcurrentMap<Integer, CoalescedInvalidation> coalescedInvalidations = new ConcurrentHashMap<>();
+  private final InvalidationCoalescer invalidationCoalescer;
   private final ClientCommunicator clientCommunicator;
   private final EhcacheStateService ehcacheStateService;
   private final IEntityMessenger entityMessenger;
+  private final KeySegmentMapper mapper;
   private volatile ConcurrentHashMap<String, List<InvalidationTuple>> inflightInvalidations;
   private final Management management;
 
@@ -130,6 +170,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     final Set<ClientDescriptor> clientsHavingToInvalidate;
     final String cacheId;
     final Long key;
+    final long startNanos = System.nanoTime();
 
     InvalidationHolder(ClientDescriptor clientDescriptorWaitingForInvalidation, Set<ClientDescriptor> clientsHavingToInvalidate, String cacheId, Long key) {
       this.clientDescriptorWaitingForInvalidation = clientDescriptorWaitingForInvalidation;
@@ -146,6 +187,19 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     }
   }
 
+  /**
+   * The invalidation ids covered by a coalesced invalidation message, all acknowledged by a single ack.
+   */
+  static class CoalescedInvalidation {
+    final ClientDescriptor clientDescriptor;
+    final int[] invalidationIds;
+
+    CoalescedInvalidation(ClientDescriptor clientDescriptor, int[] invalidationIds) {
+      this.clientDescriptor = clientDescriptor;
+      this.invalidationIds = invalidationIds;
+    }
+  }
+
   private static class CommunicatorServiceConfiguration implements ServiceConfiguration<ClientCommunicator> {
     @Override
     public Class<ClientCommunicator> getServiceType() {
@@ -164,6 +218,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
 
   EhcacheActiveEntity(ServiceRegistry services, byte[] config, final KeySegmentMapper mapper) {
     this.identity = ClusteredEhcacheIdentity.deserialize(config);
+    this.mapper = mapper;
     this.responseFactory = new EhcacheEntityResponseFactory();
     this.clientCommunicator = services.getService(new CommunicatorServiceConfiguration());
     OffHeapResources offHeapResources = services.getService(new OffHeapResourcesServiceConfiguration());
@@ -181,6 +236,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       throw new AssertionError("Server failed to retrieve IEntityMessenger service.");
     }
     this.management = new Management(services, ehcacheStateService, this.offHeapResourceIdentifiers);
+    this.invalidationCoalescer = new InvalidationCoalescer(this::sendHashInvalidations, INVALIDATION_BATCH_SIZE, INVALIDATION_BATCH_WINDOW);
   }
 
   /**
@@ -228,6 +284,10 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
 
   @Override
   public void disconnected(ClientDescriptor clientDescriptor) {
+    // drop the invalidations not yet sent to this client, and the coalesced ones it will never ack
+    invalidationCoalescer.clientDisconnected(clientDescriptor);
+    coalescedInvalidations.values().removeIf(coalesced -> coalesced.clientDescriptor.equals(clientDescriptor));
+
     // cleanup all invalidation requests waiting for a ack from this client
     Set<Integer> invalidationIds = clientsWaitingForInvalidation.keySet();
     for (Integer invalidationId : invalidationIds) {
@@ -274,7 +334,11 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
         case LIFECYCLE_OP:
           return invokeLifeCycleOperation(clientDescriptor, (LifecycleMessage) message);
         case SERVER_STORE_OP:
-          return invokeServerStoreOperation(clientDescriptor, (ServerStoreOpMessage) message);
+          try {
+            return invokeServerStoreOperation(clientDescriptor, (ServerStoreOpMessage) message);
+          } finally {
+            invalidationCoalescer.operationComplete();
+          }
         case STATE_REPO_OP:
           return invokeStateRepositoryOperation(clientDescriptor, (StateRepositoryOpMessage) message);
         case REPLICATION_OP:
@@ -355,18 +419,47 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
 
       syncChannel.synchronizeToPassive(new EntityStateSyncMessage(configuration, storeConfigs, trackedClients));
     } else {
+      int concurrencySegment = concurrencyKey - DATA_CONCURRENCY_KEY_OFFSET;
       ehcacheStateService.getStores().stream()
         .forEach(name -> {
           ServerStoreImpl store = ehcacheStateService.getStore(name);
-          store.getSegments().get(concurrencyKey - DATA_CONCURRENCY_KEY_OFFSET).keySet().stream()
-            .forEach(key -> {
-              syncChannel.synchronizeToPassive(new EntityDataSyncMessage(name, key, store.get(key)));
-            });
+          // a store may have more segments than the entity has concurrency keys, as a multiple of it
+          List<OffHeapChainMap<Long>> segments = store.getSegments();
+          for (int i = concurrencySegment; i < segments.size(); i += mapper.getSegments()) {
+            synchronizeSegmentToPassive(syncChannel, name, store, segments.get(i));
+          }
         });
     }
     LOGGER.info("Sync complete for concurrency key {}.", concurrencyKey);
   }
 
+  private void synchronizeSegmentToPassive(PassiveSynchronizationChannel<EhcacheEntityMessage> syncChannel, String name,
+                                           ServerStoreImpl store, OffHeapChainMap<Long> segment) {
+    Map<Long, Chain> batch = new LinkedHashMap<>();
+    long batchBytes = 0;
+    for (Long key : segment.keySet()) {
+      Chain chain = store.get(key);
+      batch.put(key, chain);
+      batchBytes += syncSize(chain);
+      if (batchBytes >= SYNC_BATCH_BYTES) {
+        syncChannel.synchronizeToPassive(new EntityBatchedDataSyncMessage(name, batch));
+        batch = new LinkedHashMap<>();
+        batchBytes = 0;
+      }
+    }
+    if (!batch.isEmpty()) {
+      syncChannel.synchronizeToPassive(new EntityBatchedDataSyncMessage(name, batch));
+    }
+  }
+
+  private static long syncSize(Chain chain) {
+    long size = SYNC_ENTRY_OVERHEAD;
+    for (Element element : chain) {
+      size += SYNC_ELEMENT_OVERHEAD + element.getPayload().remaining();
+    }
+    return size;
+  }
+
   @Override
   public void createNew() {
     management.init();
@@ -432,11 +525,9 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
         validate(clientDescriptor, (ValidateStoreManager) message);
         break;
       case CREATE_SERVER_STORE:
-        createServerStore(clientDescriptor, (CreateServerStore) message);
-        break;
+        return createServerStore(clientDescriptor, (CreateServerStore) message);
       case VALIDATE_SERVER_STORE:
-        validateServerStore(clientDescriptor, (ValidateServerStore) message);
-        break;
+        return validateServerStore(clientDescriptor, (ValidateServerStore) message);
       case RELEASE_SERVER_STORE:
         releaseServerStore(clientDescriptor, (ReleaseServerStore) message);
         break;
@@ -479,17 +570,20 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
       });
     }
 
+    boolean compactEncoding = cacheStore.getStoreConfiguration().isCompactEncoding();
     switch (message.operation()) {
       case GET: {
         ServerStoreOpMessage.GetMessage getMessage = (ServerStoreOpMessage.GetMessage) message;
-        return responseFactory.response(cacheStore.get(getMessage.getKey()));
+        return responseFactory.response(cacheStore.get(getMessage.getKey()), compactEncoding);
       }
       case APPEND: {
         if (!isMessageDuplicate(message)) {
           ServerStoreOpMessage.AppendMessage appendMessage = (ServerStoreOpMessage.AppendMessage)message;
           cacheStore.getAndAppend(appendMessage.getKey(), appendMessage.getPayload());
-          sendMessageToSelfAndDeferRetirement(appendMessage, cacheStore.get(appendMessage.getKey()));
+          Chain appended = cacheStore.get(appendMessage.getKey());
+          sendMessageToSelfAndDeferRetirement(appendMessage, appended);
           invalidateHashForClient(clientDescriptor, appendMessage.getCacheId(), appendMessage.getKey());
+          requestCompactionIfNeeded(clientDescriptor, appendMessage.getCacheId(), cacheStore, appendMessage.getKey(), appended);
         }
         return responseFactory.success();
       }
@@ -498,16 +592,19 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
         if (!isMessageDuplicate(message)) {
 
           Chain result = cacheStore.getAndAppend(getAndAppendMessage.getKey(), getAndAppendMessage.getPayload());
-          sendMessageToSelfAndDeferRetirement(getAndAppendMessage, cacheStore.get(getAndAppendMessage.getKey()));
-          EhcacheEntityResponse response = responseFactory.response(result);
+          Chain appended = cacheStore.get(getAndAppendMessage.getKey());
+          sendMessageToSelfAndDeferRetirement(getAndAppendMessage, appended);
+          EhcacheEntityResponse response = responseFactory.response(result, compactEncoding);
           invalidateHashForClient(clientDescriptor, getAndAppendMessage.getCacheId(), getAndAppendMessage.getKey());
+          requestCompactionIfNeeded(clientDescriptor, getAndAppendMessage.getCacheId(), cacheStore, getAndAppendMessage.getKey(), appended);
           return response;
         }
-        return responseFactory.response(cacheStore.get(getAndAppendMessage.getKey()));
+        return responseFactory.response(cacheStore.get(getAndAppendMessage.getKey()), compactEncoding);
       }
       case REPLACE: {
         ServerStoreOpMessage.ReplaceAtHeadMessage replaceAtHeadMessage = (ServerStoreOpMessage.ReplaceAtHeadMessage) message;
-        cacheStore.replaceAtHead(replaceAtHeadMessage.getKey(), replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.getUpdate());
+        cacheStore.replaceAtHead(replaceAtHeadMessage.getKey(), replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.getUpdate(),
+            replaceAtHeadMessage.getTimeToLive());
         return responseFactory.success();
       }
       case CLIENT_INVALIDATION_ACK: {
@@ -515,7 +612,12 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
         String cacheId = message.getCacheId();
         int invalidationId = clientInvalidationAck.getInvalidationId();
         LOGGER.debug("SERVER: got notification of invalidation ack in cache {} from {} (ID {})", cacheId, clientDescriptor, invalidationId);
-        clientInvalidated(clientDescriptor, invalidationId);
+        CoalescedInvalidation coalesced = coalescedInvalidations.remove(invalidationId);
+        if (coalesced == null) {
+          clientInvalidated(clientDescriptor, invalidationId);
+        } else {
+          clientInvalidated(clientDescriptor, coalesced.invalidationIds);
+        }
         return responseFactory.success();
       }
       case CLEAR: {
@@ -526,6 +628,41 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
         }
         return responseFactory.success();
       }
+      case BATCHED_GET: {
+        ServerStoreOpMessage.BatchedGetMessage batchedGetMessage = (ServerStoreOpMessage.BatchedGetMessage) message;
+        return responseFactory.response(getAll(cacheStore, batchedGetMessage.getKeys()), compactEncoding);
+      }
+      case BATCHED_GET_AND_APPEND: {
+        ServerStoreOpMessage.BatchedGetAndAppendMessage batchedMessage = (ServerStoreOpMessage.BatchedGetAndAppendMessage) message;
+        long[] keys = batchedMessage.getKeys();
+        if (!isMessageDuplicate(message)) {
+          List<ByteBuffer> payloads = batchedMessage.getPayloads();
+          List<Chain> results = new ArrayList<>(keys.length);
+          for (int i = 0; i < keys.length; i++) {
+            results.add(cacheStore.getAndAppend(keys[i], payloads.get(i)));
+          }
+          List<Chain> appended = getAll(cacheStore, keys);
+          sendMessageToSelfAndDeferRetirement(batchedMessage, appended);
+          EhcacheEntityResponse response = responseFactory.response(results, compactEncoding);
+          Set<Long> invalidatedKeys = new LinkedHashSet<>();
+          for (int i = 0; i < keys.length; i++) {
+            if (invalidatedKeys.add(keys[i])) {
+              invalidateHashForClient(clientDescriptor, batchedMessage.getCacheId(), keys[i]);
+            }
+          }
+          for (int i = 0; i < keys.length; i++) {
+            if (invalidatedKeys.remove(keys[i])) {
+              requestCompactionIfNeeded(clientDescriptor, batchedMessage.getCacheId(), cacheStore, keys[i], appended.get(i));
+            }
+          }
+          return response;
+        }
+        return responseFactory.response(getAll(cacheStore, keys), compactEncoding);
+      }
+      case ITERATOR_BATCH: {
+        ServerStoreOpMessage.IteratorBatchMessage iteratorMessage = (ServerStoreOpMessage.IteratorBatchMessage) message;
+        return iteratorBatch(cacheStore, iteratorMessage);
+      }
       default:
         throw new IllegalMessageException("Unknown ServerStore operation : " + message);
     }
@@ -539,6 +676,65 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     }
   }
 
+  private void sendMessageToSelfAndDeferRetirement(ServerStoreOpMessage.BatchedGetAndAppendMessage message, List<Chain> results) {
+    try {
+      entityMessenger.messageSelfAndDeferRetirement(message, new BatchedChainReplicationMessage(message.getCacheId(), message.getKeys(), results, message.getId(), message.getClientId()));
+    } catch (MessageCodecException e) {
+      throw new AssertionError("Codec error", e);
+    }
+  }
+
+  /**
+   * Records the length of a freshly appended chain and, each time it grows by another compaction threshold,
+   * asks the appending client to resolve and compact it. The server cannot decode the operations in a chain so
+   * the compaction itself is left to the client, which replaces the chain at head asynchronously.
+   */
+  private void requestCompactionIfNeeded(ClientDescriptor clientDescriptor, String cacheId, ServerStoreImpl cacheStore, long key, Chain chain) {
+    int length = cacheStore.recordChainLength(key);
+    if (length >= COMPACTION_CHAIN_LENGTH && length % COMPACTION_CHAIN_LENGTH == 0) {
+      cacheStore.compactionRequested();
+      LOGGER.debug("SERVER: asking client {} to compact chain of length {} for hash {} in cache {}", clientDescriptor, length, key, cacheId);
+      try {
+        clientCommunicator.sendNoResponse(clientDescriptor, chainCompactionRequest(cacheId, key, chain, cacheStore.getStoreConfiguration().isCompactEncoding()));
+      } catch (MessageCodecException mce) {
+        throw new AssertionError("Codec error", mce);
+      }
+    }
+  }
+
+  private EhcacheEntityResponse iteratorBatch(ServerStoreImpl cacheStore, ServerStoreOpMessage.IteratorBatchMessage message) {
+    boolean compactEncoding = cacheStore.getStoreConfiguration().isCompactEncoding();
+    int segment = message.getSegment();
+    int segmentCount = cacheStore.getSegments().size();
+    if (segment < 0 || segment >= segmentCount) {
+      return responseFactory.iteratorBatch(new long[0], Collections.emptyList(), EhcacheEntityResponse.IteratorBatchResponse.ITERATION_COMPLETE, 0, compactEncoding);
+    }
+
+    List<Long> batch = new ArrayList<>();
+    int nextCursor = cacheStore.nextKeys(segment, message.getCursor(), message.getBatchSize(), batch::add);
+    long[] keys = new long[batch.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = batch.get(i);
+    }
+    List<Chain> chains = getAll(cacheStore, keys);
+
+    if (nextCursor >= 0) {
+      return responseFactory.iteratorBatch(keys, chains, segment, nextCursor, compactEncoding);
+    } else if (segment + 1 < segmentCount) {
+      return responseFactory.iteratorBatch(keys, chains, segment + 1, 0, compactEncoding);
+    } else {
+      return responseFactory.iteratorBatch(keys, chains, EhcacheEntityResponse.IteratorBatchResponse.ITERATION_COMPLETE, 0, compactEncoding);
+    }
+  }
+
+  private static List<Chain> getAll(ServerStoreImpl cacheStore, long[] keys) {
+    List<Chain> chains = new ArrayList<>(keys.length);
+    for (long key : keys) {
+      chains.add(cacheStore.get(key));
+    }
+    return chains;
+  }
+
   private EhcacheEntityResponse invokeStateRepositoryOperation(ClientDescriptor clientDescriptor, StateRepositoryOpMessage message) throws ClusterException {
     validateClusteredTierManagerConfigured(clientDescriptor);
     return ehcacheStateService.getStateRepositoryManager().invoke(message);
@@ -571,12 +767,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
 
     LOGGER.debug("SERVER: requesting {} client(s) invalidation of hash {} in cache {} (ID {})", clientsToInvalidate.size(), key, cacheId, invalidationId);
     for (ClientDescriptor clientDescriptorThatHasToInvalidate : clientsToInvalidate) {
-      LOGGER.debug("SERVER: asking client {} to invalidate hash {} from cache {} (ID {})", clientDescriptorThatHasToInvalidate, key, cacheId, invalidationId);
-      try {
-        clientCommunicator.sendNoResponse(clientDescriptorThatHasToInvalidate, clientInvalidateHash(cacheId, key, invalidationId));
-      } catch (MessageCodecException mce) {
-        throw new AssertionError("Codec error", mce);
-      }
+      invalidationCoalescer.add(clientDescriptorThatHasToInvalidate, cacheId, key, invalidationId);
     }
 
     if (clientsToInvalidate.isEmpty()) {
@@ -584,6 +775,26 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     }
   }
 
+  private void sendHashInvalidations(ClientDescriptor clientDescriptor, String cacheId, long[] keys, int[] invalidationIds) {
+    try {
+      if (invalidationIds.length == 1) {
+        LOGGER.debug("SERVER: asking client {} to invalidate hash {} from cache {} (ID {})", clientDescriptor, keys[0], cacheId, invalidationIds[0]);
+        clientCommunicator.sendNoResponse(clientDescriptor, clientInvalidateHash(cacheId, keys[0], invalidationIds[0]));
+      } else {
+        int invalidationId = invalidationIdGenerator.getAndIncrement();
+        ServerStoreImpl store = ehcacheStateService.getStore(cacheId);
+        if (store != null && store.getStoreConfiguration().getConsistency() == Consistency.STRONG) {
+          // only clients of strong clustered tiers acknowledge invalidations
+          coalescedInvalidations.put(invalidationId, new CoalescedInvalidation(clientDescriptor, invalidationIds));
+        }
+        LOGGER.debug("SERVER: asking client {} to invalidate {} hashes from cache {} (ID {})", clientDescriptor, keys.length, cacheId, invalidationId);
+        clientCommunicator.sendNoResponse(clientDescriptor, clientInvalidateHashes(cacheId, keys, invalidationId));
+      }
+    } catch (MessageCodecException mce) {
+      throw new AssertionError("Codec error", mce);
+    }
+  }
+
   private void invalidateAll(ClientDescriptor originatingClientDescriptor, String cacheId) {
     int invalidationId = invalidationIdGenerator.getAndIncrement();
     Set<ClientDescriptor> clientsToInvalidate = Collections.newSetFromMap(new ConcurrentHashMap<ClientDescriptor, Boolean>());
@@ -611,38 +822,96 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
   }
 
   private void clientInvalidated(ClientDescriptor clientDescriptor, int invalidationId) {
+    InvalidationHolder invalidationHolder = invalidationCompleted(clientDescriptor, invalidationId);
+    if (invalidationHolder != null) {
+      notifyInvalidationDone(clientDescriptor, invalidationId, invalidationHolder);
+    }
+  }
+
+  /**
+   * Handles the single ack of a coalesced invalidation. The hashes whose invalidation completes are notified to each
+   * originating client of a strong clustered tier in one message.
+   */
+  private void clientInvalidated(ClientDescriptor clientDescriptor, int[] invalidationIds) {
+    Map<ClientDescriptor, Map<String, Set<Long>>> hashesDone = new HashMap<>();
+    for (int invalidationId : invalidationIds) {
+      InvalidationHolder invalidationHolder = invalidationCompleted(clientDescriptor, invalidationId);
+      if (invalidationHolder == null) {
+        continue;
+      }
+      if (invalidationHolder.key != null && isStrong(invalidationHolder.cacheId)) {
+        hashesDone.computeIfAbsent(invalidationHolder.clientDescriptorWaitingForInvalidation, c -> new HashMap<>())
+          .computeIfAbsent(invalidationHolder.cacheId, c -> new LinkedHashSet<>())
+          .add(invalidationHolder.key);
+      } else {
+        notifyInvalidationDone(clientDescriptor, invalidationId, invalidationHolder);
+      }
+    }
+
+    hashesDone.forEach((clientDescriptorWaitingForInvalidation, caches) -> caches.forEach((cacheId, keys) -> {
+      LOGGER.debug("SERVER: notifying originating client that all other clients invalidated {} keys in cache {} from {}", keys.size(), cacheId, clientDescriptor);
+      try {
+        if (keys.size() == 1) {
+          clientCommunicator.sendNoResponse(clientDescriptorWaitingForInvalidation, hashInvalidationDone(cacheId, keys.iterator().next()));
+        } else {
+          clientCommunicator.sendNoResponse(clientDescriptorWaitingForInvalidation, hashesInvalidationDone(cacheId, keys.stream().mapToLong(Long::longValue).toArray()));
+        }
+      } catch (MessageCodecException mce) {
+        throw new AssertionError("Codec error", mce);
+      }
+    }));
+  }
+
+  /**
+   * Records the ack of an invalidation by a client.
+   *
+   * @return the invalidation holder if this ack was the last one awaited, {@code null} otherwise
+   */
+  private InvalidationHolder invalidationCompleted(ClientDescriptor clientDescriptor, int invalidationId) {
     InvalidationHolder invalidationHolder = clientsWaitingForInvalidation.get(invalidationId);
 
     if (invalidationHolder == null) { // Happens when client is re-sending/sending invalidations for which server has lost track since fail-over happened.
       LOGGER.debug("Ignoring invalidation from client {} " + clientDescriptor);
-      return;
+      return null;
     }
 
     invalidationHolder.clientsHavingToInvalidate.remove(clientDescriptor);
-    if (invalidationHolder.clientsHavingToInvalidate.isEmpty()) {
-      if (clientsWaitingForInvalidation.remove(invalidationId) != null) {
-        try {
-          Long key = invalidationHolder.key;
-          boolean isStrong = ehcacheStateService.getStore(invalidationHolder.cacheId).getStoreConfiguration().getConsistency() == Consistency.STRONG;
-          if (key == null) {
-            if (isStrong) {
-              clientCommunicator.sendNoResponse(invalidationHolder.clientDescriptorWaitingForInvalidation, allInvalidationDone(invalidationHolder.cacheId));
-              LOGGER.debug("SERVER: notifying originating client that all other clients invalidated all in cache {} from {} (ID {})", invalidationHolder.cacheId, clientDescriptor, invalidationId);
-            } else {
-              entityMessenger.messageSelf(new ClearInvalidationCompleteMessage(invalidationHolder.cacheId));
-            }
-          } else {
-            if (isStrong) {
-              clientCommunicator.sendNoResponse(invalidationHolder.clientDescriptorWaitingForInvalidation, hashInvalidationDone(invalidationHolder.cacheId, key));
-              LOGGER.debug("SERVER: notifying originating client that all other clients invalidated key {} in cache {} from {} (ID {})", key, invalidationHolder.cacheId, clientDescriptor, invalidationId);
-            } else {
-              entityMessenger.messageSelf(new InvalidationCompleteMessage(invalidationHolder.cacheId, key));
-            }
-          }
-        } catch (MessageCodecException mce) {
-          throw new AssertionError("Codec error", mce);
+    if (invalidationHolder.clientsHavingToInvalidate.isEmpty() && clientsWaitingForInvalidation.remove(invalidationId) != null) {
+      ServerStoreImpl store = ehcacheStateService.getStore(invalidationHolder.cacheId);
+      if (store != null) {
+        store.recordInvalidationLatency(invalidationHolder.startNanos);
+      }
+      return invalidationHolder;
+    } else {
+      return null;
+    }
+  }
+
+  private boolean isStrong(String cacheId) {
+    return ehcacheStateService.getStore(cacheId).getStoreConfiguration().getConsistency() == Consistency.STRONG;
+  }
+
+  private void notifyInvalidationDone(ClientDescriptor clientDescriptor, int invalidationId, InvalidationHolder invalidationHolder) {
+    try {
+      Long key = invalidationHolder.key;
+      boolean isStrong = isStrong(invalidationHolder.cacheId);
+      if (key == null) {
+        if (isStrong) {
+          clientCommunicator.sendNoResponse(invalidationHolder.clientDescriptorWaitingForInvalidation, allInvalidationDone(invalidationHolder.cacheId));
+          LOGGER.debug("SERVER: notifying originating client that all other clients invalidated all in cache {} from {} (ID {})", invalidationHolder.cacheId, clientDescriptor, invalidationId);
+        } else {
+          entityMessenger.messageSelf(new ClearInvalidationCompleteMessage(invalidationHolder.cacheId));
+        }
+      } else {
+        if (isStrong) {
+          clientCommunicator.sendNoResponse(invalidationHolder.clientDescriptorWaitingForInvalidation, hashInvalidationDone(invalidationHolder.cacheId, key));
+          LOGGER.debug("SERVER: notifying originating client that all other clients invalidated key {} in cache {} from {} (ID {})", key, invalidationHolder.cacheId, clientDescriptor, invalidationId);
+        } else {
+          entityMessenger.messageSelf(new InvalidationCompleteMessage(invalidationHolder.cacheId, key));
         }
       }
+    } catch (MessageCodecException mce) {
+      throw new AssertionError("Codec error", mce);
     }
   }
 
@@ -659,6 +928,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
   public void destroy() {
 
     management.close();
+    invalidationCoalescer.close();
 
     /*
      * Ensure the allocated stores are closed out.
@@ -743,8 +1013,9 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
    *
    * @param clientDescriptor the client identifier requesting store creation
    * @param createServerStore the {@code CreateServerStore} message carrying the desire store configuration
+   * @return the segment count of the created store
    */
-  private void createServerStore(ClientDescriptor clientDescriptor, CreateServerStore createServerStore) throws ClusterException {
+  private EhcacheEntityResponse createServerStore(ClientDescriptor clientDescriptor, CreateServerStore createServerStore) throws ClusterException {
     validateClusteredTierManagerConfigured(clientDescriptor);
     if(createServerStore.getStoreConfiguration().getPoolAllocation() instanceof PoolAllocation.Unknown) {
       throw new LifecycleException("Clustered tier can't be created with an Unknown resource pool");
@@ -772,6 +1043,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     } catch (MessageCodecException e) {
       throw new AssertionError("Codec error", e);
     }
+    return responseFactory.serverStoreSegments(serverStore.getSegments().size());
   }
 
   /**
@@ -784,8 +1056,9 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
    *
    * @param clientDescriptor the client identifier requesting attachment to an existing store
    * @param validateServerStore the {@code ValidateServerStore} message carrying the desired store configuration
+   * @return the segment count of the existing store
    */
-  private void validateServerStore(ClientDescriptor clientDescriptor, ValidateServerStore validateServerStore) throws ClusterException {
+  private EhcacheEntityResponse validateServerStore(ClientDescriptor clientDescriptor, ValidateServerStore validateServerStore) throws ClusterException {
     validateClusteredTierManagerConfigured(clientDescriptor);
 
     String name = validateServerStore.getName();
@@ -796,6 +1069,7 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     if (store != null) {
       storeCompatibility.verify(store.getStoreConfiguration(), clientConfiguration);
       attachStore(clientDescriptor, name);
+      return responseFactory.serverStoreSegments(store.getSegments().size());
     } else {
       throw new InvalidStoreException("Clustered tier '" + name + "' does not exist");
     }
@@ -944,6 +1218,10 @@ class EhcacheActiveEntity implements ActiveServerEntity<EhcacheEntityMessage, Eh
     return clientsWaitingForInvalidation;
   }
 
+  ConcurrentMap<Integer, CoalescedInvalidation> getCoalescedInvalidations() {
+    return coalescedInvalidations;
+  }
+
   private static class InvalidationTuple {
     private final ClientDescriptor clientDescriptor;
     private final Set<Long> invalidationsInProgress;
@@ -31,12 +31,15 @@ import org.ehcache.clustered.common.internal.messages.LifecycleMessage.Configure
 import org.ehcache.clustered.common.internal.messages.LifecycleMessage.CreateServerStore;
 import org.ehcache.clustered.common.internal.messages.LifecycleMessage.DestroyServerStore;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage;
+import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.BatchedChainReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ChainReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ClearInvalidationCompleteMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.InvalidationCompleteMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ServerStoreLifeCycleReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage;
 import org.ehcache.clustered.common.internal.messages.StateRepositoryOpMessage;
+import org.ehcache.clustered.common.internal.store.Chain;
+import org.ehcache.clustered.server.internal.messages.EntityBatchedDataSyncMessage;
 import org.ehcache.clustered.server.internal.messages.EntityDataSyncMessage;
 import org.ehcache.clustered.server.internal.messages.EntityStateSyncMessage;
 import org.ehcache.clustered.server.internal.messages.EntitySyncMessage;
@@ -53,6 +56,7 @@ import org.terracotta.entity.ServiceRegistry;
 import org.terracotta.offheapresource.OffHeapResources;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -128,7 +132,23 @@ class EhcachePassiveEntity implements PassiveServerEntity<EhcacheEntityMessage,
         }
         cacheStore.put(retirementMessage.getKey(), retirementMessage.getChain());
         ehcacheStateService.getClientMessageTracker().applied(message.getId(), message.getClientId());
-        trackHashInvalidationForEventualCache(retirementMessage);
+        trackHashInvalidationForEventualCache(retirementMessage.getCacheId(), retirementMessage.getKey());
+        break;
+      case BATCHED_CHAIN_REPLICATION_OP:
+        LOGGER.debug("Batched Chain Replication message for msgId {} & client Id {}", message.getId(), message.getClientId());
+        BatchedChainReplicationMessage batchedMessage = (BatchedChainReplicationMessage)message;
+        ServerStoreImpl batchedStore = ehcacheStateService.getStore(batchedMessage.getCacheId());
+        if (batchedStore == null) {
+          // An operation on a non-existent store should never get out of the client
+          throw new LifecycleException("Clustered tier does not exist : '" + batchedMessage.getCacheId() + "'");
+        }
+        long[] keys = batchedMessage.getKeys();
+        List<Chain> chains = batchedMessage.getChains();
+        for (int i = 0; i < keys.length; i++) {
+          batchedStore.put(keys[i], chains.get(i));
+          trackHashInvalidationForEventualCache(batchedMessage.getCacheId(), keys[i]);
+        }
+        ehcacheStateService.getClientMessageTracker().applied(message.getId(), message.getClientId());
         break;
       case CLIENTID_TRACK_OP:
         LOGGER.debug("PassiveReplicationMessage message for msgId {} & client Id {}", message.getId(), message.getClientId());
@@ -157,10 +177,10 @@ class EhcachePassiveEntity implements PassiveServerEntity<EhcacheEntityMessage,
     });
   }
 
-  private void trackHashInvalidationForEventualCache(ChainReplicationMessage retirementMessage) {
-    InvalidationTracker invalidationTracker = ehcacheStateService.getInvalidationTracker(retirementMessage.getCacheId());
+  private void trackHashInvalidationForEventualCache(String cacheId, long hash) {
+    InvalidationTracker invalidationTracker = ehcacheStateService.getInvalidationTracker(cacheId);
     if (invalidationTracker != null) {
-      invalidationTracker.getInvalidationMap().compute(retirementMessage.getKey(), (key, count) -> {
+      invalidationTracker.getInvalidationMap().compute(hash, (key, count) -> {
         if (count == null) {
           return 1;
         } else {
@@ -203,7 +223,8 @@ class EhcachePassiveEntity implements PassiveServerEntity<EhcacheEntityMessage,
       }
       case REPLACE: {
         ServerStoreOpMessage.ReplaceAtHeadMessage replaceAtHeadMessage = (ServerStoreOpMessage.ReplaceAtHeadMessage)message;
-        cacheStore.replaceAtHead(replaceAtHeadMessage.getKey(), replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.getUpdate());
+        cacheStore.replaceAtHead(replaceAtHeadMessage.getKey(), replaceAtHeadMessage.getExpect(), replaceAtHeadMessage.getUpdate(),
+            replaceAtHeadMessage.getTimeToLive());
         break;
       }
       case CLEAR: {
@@ -236,6 +257,10 @@ class EhcachePassiveEntity implements PassiveServerEntity<EhcacheEntityMessage,
         EntityDataSyncMessage dataSyncMessage = (EntityDataSyncMessage) message;
         ehcacheStateService.getStore(dataSyncMessage.getCacheId()).put(dataSyncMessage.getKey(), dataSyncMessage.getChain());
         break;
+      case BATCHED_DATA:
+        EntityBatchedDataSyncMessage batchedDataSyncMessage = (EntityBatchedDataSyncMessage) message;
+        ehcacheStateService.getStore(batchedDataSyncMessage.getCacheId()).putAll(batchedDataSyncMessage.getChains());
+        break;
       default:
         throw new IllegalMessageException("Unknown Sync operation " + message.operation());
     }
@@ -18,6 +18,7 @@ package org.ehcache.clustered.server;
 import org.ehcache.clustered.common.internal.messages.EhcacheCodec;
 import org.ehcache.clustered.common.internal.messages.EhcacheEntityMessage;
 import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse;
+import org.ehcache.clustered.common.internal.store.KeySegments;
 import org.ehcache.clustered.server.internal.messages.EhcacheSyncMessageCodec;
 import org.terracotta.entity.CommonServerEntity;
 import org.terracotta.entity.ConcurrencyStrategy;
@@ -33,9 +34,21 @@ import org.terracotta.entity.SyncMessageCodec;
 public class EhcacheServerEntityService implements EntityServerService<EhcacheEntityMessage, EhcacheEntityResponse> {
 
   private static final long ENTITY_VERSION = 1L;
-  private static final int DEFAULT_CONCURRENCY = 16;
+  /**
+   * System property overriding the number of data segments, and hence concurrency keys, of every clustered tier
+   * manager hosted by this server.
+   */
+  public static final String CONCURRENCY_PROPERTY = "org.ehcache.clustered.server.concurrency";
+  private static final int DEFAULT_CONCURRENCY = concurrency(Integer.getInteger(CONCURRENCY_PROPERTY, KeySegments.DEFAULT_SEGMENT_COUNT));
   private static final KeySegmentMapper DEFAULT_MAPPER = new KeySegmentMapper(DEFAULT_CONCURRENCY);
 
+  private static int concurrency(int configured) {
+    if (configured <= 0) {
+      throw new IllegalArgumentException(CONCURRENCY_PROPERTY + " must be positive : " + configured);
+    }
+    return configured;
+  }
+
   @Override
   public long getVersion() {
     return ENTITY_VERSION;
@@ -21,6 +21,7 @@ import org.ehcache.clustered.common.PoolAllocation;
 import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.common.internal.ServerStoreConfiguration;
 import org.ehcache.clustered.common.internal.exceptions.ClusterException;
+import org.ehcache.clustered.common.internal.store.KeySegments;
 import org.ehcache.clustered.server.repo.StateRepositoryManager;
 import org.ehcache.clustered.server.state.ClientMessageTracker;
 import org.ehcache.clustered.server.state.EhcacheStateService;
@@ -30,6 +31,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ehcache.clustered.common.internal.exceptions.IllegalMessageException;
 import org.ehcache.clustered.common.internal.exceptions.InvalidServerSideConfigurationException;
+import org.ehcache.clustered.common.internal.exceptions.InvalidServerStoreConfigurationException;
 import org.ehcache.clustered.common.internal.exceptions.InvalidStoreException;
 import org.ehcache.clustered.common.internal.exceptions.InvalidStoreManagerException;
 import org.ehcache.clustered.common.internal.exceptions.LifecycleException;
@@ -80,6 +82,21 @@ public class EhcacheStateServiceImpl implements EhcacheStateService {
     STAT_STORE_METHOD_REFERENCES.put("removedSlotCount", ServerStoreImpl::getRemovedSlotCount);
     STAT_STORE_METHOD_REFERENCES.put("dataSize", ServerStoreImpl::getDataSize);
     STAT_STORE_METHOD_REFERENCES.put("tableCapacity", ServerStoreImpl::getTableCapacity);
+    STAT_STORE_METHOD_REFERENCES.put("chainLengthMean", store -> store.getChainLengths().getMean());
+    STAT_STORE_METHOD_REFERENCES.put("chainLengthMax", store -> store.getChainLengths().getMax());
+    STAT_STORE_METHOD_REFERENCES.put("chainLength99th", store -> store.getChainLengths().getQuantile(0.99));
+    STAT_STORE_METHOD_REFERENCES.put("chainCompactionRequests", ServerStoreImpl::getCompactionRequests);
+    STAT_STORE_METHOD_REFERENCES.put("elementSizeMean", store -> store.getElementSizes().getMean());
+    STAT_STORE_METHOD_REFERENCES.put("elementSizeMax", store -> store.getElementSizes().getMax());
+    STAT_STORE_METHOD_REFERENCES.put("elementSize99th", store -> store.getElementSizes().getQuantile(0.99));
+    STAT_STORE_METHOD_REFERENCES.put("appendLatencyMean", store -> store.getAppendLatencies().getMean());
+    STAT_STORE_METHOD_REFERENCES.put("appendLatency99th", store -> store.getAppendLatencies().getQuantile(0.99));
+    STAT_STORE_METHOD_REFERENCES.put("getLatencyMean", store -> store.getGetLatencies().getMean());
+    STAT_STORE_METHOD_REFERENCES.put("getLatency99th", store -> store.getGetLatencies().getQuantile(0.99));
+    STAT_STORE_METHOD_REFERENCES.put("invalidationLatencyMean", store -> store.getInvalidationLatencies().getMean());
+    STAT_STORE_METHOD_REFERENCES.put("invalidationLatency99th", store -> store.getInvalidationLatencies().getQuantile(0.99));
+    STAT_STORE_METHOD_REFERENCES.put("evictions", ServerStoreImpl::getEvictionCount);
+    STAT_STORE_METHOD_REFERENCES.put("maxSegmentEvictions", ServerStoreImpl::getMaxSegmentEvictionCount);
 
     STAT_POOL_METHOD_REFERENCES.put("allocatedSize", ResourcePageSource::getAllocatedSize);
   }
@@ -292,6 +309,10 @@ public class EhcacheStateServiceImpl implements EhcacheStateService {
   private void registerStoreStatistics(ServerStoreImpl store, String storeName) throws InvalidStoreException {
     STAT_STORE_METHOD_REFERENCES.entrySet().stream().forEach((entry)->
       registerStatistic(store, storeName, entry.getKey(), STATISTICS_STORE_TAG, PROPERTY_STORE_KEY, () -> entry.getValue().apply(store) ));
+    for (int i = 0; i < store.getSegments().size(); i++) {
+      int segment = i;
+      registerStatistic(store, storeName, "segment" + segment + "Evictions", STATISTICS_STORE_TAG, PROPERTY_STORE_KEY, () -> store.getSegmentEvictionCount(segment));
+    }
   }
 
   private void registerPoolStatistics(String poolName, ResourcePageSource pageSource) {
@@ -386,8 +407,18 @@ public class EhcacheStateServiceImpl implements EhcacheStateService {
       throw new InvalidStoreException("Clustered tier '" + name + "' already exists");
     }
 
+    KeySegmentMapper storeMapper = mapper;
+    int segmentCount = serverStoreConfiguration.getSegmentCount();
+    if (segmentCount != 0) {
+      if (!KeySegments.isCompatible(segmentCount, mapper.getSegments())) {
+        throw new InvalidServerStoreConfigurationException("Clustered tier '" + name + "' segment count " + segmentCount
+                                                           + " is not a multiple of the server concurrency " + mapper.getSegments());
+      }
+      storeMapper = new KeySegmentMapper(segmentCount);
+    }
+
     PageSource resourcePageSource = getPageSource(name, serverStoreConfiguration.getPoolAllocation());
-    ServerStoreImpl serverStore = new ServerStoreImpl(serverStoreConfiguration, resourcePageSource, mapper);
+    ServerStoreImpl serverStore = new ServerStoreImpl(serverStoreConfiguration, resourcePageSource, storeMapper);
     stores.put(name, serverStore);
 
     registerStoreStatistics(serverStore, name);
@@ -0,0 +1,175 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.server;
+
+import org.terracotta.entity.ClientDescriptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gathers the hash invalidations due to each client, per clustered tier, so that they can be sent as a single message.
+ * <p>
+ * A pending batch is handed to the {@link Sender} as soon as it holds {@code maxBatchSize} hashes. Remaining batches are
+ * sent on {@link #operationComplete()} when no time window is configured, otherwise once the window opened by their
+ * first invalidation elapses.
+ */
+class InvalidationCoalescer {
+
+  private static final AtomicInteger SCHEDULER_COUNT = new AtomicInteger();
+
+  interface Sender {
+    void send(ClientDescriptor clientDescriptor, String cacheId, long[] keys, int[] invalidationIds);
+  }
+
+  private final Sender sender;
+  private final int maxBatchSize;
+  private final long windowMillis;
+  private final ScheduledExecutorService scheduler;
+  private final Map<ClientDescriptor, Map<String, Batch>> pending = new HashMap<>();
+
+  InvalidationCoalescer(Sender sender, int maxBatchSize, long windowMillis) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Invalidation batch size must be positive : " + maxBatchSize);
+    }
+    if (windowMillis < 0) {
+      throw new IllegalArgumentException("Invalidation batch window must not be negative : " + windowMillis);
+    }
+    this.sender = sender;
+    this.maxBatchSize = maxBatchSize;
+    this.windowMillis = windowMillis;
+    if (windowMillis > 0) {
+      this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = Executors.defaultThreadFactory().newThread(r);
+        t.setDaemon(true);
+        t.setName("InvalidationCoalescer-" + SCHEDULER_COUNT.incrementAndGet());
+        return t;
+      });
+    } else {
+      this.scheduler = null;
+    }
+  }
+
+  void add(ClientDescriptor clientDescriptor, String cacheId, long key, int invalidationId) {
+    Batch full = null;
+    boolean opened;
+    synchronized (this) {
+      Batch batch = pending.computeIfAbsent(clientDescriptor, c -> new HashMap<>()).computeIfAbsent(cacheId, c -> new Batch());
+      opened = batch.isEmpty();
+      batch.add(key, invalidationId);
+      if (batch.keys.size() >= maxBatchSize) {
+        full = remove(clientDescriptor, cacheId);
+      }
+    }
+    if (full != null) {
+      send(clientDescriptor, cacheId, full);
+    } else if (opened && scheduler != null) {
+      scheduler.schedule(() -> flush(clientDescriptor, cacheId), windowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Signals the end of an operation, flushing every pending batch unless batches are time bounded.
+   */
+  void operationComplete() {
+    if (scheduler == null) {
+      flush();
+    }
+  }
+
+  void flush() {
+    Map<ClientDescriptor, Map<String, Batch>> batches;
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        return;
+      }
+      batches = new HashMap<>(pending);
+      pending.clear();
+    }
+    batches.forEach((clientDescriptor, clientBatches) -> clientBatches.forEach((cacheId, batch) -> send(clientDescriptor, cacheId, batch)));
+  }
+
+  private void flush(ClientDescriptor clientDescriptor, String cacheId) {
+    Batch batch;
+    synchronized (this) {
+      batch = remove(clientDescriptor, cacheId);
+    }
+    if (batch != null) {
+      send(clientDescriptor, cacheId, batch);
+    }
+  }
+
+  /**
+   * Drops the invalidations pending for a client, which will never acknowledge them.
+   */
+  synchronized void clientDisconnected(ClientDescriptor clientDescriptor) {
+    pending.remove(clientDescriptor);
+  }
+
+  void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  private Batch remove(ClientDescriptor clientDescriptor, String cacheId) {
+    Map<String, Batch> clientBatches = pending.get(clientDescriptor);
+    if (clientBatches == null) {
+      return null;
+    }
+    Batch batch = clientBatches.remove(cacheId);
+    if (clientBatches.isEmpty()) {
+      pending.remove(clientDescriptor);
+    }
+    return batch;
+  }
+
+  private void send(ClientDescriptor clientDescriptor, String cacheId, Batch batch) {
+    long[] keys = new long[batch.keys.size()];
+    int i = 0;
+    for (Long key : batch.keys) {
+      keys[i++] = key;
+    }
+    int[] invalidationIds = new int[batch.invalidationIds.size()];
+    for (i = 0; i < invalidationIds.length; i++) {
+      invalidationIds[i] = batch.invalidationIds.get(i);
+    }
+    sender.send(clientDescriptor, cacheId, keys, invalidationIds);
+  }
+
+  private static class Batch {
+    private final Set<Long> keys = new LinkedHashSet<>();
+    private final List<Integer> invalidationIds = new ArrayList<>();
+
+    void add(long key, int invalidationId) {
+      keys.add(key);
+      invalidationIds.add(invalidationId);
+    }
+
+    boolean isEmpty() {
+      return invalidationIds.isEmpty();
+    }
+  }
+}
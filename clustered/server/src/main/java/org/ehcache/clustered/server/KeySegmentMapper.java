@@ -16,6 +16,8 @@
 
 package org.ehcache.clustered.server;
 
+import org.ehcache.clustered.common.internal.store.KeySegments;
+
 import com.tc.classloader.CommonComponent;
 
 @CommonComponent
@@ -28,7 +30,7 @@ public class KeySegmentMapper {
   }
 
   public int getSegmentForKey(long key) {
-    return Math.abs((int) (key % segments));
+    return KeySegments.segmentFor(key, segments);
   }
 
   public int getSegments() {
@@ -0,0 +1,108 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values observed on a server store, in power of two buckets.
+ * <p>
+ * Bucket {@code i} counts the values in {@code [2^(i-1), 2^i - 1]}, bucket {@code 0} counts zeros.
+ */
+public class PowerOfTwoHistogram {
+
+  private static final int BUCKETS = Long.SIZE;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKETS];
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public PowerOfTwoHistogram() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must be positive : " + value);
+    }
+    buckets[bucketFor(value)].increment();
+    total.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  public long getCount() {
+    long count = 0;
+    for (LongAdder bucket : buckets) {
+      count += bucket.sum();
+    }
+    return count;
+  }
+
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0.0 : (double) total.sum() / count;
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns an upper bound of the given quantile of the recorded values, precise to the bucket.
+   *
+   * @param quantile the quantile, in {@code [0, 1]}
+   * @return the largest value of the bucket holding the quantile
+   */
+  public long getQuantile(double quantile) {
+    if (quantile < 0.0 || quantile > 1.0) {
+      throw new IllegalArgumentException("Quantile must be in [0, 1] : " + quantile);
+    }
+    long[] counts = getBucketCounts();
+    long count = 0;
+    for (long c : counts) {
+      count += c;
+    }
+    long rank = (long) Math.ceil(quantile * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return upperBound(i);
+      }
+    }
+    return 0;
+  }
+
+  public long[] getBucketCounts() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets[i].sum();
+    }
+    return counts;
+  }
+
+  static int bucketFor(long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  static long upperBound(int bucket) {
+    return (1L << bucket) - 1;
+  }
+}
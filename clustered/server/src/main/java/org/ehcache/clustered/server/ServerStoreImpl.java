@@ -28,6 +28,10 @@ import com.tc.classloader.CommonComponent;
 
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
 
 @CommonComponent
 public class ServerStoreImpl implements ServerStore, MapInternals {
@@ -35,6 +39,12 @@ public class ServerStoreImpl implements ServerStore, MapInternals {
   private final ServerStoreConfiguration storeConfiguration;
   private final PageSource pageSource;
   private final OffHeapServerStore store;
+  private final PowerOfTwoHistogram chainLengths = new PowerOfTwoHistogram();
+  private final LongAdder compactionRequests = new LongAdder();
+  private final PowerOfTwoHistogram elementSizes = new PowerOfTwoHistogram();
+  private final PowerOfTwoHistogram appendLatencies = new PowerOfTwoHistogram();
+  private final PowerOfTwoHistogram getLatencies = new PowerOfTwoHistogram();
+  private final PowerOfTwoHistogram invalidationLatencies = new PowerOfTwoHistogram();
 
   public ServerStoreImpl(ServerStoreConfiguration storeConfiguration, PageSource pageSource, KeySegmentMapper mapper) {
     this.storeConfiguration = storeConfiguration;
@@ -59,19 +69,105 @@ public class ServerStoreImpl implements ServerStore, MapInternals {
     return storeConfiguration;
   }
 
+  /**
+   * Records the current length of the chain mapped to {@code key}, as kept in the chain header.
+   *
+   * @param key the chain key
+   * @return the length of the chain
+   */
+  public int recordChainLength(long key) {
+    int length = store.getChainLength(key);
+    chainLengths.record(length);
+    return length;
+  }
+
+  /**
+   * Distribution of the lengths of the chains appended to in this store.
+   */
+  public PowerOfTwoHistogram getChainLengths() {
+    return chainLengths;
+  }
+
+  public void compactionRequested() {
+    compactionRequests.increment();
+  }
+
+  public long getCompactionRequests() {
+    return compactionRequests.sum();
+  }
+
+  /**
+   * Records the time taken by all clients to acknowledge an invalidation issued for this store.
+   *
+   * @param startNanos the {@link System#nanoTime()} at which the invalidation was requested
+   */
+  public void recordInvalidationLatency(long startNanos) {
+    invalidationLatencies.record(microsSince(startNanos));
+  }
+
+  /**
+   * Distribution of the sizes in bytes of the elements appended to this store.
+   */
+  public PowerOfTwoHistogram getElementSizes() {
+    return elementSizes;
+  }
+
+  /**
+   * Distribution of the durations in microseconds of the appends to this store.
+   */
+  public PowerOfTwoHistogram getAppendLatencies() {
+    return appendLatencies;
+  }
+
+  /**
+   * Distribution of the durations in microseconds of the gets on this store.
+   */
+  public PowerOfTwoHistogram getGetLatencies() {
+    return getLatencies;
+  }
+
+  /**
+   * Distribution of the durations in microseconds between an invalidation request and its acknowledgement by all
+   * clients.
+   */
+  public PowerOfTwoHistogram getInvalidationLatencies() {
+    return invalidationLatencies;
+  }
+
+  private static long microsSince(long startNanos) {
+    return Math.max(0L, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+  }
+
   @Override
   public Chain get(long key) {
-    return store.get(key);
+    long start = System.nanoTime();
+    try {
+      return store.get(key);
+    } finally {
+      getLatencies.record(microsSince(start));
+    }
   }
 
   @Override
   public void append(long key, ByteBuffer payLoad) {
-    store.append(key, payLoad);
+    elementSizes.record(payLoad.remaining());
+    long start = System.nanoTime();
+    try {
+      store.append(key, payLoad);
+    } finally {
+      appendLatencies.record(microsSince(start));
+    }
   }
 
   @Override
   public Chain getAndAppend(long key, ByteBuffer payLoad) {
-    return store.getAndAppend(key, payLoad);
+    elementSizes.record(payLoad.remaining());
+    long start = System.nanoTime();
+    try {
+      return store.getAndAppend(key, payLoad);
+    } finally {
+      appendLatencies.record(microsSince(start));
+    }
   }
 
   @Override
@@ -79,10 +175,30 @@ public class ServerStoreImpl implements ServerStore, MapInternals {
     store.replaceAtHead(key, expect, update);
   }
 
+  /**
+   * Replaces the head of the chain of {@code key}, which eviction prefers once {@code timeToLive} has elapsed.
+   * <p>
+   * Clients send a time to live rather than an expiration time of their own clock: it is turned here into an
+   * expiration time of this server's clock, the one eviction compares against, so that client clock skew does not
+   * decide what gets evicted.
+   *
+   * @param timeToLive the time in milliseconds, from now, after which {@code update} is known to be expired,
+   *                   {@link Long#MAX_VALUE} if unknown
+   */
+  public void replaceAtHead(long key, Chain expect, Chain update, long timeToLive) {
+    long now = System.currentTimeMillis();
+    long expirationTime = timeToLive >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + timeToLive;
+    store.replaceAtHead(key, expect, update, expirationTime);
+  }
+
   public void put(long key, Chain chain) {
     store.put(key, chain);
   }
 
+  public void putAll(Map<Long, Chain> chains) {
+    store.putAll(chains);
+  }
+
   @Override
   public void clear() {
     store.clear();
@@ -96,8 +212,37 @@ public class ServerStoreImpl implements ServerStore, MapInternals {
     return store.getSegments();
   }
 
+  public int nextKeys(int segment, int cursor, int max, LongConsumer consumer) {
+    return store.nextKeys(segment, cursor, max, consumer);
+  }
+
   // stats
 
+  public long getEvictionCount() {
+    return store.getEvictionCount();
+  }
+
+  /**
+   * Returns the largest number of evictions suffered by a single segment of this store, which stays close to
+   * {@link #getEvictionCount()} divided by the segment count unless some segments are hot.
+   *
+   * @return the eviction count of the most evicted segment
+   */
+  public long getMaxSegmentEvictionCount() {
+    long max = 0L;
+    for (long count : store.getSegmentEvictionCounts()) {
+      max = Math.max(max, count);
+    }
+    return max;
+  }
+
+  public long[] getSegmentEvictionCounts() {
+    return store.getSegmentEvictionCounts();
+  }
+
+  public long getSegmentEvictionCount(int segment) {
+    return store.getSegments().get(segment).getEvictionCount();
+  }
 
   @Override
   public long getSize() {
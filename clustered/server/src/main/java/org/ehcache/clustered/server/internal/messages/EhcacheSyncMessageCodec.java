@@ -25,12 +25,19 @@ import org.terracotta.entity.MessageCodecException;
 import org.terracotta.entity.SyncMessageCodec;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class EhcacheSyncMessageCodec implements SyncMessageCodec<EhcacheEntityMessage> {
 
   private static final byte OPCODE_SIZE = 1;
   private static final byte KEY_SIZE = 8;
   private static final byte CACHE_ID_LEN_SIZE = 4;
+  private static final byte ENTRY_COUNT_SIZE = 4;
+  private static final byte CHAIN_LEN_SIZE = 4;
 
   private final ChainCodec chainCodec = new ChainCodec();
 
@@ -59,6 +66,31 @@ public class EhcacheSyncMessageCodec implements SyncMessageCodec<EhcacheEntityMe
           buffer.put(encodedChain);
           return buffer.array();
         }
+        case BATCHED_DATA: {
+          EntityBatchedDataSyncMessage batchedDataSyncMessage = (EntityBatchedDataSyncMessage)message;
+          String cacheId = batchedDataSyncMessage.getCacheId();
+          Map<Long, Chain> chains = batchedDataSyncMessage.getChains();
+          List<byte[]> encodedChains = new ArrayList<>(chains.size());
+          int size = OPCODE_SIZE + CACHE_ID_LEN_SIZE + 2 * cacheId.length() + ENTRY_COUNT_SIZE;
+          for (Chain chain : chains.values()) {
+            byte[] encodedChain = chainCodec.encode(chain);
+            encodedChains.add(encodedChain);
+            size += KEY_SIZE + CHAIN_LEN_SIZE + encodedChain.length;
+          }
+          ByteBuffer buffer = ByteBuffer.allocate(size);
+          buffer.put(batchedDataSyncMessage.getOpCode());
+          buffer.putInt(cacheId.length());
+          CodecUtil.putStringAsCharArray(buffer, cacheId);
+          buffer.putInt(chains.size());
+          Iterator<byte[]> encodedChainIterator = encodedChains.iterator();
+          for (Long key : chains.keySet()) {
+            byte[] encodedChain = encodedChainIterator.next();
+            buffer.putLong(key);
+            buffer.putInt(encodedChain.length);
+            buffer.put(encodedChain);
+          }
+          return buffer.array();
+        }
         default:
           throw new IllegalArgumentException(this.getClass().getName() + " can not encode " + syncMessage.operation());
       }
@@ -81,12 +113,20 @@ public class EhcacheSyncMessageCodec implements SyncMessageCodec<EhcacheEntityMe
         long key = message.getLong();
         int cacheIdLength = message.getInt();
         String cacheId = CodecUtil.getStringFromBuffer(message, cacheIdLength);
-        int chainPayloadSize = message.remaining();
-        byte[] chainPayload = new byte[chainPayloadSize];
-        message.get(chainPayload);
-        Chain chain = chainCodec.decode(chainPayload);
+        Chain chain = chainCodec.decode(message.slice());
         return new EntityDataSyncMessage(cacheId, key, chain);
       }
+      case BATCHED_DATA: {
+        int cacheIdLength = message.getInt();
+        String cacheId = CodecUtil.getStringFromBuffer(message, cacheIdLength);
+        int count = message.getInt();
+        Map<Long, Chain> chains = new LinkedHashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+          long key = message.getLong();
+          chains.put(key, chainCodec.decode(CodecUtil.getSlice(message, message.getInt())));
+        }
+        return new EntityBatchedDataSyncMessage(cacheId, chains);
+      }
       default:
         throw new IllegalArgumentException("EntityStateSyncMessage operation not defined for : " + syncOp);
     }
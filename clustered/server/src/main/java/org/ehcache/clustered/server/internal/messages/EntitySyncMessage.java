@@ -30,6 +30,7 @@ public abstract class EntitySyncMessage extends EhcacheEntityMessage {
 
     STATE((byte) 31),
     DATA((byte) 32),
+    BATCHED_DATA((byte) 33),
     ;
 
     private final byte syncOpCode;
@@ -48,6 +49,8 @@ public abstract class EntitySyncMessage extends EhcacheEntityMessage {
           return STATE;
         case 32:
           return DATA;
+        case 33:
+          return BATCHED_DATA;
         default:
           throw new IllegalArgumentException("Sync operation not defined for : " + syncOpCode);
       }
@@ -16,6 +16,7 @@
 package org.ehcache.clustered.server.management;
 
 import org.ehcache.clustered.common.ServerSideConfiguration;
+import org.ehcache.clustered.common.internal.store.KeySegments;
 import org.ehcache.clustered.server.ClientState;
 import org.ehcache.clustered.server.ServerStoreImpl;
 import org.ehcache.clustered.server.state.EhcacheStateService;
@@ -31,7 +32,9 @@ import org.terracotta.management.service.registry.provider.ClientBinding;
 import org.terracotta.offheapresource.OffHeapResource;
 import org.terracotta.offheapresource.OffHeapResourceIdentifier;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
@@ -137,24 +140,44 @@ public class Management {
           .getSingleResult()
           .getValue();
 
+        List<String> storeStatistics = new ArrayList<>(asList(
+          "Store:AllocatedMemory",
+          "Store:DataAllocatedMemory",
+          "Store:OccupiedMemory",
+          "Store:DataOccupiedMemory",
+          "Store:Entries",
+          "Store:UsedSlotCount",
+          "Store:DataVitalMemory",
+          "Store:VitalMemory",
+          "Store:ReprobeLength",
+          "Store:RemovedSlotCount",
+          "Store:DataSize",
+          "Store:TableCapacity",
+          "Store:ChainLengthMean",
+          "Store:ChainLengthMax",
+          "Store:ChainLength99th",
+          "Store:ChainCompactionRequests",
+          "Store:ElementSizeMean",
+          "Store:ElementSizeMax",
+          "Store:ElementSize99th",
+          "Store:AppendLatencyMean",
+          "Store:AppendLatency99th",
+          "Store:GetLatencyMean",
+          "Store:GetLatency99th",
+          "Store:InvalidationLatencyMean",
+          "Store:InvalidationLatency99th",
+          "Store:Evictions",
+          "Store:MaxSegmentEvictions"
+        ));
+        for (int i = 0; i < KeySegments.DEFAULT_SEGMENT_COUNT; i++) {
+          storeStatistics.add("Store:Segment" + i + "Evictions");
+        }
+
         managementRegistry
           .withCapability("StatisticCollector")
           .call("updateCollectedStatistics",
             new Parameter("ServerStoreStatistics"),
-            new Parameter(asList(
-              "Store:AllocatedMemory",
-              "Store:DataAllocatedMemory",
-              "Store:OccupiedMemory",
-              "Store:DataOccupiedMemory",
-              "Store:Entries",
-              "Store:UsedSlotCount",
-              "Store:DataVitalMemory",
-              "Store:VitalMemory",
-              "Store:ReprobeLength",
-              "Store:RemovedSlotCount",
-              "Store:DataSize",
-              "Store:TableCapacity"
-            ), Collection.class.getName()))
+            new Parameter(storeStatistics, Collection.class.getName()))
           .on(entityContext)
           .build()
           .execute()
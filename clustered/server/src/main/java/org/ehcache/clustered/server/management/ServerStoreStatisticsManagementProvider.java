@@ -59,6 +59,24 @@ class ServerStoreStatisticsManagementProvider extends AbstractStatisticsManageme
       statisticsRegistry.registerCounter("RemovedSlotCount", descriptor("removedSlotCount", tags("tier", "Store")));
       statisticsRegistry.registerSize("DataSize", descriptor("dataSize", tags("tier", "Store")));
       statisticsRegistry.registerSize("TableCapacity", descriptor("tableCapacity", tags("tier", "Store")));
+      statisticsRegistry.registerSize("ChainLengthMean", descriptor("chainLengthMean", tags("tier", "Store")));
+      statisticsRegistry.registerSize("ChainLengthMax", descriptor("chainLengthMax", tags("tier", "Store")));
+      statisticsRegistry.registerSize("ChainLength99th", descriptor("chainLength99th", tags("tier", "Store")));
+      statisticsRegistry.registerCounter("ChainCompactionRequests", descriptor("chainCompactionRequests", tags("tier", "Store")));
+      statisticsRegistry.registerSize("ElementSizeMean", descriptor("elementSizeMean", tags("tier", "Store")));
+      statisticsRegistry.registerSize("ElementSizeMax", descriptor("elementSizeMax", tags("tier", "Store")));
+      statisticsRegistry.registerSize("ElementSize99th", descriptor("elementSize99th", tags("tier", "Store")));
+      statisticsRegistry.registerSize("AppendLatencyMean", descriptor("appendLatencyMean", tags("tier", "Store")));
+      statisticsRegistry.registerSize("AppendLatency99th", descriptor("appendLatency99th", tags("tier", "Store")));
+      statisticsRegistry.registerSize("GetLatencyMean", descriptor("getLatencyMean", tags("tier", "Store")));
+      statisticsRegistry.registerSize("GetLatency99th", descriptor("getLatency99th", tags("tier", "Store")));
+      statisticsRegistry.registerSize("InvalidationLatencyMean", descriptor("invalidationLatencyMean", tags("tier", "Store")));
+      statisticsRegistry.registerSize("InvalidationLatency99th", descriptor("invalidationLatency99th", tags("tier", "Store")));
+      statisticsRegistry.registerCounter("Evictions", descriptor("evictions", tags("tier", "Store")));
+      statisticsRegistry.registerCounter("MaxSegmentEvictions", descriptor("maxSegmentEvictions", tags("tier", "Store")));
+      for (int i = 0; i < binding.getValue().getSegments().size(); i++) {
+        statisticsRegistry.registerCounter("Segment" + i + "Evictions", descriptor("segment" + i + "Evictions", tags("tier", "Store")));
+      }
     }
 
     @Override
@@ -26,7 +26,30 @@ interface InternalChain extends Closeable {
 
   boolean append(ByteBuffer element);
 
-  boolean replace(Chain expected, Chain replacement);
+  /**
+   * Replaces the head of this chain matching {@code expected} with {@code replacement}.
+   *
+   * @param expected the expected head of this chain
+   * @param replacement the replacement of the head
+   * @param expirationTime the time in milliseconds at or after which {@code replacement} is known to be expired,
+   *                       {@link Long#MAX_VALUE} if unknown
+   * @return {@code false} if storage could not be allocated
+   */
+  boolean replace(Chain expected, Chain replacement, long expirationTime);
+
+  /**
+   * Returns the time in milliseconds at or after which the whole chain is known to be expired.
+   *
+   * @return the expiration time of the chain, {@link Long#MAX_VALUE} if unknown
+   */
+  long getExpirationTime();
+
+  /**
+   * Returns the number of elements in this chain, as kept in the chain header.
+   *
+   * @return the length of the chain
+   */
+  int length();
 
   @Override
   void close();
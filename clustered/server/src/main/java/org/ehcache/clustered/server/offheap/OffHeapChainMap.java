@@ -16,6 +16,7 @@
 package org.ehcache.clustered.server.offheap;
 
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -23,14 +24,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.ehcache.clustered.common.internal.store.Element;
 import org.ehcache.clustered.common.internal.store.Util;
 import org.terracotta.offheapstore.MapInternals;
+import org.terracotta.offheapstore.Metadata;
 
-import org.terracotta.offheapstore.ReadWriteLockedOffHeapClockCache;
 import org.terracotta.offheapstore.eviction.EvictionListener;
 import org.terracotta.offheapstore.eviction.EvictionListeningReadWriteLockedOffHeapClockCache;
 import org.terracotta.offheapstore.exceptions.OversizeMappingException;
@@ -46,8 +49,14 @@ public class OffHeapChainMap<K> implements MapInternals {
     void onEviction(K key);
   }
 
-  private final ReadWriteLockedOffHeapClockCache<K, InternalChain> heads;
+  /**
+   * Number of occupied slots, starting with the clock's own victim, examined in search of a chain known to be expired.
+   */
+  static final int EXPIRED_CHAIN_SAMPLE_SIZE = 8;
+
+  private final ExpiryAwareClockCache<K> heads;
   private final OffHeapChainStorageEngine<K> chainStorage;
+  private final LongAdder evictions = new LongAdder();
   private volatile ChainMapEvictionListener<K> evictionListener;;
 
   public OffHeapChainMap(PageSource source, Portability<? super K> keyPortability, int minPageSize, int maxPageSize, boolean shareByThieving) {
@@ -57,6 +66,7 @@ public class OffHeapChainMap<K> implements MapInternals {
       public void evicting(Callable<Map.Entry<K, InternalChain>> callable) {
         try {
           Map.Entry<K, InternalChain> entry = callable.call();
+          evictions.increment();
           try {
             if (evictionListener != null) {
               evictionListener.onEviction(entry.getKey());
@@ -72,13 +82,22 @@ public class OffHeapChainMap<K> implements MapInternals {
 
     //TODO: EvictionListeningReadWriteLockedOffHeapClockCache lacks ctor that takes shareByThieving
     // this.heads = new ReadWriteLockedOffHeapClockCache<K, InternalChain>(source, shareByThieving, chainStorage);
-    this.heads = new EvictionListeningReadWriteLockedOffHeapClockCache<K, InternalChain>(listener, source, chainStorage);
+    this.heads = new ExpiryAwareClockCache<K>(listener, source, chainStorage);
   }
 
   void setEvictionListener(ChainMapEvictionListener<K> listener) {
     evictionListener = listener;
   }
 
+  /**
+   * Returns the number of chains evicted from this map since its creation.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
   public Chain get(K key) {
     final Lock lock = heads.readLock();
     lock.lock();
@@ -98,6 +117,31 @@ public class OffHeapChainMap<K> implements MapInternals {
     }
   }
 
+  /**
+   * Returns the length of the chain mapped to {@code key}, read from the chain header without walking the chain.
+   *
+   * @param key the chain key
+   * @return the number of elements in the chain, {@code 0} if there is none
+   */
+  public int getChainLength(K key) {
+    final Lock lock = heads.readLock();
+    lock.lock();
+    try {
+      InternalChain chain = heads.get(key);
+      if (chain == null) {
+        return 0;
+      } else {
+        try {
+          return chain.length();
+        } finally {
+          chain.close();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
   public Chain getAndAppend(K key, ByteBuffer element) {
     final Lock lock = heads.writeLock();
     lock.lock();
@@ -153,6 +197,17 @@ public class OffHeapChainMap<K> implements MapInternals {
   }
 
   public void replaceAtHead(K key, Chain expected, Chain replacement) {
+    replaceAtHead(key, expected, replacement, Long.MAX_VALUE);
+  }
+
+  /**
+   * Replaces the head of the chain of {@code key}, recording when the replacement is known to expire so that it is
+   * preferred for eviction from then on.
+   *
+   * @param expirationTime the time in milliseconds of this server's clock at or after which {@code replacement} is
+   *                       known to be expired, {@link Long#MAX_VALUE} if unknown
+   */
+  public void replaceAtHead(K key, Chain expected, Chain replacement, long expirationTime) {
     final Lock lock = heads.writeLock();
     lock.lock();
     try {
@@ -166,7 +221,7 @@ public class OffHeapChainMap<K> implements MapInternals {
           }
         } else {
           try {
-            if (chain.replace(expected, replacement)) {
+            if (chain.replace(expected, replacement, expirationTime)) {
               return;
             } else {
               evict();
@@ -198,6 +253,21 @@ public class OffHeapChainMap<K> implements MapInternals {
     }
   }
 
+  /**
+   * Installs all the given chains, taking the write lock once for the whole batch.
+   */
+  public void putAll(Map<K, Chain> chains) {
+    final Lock lock = heads.writeLock();
+    lock.lock();
+    try {
+      for (Map.Entry<K, Chain> entry : chains.entrySet()) {
+        put(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
   public void clear() {
     heads.writeLock().lock();
     try {
@@ -216,6 +286,27 @@ public class OffHeapChainMap<K> implements MapInternals {
     }
   }
 
+  /**
+   * Passes up to {@code max} keys of this map to the given consumer, walking the hash table from {@code cursor}.
+   * <p>
+   * The read lock is held for the duration of the walk, so the consumer must not touch this map. Keys moved by a
+   * resize of the table between two walks may be passed again or missed.
+   *
+   * @param cursor the table position to resume from, {@code 0} for the start of the table
+   * @param max the maximum number of keys to pass
+   * @param consumer the key consumer
+   * @return the table position the next walk must resume from, or {@code -1} once the table is exhausted
+   */
+  int nextKeys(int cursor, int max, Consumer<? super K> consumer) {
+    final Lock lock = heads.readLock();
+    lock.lock();
+    try {
+      return heads.nextKeys(cursor, max, consumer);
+    } finally {
+      lock.unlock();
+    }
+  }
+
   private void evict() {
     int evictionIndex = heads.getEvictionIndex();
     if (evictionIndex < 0) {
@@ -227,6 +318,75 @@ public class OffHeapChainMap<K> implements MapInternals {
     }
   }
 
+  /**
+   * Clock cache that looks a few occupied slots past the clock's victim for a chain known to be expired and evicts it
+   * in preference to the live chain the clock picked.
+   * <p>
+   * Only the clock itself advances the hand and clears reference bits; the slots looked at past its victim are just
+   * read, so recently used chains keep their reference bit. Expiration times are those of this server's clock, see
+   * {@link #replaceAtHead(Object, Chain, Chain, long)}.
+   */
+  private static class ExpiryAwareClockCache<K> extends EvictionListeningReadWriteLockedOffHeapClockCache<K, InternalChain> {
+
+    ExpiryAwareClockCache(EvictionListener<K, InternalChain> listener, PageSource source, OffHeapChainStorageEngine<K> storage) {
+      super(listener, source, storage);
+    }
+
+    @Override
+    public int getEvictionIndex() {
+      int victim = super.getEvictionIndex();
+      if (victim < 0) {
+        return victim;
+      }
+      long now = System.currentTimeMillis();
+      if (isExpired(victim, now)) {
+        return victim;
+      }
+      IntBuffer table = hashtable;
+      int limit = table.capacity();
+      int offset = victim;
+      for (int sampled = 1; sampled < EXPIRED_CHAIN_SAMPLE_SIZE; ) {
+        offset += ENTRY_SIZE;
+        if (offset >= limit) {
+          offset = 0;
+        }
+        if (offset == victim) {
+          break;
+        }
+        int status = table.get(offset + STATUS);
+        if ((status & STATUS_USED) == STATUS_USED && (status & Metadata.PINNED) == 0) {
+          if (isExpired(offset, now)) {
+            return offset;
+          }
+          sampled++;
+        }
+      }
+      return victim;
+    }
+
+    int nextKeys(int cursor, int max, Consumer<? super K> consumer) {
+      IntBuffer table = hashtable;
+      int limit = table.capacity();
+      int offset = cursor;
+      for (int found = 0; found < max && offset < limit; offset += ENTRY_SIZE) {
+        if ((table.get(offset + STATUS) & STATUS_USED) == STATUS_USED) {
+          consumer.accept(getEntryAtTableOffset(offset).getKey());
+          found++;
+        }
+      }
+      return offset < limit ? offset : -1;
+    }
+
+    private boolean isExpired(int index, long now) {
+      InternalChain chain = getEntryAtTableOffset(index).getValue();
+      try {
+        return chain.getExpirationTime() <= now;
+      } finally {
+        chain.close();
+      }
+    }
+  }
+
   private static final Chain EMPTY_CHAIN = new Chain() {
     @Override
     public Iterator<Element> reverseIterator() {
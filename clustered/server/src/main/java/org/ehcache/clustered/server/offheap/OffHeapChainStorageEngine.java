@@ -44,7 +44,9 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
   private static final int CHAIN_HEADER_KEY_LENGTH_OFFSET = 0;
   private static final int CHAIN_HEADER_KEY_HASH_OFFSET = 4;
   private static final int CHAIN_HEADER_TAIL_OFFSET = 8;
-  private static final int CHAIN_HEADER_SIZE = 16;
+  private static final int CHAIN_HEADER_EXPIRATION_OFFSET = 16;
+  private static final int CHAIN_HEADER_LENGTH_OFFSET = 24;
+  private static final int CHAIN_HEADER_SIZE = 28;
 
   private final OffHeapStorageArea storage;
   private final Portability<? super K> keyPortability;
@@ -215,10 +217,20 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
     }
 
     @Override
-    public boolean replace(Chain expected, Chain replacement) {
+    public boolean replace(Chain expected, Chain replacement, long expirationTime) {
       throw new AssertionError("primordial chains cannot be mutated");
     }
 
+    @Override
+    public long getExpirationTime() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int length() {
+      return 1;
+    }
+
     @Override
     public void close() {
       //no-op
@@ -231,19 +243,45 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
      * Location of the chain structure, not of the first element.
      */
     private long chain;
+    private boolean active;
 
     AttachedInternalChain(long address) {
       this.chain = address;
-      OffHeapChainStorageEngine.this.activeChains.add(this);
     }
 
+    /**
+     * Registers this chain so that it is tracked when storage moves and is not evicted while being mutated.
+     * <p>
+     * Only mutations allocate storage, and they run under the segment write lock, so chains that are only read
+     * never touch {@code activeChains} and concurrent readers of a segment share no mutable state.
+     */
+    private void activate() {
+      if (!active) {
+        OffHeapChainStorageEngine.this.activeChains.add(this);
+        active = true;
+      }
+    }
+
+    /**
+     * Copies the chain on heap, the payloads of all elements share a single buffer and are read straight from the
+     * storage area into it.
+     */
     @Override
     public Chain detach() {
-      List<Element> buffers = new ArrayList<Element>();
-
+      int length = 0;
       long element = chain + CHAIN_HEADER_SIZE;
       do {
-        buffers.add(element(readElementBuffer(element), readElementSequenceNumber(element)));
+        length += storage.readInt(element + ELEMENT_HEADER_LENGTH_OFFSET);
+        element = storage.readLong(element + ELEMENT_HEADER_NEXT_OFFSET);
+      } while (element != chain);
+
+      ByteBuffer detached = ByteBuffer.allocate(length);
+      List<Element> buffers = new ArrayList<Element>(length());
+      element = chain + CHAIN_HEADER_SIZE;
+      do {
+        int start = detached.position();
+        detached.put(readElementBuffer(element));
+        buffers.add(element(slice(detached, start), readElementSequenceNumber(element)));
         element = storage.readLong(element + ELEMENT_HEADER_NEXT_OFFSET);
       } while (element != chain);
 
@@ -252,6 +290,7 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
 
     @Override
     public boolean append(ByteBuffer element) {
+      activate();
       long newTail = createElement(element);
       if (newTail < 0) {
         return false;
@@ -264,24 +303,38 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
           throw e;
         }
         storage.writeLong(chain + CHAIN_HEADER_TAIL_OFFSET, newTail);
+        storage.writeLong(chain + CHAIN_HEADER_EXPIRATION_OFFSET, Long.MAX_VALUE);
+        storage.writeInt(chain + CHAIN_HEADER_LENGTH_OFFSET, length() + 1);
         return true;
       }
     }
 
     @Override
-    public boolean replace(Chain expected, Chain replacement) {
+    public boolean replace(Chain expected, Chain replacement, long expirationTime) {
+      activate();
       if (expected.isEmpty()) {
         throw new IllegalArgumentException("Empty expected sequence");
       } else if (replacement.isEmpty()) {
         return removeHeader(expected);
       } else {
-        return replaceHeader(expected, replacement);
+        return replaceHeader(expected, replacement, expirationTime);
       }
     }
 
+    @Override
+    public long getExpirationTime() {
+      return storage.readLong(chain + CHAIN_HEADER_EXPIRATION_OFFSET);
+    }
+
+    @Override
+    public int length() {
+      return storage.readInt(chain + CHAIN_HEADER_LENGTH_OFFSET);
+    }
+
     public boolean removeHeader(Chain header) {
       long suffixHead = chain + CHAIN_HEADER_SIZE;
       long prefixTail;
+      int suffixLength = length();
 
       Iterator<Element> iterator = header.iterator();
       do {
@@ -290,6 +343,7 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
         }
         prefixTail = suffixHead;
         suffixHead = storage.readLong(suffixHead + ELEMENT_HEADER_NEXT_OFFSET);
+        suffixLength--;
       } while (iterator.hasNext());
 
       if (suffixHead == chain) {
@@ -313,7 +367,7 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
             long next = storage.readLong(suffixHead + ELEMENT_HEADER_NEXT_OFFSET);
             long tail = storage.readLong(chain + CHAIN_HEADER_TAIL_OFFSET);
             if (next != chain) {
-              newChain.append(next, tail);
+              newChain.append(next, tail, suffixLength - 1);
             }
 
             if (owner.updateEncoding(hash, chain, newChainAddress, ~0)) {
@@ -331,9 +385,14 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
       }
     }
 
-    public boolean replaceHeader(Chain expected, Chain replacement) {
+    /**
+     * The expiration time only holds for the replacement, it is dropped if elements were appended after
+     * {@code expected}.
+     */
+    public boolean replaceHeader(Chain expected, Chain replacement, long expirationTime) {
       long suffixHead = chain + CHAIN_HEADER_SIZE;
       long prefixTail;
+      int suffixLength = length();
 
       Iterator<Element> expectedIt = expected.iterator();
       do {
@@ -342,6 +401,7 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
         }
         prefixTail = suffixHead;
         suffixHead = storage.readLong(suffixHead + ELEMENT_HEADER_NEXT_OFFSET);
+        suffixLength--;
       } while (expectedIt.hasNext());
 
       int hash = readKeyHash(chain);
@@ -353,7 +413,9 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
         try {
           //copy remaining elements from old chain (by reference)
           if (suffixHead != chain) {
-            newChain.append(suffixHead, storage.readLong(chain + CHAIN_HEADER_TAIL_OFFSET));
+            newChain.append(suffixHead, storage.readLong(chain + CHAIN_HEADER_TAIL_OFFSET), suffixLength);
+          } else {
+            storage.writeLong(newChainAddress + CHAIN_HEADER_EXPIRATION_OFFSET, expirationTime);
           }
 
           if (owner.updateEncoding(hash, chain, newChainAddress, ~0)) {
@@ -399,17 +461,22 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
       }
     }
 
-    private void append(long head, long tail) {
+    private void append(long head, long tail, int count) {
       long oldTail = storage.readLong(chain + CHAIN_HEADER_TAIL_OFFSET);
 
       storage.writeLong(oldTail + ELEMENT_HEADER_NEXT_OFFSET, head);
       storage.writeLong(tail + ELEMENT_HEADER_NEXT_OFFSET, chain);
       storage.writeLong(chain + CHAIN_HEADER_TAIL_OFFSET, tail);
+      storage.writeInt(chain + CHAIN_HEADER_LENGTH_OFFSET, length() + count);
     }
 
-    private Element element(ByteBuffer attachedBuffer, final long sequence) {
-      final ByteBuffer detachedBuffer = (ByteBuffer) ByteBuffer.allocate(attachedBuffer.remaining()).put(attachedBuffer).flip();
+    private ByteBuffer slice(ByteBuffer buffer, int start) {
+      ByteBuffer slice = buffer.duplicate();
+      slice.limit(buffer.position()).position(start);
+      return slice.slice();
+    }
 
+    private Element element(final ByteBuffer detachedBuffer, final long sequence) {
       return new SequencedElement() {
 
         @Override
@@ -441,7 +508,10 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
 
     @Override
     public void close() {
-      OffHeapChainStorageEngine.this.activeChains.remove(this);
+      if (active) {
+        OffHeapChainStorageEngine.this.activeChains.remove(this);
+        active = false;
+      }
     }
   }
 
@@ -471,6 +541,8 @@ class OffHeapChainStorageEngine<K> implements StorageEngine<K, InternalChain> {
     writeElement(element, elemBuffer);
     storage.writeLong(element + ELEMENT_HEADER_NEXT_OFFSET, chain);
     storage.writeLong(chain + CHAIN_HEADER_TAIL_OFFSET, element);
+    storage.writeLong(chain + CHAIN_HEADER_EXPIRATION_OFFSET, Long.MAX_VALUE);
+    storage.writeInt(chain + CHAIN_HEADER_LENGTH_OFFSET, 1);
     return chain;
   }
 
@@ -17,7 +17,10 @@ package org.ehcache.clustered.server.offheap;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
 
 import org.ehcache.clustered.common.internal.store.Chain;
 import org.ehcache.clustered.common.internal.store.ServerStore;
@@ -64,6 +67,10 @@ public class OffHeapServerStore implements ServerStore, MapInternals {
     return segmentFor(key).get(key);
   }
 
+  public int getChainLength(long key) {
+    return segmentFor(key).getChainLength(key);
+  }
+
   @Override
   public void append(long key, ByteBuffer payLoad) {
     try {
@@ -126,12 +133,22 @@ public class OffHeapServerStore implements ServerStore, MapInternals {
 
   @Override
   public void replaceAtHead(long key, Chain expect, Chain update) {
+    replaceAtHead(key, expect, update, Long.MAX_VALUE);
+  }
+
+  /**
+   * Replaces the head of the chain of {@code key}, which the eviction prefers once {@code expirationTime} is past.
+   *
+   * @param expirationTime the time in milliseconds at or after which {@code update} is known to be expired,
+   *                       {@link Long#MAX_VALUE} if unknown
+   */
+  public void replaceAtHead(long key, Chain expect, Chain update, long expirationTime) {
     try {
-      segmentFor(key).replaceAtHead(key, expect, update);
+      segmentFor(key).replaceAtHead(key, expect, update, expirationTime);
     } catch (OversizeMappingException e) {
       if (handleOversizeMappingException(key)) {
         try {
-          segmentFor(key).replaceAtHead(key, expect, update);
+          segmentFor(key).replaceAtHead(key, expect, update, expirationTime);
           return;
         } catch (OversizeMappingException ex) {
           //ignore
@@ -142,7 +159,7 @@ public class OffHeapServerStore implements ServerStore, MapInternals {
       try {
         do {
           try {
-            segmentFor(key).replaceAtHead(key, expect, update);
+            segmentFor(key).replaceAtHead(key, expect, update, expirationTime);
             return;
           } catch (OversizeMappingException ex) {
             e = ex;
@@ -183,6 +200,29 @@ public class OffHeapServerStore implements ServerStore, MapInternals {
     }
   }
 
+  /**
+   * Installs all the given chains, replacing any existing ones.
+   * <p>
+   * Chains are grouped by segment so that each segment is locked once per batch. A segment that cannot fit its
+   * group falls back to individual puts, which evict from the other segments as needed.
+   *
+   * @param chains the chains to install, by key
+   */
+  public void putAll(Map<Long, Chain> chains) {
+    Map<Integer, Map<Long, Chain>> bySegment = new HashMap<>();
+    for (Map.Entry<Long, Chain> entry : chains.entrySet()) {
+      bySegment.computeIfAbsent(mapper.getSegmentForKey(entry.getKey()), s -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer, Map<Long, Chain>> group : bySegment.entrySet()) {
+      try {
+        segments.get(group.getKey()).putAll(group.getValue());
+      } catch (OversizeMappingException e) {
+        for (Map.Entry<Long, Chain> entry : group.getValue().entrySet()) {
+          put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
 
   @Override
   public void clear() {
@@ -191,6 +231,25 @@ public class OffHeapServerStore implements ServerStore, MapInternals {
     }
   }
 
+  /**
+   * Passes up to {@code max} keys of the given segment to {@code consumer}, resuming the walk at {@code cursor}.
+   * <p>
+   * The cursor is a position in the segment's hash table, so each call only visits the keys it returns and the store
+   * holds no iteration state.
+   *
+   * @param segment the segment index
+   * @param cursor the position to resume from, {@code 0} for the start of the segment
+   * @param max the maximum number of keys to pass
+   * @param consumer the key consumer
+   * @return the cursor the next call must resume from, or {@code -1} once the segment is exhausted
+   */
+  public int nextKeys(int segment, int cursor, int max, LongConsumer consumer) {
+    if (max <= 0) {
+      return cursor;
+    }
+    return segments.get(segment).nextKeys(cursor, max, consumer::accept);
+  }
+
   OffHeapChainMap<Long> segmentFor(long key) {
     return segments.get(mapper.getSegmentForKey(key));
   }
@@ -232,6 +291,27 @@ public class OffHeapServerStore implements ServerStore, MapInternals {
 
   // stats
 
+  public long getEvictionCount() {
+    long total = 0L;
+    for (OffHeapChainMap<Long> segment : segments) {
+      total += segment.getEvictionCount();
+    }
+    return total;
+  }
+
+  /**
+   * Returns the number of chains evicted from each segment, indexed as the segments of the {@link KeySegmentMapper}.
+   *
+   * @return the eviction count of each segment
+   */
+  public long[] getSegmentEvictionCounts() {
+    long[] counts = new long[segments.size()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = segments.get(i).getEvictionCount();
+    }
+    return counts;
+  }
+
   @Override
   public long getAllocatedMemory() {
     long total = 0L;
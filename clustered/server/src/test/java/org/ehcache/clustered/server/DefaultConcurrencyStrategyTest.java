@@ -15,6 +15,7 @@
  */
 package org.ehcache.clustered.server;
 
+import org.ehcache.clustered.common.internal.messages.BatchedConcurrentEntityMessage;
 import org.ehcache.clustered.common.internal.messages.ConcurrentEntityMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreOpMessage;
 import org.hamcrest.Matcher;
@@ -33,6 +34,7 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Mockito.mock;
+import static org.terracotta.entity.ConcurrencyStrategy.MANAGEMENT_KEY;
 import static org.terracotta.entity.ConcurrencyStrategy.UNIVERSAL_KEY;
 
 /**
@@ -61,6 +63,48 @@ public class DefaultConcurrencyStrategyTest {
     assertThat(strategy.concurrencyKey(getMessage), is(UNIVERSAL_KEY));
   }
 
+  @Test
+  public void testConcurrencyKeyForServerStoreBatchedGetOperation() throws Exception {
+    ConcurrencyStrategy<EntityMessage> strategy = ConcurrencyStrategies.defaultConcurrency(DEFAULT_MAPPER);
+    ServerStoreOpMessage.BatchedGetMessage batchedGetMessage = mock(ServerStoreOpMessage.BatchedGetMessage.class);
+    assertThat(strategy.concurrencyKey(batchedGetMessage), is(UNIVERSAL_KEY));
+  }
+
+  @Test
+  public void testConcurrencyKeyForSingleSegmentBatch() throws Exception {
+    ConcurrencyStrategy<EntityMessage> strategy = ConcurrencyStrategies.defaultConcurrency(DEFAULT_MAPPER);
+    int expected = strategy.concurrencyKey(new ConcurrentTestEntityMessage(3));
+    long[] keys = new long[4];
+    int found = 0;
+    for (long key = -1024; found < keys.length; key++) {
+      if (DEFAULT_MAPPER.getSegmentForKey(key) == DEFAULT_MAPPER.getSegmentForKey(3L)) {
+        keys[found++] = key;
+      }
+    }
+    assertThat(strategy.concurrencyKey(new BatchedTestEntityMessage(keys)), is(expected));
+  }
+
+  @Test
+  public void testConcurrencyKeyForMultiSegmentBatch() throws Exception {
+    ConcurrencyStrategy<EntityMessage> strategy = ConcurrencyStrategies.defaultConcurrency(DEFAULT_MAPPER);
+    long other = 4L;
+    while (DEFAULT_MAPPER.getSegmentForKey(other) == DEFAULT_MAPPER.getSegmentForKey(3L)) {
+      other++;
+    }
+    assertThat(strategy.concurrencyKey(new BatchedTestEntityMessage(3L, other)), is(MANAGEMENT_KEY));
+  }
+
+  @Test
+  public void testSegmentsAreBalancedForSequentialKeys() throws Exception {
+    int[] counts = new int[DEFAULT_MAPPER.getSegments()];
+    for (long key = 0; key < 16 * 1024; key += 16) {
+      counts[DEFAULT_MAPPER.getSegmentForKey(key)]++;
+    }
+    for (int count : counts) {
+      assertThat(count, withinRange(32, 96));
+    }
+  }
+
   @Test
   public void testKeysForSynchronization() throws Exception {
     final int concurrency = 111;
@@ -84,6 +128,20 @@ public class DefaultConcurrencyStrategyTest {
   private static class NonConcurrentTestEntityMessage implements EntityMessage {
   }
 
+  private static class BatchedTestEntityMessage implements BatchedConcurrentEntityMessage {
+
+    private final long[] keys;
+
+    public BatchedTestEntityMessage(long... keys) {
+      this.keys = keys;
+    }
+
+    @Override
+    public long[] concurrencyKeys() {
+      return keys;
+    }
+  }
+
   private static class ConcurrentTestEntityMessage implements ConcurrentEntityMessage {
 
     private final int key;
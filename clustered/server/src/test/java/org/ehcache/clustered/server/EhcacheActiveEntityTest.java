@@ -42,6 +42,7 @@ import org.ehcache.clustered.common.internal.messages.LifecycleMessage.ValidateS
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ClientIDTrackerMessage;
 import org.ehcache.clustered.common.internal.messages.PassiveReplicationMessage.ServerStoreLifeCycleReplicationMessage;
 import org.ehcache.clustered.common.internal.messages.ServerStoreMessageFactory;
+import org.ehcache.clustered.server.internal.messages.EntityBatchedDataSyncMessage;
 import org.ehcache.clustered.server.internal.messages.EntityStateSyncMessage;
 import org.ehcache.clustered.server.state.ClientMessageTracker;
 import org.ehcache.clustered.server.state.EhcacheStateService;
@@ -64,6 +65,7 @@ import org.terracotta.offheapresource.OffHeapResourceIdentifier;
 import org.terracotta.offheapresource.OffHeapResources;
 import org.terracotta.offheapstore.util.MemoryUnit;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -78,6 +80,7 @@ import org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.Type
 
 import static org.ehcache.clustered.common.internal.messages.EhcacheEntityResponse.Type.FAILURE;
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
+import static org.ehcache.clustered.server.ConcurrencyStrategies.DefaultConcurrencyStrategy.DATA_CONCURRENCY_KEY_OFFSET;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
@@ -88,6 +91,7 @@ import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
@@ -425,6 +429,125 @@ public class EhcacheActiveEntityTest {
     assertThat(activeEntity.getClientsWaitingForInvalidation().size(), is(0));
   }
 
+  @Test
+  public void testServerStoreSegmentCountReturnedOnCreateAndValidate() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry(32, MemoryUnit.MEGABYTES);
+    registry.addResource("serverResource1", 8, MemoryUnit.MEGABYTES);
+
+    EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, DEFAULT_MAPPER);
+    ClientDescriptor client1 = new TestClientDescriptor();
+    ClientDescriptor client2 = new TestClientDescriptor();
+    activeEntity.connected(client1);
+    activeEntity.connected(client2);
+
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    assertSuccess(activeEntity.invoke(client1, MESSAGE_FACTORY.configureStoreManager(serverSideConfiguration)));
+
+    EhcacheEntityResponse created = activeEntity.invoke(client1, MESSAGE_FACTORY.createServerStore("defaultSegments",
+        new ServerStoreConfigBuilder().shared("primary").build()));
+    assertThat(((EhcacheEntityResponse.ServerStoreSegments) created).getSegmentCount(), is(DEFAULT_MAPPER.getSegments()));
+
+    created = activeEntity.invoke(client1, MESSAGE_FACTORY.createServerStore("moreSegments",
+        new ServerStoreConfigBuilder().shared("primary").segments(64).build()));
+    assertThat(((EhcacheEntityResponse.ServerStoreSegments) created).getSegmentCount(), is(64));
+
+    UUID client2Id = UUID.randomUUID();
+    MESSAGE_FACTORY.setClientId(client2Id);
+    assertSuccess(activeEntity.invoke(client2, MESSAGE_FACTORY.validateStoreManager(serverSideConfiguration)));
+    EhcacheEntityResponse validated = activeEntity.invoke(client2, MESSAGE_FACTORY.validateServerStore("moreSegments",
+        new ServerStoreConfigBuilder().shared("primary").build()));
+    MESSAGE_FACTORY.setClientId(CLIENT_ID);
+    assertThat(((EhcacheEntityResponse.ServerStoreSegments) validated).getSegmentCount(), is(64));
+  }
+
+  @Test
+  public void testBatchedAppendInvalidationsCoalescedPerClient() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry(32, MemoryUnit.MEGABYTES);
+    registry.addResource("serverResource1", 8, MemoryUnit.MEGABYTES);
+
+    EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, DEFAULT_MAPPER);
+    ClientDescriptor client1 = new TestClientDescriptor();
+    ClientDescriptor client2 = new TestClientDescriptor();
+    activeEntity.connected(client1);
+    activeEntity.connected(client2);
+
+    UUID client2Id = UUID.randomUUID();
+
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    assertSuccess(activeEntity.invoke(client1, MESSAGE_FACTORY.configureStoreManager(serverSideConfiguration)));
+
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .dedicated("serverResource1", 4, MemoryUnit.MEGABYTES)
+        .consistency(Consistency.STRONG)
+        .build();
+    assertSuccess(activeEntity.invoke(client1, MESSAGE_FACTORY.createServerStore("testCoalescing", serverStoreConfiguration)));
+    MESSAGE_FACTORY.setClientId(client2Id);
+    assertSuccess(activeEntity.invoke(client2, MESSAGE_FACTORY.validateStoreManager(serverSideConfiguration)));
+    assertSuccess(activeEntity.invoke(client2, MESSAGE_FACTORY.validateServerStore("testCoalescing", serverStoreConfiguration)));
+    MESSAGE_FACTORY.setClientId(CLIENT_ID);
+
+    ServerStoreMessageFactory messageFactory = new ServerStoreMessageFactory("testCoalescing", CLIENT_ID);
+    assertSuccess(activeEntity.invoke(client1, messageFactory.batchedGetAndAppendOperation(new long[] {1L, 2L, 3L},
+        Arrays.asList(createPayload(1L), createPayload(2L), createPayload(3L)))));
+
+    assertThat(activeEntity.getClientsWaitingForInvalidation().size(), is(3));
+    ArgumentCaptor<EhcacheEntityResponse> invalidationCaptor = ArgumentCaptor.forClass(EhcacheEntityResponse.class);
+    verify(registry.getClientCommunicator()).sendNoResponse(eq(client2), invalidationCaptor.capture());
+    EhcacheEntityResponse.ClientInvalidateHashes invalidation = (EhcacheEntityResponse.ClientInvalidateHashes) invalidationCaptor.getValue();
+    assertThat(invalidation.getCacheId(), is("testCoalescing"));
+    assertThat(invalidation.getKeys(), equalTo(new long[] {1L, 2L, 3L}));
+
+    assertSuccess(activeEntity.invoke(client2, messageFactory.clientInvalidationAck(invalidation.getInvalidationId())));
+
+    assertThat(activeEntity.getClientsWaitingForInvalidation().size(), is(0));
+    ArgumentCaptor<EhcacheEntityResponse> doneCaptor = ArgumentCaptor.forClass(EhcacheEntityResponse.class);
+    verify(registry.getClientCommunicator()).sendNoResponse(eq(client1), doneCaptor.capture());
+    EhcacheEntityResponse.HashesInvalidationDone done = (EhcacheEntityResponse.HashesInvalidationDone) doneCaptor.getValue();
+    assertThat(done.getKeys(), equalTo(new long[] {1L, 2L, 3L}));
+  }
+
+  @Test
+  public void testEventualCoalescedInvalidationsAreNotTracked() throws Exception {
+    OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry(32, MemoryUnit.MEGABYTES);
+    registry.addResource("serverResource1", 8, MemoryUnit.MEGABYTES);
+
+    EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, DEFAULT_MAPPER);
+    ClientDescriptor client1 = new TestClientDescriptor();
+    ClientDescriptor client2 = new TestClientDescriptor();
+    activeEntity.connected(client1);
+    activeEntity.connected(client2);
+
+    UUID client2Id = UUID.randomUUID();
+
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+        .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+        .build();
+    assertSuccess(activeEntity.invoke(client1, MESSAGE_FACTORY.configureStoreManager(serverSideConfiguration)));
+
+    ServerStoreConfiguration serverStoreConfiguration = new ServerStoreConfigBuilder()
+        .dedicated("serverResource1", 4, MemoryUnit.MEGABYTES)
+        .consistency(Consistency.EVENTUAL)
+        .build();
+    assertSuccess(activeEntity.invoke(client1, MESSAGE_FACTORY.createServerStore("testCoalescing", serverStoreConfiguration)));
+    MESSAGE_FACTORY.setClientId(client2Id);
+    assertSuccess(activeEntity.invoke(client2, MESSAGE_FACTORY.validateStoreManager(serverSideConfiguration)));
+    assertSuccess(activeEntity.invoke(client2, MESSAGE_FACTORY.validateServerStore("testCoalescing", serverStoreConfiguration)));
+    MESSAGE_FACTORY.setClientId(CLIENT_ID);
+
+    ServerStoreMessageFactory messageFactory = new ServerStoreMessageFactory("testCoalescing", CLIENT_ID);
+    assertSuccess(activeEntity.invoke(client1, messageFactory.batchedGetAndAppendOperation(new long[] {1L, 2L, 3L},
+        Arrays.asList(createPayload(1L), createPayload(2L), createPayload(3L)))));
+
+    ArgumentCaptor<EhcacheEntityResponse> invalidationCaptor = ArgumentCaptor.forClass(EhcacheEntityResponse.class);
+    verify(registry.getClientCommunicator()).sendNoResponse(eq(client2), invalidationCaptor.capture());
+    assertThat(invalidationCaptor.getValue(), instanceOf(EhcacheEntityResponse.ClientInvalidateHashes.class));
+    assertThat(activeEntity.getCoalescedInvalidations().size(), is(0));
+  }
+
   @Test
   public void testClearInvalidationAcksTakenIntoAccount() throws Exception {
     OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry(32, MemoryUnit.MEGABYTES);
@@ -2652,6 +2775,52 @@ public class EhcacheActiveEntityTest {
 
   }
 
+  @Test
+  public void testSyncDataToPassiveInBatches() throws Exception {
+    final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
+    registry.addResource("serverResource1", 32, MemoryUnit.MEGABYTES);
+
+    final EhcacheActiveEntity activeEntity = new EhcacheActiveEntity(registry, ENTITY_ID, DEFAULT_MAPPER);
+    ClientDescriptor client = new TestClientDescriptor();
+    activeEntity.connected(client);
+
+    ServerSideConfiguration serverSideConfiguration = new ServerSideConfigBuilder()
+      .defaultResource("serverResource1")
+      .sharedPool("primary", "serverResource1", 4, MemoryUnit.MEGABYTES)
+      .build();
+
+    activeEntity.invoke(client,
+      MESSAGE_FACTORY.configureStoreManager(serverSideConfiguration));
+
+    activeEntity.invoke(client,
+      MESSAGE_FACTORY.createServerStore("myCache",
+        new ServerStoreConfigBuilder()
+          .shared("primary")
+          .build()));
+
+    ServerStoreImpl store = registry.getStoreManagerService().getStore("myCache");
+    Set<Long> keys = new HashSet<>();
+    for (long key = 0; key < 1000; key++) {
+      store.append(key, createPayload(key));
+      keys.add(key);
+    }
+
+    PassiveSynchronizationChannel syncChannel = mock(PassiveSynchronizationChannel.class);
+    for (int segment = 0; segment < DEFAULT_MAPPER.getSegments(); segment++) {
+      activeEntity.synchronizeKeyToPassive(syncChannel, DATA_CONCURRENCY_KEY_OFFSET + segment);
+    }
+
+    ArgumentCaptor<EntityBatchedDataSyncMessage> captor = ArgumentCaptor.forClass(EntityBatchedDataSyncMessage.class);
+    verify(syncChannel, times(DEFAULT_MAPPER.getSegments())).synchronizeToPassive(captor.capture());
+
+    Set<Long> synced = new HashSet<>();
+    for (EntityBatchedDataSyncMessage message : captor.getAllValues()) {
+      assertThat(message.getCacheId(), is("myCache"));
+      synced.addAll(message.getChains().keySet());
+    }
+    assertThat(synced, is(keys));
+  }
+
   @Test
   public void testSyncToPassiveWithoutDefaultServerResource() throws Exception {
     final OffHeapIdentifierRegistry registry = new OffHeapIdentifierRegistry();
@@ -2898,7 +3067,7 @@ public class EhcacheActiveEntityTest {
   }
 
   private void assertSuccess(EhcacheEntityResponse response) throws Exception {
-    if (!response.equals(EhcacheEntityResponse.Success.INSTANCE)) {
+    if (!response.equals(EhcacheEntityResponse.Success.INSTANCE) && !(response instanceof EhcacheEntityResponse.ServerStoreSegments)) {
       throw ((Failure) response).getCause();
     }
   }
@@ -2954,6 +3123,7 @@ public class EhcacheActiveEntityTest {
     private String keySerializerType;
     private String valueSerializerType;
     private Consistency consistency;
+    private int segmentCount;
 
 
     ServerStoreConfigBuilder consistency(Consistency consistency) {
@@ -2961,6 +3131,11 @@ public class EhcacheActiveEntityTest {
       return this;
     }
 
+    ServerStoreConfigBuilder segments(int segmentCount) {
+      this.segmentCount = segmentCount;
+      return this;
+    }
+
     ServerStoreConfigBuilder dedicated(String resourceName, int size, MemoryUnit unit) {
       this.poolAllocation = new PoolAllocation.Dedicated(resourceName, unit.toBytes(size));
       return this;
@@ -3008,7 +3183,7 @@ public class EhcacheActiveEntityTest {
 
     ServerStoreConfiguration build() {
       return new ServerStoreConfiguration(poolAllocation, storedKeyType, storedValueType,
-          actualKeyType, actualValueType, keySerializerType, valueSerializerType, consistency);
+          actualKeyType, actualValueType, keySerializerType, valueSerializerType, consistency, segmentCount);
     }
   }
 
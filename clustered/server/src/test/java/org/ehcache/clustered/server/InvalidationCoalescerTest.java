@@ -0,0 +1,89 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.server;
+
+import org.junit.Test;
+import org.terracotta.entity.ClientDescriptor;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.aryEq;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class InvalidationCoalescerTest {
+
+  private final ClientDescriptor client1 = mock(ClientDescriptor.class);
+  private final ClientDescriptor client2 = mock(ClientDescriptor.class);
+
+  @Test
+  public void testInvalidationsCoalescedUntilOperationComplete() {
+    InvalidationCoalescer.Sender sender = mock(InvalidationCoalescer.Sender.class);
+    InvalidationCoalescer coalescer = new InvalidationCoalescer(sender, 128, 0L);
+
+    coalescer.add(client1, "cache", 1L, 10);
+    coalescer.add(client1, "cache", 2L, 11);
+    coalescer.add(client1, "cache", 1L, 12);
+    coalescer.add(client2, "cache", 1L, 10);
+    verify(sender, never()).send(any(ClientDescriptor.class), anyString(), any(long[].class), any(int[].class));
+
+    coalescer.operationComplete();
+    verify(sender).send(eq(client1), eq("cache"), aryEq(new long[] {1L, 2L}), aryEq(new int[] {10, 11, 12}));
+    verify(sender).send(eq(client2), eq("cache"), aryEq(new long[] {1L}), aryEq(new int[] {10}));
+  }
+
+  @Test
+  public void testFullBatchSentImmediately() {
+    InvalidationCoalescer.Sender sender = mock(InvalidationCoalescer.Sender.class);
+    InvalidationCoalescer coalescer = new InvalidationCoalescer(sender, 2, 0L);
+
+    coalescer.add(client1, "cache", 1L, 10);
+    coalescer.add(client1, "cache", 2L, 11);
+
+    verify(sender).send(eq(client1), eq("cache"), aryEq(new long[] {1L, 2L}), aryEq(new int[] {10, 11}));
+  }
+
+  @Test
+  public void testTimeBoundedBatchSentAfterWindow() {
+    InvalidationCoalescer.Sender sender = mock(InvalidationCoalescer.Sender.class);
+    InvalidationCoalescer coalescer = new InvalidationCoalescer(sender, 128, 10L);
+    try {
+      coalescer.add(client1, "cache", 1L, 10);
+      coalescer.add(client1, "cache", 2L, 11);
+      coalescer.operationComplete();
+
+      verify(sender, timeout(5000)).send(eq(client1), eq("cache"), aryEq(new long[] {1L, 2L}), aryEq(new int[] {10, 11}));
+    } finally {
+      coalescer.close();
+    }
+  }
+
+  @Test
+  public void testDisconnectedClientBatchDropped() {
+    InvalidationCoalescer.Sender sender = mock(InvalidationCoalescer.Sender.class);
+    InvalidationCoalescer coalescer = new InvalidationCoalescer(sender, 128, 0L);
+
+    coalescer.add(client1, "cache", 1L, 10);
+    coalescer.clientDisconnected(client1);
+    coalescer.operationComplete();
+
+    verify(sender, never()).send(any(ClientDescriptor.class), anyString(), any(long[].class), any(int[].class));
+  }
+}
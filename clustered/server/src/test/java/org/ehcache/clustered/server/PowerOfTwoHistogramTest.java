@@ -0,0 +1,80 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.clustered.server;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PowerOfTwoHistogramTest {
+
+  @Test
+  public void testEmptyHistogram() {
+    PowerOfTwoHistogram histogram = new PowerOfTwoHistogram();
+
+    assertThat(histogram.getCount(), is(0L));
+    assertThat(histogram.getMean(), is(0.0));
+    assertThat(histogram.getMax(), is(0L));
+    assertThat(histogram.getQuantile(0.99), is(0L));
+  }
+
+  @Test
+  public void testRecordedValues() {
+    PowerOfTwoHistogram histogram = new PowerOfTwoHistogram();
+    for (int i = 0; i < 90; i++) {
+      histogram.record(100L);
+    }
+    for (int i = 0; i < 10; i++) {
+      histogram.record(5000L);
+    }
+
+    assertThat(histogram.getCount(), is(100L));
+    assertThat(histogram.getMean(), is(590.0));
+    assertThat(histogram.getMax(), is(5000L));
+    assertThat(histogram.getQuantile(0.5), is(127L));
+    assertThat(histogram.getQuantile(0.99), is(8191L));
+  }
+
+  @Test
+  public void testLargeValues() {
+    PowerOfTwoHistogram histogram = new PowerOfTwoHistogram();
+    histogram.record(Long.MAX_VALUE);
+
+    assertThat(histogram.getMax(), is(Long.MAX_VALUE));
+    assertThat(histogram.getQuantile(1.0), is(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testBuckets() {
+    assertThat(PowerOfTwoHistogram.bucketFor(0L), is(0));
+    assertThat(PowerOfTwoHistogram.bucketFor(1L), is(1));
+    assertThat(PowerOfTwoHistogram.bucketFor(1024L), is(11));
+    assertThat(PowerOfTwoHistogram.bucketFor(Long.MAX_VALUE), is(63));
+    assertThat(PowerOfTwoHistogram.upperBound(11), is(2047L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeValue() {
+    new PowerOfTwoHistogram().record(-1L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidQuantile() {
+    new PowerOfTwoHistogram().getQuantile(1.5);
+  }
+}
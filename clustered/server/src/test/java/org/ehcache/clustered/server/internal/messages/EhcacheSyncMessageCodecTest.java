@@ -19,10 +19,12 @@ import org.ehcache.clustered.common.Consistency;
 import org.ehcache.clustered.common.PoolAllocation;
 import org.ehcache.clustered.common.ServerSideConfiguration;
 import org.ehcache.clustered.common.internal.ServerStoreConfiguration;
+import org.ehcache.clustered.common.internal.store.Chain;
 import org.junit.Test;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -30,6 +32,7 @@ import java.util.UUID;
 import static org.ehcache.clustered.common.internal.store.Util.chainsEqual;
 import static org.ehcache.clustered.common.internal.store.Util.createPayload;
 import static org.ehcache.clustered.common.internal.store.Util.getChain;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -127,4 +130,20 @@ public class EhcacheSyncMessageCodecTest {
     assertThat(decoded.getKey(), is(message.getKey()));
     assertThat(chainsEqual(decoded.getChain(), message.getChain()), is(true));
   }
+
+  @Test
+  public void testBatchedDataSyncMessageEncodeDecode() throws Exception {
+    EhcacheSyncMessageCodec codec = new EhcacheSyncMessageCodec();
+    Map<Long, Chain> chains = new LinkedHashMap<>();
+    chains.put(1L, getChain(true, createPayload(10L), createPayload(100L)));
+    chains.put(-2L, getChain(false, createPayload(20L)));
+    chains.put(3L, getChain(false));
+    EntityBatchedDataSyncMessage message = new EntityBatchedDataSyncMessage("foo", chains);
+    EntityBatchedDataSyncMessage decoded = (EntityBatchedDataSyncMessage) codec.decode(0, codec.encode(0, message));
+    assertThat(decoded.getCacheId(), is(message.getCacheId()));
+    assertThat(decoded.getChains().keySet(), contains(1L, -2L, 3L));
+    for (Map.Entry<Long, Chain> entry : chains.entrySet()) {
+      assertThat(chainsEqual(decoded.getChains().get(entry.getKey()), entry.getValue()), is(true));
+    }
+  }
 }
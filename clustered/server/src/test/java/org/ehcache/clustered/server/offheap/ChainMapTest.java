@@ -16,7 +16,15 @@
 package org.ehcache.clustered.server.offheap;
 
 import java.nio.ByteBuffer;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ehcache.clustered.common.internal.store.Chain;
 import org.ehcache.clustered.common.internal.store.Element;
 
 import org.hamcrest.Description;
@@ -37,7 +45,9 @@ import org.terracotta.offheapstore.storage.portability.StringPortability;
 import static java.util.Arrays.asList;
 import static org.ehcache.clustered.server.offheap.OffHeapChainMap.chain;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.collection.IsEmptyIterable.emptyIterable;
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.hamcrest.core.Is.is;
@@ -212,6 +222,27 @@ public class ChainMapTest {
     assertThat(map.get("foo"), contains(element(42), element(2), element(3)));
   }
 
+  @Test
+  public void testChainLengthFollowsAppendsAndReplacements() {
+    OffHeapChainMap<String> map = new OffHeapChainMap<String>(new UnlimitedPageSource(new OffHeapBufferSource()), StringPortability.INSTANCE, minPageSize, maxPageSize, steal);
+    assertThat(map.getChainLength("foo"), is(0));
+
+    map.append("foo", buffer(1));
+    map.getAndAppend("foo", buffer(2));
+    map.append("foo", buffer(3));
+    map.append("foo", buffer(4));
+    assertThat(map.getChainLength("foo"), is(4));
+
+    map.replaceAtHead("foo", chain(buffer(1), buffer(2)), chain(buffer(42)));
+    assertThat(map.getChainLength("foo"), is(3));
+
+    map.replaceAtHead("foo", chain(buffer(42), buffer(3)), chain(buffer(5), buffer(6), buffer(7)));
+    assertThat(map.getChainLength("foo"), is(4));
+
+    map.replaceAtHead("foo", chain(buffer(5), buffer(6), buffer(7), buffer(4)), chain());
+    assertThat(map.getChainLength("foo"), is(0));
+  }
+
   @Test
   public void testMismatchingReplacePluralChainAtHead() {
     OffHeapChainMap<String> map = new OffHeapChainMap<String>(new UnlimitedPageSource(new OffHeapBufferSource()), StringPortability.INSTANCE, minPageSize, maxPageSize, steal);
@@ -340,6 +371,73 @@ public class ChainMapTest {
     assertThat(map.get("key"), contains(element(1), element(2)));
   }
 
+  @Test
+  public void testConcurrentReadsOfTheSameChain() throws Exception {
+    final OffHeapChainMap<String> map = new OffHeapChainMap<String>(new UnlimitedPageSource(new OffHeapBufferSource()), StringPortability.INSTANCE, minPageSize, maxPageSize, steal);
+    map.append("foo", buffer(1));
+    map.append("foo", buffer(2));
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Void>> readers = new ArrayList<Future<Void>>();
+      for (int i = 0; i < 4; i++) {
+        readers.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int j = 0; j < 1000; j++) {
+              assertThat(map.get("foo"), contains(element(1), element(2)));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> reader : readers) {
+        reader.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    map.append("foo", buffer(3));
+    assertThat(map.get("foo"), contains(element(1), element(2), element(3)));
+  }
+
+  @Test
+  public void testEvictionsAreCounted() {
+    UpfrontAllocatingPageSource pageSource = new UpfrontAllocatingPageSource(new OffHeapBufferSource(), KILOBYTES.toBytes(1024L), KILOBYTES.toBytes(1024));
+    OffHeapChainMap<String> map = new OffHeapChainMap<String>(pageSource, StringPortability.INSTANCE, minPageSize, maxPageSize, steal);
+    AtomicLong evicted = new AtomicLong();
+    map.setEvictionListener(key -> evicted.incrementAndGet());
+
+    assertThat(map.getEvictionCount(), is(0L));
+    for (int i = 0; map.getEvictionCount() == 0; i++) {
+      map.append(Integer.toString(i), buffer(64));
+    }
+
+    assertThat(map.getEvictionCount(), is(evicted.get()));
+  }
+
+  @Test
+  public void testEvictionPrefersExpiredChains() {
+    UpfrontAllocatingPageSource pageSource = new UpfrontAllocatingPageSource(new OffHeapBufferSource(), KILOBYTES.toBytes(1024L), KILOBYTES.toBytes(1024));
+    OffHeapChainMap<String> map = new OffHeapChainMap<String>(pageSource, StringPortability.INSTANCE, minPageSize, maxPageSize, false);
+    List<String> evicted = new ArrayList<String>();
+    map.setEvictionListener(evicted::add);
+
+    map.append("live", buffer(64));
+    for (int i = 0; map.getEvictionCount() < 100; i++) {
+      String key = Integer.toString(i);
+      map.append(key, buffer(64));
+      Chain current = map.get(key);
+      if (!current.isEmpty()) {
+        map.replaceAtHead(key, current, chain(buffer(64)), 1L);
+      }
+    }
+
+    assertThat(evicted, not(hasItem("live")));
+    assertThat(map.get("live"), contains(element(64)));
+  }
+
   private static ByteBuffer buffer(int i) {
     ByteBuffer buffer = ByteBuffer.allocate(i);
     while (buffer.hasRemaining()) {
@@ -16,6 +16,11 @@
 package org.ehcache.clustered.server.offheap;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.ehcache.clustered.common.internal.store.Chain;
@@ -34,6 +39,7 @@ import org.terracotta.offheapstore.exceptions.OversizeMappingException;
 import org.terracotta.offheapstore.paging.UnlimitedPageSource;
 import org.terracotta.offheapstore.paging.UpfrontAllocatingPageSource;
 
+import static org.ehcache.clustered.common.internal.store.Util.readPayLoad;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -243,4 +249,46 @@ public class OffHeapServerStoreTest extends ServerStoreTest {
 
   }
 
+  @Test
+  public void testNextKeysWalksSegmentInBatches() {
+    OffHeapServerStore store = (OffHeapServerStore) newStore();
+    List<Long> expected = new ArrayList<Long>();
+    for (long key = -100; key < 100; key++) {
+      store.append(key, ByteBuffer.allocate(8));
+      if (DEFAULT_MAPPER.getSegmentForKey(key) == 3) {
+        expected.add(key);
+      }
+    }
+
+    List<Long> walked = new ArrayList<Long>();
+    int cursor = 0;
+    do {
+      List<Long> batch = new ArrayList<Long>();
+      cursor = store.nextKeys(3, cursor, 4, batch::add);
+      assertThat(batch.size(), lessThanOrEqualTo(4));
+      walked.addAll(batch);
+    } while (cursor >= 0);
+
+    Collections.sort(walked);
+    assertThat(walked, is(expected));
+  }
+
+  @Test
+  public void testPutAllReplacesChainsAcrossSegments() {
+    OffHeapServerStore store = (OffHeapServerStore) newStore();
+    store.append(1L, createPayload(1L));
+
+    Map<Long, Chain> chains = new HashMap<Long, Chain>();
+    for (long key = 0; key < 64; key++) {
+      chains.put(key, newChainBuilder().build(newElementBuilder().build(createPayload(key * 10))));
+    }
+    store.putAll(chains);
+
+    for (long key = 0; key < 64; key++) {
+      Chain chain = store.get(key);
+      assertThat(chain.isEmpty(), is(false));
+      assertThat(readPayLoad(chain.iterator().next().getPayload()), is(key * 10));
+    }
+  }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.core.spi.store.heap;
+
+/**
+ * {@code SizeOfEstimator} computes the heap footprint of instances of a given type without traversing their object
+ * graph.
+ * <P>
+ *   Estimators are registered against an exact type on {@link SizeOfEngineProvider} implementations supporting them.
+ *   When such an instance is met while sizing a mapping, the estimate replaces the traversal of the instance and of
+ *   everything it references.
+ * </P>
+ *
+ * @param <T> the type of the sized instances
+ */
+public interface SizeOfEstimator<T> {
+
+  /**
+   * Estimates the size in bytes of the given instance, including the instances it references.
+   *
+   * @param instance the instance to size, never {@code null}
+   * @return the estimated size in bytes
+   */
+  long sizeof(T instance);
+
+}
@@ -34,6 +34,8 @@ import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
 import org.ehcache.impl.copy.SerializingCopier;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
+import org.ehcache.impl.config.store.heap.OnHeapStoreConfiguration;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.spi.copy.Copier;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 import org.ehcache.spi.serialization.Serializer;
@@ -43,6 +45,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration.DEFAULT_MAX_OBJECT_SIZE;
 import static org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration.DEFAULT_OBJECT_GRAPH_SIZE;
@@ -586,16 +589,96 @@ public class CacheConfigurationBuilder<K, V> implements Builder<CacheConfigurati
    * @return a new builder with the added configuration
    */
   public CacheConfigurationBuilder<K, V> withDiskStoreThreadPool(String threadPoolAlias, int concurrency) {
-    OffHeapDiskStoreConfiguration configuration = new OffHeapDiskStoreConfiguration(threadPoolAlias, concurrency);
     CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
     OffHeapDiskStoreConfiguration existingServiceConfiguration = getExistingServiceConfiguration(OffHeapDiskStoreConfiguration.class);
-    if (existingServiceConfiguration != null) {
+    OffHeapDiskStoreConfiguration configuration;
+    if (existingServiceConfiguration == null) {
+      configuration = new OffHeapDiskStoreConfiguration(threadPoolAlias, concurrency);
+    } else {
       otherBuilder.serviceConfigurations.remove(existingServiceConfiguration);
+      configuration = new OffHeapDiskStoreConfiguration(threadPoolAlias, concurrency,
+          existingServiceConfiguration.getJournalInterval(), existingServiceConfiguration.getJournalIntervalUnit());
     }
     otherBuilder.serviceConfigurations.add(configuration);
     return otherBuilder;
   }
 
+  /**
+   * Adds or updates the {@link ServiceConfiguration} for the
+   * {@link org.ehcache.impl.internal.store.disk.OffHeapDiskStore.Provider} with the specified journal interval.
+   * <P>
+   *   A journaled disk store recovers its content after a crash, losing at most one interval worth of changes.
+   *   An interval of {@code 0} disables journaling.
+   * </P>
+   *
+   * @param interval the journal flush interval quantity
+   * @param unit the journal flush interval unit
+   * @return a new builder with the added / updated configuration
+   */
+  public CacheConfigurationBuilder<K, V> withDiskStoreJournal(long interval, TimeUnit unit) {
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    OffHeapDiskStoreConfiguration existingServiceConfiguration = getExistingServiceConfiguration(OffHeapDiskStoreConfiguration.class);
+    OffHeapDiskStoreConfiguration configuration;
+    if (existingServiceConfiguration == null) {
+      configuration = new OffHeapDiskStoreConfiguration(null, 1, interval, unit);
+    } else {
+      otherBuilder.serviceConfigurations.remove(existingServiceConfiguration);
+      configuration = new OffHeapDiskStoreConfiguration(existingServiceConfiguration.getThreadPoolAlias(),
+          existingServiceConfiguration.getWriterConcurrency(), interval, unit);
+    }
+    otherBuilder.serviceConfigurations.add(configuration);
+    return otherBuilder;
+  }
+
+  /**
+   * Adds or updates the {@link OffHeapStoreConfiguration} with the specified segmentation to the configured builder.
+   * <P>
+   *   Passing {@link OffHeapStoreConfiguration#AUTO} lets the store derive the value from the number of available
+   *   processors and the size of the resource pool.
+   * </P>
+   *
+   * @param concurrency the number of segments of the off heap and disk tiers
+   * @param initialTableSize the initial hash table size of each segment
+   * @return a new builder with the added / updated configuration
+   */
+  public CacheConfigurationBuilder<K, V> withOffHeapStoreSegments(int concurrency, int initialTableSize) {
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    OffHeapStoreConfiguration configuration = otherBuilder.getExistingServiceConfiguration(OffHeapStoreConfiguration.class);
+    if (configuration == null) {
+      otherBuilder.serviceConfigurations.add(new OffHeapStoreConfiguration(concurrency, initialTableSize));
+    } else {
+      otherBuilder.serviceConfigurations.remove(configuration);
+      otherBuilder.serviceConfigurations.add(new OffHeapStoreConfiguration(concurrency, initialTableSize,
+          configuration.getMinimumPageSize(), configuration.getMaximumPageSize(), MemoryUnit.B));
+    }
+    return otherBuilder;
+  }
+
+  /**
+   * Adds or updates the {@link OffHeapStoreConfiguration} with the specified page sizes to the configured builder.
+   * <P>
+   *   Passing {@link OffHeapStoreConfiguration#AUTO} lets the store derive the value from the size of the resource pool.
+   * </P>
+   *
+   * @param minimumPageSize the size of the first data page allocated by a segment
+   * @param maximumPageSize the size of the largest chunk of memory allocated at once
+   * @param unit the unit of both page sizes
+   * @return a new builder with the added / updated configuration
+   */
+  public CacheConfigurationBuilder<K, V> withOffHeapStorePageSizes(long minimumPageSize, long maximumPageSize, MemoryUnit unit) {
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    OffHeapStoreConfiguration configuration = otherBuilder.getExistingServiceConfiguration(OffHeapStoreConfiguration.class);
+    if (configuration == null) {
+      otherBuilder.serviceConfigurations.add(new OffHeapStoreConfiguration(OffHeapStoreConfiguration.AUTO, OffHeapStoreConfiguration.AUTO,
+          minimumPageSize, maximumPageSize, unit));
+    } else {
+      otherBuilder.serviceConfigurations.remove(configuration);
+      otherBuilder.serviceConfigurations.add(new OffHeapStoreConfiguration(configuration.getConcurrency(), configuration.getInitialTableSize(),
+          minimumPageSize, maximumPageSize, unit));
+    }
+    return otherBuilder;
+  }
+
   /**
    * Adds or updates the {@link DefaultSizeOfEngineConfiguration} with the specified object graph maximum size to the configured
    * builder.
@@ -612,7 +695,7 @@ public class CacheConfigurationBuilder<K, V> implements Builder<CacheConfigurati
       otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(DEFAULT_MAX_OBJECT_SIZE, DEFAULT_UNIT, size));
     } else {
       otherBuilder.serviceConfigurations.remove(configuration);
-      otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(configuration.getMaxObjectSize(), configuration.getUnit(), size));
+      otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(configuration.getMaxObjectSize(), configuration.getUnit(), size, configuration.isLayoutCaching()));
     }
     return otherBuilder;
   }
@@ -634,8 +717,71 @@ public class CacheConfigurationBuilder<K, V> implements Builder<CacheConfigurati
       otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(size, unit, DEFAULT_OBJECT_GRAPH_SIZE));
     } else {
       otherBuilder.serviceConfigurations.remove(configuration);
-      otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(size, unit, configuration.getMaxObjectGraphSize()));
+      otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(size, unit, configuration.getMaxObjectGraphSize(), configuration.isLayoutCaching()));
+    }
+    return otherBuilder;
+  }
+
+  /**
+   * Adds or updates the {@link DefaultSizeOfEngineConfiguration} so that the heap tier is sized using cached class
+   * layouts and the registered {@link org.ehcache.core.spi.store.heap.SizeOfEstimator}s.
+   * </P>
+   * {@link SizeOfEngine} is what enables the heap tier to be sized in {@link MemoryUnit}.
+   *
+   * @return a new builder with the added / updated configuration
+   *
+   * @see CacheManagerBuilder#withSizeOfEstimator(Class, org.ehcache.core.spi.store.heap.SizeOfEstimator)
+   */
+  public CacheConfigurationBuilder<K, V> withSizeOfLayoutCaching() {
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    DefaultSizeOfEngineConfiguration configuration = otherBuilder.getExistingServiceConfiguration(DefaultSizeOfEngineConfiguration.class);
+    if (configuration == null) {
+      otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(DEFAULT_MAX_OBJECT_SIZE, DEFAULT_UNIT, DEFAULT_OBJECT_GRAPH_SIZE, true));
+    } else {
+      otherBuilder.serviceConfigurations.remove(configuration);
+      otherBuilder.serviceConfigurations.add(new DefaultSizeOfEngineConfiguration(configuration.getMaxObjectSize(), configuration.getUnit(), configuration.getMaxObjectGraphSize(), true));
+    }
+    return otherBuilder;
+  }
+
+  /**
+   * Adds or updates the {@link OnHeapStoreConfiguration} with the specified eviction policy to the configured builder.
+   *
+   * @param evictionPolicy the heap tier eviction policy
+   * @return a new builder with the added / updated configuration
+   */
+  public CacheConfigurationBuilder<K, V> withHeapEvictionPolicy(OnHeapStoreConfiguration.EvictionPolicy evictionPolicy) {
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    OnHeapStoreConfiguration configuration = otherBuilder.getExistingServiceConfiguration(OnHeapStoreConfiguration.class);
+    if (configuration == null) {
+      otherBuilder.serviceConfigurations.add(new OnHeapStoreConfiguration(evictionPolicy));
+    } else {
+      otherBuilder.serviceConfigurations.remove(configuration);
+      otherBuilder.serviceConfigurations.add(new OnHeapStoreConfiguration(evictionPolicy, configuration.isBackgroundEviction(),
+          configuration.getThreadPoolAlias(), configuration.getEvictionBand()));
+    }
+    return otherBuilder;
+  }
+
+  /**
+   * Adds or updates the {@link OnHeapStoreConfiguration} so that the heap tier evicts from a background task running
+   * on the given thread pool instead of on the writing threads.
+   *
+   * @param threadPoolAlias the thread pool alias, {@code null} for the default pool
+   * @param evictionBand the fraction of the heap capacity by which the tier is allowed to overshoot
+   * @return a new builder with the added / updated configuration
+   *
+   * @see OnHeapStoreConfiguration#OnHeapStoreConfiguration(OnHeapStoreConfiguration.EvictionPolicy, boolean, String, float)
+   */
+  public CacheConfigurationBuilder<K, V> withHeapBackgroundEviction(String threadPoolAlias, float evictionBand) {
+    CacheConfigurationBuilder<K, V> otherBuilder = new CacheConfigurationBuilder<K, V>(this);
+    OnHeapStoreConfiguration configuration = otherBuilder.getExistingServiceConfiguration(OnHeapStoreConfiguration.class);
+    OnHeapStoreConfiguration.EvictionPolicy evictionPolicy = OnHeapStoreConfiguration.DEFAULT_EVICTION_POLICY;
+    if (configuration != null) {
+      otherBuilder.serviceConfigurations.remove(configuration);
+      evictionPolicy = configuration.getEvictionPolicy();
     }
+    otherBuilder.serviceConfigurations.add(new OnHeapStoreConfiguration(evictionPolicy, true, threadPoolAlias, evictionBand));
     return otherBuilder;
   }
 
@@ -24,6 +24,7 @@ import org.ehcache.config.Configuration;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.EhcacheManager;
 import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
 import org.ehcache.impl.config.copy.DefaultCopyProviderConfiguration;
 import org.ehcache.impl.config.event.CacheEventDispatcherFactoryConfiguration;
 import org.ehcache.impl.config.loaderwriter.writebehind.WriteBehindProviderConfiguration;
@@ -38,7 +39,9 @@ import org.ehcache.spi.service.ServiceCreationConfiguration;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import static java.util.Collections.emptySet;
@@ -248,7 +251,7 @@ public class CacheManagerBuilder<T extends CacheManager> implements Builder<T> {
       return new CacheManagerBuilder<T>(this, configBuilder.addService(new DefaultSizeOfEngineProviderConfiguration(DEFAULT_MAX_OBJECT_SIZE, DEFAULT_UNIT, size)));
     } else {
       ConfigurationBuilder builder = configBuilder.removeService(configuration);
-      return new CacheManagerBuilder<T>(this, builder.addService(new DefaultSizeOfEngineProviderConfiguration(configuration.getMaxObjectSize(), configuration.getUnit(), size)));
+      return new CacheManagerBuilder<T>(this, builder.addService(new DefaultSizeOfEngineProviderConfiguration(configuration.getMaxObjectSize(), configuration.getUnit(), size, configuration.getEstimators())));
     }
   }
 
@@ -266,7 +269,36 @@ public class CacheManagerBuilder<T extends CacheManager> implements Builder<T> {
       return new CacheManagerBuilder<T>(this, configBuilder.addService(new DefaultSizeOfEngineProviderConfiguration(size, unit, DEFAULT_OBJECT_GRAPH_SIZE)));
     } else {
       ConfigurationBuilder builder = configBuilder.removeService(configuration);
-      return new CacheManagerBuilder<T>(this, builder.addService(new DefaultSizeOfEngineProviderConfiguration(size, unit, configuration.getMaxObjectGraphSize())));
+      return new CacheManagerBuilder<T>(this, builder.addService(new DefaultSizeOfEngineProviderConfiguration(size, unit, configuration.getMaxObjectGraphSize(), configuration.getEstimators())));
+    }
+  }
+
+  /**
+   * Adds a {@link SizeOfEstimator} for instances of exactly the given type to the default {@link SizeOfEngine}
+   * configuration of the returned builder.
+   * <P>
+   *   Estimators are only used by caches sizing with cached layouts.
+   * </P>
+   *
+   * @param type the sized type
+   * @param estimator the size estimator
+   * @param <C> the sized type
+   * @return a new builder with the added configuration
+   *
+   * @see CacheConfigurationBuilder#withSizeOfLayoutCaching()
+   */
+  public <C> CacheManagerBuilder<T> withSizeOfEstimator(Class<C> type, SizeOfEstimator<? super C> estimator) {
+    DefaultSizeOfEngineProviderConfiguration configuration = configBuilder.findServiceByClass(DefaultSizeOfEngineProviderConfiguration.class);
+    Map<Class<?>, SizeOfEstimator<?>> estimators = new HashMap<Class<?>, SizeOfEstimator<?>>();
+    if (configuration == null) {
+      estimators.put(type, estimator);
+      return new CacheManagerBuilder<T>(this, configBuilder.addService(new DefaultSizeOfEngineProviderConfiguration(DEFAULT_MAX_OBJECT_SIZE, DEFAULT_UNIT, DEFAULT_OBJECT_GRAPH_SIZE, estimators)));
+    } else {
+      ConfigurationBuilder builder = configBuilder.removeService(configuration);
+      estimators.putAll(configuration.getEstimators());
+      estimators.put(type, estimator);
+      return new CacheManagerBuilder<T>(this, builder.addService(new DefaultSizeOfEngineProviderConfiguration(configuration.getMaxObjectSize(),
+          configuration.getUnit(), configuration.getMaxObjectGraphSize(), estimators)));
     }
   }
 
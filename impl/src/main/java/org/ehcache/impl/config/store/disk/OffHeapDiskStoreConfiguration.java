@@ -19,6 +19,8 @@ package org.ehcache.impl.config.store.disk;
 import org.ehcache.impl.internal.store.disk.OffHeapDiskStore;
 import org.ehcache.spi.service.ServiceConfiguration;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * {@link ServiceConfiguration} for the default {@link org.ehcache.core.spi.store.Store off heap disk store}.
  */
@@ -26,6 +28,8 @@ public class OffHeapDiskStoreConfiguration implements ServiceConfiguration<OffHe
 
   private final String threadPoolAlias;
   private final int writerConcurrency;
+  private final long journalInterval;
+  private final TimeUnit journalIntervalUnit;
 
   /**
    * Creates a new configuration instance using the provided parameters.
@@ -36,8 +40,37 @@ public class OffHeapDiskStoreConfiguration implements ServiceConfiguration<OffHe
    * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
    */
   public OffHeapDiskStoreConfiguration(String threadPoolAlias, int writerConcurrency) {
+    this(threadPoolAlias, writerConcurrency, 0, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Creates a new configuration instance using the provided parameters.
+   * <P>
+   *   A positive journal interval makes the store journal its changes, forcing them to disk at that interval, so
+   *   that its content can be recovered after a crash. At most one interval worth of changes is lost.
+   *   A journal interval of {@code 0} disables journaling: the content then only survives clean shutdowns.
+   * </P>
+   *
+   * @param threadPoolAlias the thread pool alias
+   * @param writerConcurrency the writer concurrency
+   * @param journalInterval the journal flush interval quantity, {@code 0} to disable journaling
+   * @param journalIntervalUnit the journal flush interval unit
+   *
+   * @throws IllegalArgumentException if the journal interval is negative
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public OffHeapDiskStoreConfiguration(String threadPoolAlias, int writerConcurrency, long journalInterval, TimeUnit journalIntervalUnit) {
+    if (journalInterval < 0) {
+      throw new IllegalArgumentException("Journal interval must be positive or zero: " + journalInterval);
+    }
+    if (journalIntervalUnit == null) {
+      throw new NullPointerException("Journal interval unit can't be null");
+    }
     this.threadPoolAlias = threadPoolAlias;
     this.writerConcurrency = writerConcurrency;
+    this.journalInterval = journalInterval;
+    this.journalIntervalUnit = journalIntervalUnit;
   }
 
   /**
@@ -60,6 +93,24 @@ public class OffHeapDiskStoreConfiguration implements ServiceConfiguration<OffHe
     return writerConcurrency;
   }
 
+  /**
+   * Returns the journal flush interval quantity, {@code 0} when journaling is disabled.
+   *
+   * @return the journal interval
+   */
+  public long getJournalInterval() {
+    return journalInterval;
+  }
+
+  /**
+   * Returns the journal flush interval unit.
+   *
+   * @return the journal interval unit
+   */
+  public TimeUnit getJournalIntervalUnit() {
+    return journalIntervalUnit;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -43,6 +43,7 @@ public class DefaultSizeOfEngineConfiguration implements ServiceConfiguration<Si
   private final long objectGraphSize;
   private final long maxObjectSize;
   private final MemoryUnit unit;
+  private final boolean layoutCaching;
 
   /**
    * Creates a new configuration object with the provided parameters.
@@ -52,12 +53,27 @@ public class DefaultSizeOfEngineConfiguration implements ServiceConfiguration<Si
    * @param objectGraphSize the maximum object graph size
    */
   public DefaultSizeOfEngineConfiguration(long size, MemoryUnit unit, long objectGraphSize) {
+    this(size, unit, objectGraphSize, false);
+  }
+
+  /**
+   * Creates a new configuration object with the provided parameters.
+   *
+   * @param size the maximum object size
+   * @param unit the object size unit
+   * @param objectGraphSize the maximum object graph size
+   * @param layoutCaching {@code true} to size using cached class layouts and registered estimators
+   *
+   * @see #isLayoutCaching()
+   */
+  public DefaultSizeOfEngineConfiguration(long size, MemoryUnit unit, long objectGraphSize, boolean layoutCaching) {
     if (size <= 0 || objectGraphSize <= 0) {
       throw new IllegalArgumentException("ObjectGraphSize/ObjectSize can only accept positive values.");
     }
     this.objectGraphSize = objectGraphSize;
     this.maxObjectSize = size;
     this.unit = unit;
+    this.layoutCaching = layoutCaching;
   }
 
   /**
@@ -108,4 +124,20 @@ public class DefaultSizeOfEngineConfiguration implements ServiceConfiguration<Si
     return this.unit;
   }
 
+  /**
+   * Indicates whether sizing uses cached class layouts.
+   * <P>
+   *   In this mode the shallow size and reference fields of each class are computed once, and instances of types for
+   *   which a {@link org.ehcache.core.spi.store.heap.SizeOfEstimator} is registered are sized by the estimator instead
+   *   of being traversed.
+   * </P>
+   *
+   * @return {@code true} if layouts are cached
+   *
+   * @see DefaultSizeOfEngineProviderConfiguration#getEstimators()
+   */
+  public boolean isLayoutCaching() {
+    return this.layoutCaching;
+  }
+
 }
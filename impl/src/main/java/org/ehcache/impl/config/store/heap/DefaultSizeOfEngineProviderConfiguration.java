@@ -18,8 +18,13 @@ package org.ehcache.impl.config.store.heap;
 
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.spi.store.heap.SizeOfEngineProvider;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
 import org.ehcache.spi.service.ServiceCreationConfiguration;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * {@link ServiceCreationConfiguration} for the default {@link SizeOfEngineProvider}.
  */
@@ -28,6 +33,7 @@ public class DefaultSizeOfEngineProviderConfiguration implements ServiceCreation
   private final long objectGraphSize;
   private final long maxObjectSize;
   private final MemoryUnit unit;
+  private final Map<Class<?>, SizeOfEstimator<?>> estimators;
 
   /**
    * Creates a new configuration object with the provided parameters.
@@ -37,12 +43,27 @@ public class DefaultSizeOfEngineProviderConfiguration implements ServiceCreation
    * @param objectGraphSize the maximum object graph size
    */
   public DefaultSizeOfEngineProviderConfiguration(long size, MemoryUnit unit, long objectGraphSize) {
+    this(size, unit, objectGraphSize, Collections.<Class<?>, SizeOfEstimator<?>>emptyMap());
+  }
+
+  /**
+   * Creates a new configuration object with the provided parameters.
+   *
+   * @param size the maximum object size
+   * @param unit the object size unit
+   * @param objectGraphSize the maximum object graph size
+   * @param estimators the size estimators, keyed by the exact type they size
+   *
+   * @see #getEstimators()
+   */
+  public DefaultSizeOfEngineProviderConfiguration(long size, MemoryUnit unit, long objectGraphSize, Map<Class<?>, SizeOfEstimator<?>> estimators) {
     if (size <= 0 || objectGraphSize <= 0) {
       throw new IllegalArgumentException("SizeOfEngine cannot take non-positive arguments.");
     }
     this.objectGraphSize = objectGraphSize;
     this.maxObjectSize = size;
     this.unit = unit;
+    this.estimators = Collections.unmodifiableMap(new HashMap<Class<?>, SizeOfEstimator<?>>(estimators));
   }
 
   /**
@@ -92,4 +113,18 @@ public class DefaultSizeOfEngineProviderConfiguration implements ServiceCreation
   public MemoryUnit getUnit() {
     return this.unit;
   }
+
+  /**
+   * Returns the size estimators, keyed by the exact type they size.
+   * <P>
+   *   Estimators are only used by caches sizing with cached layouts.
+   * </P>
+   *
+   * @return the size estimators
+   *
+   * @see DefaultSizeOfEngineConfiguration#isLayoutCaching()
+   */
+  public Map<Class<?>, SizeOfEstimator<?>> getEstimators() {
+    return this.estimators;
+  }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.config.store.heap;
+
+import org.ehcache.impl.internal.store.heap.OnHeapStore;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+/**
+ * {@link ServiceConfiguration} for the default {@link org.ehcache.core.spi.store.Store on heap store}.
+ */
+public class OnHeapStoreConfiguration implements ServiceConfiguration<OnHeapStore.Provider> {
+
+  /**
+   * The eviction policies supported by the on heap store.
+   */
+  public enum EvictionPolicy {
+    /**
+     * Evicts the least recently used mapping out of a small random sample.
+     * <P>
+     *   This is the default policy.
+     * </P>
+     */
+    SAMPLED_LRU,
+    /**
+     * Evicts using {@link #SAMPLED_LRU} but only admits a new mapping into a full store if its key has been accessed
+     * more frequently in the recent past than the key it would displace.
+     * <P>
+     *   Access frequencies are estimated by a compact count-min sketch, which protects frequently used mappings from
+     *   being displaced by keys that are only ever accessed once.
+     * </P>
+     */
+    TINY_LFU
+  }
+
+  /**
+   * Default eviction policy
+   */
+  public static final EvictionPolicy DEFAULT_EVICTION_POLICY = EvictionPolicy.SAMPLED_LRU;
+
+  /**
+   * Default fraction of the heap capacity used as eviction band in background eviction mode
+   */
+  public static final float DEFAULT_EVICTION_BAND = 0.05f;
+
+  private final EvictionPolicy evictionPolicy;
+  private final boolean backgroundEviction;
+  private final String threadPoolAlias;
+  private final float evictionBand;
+
+  /**
+   * Creates a new configuration instance using the provided eviction policy, evicting on the writing threads.
+   *
+   * @param evictionPolicy the eviction policy
+   */
+  public OnHeapStoreConfiguration(EvictionPolicy evictionPolicy) {
+    this(evictionPolicy, false, null, DEFAULT_EVICTION_BAND);
+  }
+
+  /**
+   * Creates a new configuration instance using the provided parameters.
+   * <P>
+   *   In background eviction mode, writes no longer evict once the heap tier is full. Instead a task running on the
+   *   given thread pool evicts mappings until the tier is {@code evictionBand} below its capacity. Writers only evict
+   *   inline when the tier overshoots its capacity by more than {@code evictionBand}.
+   * </P>
+   *
+   * @param evictionPolicy the eviction policy
+   * @param backgroundEviction {@code true} to evict from a background task
+   * @param threadPoolAlias the thread pool alias of the background eviction task, {@code null} for the default pool
+   * @param evictionBand the fraction of the capacity used as low and high water marks, between 0 inclusive and 1 exclusive
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public OnHeapStoreConfiguration(EvictionPolicy evictionPolicy, boolean backgroundEviction, String threadPoolAlias, float evictionBand) {
+    if (evictionPolicy == null) {
+      throw new NullPointerException("Eviction policy cannot be null");
+    }
+    if (evictionBand < 0f || evictionBand >= 1f) {
+      throw new IllegalArgumentException("Eviction band must be in the [0, 1) range, was " + evictionBand);
+    }
+    this.evictionPolicy = evictionPolicy;
+    this.backgroundEviction = backgroundEviction;
+    this.threadPoolAlias = threadPoolAlias;
+    this.evictionBand = evictionBand;
+  }
+
+  /**
+   * Returns the configured eviction policy.
+   *
+   * @return the eviction policy
+   */
+  public EvictionPolicy getEvictionPolicy() {
+    return evictionPolicy;
+  }
+
+  /**
+   * Indicates whether eviction is performed by a background task.
+   *
+   * @return {@code true} if eviction happens in the background
+   */
+  public boolean isBackgroundEviction() {
+    return backgroundEviction;
+  }
+
+  /**
+   * Returns the thread pool alias used by the background eviction task.
+   *
+   * @return the thread pool alias, {@code null} for the default pool
+   *
+   * @see org.ehcache.impl.config.executor.PooledExecutionServiceConfiguration
+   */
+  public String getThreadPoolAlias() {
+    return threadPoolAlias;
+  }
+
+  /**
+   * Returns the fraction of the capacity used as eviction band in background eviction mode.
+   *
+   * @return the eviction band
+   */
+  public float getEvictionBand() {
+    return evictionBand;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<OnHeapStore.Provider> getServiceType() {
+    return OnHeapStore.Provider.class;
+  }
+}
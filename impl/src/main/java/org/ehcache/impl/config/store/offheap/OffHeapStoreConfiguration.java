@@ -0,0 +1,130 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehcache.impl.config.store.offheap;
+
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.internal.store.offheap.OffHeapStore;
+import org.ehcache.spi.service.ServiceConfiguration;
+
+/**
+ * {@link ServiceConfiguration} for the default {@link org.ehcache.core.spi.store.Store off heap store}.
+ * <P>
+ *   It controls how the off heap structures are segmented and paged. Any value left to {@link #AUTO} is derived from
+ *   the number of available processors and the size of the resource pool. The settings also apply to the off heap
+ *   structures backing the default disk store.
+ * </P>
+ */
+public class OffHeapStoreConfiguration implements ServiceConfiguration<OffHeapStore.Provider> {
+
+  /**
+   * Value requesting that a setting be tuned automatically
+   */
+  public static final int AUTO = 0;
+
+  private final int concurrency;
+  private final int initialTableSize;
+  private final long minimumPageSize;
+  private final long maximumPageSize;
+
+  /**
+   * Creates a new configuration instance using the provided segmentation, leaving page sizes to be tuned automatically.
+   *
+   * @param concurrency the number of segments, rounded up to a power of two, or {@link #AUTO}
+   * @param initialTableSize the initial hash table size of each segment, or {@link #AUTO}
+   */
+  public OffHeapStoreConfiguration(int concurrency, int initialTableSize) {
+    this(concurrency, initialTableSize, AUTO, AUTO, MemoryUnit.B);
+  }
+
+  /**
+   * Creates a new configuration instance using the provided parameters.
+   *
+   * @param concurrency the number of segments, rounded up to a power of two, or {@link #AUTO}
+   * @param initialTableSize the initial hash table size of each segment, or {@link #AUTO}
+   * @param minimumPageSize the size of the first data page allocated by a segment, or {@link #AUTO}
+   * @param maximumPageSize the size of the largest chunk of memory allocated at once, or {@link #AUTO}
+   * @param unit the unit of both page sizes
+   */
+  public OffHeapStoreConfiguration(int concurrency, int initialTableSize, long minimumPageSize, long maximumPageSize, MemoryUnit unit) {
+    if (concurrency < 0 || initialTableSize < 0 || minimumPageSize < 0 || maximumPageSize < 0) {
+      throw new IllegalArgumentException("Concurrency, table size and page sizes cannot be negative");
+    }
+    if (unit == null) {
+      throw new NullPointerException("Page size unit cannot be null");
+    }
+    long minimumPageBytes = unit.toBytes(minimumPageSize);
+    long maximumPageBytes = unit.toBytes(maximumPageSize);
+    if (minimumPageBytes > Integer.MAX_VALUE || maximumPageBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Page sizes cannot exceed " + Integer.MAX_VALUE + " bytes");
+    }
+    if (minimumPageBytes != AUTO && maximumPageBytes != AUTO && minimumPageBytes > maximumPageBytes) {
+      throw new IllegalArgumentException("Minimum page size " + minimumPageBytes + "B is larger than maximum page size " + maximumPageBytes + "B");
+    }
+    this.concurrency = concurrency;
+    this.initialTableSize = initialTableSize;
+    this.minimumPageSize = minimumPageBytes;
+    this.maximumPageSize = maximumPageBytes;
+  }
+
+  /**
+   * Returns the configured number of segments.
+   *
+   * @return the concurrency, or {@link #AUTO}
+   */
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * Returns the configured initial hash table size of each segment.
+   *
+   * @return the initial table size, or {@link #AUTO}
+   */
+  public int getInitialTableSize() {
+    return initialTableSize;
+  }
+
+  /**
+   * Returns the configured size of the first data page allocated by a segment.
+   * <P>
+   *   The disk store allocates its pages on demand and ignores this setting.
+   * </P>
+   *
+   * @return the minimum page size in bytes, or {@link #AUTO}
+   */
+  public long getMinimumPageSize() {
+    return minimumPageSize;
+  }
+
+  /**
+   * Returns the configured size of the largest chunk of memory allocated at once.
+   *
+   * @return the maximum page size in bytes, or {@link #AUTO}
+   */
+  public long getMaximumPageSize() {
+    return maximumPageSize;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<OffHeapStore.Provider> getServiceType() {
+    return OffHeapStore.Provider.class;
+  }
+}
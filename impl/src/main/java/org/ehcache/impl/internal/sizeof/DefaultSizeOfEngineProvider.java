@@ -24,6 +24,12 @@ import org.ehcache.spi.service.Service;
 import org.ehcache.spi.service.ServiceConfiguration;
 import org.ehcache.core.spi.store.heap.SizeOfEngine;
 import org.ehcache.core.spi.store.heap.SizeOfEngineProvider;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
+import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Abhilash
@@ -33,10 +39,33 @@ public class DefaultSizeOfEngineProvider implements SizeOfEngineProvider {
 
   private final long maxObjectGraphSize;
   private final long maxObjectSize;
+  private final ConcurrentMap<Class<?>, SizeOfEstimator<?>> estimators = new ConcurrentHashMap<Class<?>, SizeOfEstimator<?>>();
 
   public DefaultSizeOfEngineProvider(long maxObjectGraphSize, long maxObjectSize) {
+    this(maxObjectGraphSize, maxObjectSize, Collections.<Class<?>, SizeOfEstimator<?>>emptyMap());
+  }
+
+  public DefaultSizeOfEngineProvider(long maxObjectGraphSize, long maxObjectSize, Map<Class<?>, SizeOfEstimator<?>> estimators) {
     this.maxObjectGraphSize = maxObjectGraphSize;
     this.maxObjectSize = maxObjectSize;
+    this.estimators.putAll(estimators);
+  }
+
+  /**
+   * Registers a size estimator for instances of exactly the given type.
+   * <P>
+   *   The estimator is used by engines sizing with cached layouts created after the registration.
+   * </P>
+   *
+   * @param type the sized type
+   * @param estimator the estimator
+   * @param <T> the sized type
+   */
+  public <T> void registerEstimator(Class<T> type, SizeOfEstimator<? super T> estimator) {
+    if (type == null || estimator == null) {
+      throw new NullPointerException("Type and estimator cannot be null");
+    }
+    estimators.put(type, estimator);
   }
 
   @Override
@@ -58,6 +87,9 @@ public class DefaultSizeOfEngineProvider implements SizeOfEngineProvider {
     DefaultSizeOfEngineConfiguration config = ServiceLocator.findSingletonAmongst(DefaultSizeOfEngineConfiguration.class, (Object[]) serviceConfigs);
     if(config != null) {
       long maxSize = config.getUnit().toBytes(config.getMaxObjectSize());
+      if (config.isLayoutCaching()) {
+        return new LayoutCachingSizeOfEngine(config.getMaxObjectGraphSize(), maxSize, estimators);
+      }
       return new DefaultSizeOfEngine(config.getMaxObjectGraphSize(), maxSize);
     }
     return new DefaultSizeOfEngine(maxObjectGraphSize, maxObjectSize);
@@ -21,6 +21,10 @@ import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfigurati
 import org.ehcache.spi.service.ServiceCreationConfiguration;
 import org.ehcache.core.spi.service.ServiceFactory;
 import org.ehcache.core.spi.store.heap.SizeOfEngineProvider;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
+
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * @author Abhilash
@@ -33,12 +37,14 @@ public class DefaultSizeOfEngineProviderFactory implements ServiceFactory<SizeOf
   public SizeOfEngineProvider create(ServiceCreationConfiguration<SizeOfEngineProvider> configuration) {
     long maxTraversals = DefaultSizeOfEngineConfiguration.DEFAULT_OBJECT_GRAPH_SIZE;
     long maxSize = DefaultSizeOfEngineConfiguration.DEFAULT_MAX_OBJECT_SIZE;
+    Map<Class<?>, SizeOfEstimator<?>> estimators = Collections.emptyMap();
     if(configuration != null) {
       DefaultSizeOfEngineProviderConfiguration sizeOfEngineConfiguration = (DefaultSizeOfEngineProviderConfiguration)configuration;
       maxTraversals = sizeOfEngineConfiguration.getMaxObjectGraphSize();
       maxSize = sizeOfEngineConfiguration.getUnit().toBytes(sizeOfEngineConfiguration.getMaxObjectSize());
+      estimators = sizeOfEngineConfiguration.getEstimators();
     }
-    return new DefaultSizeOfEngineProvider(maxTraversals, maxSize);
+    return new DefaultSizeOfEngineProvider(maxTraversals, maxSize, estimators);
   }
 
   @Override
@@ -0,0 +1,255 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.internal.sizeof;
+
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.core.spi.store.heap.LimitExceededException;
+import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
+import org.ehcache.impl.copy.IdentityCopier;
+import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
+import org.ehcache.impl.internal.store.heap.holders.CopiedOnHeapKey;
+import org.ehcache.sizeof.SizeOf;
+import org.ehcache.sizeof.SizeOfFilterSource;
+import org.ehcache.sizeof.annotations.IgnoreSizeOf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SizeOfEngine} that walks object graphs using a per class cache of shallow layouts.
+ * <P>
+ *   The shallow size and the reference fields of a class are computed the first time an instance of it is sized, so
+ *   that later sizings only read references and add up cached sizes. Instances of a type for which a
+ *   {@link SizeOfEstimator} is registered are sized by the estimator and not traversed.
+ * </P>
+ * <P>
+ *   The traversal state is kept per thread and reused across sizings, so that sizing a mapping does not allocate
+ *   once the layouts of its classes are known.
+ * </P>
+ */
+public class LayoutCachingSizeOfEngine implements SizeOfEngine {
+
+  private static final int MAX_RETAINED_TRAVERSAL_SIZE = 1024;
+
+  private final long maxObjectGraphSize;
+  private final long maxObjectSize;
+  private final SizeOf sizeOf;
+  private final long chmTreeBinOffset;
+  private final long onHeapKeyOffset;
+  private final Map<Class<?>, SizeOfEstimator<?>> estimators;
+  private final ConcurrentHashMap<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<Class<?>, ClassLayout>();
+  private final ThreadLocal<Traversal> traversals = new ThreadLocal<Traversal>() {
+    @Override
+    protected Traversal initialValue() {
+      return new Traversal();
+    }
+  };
+
+  public LayoutCachingSizeOfEngine(long maxObjectGraphSize, long maxObjectSize) {
+    this(maxObjectGraphSize, maxObjectSize, Collections.<Class<?>, SizeOfEstimator<?>>emptyMap());
+  }
+
+  public LayoutCachingSizeOfEngine(long maxObjectGraphSize, long maxObjectSize, Map<Class<?>, SizeOfEstimator<?>> estimators) {
+    this.maxObjectGraphSize = maxObjectGraphSize;
+    this.maxObjectSize = maxObjectSize;
+    this.estimators = new ConcurrentHashMap<Class<?>, SizeOfEstimator<?>>(estimators);
+    this.sizeOf = SizeOf.newInstance(new SizeOfFilterSource(true).getFilters());
+    this.onHeapKeyOffset = sizeOf.deepSizeOf(new CopiedOnHeapKey<Object>(new Object(), new IdentityCopier<Object>()));
+    this.chmTreeBinOffset = sizeOf.deepSizeOf(ConcurrentHashMap.FAKE_TREE_BIN);
+  }
+
+  @Override
+  public <K, V> long sizeof(K key, Store.ValueHolder<V> holder) throws LimitExceededException {
+    Traversal traversal = traversals.get();
+    if (traversal.inUse) {
+      // re-entrant sizing from an estimator
+      traversal = new Traversal();
+    }
+    traversal.inUse = true;
+    try {
+      traversal.push(key);
+      traversal.push(holder);
+      return traverse(traversal) + this.chmTreeBinOffset + this.onHeapKeyOffset;
+    } finally {
+      traversal.reset();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private long traverse(Traversal traversal) throws LimitExceededException {
+    long count = 0;
+    long size = 0;
+    ArrayDeque<Object> stack = traversal.stack;
+    IdentityHashMap<Object, Object> visited = traversal.visited;
+    while (!stack.isEmpty()) {
+      Object object = stack.pop();
+      if (visited.put(object, object) != null || isFlyweight(object)) {
+        continue;
+      }
+      ClassLayout layout = layoutOf(object);
+      if (layout.ignored) {
+        continue;
+      }
+
+      if (++count > maxObjectGraphSize) {
+        throw new LimitExceededException("Max Object Graph Size reached for the object : " + object);
+      }
+      if (layout.estimator != null) {
+        size += ((SizeOfEstimator<Object>) layout.estimator).sizeof(object);
+      } else if (layout.array) {
+        size += sizeOf.sizeOf(object);
+      } else {
+        size += layout.shallowSize;
+      }
+      if (size > maxObjectSize) {
+        throw new LimitExceededException("Max Object Size reached for the object : " + object);
+      }
+
+      if (layout.estimator == null) {
+        if (layout.referenceArray) {
+          for (Object element : (Object[]) object) {
+            traversal.push(element);
+          }
+        } else {
+          for (Field field : layout.references) {
+            traversal.push(read(field, object));
+          }
+        }
+      }
+    }
+    return size;
+  }
+
+  private ClassLayout layoutOf(Object object) {
+    Class<?> klazz = object.getClass();
+    ClassLayout layout = layouts.get(klazz);
+    if (layout == null) {
+      layout = new ClassLayout(klazz, estimators.get(klazz), klazz.isArray() ? 0L : sizeOf.sizeOf(object));
+      ClassLayout racer = layouts.putIfAbsent(klazz, layout);
+      if (racer != null) {
+        layout = racer;
+      }
+    }
+    return layout;
+  }
+
+  private static Object read(Field field, Object object) {
+    try {
+      return field.get(object);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Field " + field + " was made accessible but cannot be read", e);
+    }
+  }
+
+  /**
+   * Returns {@code true} for shared instances that are not accounted against any mapping.
+   */
+  private static boolean isFlyweight(Object object) {
+    if (object instanceof Enum || object instanceof Class || object instanceof ClassLoader) {
+      return true;
+    } else if (object instanceof Boolean) {
+      return object == Boolean.TRUE || object == Boolean.FALSE;
+    } else if (object instanceof Integer) {
+      int value = (Integer) object;
+      return value >= -128 && value <= 127 && object == Integer.valueOf(value);
+    } else if (object instanceof Long) {
+      long value = (Long) object;
+      return value >= -128 && value <= 127 && object == Long.valueOf(value);
+    } else if (object instanceof Short) {
+      short value = (Short) object;
+      return value >= -128 && value <= 127 && object == Short.valueOf(value);
+    } else if (object instanceof Byte) {
+      return object == Byte.valueOf((Byte) object);
+    } else if (object instanceof Character) {
+      char value = (Character) object;
+      return value <= 127 && object == Character.valueOf(value);
+    } else {
+      return false;
+    }
+  }
+
+  private static final class ClassLayout {
+
+    private static final Field[] NO_FIELDS = new Field[0];
+
+    private final boolean ignored;
+    private final boolean array;
+    private final boolean referenceArray;
+    private final long shallowSize;
+    private final Field[] references;
+    private final SizeOfEstimator<?> estimator;
+
+    ClassLayout(Class<?> klazz, SizeOfEstimator<?> estimator, long shallowSize) {
+      this.ignored = klazz.isAnnotationPresent(IgnoreSizeOf.class);
+      this.array = klazz.isArray();
+      this.referenceArray = array && !klazz.getComponentType().isPrimitive();
+      this.shallowSize = shallowSize;
+      this.estimator = estimator;
+      this.references = (array || estimator != null || ignored) ? NO_FIELDS : referenceFields(klazz);
+    }
+
+    private static Field[] referenceFields(Class<?> klazz) {
+      List<Field> fields = new ArrayList<Field>();
+      for (Class<?> c = klazz; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()
+              || field.isAnnotationPresent(IgnoreSizeOf.class)) {
+            continue;
+          }
+          try {
+            field.setAccessible(true);
+            fields.add(field);
+          } catch (RuntimeException e) {
+            // not accessible (security manager or module encapsulation), the referenced graph is not accounted
+          }
+        }
+      }
+      return fields.toArray(new Field[fields.size()]);
+    }
+  }
+
+  private static final class Traversal {
+
+    private ArrayDeque<Object> stack = new ArrayDeque<Object>();
+    private IdentityHashMap<Object, Object> visited = new IdentityHashMap<Object, Object>();
+    private boolean inUse;
+
+    void push(Object object) {
+      if (object != null) {
+        stack.push(object);
+      }
+    }
+
+    void reset() {
+      if (visited.size() > MAX_RETAINED_TRAVERSAL_SIZE) {
+        visited = new IdentityHashMap<Object, Object>();
+        stack = new ArrayDeque<Object>();
+      } else {
+        visited.clear();
+        stack.clear();
+      }
+      inUse = false;
+    }
+  }
+}
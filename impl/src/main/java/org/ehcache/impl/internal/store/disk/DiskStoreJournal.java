@@ -0,0 +1,486 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehcache.impl.internal.store.disk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terracotta.offheapstore.storage.portability.Portability;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static java.lang.Math.max;
+
+/**
+ * Append-only journal of the mapping changes of an {@link OffHeapDiskStore}, allowing its content to be recovered
+ * when the store was not shut down cleanly.
+ * <P>
+ *   Changes are encoded and queued by the threads making them, and written to disk in batches by {@link #flush()}.
+ *   The journal is split in generations: {@link #checkpoint(MappingJournal.Source)} starts a new generation, writes a
+ *   snapshot of all the mappings and then deletes the files of the previous generations. Replaying the most recent
+ *   complete snapshot followed by the logs of the same and later generations restores the mappings as of the last
+ *   flush. The snapshot is taken while changes continue to be logged, applying the log of its generation after it
+ *   makes it consistent again.
+ * </P>
+ * <P>
+ *   Every record is prefixed by its length and checksum, so that a record torn by a crash ends the replay of its file.
+ * </P>
+ */
+class DiskStoreJournal<K, V> implements MappingJournal<K, V>, Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskStoreJournal.class);
+
+  private static final String FILE_PREFIX = "ehcache-disk-store.journal.";
+  private static final String LOG_SUFFIX = ".log";
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final Pattern FILE_PATTERN = Pattern.compile("ehcache-disk-store\\.journal\\.(\\d+)\\.(log|snapshot|snapshot\\.tmp)");
+
+  private static final byte MAPPED = 1;
+  private static final byte REMOVED = 2;
+  private static final byte CLEARED = 3;
+
+  private static final int HEADER_SIZE = 8;
+  private static final int STAGING_BUFFER_SIZE = 64 * 1024;
+  private static final long MAXIMUM_PENDING_BYTES = 16L * 1024 * 1024;
+  private static final long MINIMUM_CHECKPOINT_LOG_SIZE = 64L * 1024 * 1024;
+
+  private final File directory;
+  private final Portability<K> keyPortability;
+  private final Portability<V> valuePortability;
+
+  private final Queue<ByteBuffer> pending = new ConcurrentLinkedQueue<ByteBuffer>();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private volatile Runnable flushRequest;
+
+  private final Object flushLock = new Object();
+  private final ByteBuffer staging = ByteBuffer.allocate(STAGING_BUFFER_SIZE);
+  private long generation;
+  private FileChannel log;
+  private long logBytes;
+
+  DiskStoreJournal(File directory, Portability<K> keyPortability, Portability<V> valuePortability) {
+    this.directory = directory;
+    this.keyPortability = keyPortability;
+    this.valuePortability = valuePortability;
+  }
+
+  /**
+   * Sets the action run when the queued changes outgrow their bound, which should schedule a {@link #flush()}.
+   * <P>
+   *   Changes are recorded while holding segment locks, so the flush itself, and its {@code fsync}, must not run on
+   *   the recording thread.
+   * </P>
+   *
+   * @param flushRequest the action requesting a flush
+   */
+  void setFlushRequest(Runnable flushRequest) {
+    this.flushRequest = flushRequest;
+  }
+
+  /**
+   * Replays the existing journal, if any, into {@code target} and starts a new log generation.
+   *
+   * @param target the journal receiving the recovered changes, {@code null} to skip the replay
+   * @return {@code true} if a journal was found
+   * @throws IOException if the journal files cannot be read or created
+   */
+  boolean open(MappingJournal<K, V> target) throws IOException {
+    SortedMap<Long, File> logs = new TreeMap<Long, File>();
+    SortedMap<Long, File> snapshots = new TreeMap<Long, File>();
+    long lastGeneration = -1;
+    for (File file : listJournalFiles(directory)) {
+      Matcher matcher = FILE_PATTERN.matcher(file.getName());
+      matcher.matches();
+      long fileGeneration = Long.parseLong(matcher.group(1));
+      String type = matcher.group(2);
+      if (type.equals(LOG_SUFFIX.substring(1))) {
+        logs.put(fileGeneration, file);
+      } else if (type.equals(SNAPSHOT_SUFFIX.substring(1))) {
+        snapshots.put(fileGeneration, file);
+      } else {
+        deleteFile(file);
+      }
+      lastGeneration = max(lastGeneration, fileGeneration);
+    }
+
+    long recoveredBytes = 0;
+    if (target == null) {
+      for (File file : logs.values()) {
+        recoveredBytes += file.length();
+      }
+    } else {
+      long fromGeneration;
+      if (snapshots.isEmpty()) {
+        fromGeneration = logs.isEmpty() ? 0 : logs.firstKey();
+      } else {
+        fromGeneration = snapshots.lastKey();
+        replay(snapshots.get(fromGeneration), target);
+      }
+      for (File file : logs.tailMap(fromGeneration).values()) {
+        recoveredBytes += replay(file, target);
+      }
+    }
+
+    synchronized (flushLock) {
+      generation = lastGeneration + 1;
+      log = openLog(generation);
+      logBytes = recoveredBytes;
+    }
+    return lastGeneration >= 0;
+  }
+
+  @Override
+  public void mapped(K key, V value) {
+    ByteBuffer keyBuffer = keyPortability.encode(key).duplicate();
+    ByteBuffer valueBuffer = valuePortability.encode(value).duplicate();
+    ByteBuffer record = newRecord(MAPPED, 4 + keyBuffer.remaining() + valueBuffer.remaining());
+    record.putInt(keyBuffer.remaining()).put(keyBuffer).put(valueBuffer);
+    append(record);
+  }
+
+  @Override
+  public void removed(K key) {
+    ByteBuffer keyBuffer = keyPortability.encode(key).duplicate();
+    ByteBuffer record = newRecord(REMOVED, keyBuffer.remaining());
+    record.put(keyBuffer);
+    append(record);
+  }
+
+  @Override
+  public void cleared() {
+    append(newRecord(CLEARED, 0));
+  }
+
+  /**
+   * Writes all queued changes to the current log and forces them to disk.
+   *
+   * @throws IOException if the log cannot be written
+   */
+  void flush() throws IOException {
+    synchronized (flushLock) {
+      flushRequested.set(false);
+      if (log == null) {
+        return;
+      }
+      boolean written = false;
+      ByteBuffer record;
+      while ((record = pending.poll()) != null) {
+        int size = record.remaining();
+        pendingBytes.addAndGet(-size);
+        if (size > staging.remaining()) {
+          writeStaged(log);
+        }
+        if (size > staging.capacity()) {
+          writeFully(log, record);
+        } else {
+          staging.put(record);
+        }
+        logBytes += size;
+        written = true;
+      }
+      if (written) {
+        writeStaged(log);
+        log.force(false);
+      }
+    }
+  }
+
+  /**
+   * Indicates whether the logs have grown large enough, relative to the live data, to be worth a checkpoint.
+   *
+   * @param liveBytes the amount of live data in the store
+   * @return {@code true} if a checkpoint should be taken
+   */
+  boolean needsCheckpoint(long liveBytes) {
+    synchronized (flushLock) {
+      return logBytes > max(MINIMUM_CHECKPOINT_LOG_SIZE, 2 * liveBytes);
+    }
+  }
+
+  /**
+   * Starts a new generation, writes a snapshot of {@code source} for it and deletes the files of all previous
+   * generations.
+   * <P>
+   *   Changes made concurrently with the snapshot are logged in the new generation.
+   * </P>
+   *
+   * @param source the mappings to snapshot
+   * @throws IOException if the snapshot cannot be written
+   */
+  void checkpoint(MappingJournal.Source<K, V> source) throws IOException {
+    long snapshotGeneration;
+    synchronized (flushLock) {
+      if (log == null) {
+        return;
+      }
+      flush();
+      log.close();
+      snapshotGeneration = ++generation;
+      log = openLog(snapshotGeneration);
+      logBytes = 0;
+    }
+
+    File temporary = journalFile(snapshotGeneration, SNAPSHOT_SUFFIX + TEMPORARY_SUFFIX);
+    FileOutputStream out = new FileOutputStream(temporary);
+    boolean complete = false;
+    try {
+      final FileChannel channel = out.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate(STAGING_BUFFER_SIZE);
+      final IOException[] failure = new IOException[1];
+      source.writeTo(new MappingJournal.SnapshotWriter<K, V>() {
+        @Override
+        public void mapped(K key, V value) {
+          if (failure[0] != null) {
+            return;
+          }
+          ByteBuffer keyBuffer = keyPortability.encode(key).duplicate();
+          ByteBuffer valueBuffer = valuePortability.encode(value).duplicate();
+          ByteBuffer record = newRecord(MAPPED, 4 + keyBuffer.remaining() + valueBuffer.remaining());
+          record.putInt(keyBuffer.remaining()).put(keyBuffer).put(valueBuffer);
+          record = seal(record);
+          try {
+            if (record.remaining() > buffer.remaining()) {
+              buffer.flip();
+              writeFully(channel, buffer);
+              buffer.clear();
+            }
+            if (record.remaining() > buffer.capacity()) {
+              writeFully(channel, record);
+            } else {
+              buffer.put(record);
+            }
+          } catch (IOException e) {
+            failure[0] = e;
+          }
+        }
+      });
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+      buffer.flip();
+      writeFully(channel, buffer);
+      channel.force(false);
+      complete = true;
+    } finally {
+      out.close();
+      if (!complete) {
+        deleteFile(temporary);
+      }
+    }
+
+    File snapshot = journalFile(snapshotGeneration, SNAPSHOT_SUFFIX);
+    if (!temporary.renameTo(snapshot)) {
+      deleteFile(temporary);
+      throw new IOException("Unable to rename " + temporary.getAbsolutePath() + " to " + snapshot.getName());
+    }
+
+    for (File file : listJournalFiles(directory)) {
+      Matcher matcher = FILE_PATTERN.matcher(file.getName());
+      matcher.matches();
+      if (Long.parseLong(matcher.group(1)) < snapshotGeneration) {
+        deleteFile(file);
+      }
+    }
+  }
+
+  /**
+   * Writes the queued changes and closes the current log. Changes recorded afterwards are discarded.
+   *
+   * @throws IOException if the log cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (flushLock) {
+      if (log != null) {
+        try {
+          flush();
+        } finally {
+          log.close();
+          log = null;
+          pending.clear();
+          pendingBytes.set(0);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes all journal files found in {@code directory}.
+   *
+   * @param directory the store directory
+   */
+  static void deleteJournal(File directory) {
+    for (File file : listJournalFiles(directory)) {
+      deleteFile(file);
+    }
+  }
+
+  private void append(ByteBuffer record) {
+    record = seal(record);
+    int size = record.remaining();
+    pending.add(record);
+    if (pendingBytes.addAndGet(size) > MAXIMUM_PENDING_BYTES && flushRequested.compareAndSet(false, true)) {
+      Runnable request = flushRequest;
+      if (request != null) {
+        request.run();
+      }
+    }
+  }
+
+  private long replay(File file, MappingJournal<K, V> target) throws IOException {
+    FileInputStream in = new FileInputStream(file);
+    try {
+      FileChannel channel = in.getChannel();
+      long size = channel.size();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      long position = 0;
+      while (position < size) {
+        header.clear();
+        if (!readFully(channel, header)) {
+          break;
+        }
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || length > size - position - HEADER_SIZE) {
+          break;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        if (!readFully(channel, body)) {
+          break;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+        if ((int) crc.getValue() != checksum) {
+          break;
+        }
+        body.flip();
+        apply(body, target);
+        position += HEADER_SIZE + length;
+      }
+      if (position < size) {
+        LOGGER.warn("Ignoring the last {} bytes of disk store journal file {} which are incomplete or corrupt",
+            size - position, file.getAbsolutePath());
+      }
+      return position;
+    } finally {
+      in.close();
+    }
+  }
+
+  private void apply(ByteBuffer body, MappingJournal<K, V> target) {
+    byte type = body.get();
+    switch (type) {
+      case MAPPED: {
+        int keyLength = body.getInt();
+        ByteBuffer keyBuffer = body.slice();
+        keyBuffer.limit(keyLength);
+        body.position(body.position() + keyLength);
+        target.mapped(keyPortability.decode(keyBuffer), valuePortability.decode(body.slice()));
+        break;
+      }
+      case REMOVED:
+        target.removed(keyPortability.decode(body.slice()));
+        break;
+      case CLEARED:
+        target.cleared();
+        break;
+      default:
+        throw new AssertionError("Unknown journal record type " + type);
+    }
+  }
+
+  private FileChannel openLog(long logGeneration) throws IOException {
+    return new FileOutputStream(journalFile(logGeneration, LOG_SUFFIX), true).getChannel();
+  }
+
+  private File journalFile(long fileGeneration, String suffix) {
+    return new File(directory, FILE_PREFIX + fileGeneration + suffix);
+  }
+
+  private void writeStaged(FileChannel channel) throws IOException {
+    staging.flip();
+    writeFully(channel, staging);
+    staging.clear();
+  }
+
+  private static ByteBuffer newRecord(byte type, int length) {
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 1 + length);
+    record.position(HEADER_SIZE);
+    record.put(type);
+    return record;
+  }
+
+  private static ByteBuffer seal(ByteBuffer record) {
+    int length = record.position() - HEADER_SIZE;
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), HEADER_SIZE, length);
+    record.putInt(0, length);
+    record.putInt(4, (int) crc.getValue());
+    record.flip();
+    return record;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static File[] listJournalFiles(File directory) {
+    File[] files = directory.listFiles(new FileFilter() {
+      @Override
+      public boolean accept(File file) {
+        return FILE_PATTERN.matcher(file.getName()).matches();
+      }
+    });
+    return files == null ? new File[0] : files;
+  }
+
+  private static void deleteFile(File file) {
+    if (!file.delete() && file.exists()) {
+      LOGGER.warn("Unable to delete disk store journal file {}", file.getAbsolutePath());
+    }
+  }
+}
@@ -25,11 +25,17 @@ import org.terracotta.offheapstore.Metadata;
 import org.terracotta.offheapstore.MetadataTuple;
 import org.terracotta.offheapstore.Segment;
 import org.terracotta.offheapstore.disk.persistent.AbstractPersistentConcurrentOffHeapCache;
+import org.terracotta.offheapstore.exceptions.OversizeMappingException;
 
 import java.io.IOException;
 import java.io.ObjectInput;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import static org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory.EhcacheSegment.ADVISED_AGAINST_EVICTION;
 import static org.terracotta.offheapstore.Metadata.PINNED;
@@ -39,11 +45,13 @@ import static org.terracotta.offheapstore.MetadataTuple.metadataTuple;
  *
  * @author Chris Dennis
  */
-public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends AbstractPersistentConcurrentOffHeapCache<K, V> implements EhcacheOffHeapBackingMap<K, V> {
+public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends AbstractPersistentConcurrentOffHeapCache<K, V> implements EhcacheOffHeapBackingMap<K, V>, MappingJournal.Source<K, V> {
 
   private final EvictionAdvisor<? super K, ? super V> evictionAdvisor;
   private final AtomicLong[] counters;
 
+  private volatile MappingJournal<K, V> journal;
+
   public EhcachePersistentConcurrentOffHeapClockCache(ObjectInput input, EvictionAdvisor<? super K, ? super V> evictionAdvisor, EhcachePersistentSegmentFactory<K, V> segmentFactory) throws IOException {
     this(evictionAdvisor, segmentFactory, readSegmentCount(input));
   }
@@ -153,13 +161,131 @@ public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends Abstract
     return total;
   }
 
+  /**
+   * Sets the journal that will receive the changes made to the mappings through the compute methods,
+   * {@link #removeAllWithHash(int)} and {@link #clear()}.
+   *
+   * @param journal the journal, or {@code null} to stop journaling
+   */
+  void setJournal(MappingJournal<K, V> journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Records all current mappings, one segment at a time while holding its shared lock.
+   */
+  @Override
+  public void writeTo(MappingJournal.SnapshotWriter<K, V> target) {
+    for (Segment<K, V> segment : segments) {
+      Lock lock = segment.readLock();
+      lock.lock();
+      try {
+        for (Map.Entry<K, V> entry : segment.entrySet()) {
+          target.mapped(entry.getKey(), entry.getValue());
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Runs a compute and journals the change it made once the new mapping is installed.
+   * <P>
+   *   With a journal, the compute first runs on its segment under the segment lock, which is held until the change is
+   *   journaled. If the mapping does not fit in the segment, the lock is released and the compute is retried on the
+   *   whole map, which may evict from other segments; the resulting mapping is then read back and journaled under
+   *   the segment lock.
+   * </P>
+   */
+  private MetadataTuple<V> journaledCompute(K key, boolean ifPresent, JournaledFunction<K, V> function) {
+    MappingJournal<K, V> localJournal = journal;
+    if (localJournal == null) {
+      return ifPresent ? computeIfPresentWithMetadata(key, function) : computeWithMetadata(key, function);
+    }
+
+    Segment<K, V> segment = segments[getIndexFor(key.hashCode())];
+    Lock lock = segment.writeLock();
+    lock.lock();
+    try {
+      MetadataTuple<V> result = ifPresent ? segment.computeIfPresentWithMetadata(key, function) : segment.computeWithMetadata(key, function);
+      if (function.changed) {
+        if (function.newValue == null) {
+          localJournal.removed(key);
+        } else {
+          localJournal.mapped(key, function.newValue);
+        }
+      }
+      return result;
+    } catch (OversizeMappingException e) {
+      // retried below, outside of the segment lock
+    } finally {
+      lock.unlock();
+    }
+
+    MetadataTuple<V> result = ifPresent ? computeIfPresentWithMetadata(key, function) : computeWithMetadata(key, function);
+    if (function.changed) {
+      lock.lock();
+      try {
+        V current = segment.get(key);
+        if (current == null) {
+          localJournal.removed(key);
+        } else {
+          localJournal.mapped(key, current);
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void clear() {
+    MappingJournal<K, V> localJournal = journal;
+    if (localJournal == null) {
+      super.clear();
+      return;
+    }
+    for (Segment<K, V> segment : segments) {
+      segment.writeLock().lock();
+    }
+    try {
+      super.clear();
+      localJournal.cleared();
+    } finally {
+      for (Segment<K, V> segment : segments) {
+        segment.writeLock().unlock();
+      }
+    }
+  }
+
+  @Override
+  public Map<K, V> removeAllWithHash(int hash) {
+    Lock lock = segments[getIndexFor(hash)].writeLock();
+    lock.lock();
+    try {
+      Map<K, V> removed = super.removeAllWithHash(hash);
+      MappingJournal<K, V> localJournal = journal;
+      if (localJournal != null) {
+        for (K key : removed.keySet()) {
+          localJournal.removed(key);
+        }
+      }
+      return removed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public V compute(K key, final BiFunction<K, V, V> mappingFunction, final boolean pin) {
-    MetadataTuple<V> result = computeWithMetadata(key, new org.terracotta.offheapstore.jdk8.BiFunction<K, MetadataTuple<V>, MetadataTuple<V>>() {
+    MetadataTuple<V> result = journaledCompute(key, false, new JournaledFunction<K, V>() {
       @Override
       public MetadataTuple<V> apply(K k, MetadataTuple<V> current) {
         V oldValue = current == null ? null : current.value();
         V newValue = mappingFunction.apply(k, oldValue);
+        record(oldValue, newValue);
 
         if (newValue == null) {
           return null;
@@ -175,11 +301,12 @@ public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends Abstract
 
   @Override
   public V computeIfPresent(K key, final BiFunction<K, V, V> mappingFunction) {
-    MetadataTuple<V> result = computeIfPresentWithMetadata(key, new org.terracotta.offheapstore.jdk8.BiFunction<K, MetadataTuple<V>, MetadataTuple<V>>() {
+    MetadataTuple<V> result = journaledCompute(key, true, new JournaledFunction<K, V>() {
       @Override
       public MetadataTuple<V> apply(K k, MetadataTuple<V> current) {
         V oldValue = current.value();
         V newValue = mappingFunction.apply(k, oldValue);
+        record(oldValue, newValue);
 
         if (newValue == null) {
           return null;
@@ -195,11 +322,12 @@ public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends Abstract
 
   @Override
   public V computeIfPresentAndPin(final K key, final BiFunction<K, V, V> mappingFunction) {
-    MetadataTuple<V> result = computeIfPresentWithMetadata(key, new org.terracotta.offheapstore.jdk8.BiFunction<K, MetadataTuple<V>, MetadataTuple<V>>() {
+    MetadataTuple<V> result = journaledCompute(key, true, new JournaledFunction<K, V>() {
       @Override
       public MetadataTuple<V> apply(K k, MetadataTuple<V> current) {
         V oldValue = current.value();
         V newValue = mappingFunction.apply(k, oldValue);
+        record(oldValue, newValue);
 
         if (newValue == null) {
           return null;
@@ -216,13 +344,14 @@ public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends Abstract
   @Override
   public boolean computeIfPinned(final K key, final BiFunction<K,V,V> remappingFunction, final Function<V,Boolean> unpinFunction) {
     final AtomicBoolean unpin = new AtomicBoolean();
-    computeIfPresentWithMetadata(key, new org.terracotta.offheapstore.jdk8.BiFunction<K, MetadataTuple<V>, MetadataTuple<V>>() {
+    journaledCompute(key, true, new JournaledFunction<K, V>() {
       @Override
       public MetadataTuple<V> apply(K k, MetadataTuple<V> current) {
         if ((current.metadata() & Metadata.PINNED) != 0) {
           V oldValue = current.value();
           V newValue = remappingFunction.apply(k, oldValue);
           Boolean unpinLocal = unpinFunction.apply(oldValue);
+          record(oldValue, newValue);
 
           if (newValue == null) {
             unpin.set(true);
@@ -242,8 +371,77 @@ public class EhcachePersistentConcurrentOffHeapClockCache<K, V> extends Abstract
     return unpin.get();
   }
 
+  @Override
+  public V readIfPresent(final K key, final Function<V, V> readFunction) {
+    Segment<K, V> segment = segments[getIndexFor(key.hashCode())];
+    Lock lock = segment.readLock();
+    lock.lock();
+    try {
+      V value = segment.get(key);
+      if (value == null) {
+        return null;
+      } else {
+        return readFunction.apply(value);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void computeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction) {
+    computeBySegment(keys, segmentFunction, true);
+  }
+
+  @Override
+  public void tryComputeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction) {
+    computeBySegment(keys, segmentFunction, false);
+  }
+
+  private void computeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction, boolean wait) {
+    Map<Integer, List<K>> keysBySegment = new TreeMap<Integer, List<K>>();
+    for (K key : keys) {
+      Integer index = getIndexFor(key.hashCode());
+      List<K> segmentKeys = keysBySegment.get(index);
+      if (segmentKeys == null) {
+        segmentKeys = new ArrayList<K>();
+        keysBySegment.put(index, segmentKeys);
+      }
+      segmentKeys.add(key);
+    }
+
+    for (Map.Entry<Integer, List<K>> segmentKeys : keysBySegment.entrySet()) {
+      Lock lock = segments[segmentKeys.getKey()].writeLock();
+      if (wait) {
+        lock.lock();
+      } else if (!lock.tryLock()) {
+        continue;
+      }
+      try {
+        segmentFunction.apply(segmentKeys.getValue());
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
   @Override
   public long nextIdFor(final K key) {
     return counters[getIndexFor(key.hashCode())].getAndIncrement();
   }
+
+  /**
+   * Remapping function remembering the change made by its last application, so that it can be journaled once
+   * installed.
+   */
+  private abstract static class JournaledFunction<K, V> implements org.terracotta.offheapstore.jdk8.BiFunction<K, MetadataTuple<V>, MetadataTuple<V>> {
+
+    private boolean changed;
+    private V newValue;
+
+    void record(V oldValue, V newValue) {
+      this.changed = oldValue != newValue;
+      this.newValue = newValue;
+    }
+  }
 }
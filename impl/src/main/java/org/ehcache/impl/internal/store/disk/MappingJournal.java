@@ -0,0 +1,75 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehcache.impl.internal.store.disk;
+
+/**
+ * Receives the changes made to the mappings of an {@link EhcachePersistentConcurrentOffHeapClockCache}.
+ * <P>
+ *   Mapping and removal notifications are delivered while holding the lock of the segment owning the key, so that the
+ *   changes made to a given key are received in the order in which they were applied. Evictions are not reported.
+ * </P>
+ */
+interface MappingJournal<K, V> {
+
+  /**
+   * Records that {@code key} is now mapped to {@code value}.
+   *
+   * @param key the key
+   * @param value the new value
+   */
+  void mapped(K key, V value);
+
+  /**
+   * Records that the mapping for {@code key} was removed.
+   *
+   * @param key the key
+   */
+  void removed(K key);
+
+  /**
+   * Records that all mappings were removed.
+   */
+  void cleared();
+
+  /**
+   * A set of mappings that can be recorded in a journal.
+   */
+  interface Source<K, V> {
+
+    /**
+     * Writes all mappings of this source to {@code writer}.
+     *
+     * @param writer the snapshot writer
+     */
+    void writeTo(SnapshotWriter<K, V> writer);
+  }
+
+  /**
+   * Receives the mappings of a {@link Source} being snapshotted.
+   */
+  interface SnapshotWriter<K, V> {
+
+    /**
+     * Records that {@code key} is mapped to {@code value}.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void mapped(K key, V value);
+  }
+}
@@ -25,6 +25,7 @@ import org.ehcache.core.spi.service.DiskResourceService;
 import org.ehcache.core.statistics.AuthoritativeTierOperationOutcomes;
 import org.ehcache.core.statistics.StoreOperationOutcomes;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.events.StoreEventDispatcher;
 import org.ehcache.CachePersistenceException;
@@ -60,6 +61,7 @@ import org.terracotta.offheapstore.disk.paging.MappedPageSource;
 import org.terracotta.offheapstore.disk.persistent.Persistent;
 import org.terracotta.offheapstore.disk.persistent.PersistentPortability;
 import org.terracotta.offheapstore.disk.storage.FileBackedStorageEngine;
+import org.terracotta.offheapstore.exceptions.OversizeMappingException;
 import org.terracotta.offheapstore.storage.portability.Portability;
 import org.terracotta.offheapstore.util.Factory;
 import org.terracotta.statistics.StatisticsManager;
@@ -81,12 +83,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.lang.Math.max;
 import static org.ehcache.config.Eviction.noAdvice;
 import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
+import static org.ehcache.impl.internal.executor.ExecutorUtil.shutdownNow;
+import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.getDefaultConcurrency;
+import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.roundUpToPowerOfTwo;
 import static org.terracotta.offheapstore.util.MemoryUnit.BYTES;
 
 /**
@@ -100,7 +108,10 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
 
   private static final String KEY_TYPE_PROPERTY_NAME = "keyType";
   private static final String VALUE_TYPE_PROPERTY_NAME = "valueType";
-  private static final int DEFAULT_CONCURRENCY = 16;
+  private static final int MINIMUM_DEFAULT_CONCURRENCY = 16;
+  private static final int MAXIMUM_CONCURRENCY = 16 * 1024;
+  private static final long MINIMUM_SEGMENT_SIZE = 64 * 1024;
+  private static final int DEFAULT_INITIAL_TABLE_SIZE = 64;
 
   protected final AtomicReference<Status> status = new AtomicReference<Status>(Status.UNINITIALIZED);
 
@@ -115,17 +126,44 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
   private final ExecutionService executionService;
   private final String threadPoolAlias;
   private final int writerConcurrency;
+  private final OffHeapStoreConfiguration sizingConfiguration;
+  private final long journalInterval;
+  private final TimeUnit journalIntervalUnit;
+  private final TimeSource timeSource;
 
   private volatile EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> map;
+  private volatile boolean recoveredFromIndex;
+  private volatile DiskStoreJournal<K, OffHeapValueHolder<V>> journal;
+  private volatile ScheduledExecutorService journalExecutor;
+  private volatile ScheduledFuture<?> journalTask;
 
   public OffHeapDiskStore(FileBasedPersistenceContext fileBasedPersistenceContext,
                           ExecutionService executionService, String threadPoolAlias, int writerConcurrency,
                           final Configuration<K, V> config, TimeSource timeSource, StoreEventDispatcher<K, V> eventDispatcher, long sizeInBytes) {
+    this(fileBasedPersistenceContext, executionService, threadPoolAlias, writerConcurrency, config, timeSource, eventDispatcher, sizeInBytes, null);
+  }
+
+  public OffHeapDiskStore(FileBasedPersistenceContext fileBasedPersistenceContext,
+                          ExecutionService executionService, String threadPoolAlias, int writerConcurrency,
+                          final Configuration<K, V> config, TimeSource timeSource, StoreEventDispatcher<K, V> eventDispatcher, long sizeInBytes,
+                          OffHeapStoreConfiguration sizingConfiguration) {
+    this(fileBasedPersistenceContext, executionService, threadPoolAlias, writerConcurrency, config, timeSource, eventDispatcher, sizeInBytes,
+        sizingConfiguration, 0, TimeUnit.SECONDS);
+  }
+
+  public OffHeapDiskStore(FileBasedPersistenceContext fileBasedPersistenceContext,
+                          ExecutionService executionService, String threadPoolAlias, int writerConcurrency,
+                          final Configuration<K, V> config, TimeSource timeSource, StoreEventDispatcher<K, V> eventDispatcher, long sizeInBytes,
+                          OffHeapStoreConfiguration sizingConfiguration, long journalInterval, TimeUnit journalIntervalUnit) {
     super(STATISTICS_TAG, config, timeSource, eventDispatcher);
     this.fileBasedPersistenceContext = fileBasedPersistenceContext;
     this.executionService = executionService;
     this.threadPoolAlias = threadPoolAlias;
     this.writerConcurrency = writerConcurrency;
+    this.sizingConfiguration = sizingConfiguration;
+    this.journalInterval = journalInterval;
+    this.journalIntervalUnit = journalIntervalUnit;
+    this.timeSource = timeSource;
 
     EvictionAdvisor<? super K, ? super V> evictionAdvisor = config.getEvictionAdvisor();
     if (evictionAdvisor != null) {
@@ -150,6 +188,31 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
     return Collections.emptyList();
   }
 
+  /**
+   * Segment count of a newly created store: the configured value if any, otherwise one segment per available processor
+   * with a minimum of 16, unless that would make segments too small.
+   */
+  private int getConcurrency(long size) {
+    if (sizingConfiguration != null && sizingConfiguration.getConcurrency() != OffHeapStoreConfiguration.AUTO) {
+      return roundUpToPowerOfTwo(sizingConfiguration.getConcurrency());
+    }
+    return getDefaultConcurrency(size, MINIMUM_DEFAULT_CONCURRENCY, Long.MAX_VALUE, MINIMUM_SEGMENT_SIZE, MAXIMUM_CONCURRENCY);
+  }
+
+  private int getInitialTableSize() {
+    if (sizingConfiguration != null && sizingConfiguration.getInitialTableSize() != OffHeapStoreConfiguration.AUTO) {
+      return sizingConfiguration.getInitialTableSize();
+    }
+    return DEFAULT_INITIAL_TABLE_SIZE;
+  }
+
+  private long getMaximumPageSize(long size) {
+    if (sizingConfiguration != null && sizingConfiguration.getMaximumPageSize() != OffHeapStoreConfiguration.AUTO) {
+      return sizingConfiguration.getMaximumPageSize();
+    }
+    return max((size / getConcurrency(size)) / 10, 1024);
+  }
+
   private EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> getBackingMap(long size, Serializer<K> keySerializer, Serializer<V> valueSerializer, SwitchableEvictionAdvisor<K, OffHeapValueHolder<V>> evictionAdvisor) {
     File dataFile = getDataFile();
     File indexFile = getIndexFile();
@@ -224,17 +287,18 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
         DiskWriteThreadPool writeWorkers = new DiskWriteThreadPool(executionService, threadPoolAlias, writerConcurrency);
 
         Factory<FileBackedStorageEngine<K, OffHeapValueHolder<V>>> storageEngineFactory = FileBackedStorageEngine.createFactory(source,
-                max((size / DEFAULT_CONCURRENCY) / 10, 1024), BYTES, keyPortability, elementPortability, writeWorkers, false);
+                getMaximumPageSize(size), BYTES, keyPortability, elementPortability, writeWorkers, false);
 
         EhcachePersistentSegmentFactory<K, OffHeapValueHolder<V>> factory = new EhcachePersistentSegmentFactory<K, OffHeapValueHolder<V>>(
             source,
             storageEngineFactory,
-            64,
+            getInitialTableSize(),
             evictionAdvisor,
             mapEvictionListener, false);
         EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> m = new EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>>(input, evictionAdvisor, factory);
 
         m.bootstrap(input);
+        recoveredFromIndex = true;
         return m;
       } catch (IOException e) {
         source.close();
@@ -267,15 +331,15 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
     DiskWriteThreadPool writeWorkers = new DiskWriteThreadPool(executionService, threadPoolAlias, writerConcurrency);
 
     Factory<FileBackedStorageEngine<K, OffHeapValueHolder<V>>> storageEngineFactory = FileBackedStorageEngine.createFactory(source,
-        max((size / DEFAULT_CONCURRENCY) / 10, 1024), BYTES, keyPortability, elementPortability, writeWorkers, true);
+        getMaximumPageSize(size), BYTES, keyPortability, elementPortability, writeWorkers, true);
 
     EhcachePersistentSegmentFactory<K, OffHeapValueHolder<V>> factory = new EhcachePersistentSegmentFactory<K, OffHeapValueHolder<V>>(
         source,
         storageEngineFactory,
-        64,
+        getInitialTableSize(),
         evictionAdvisor,
         mapEvictionListener, true);
-    return new EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>>(evictionAdvisor, factory, DEFAULT_CONCURRENCY);
+    return new EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>>(evictionAdvisor, factory, getConcurrency(size));
 
   }
 
@@ -301,6 +365,96 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
     return new File(fileBasedPersistenceContext.getDirectory(), "ehcache-disk-store.meta");
   }
 
+  /**
+   * Opens the journal of this store and schedules its periodic flushes. A map recovered from its index starts a fresh
+   * journal with a snapshot of its content, otherwise the existing journal is replayed into it.
+   * <P>
+   *   The index is deleted once the snapshot is complete: after a crash the store then recovers from the journal
+   *   instead of starting empty.
+   * </P>
+   */
+  private void startJournal() throws IOException {
+    final EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> localMap = map;
+    final DiskStoreJournal<K, OffHeapValueHolder<V>> localJournal = new DiskStoreJournal<K, OffHeapValueHolder<V>>(fileBasedPersistenceContext.getDirectory(),
+        new SerializerPortability<K>(keySerializer), new OffHeapValueHolderPortability<V>(valueSerializer));
+    if (recoveredFromIndex) {
+      DiskStoreJournal.deleteJournal(fileBasedPersistenceContext.getDirectory());
+      localJournal.open(null);
+      localJournal.checkpoint(localMap);
+      if (!getIndexFile().delete()) {
+        throw new IOException("Unable to delete index file " + getIndexFile().getAbsolutePath());
+      }
+    } else if (localJournal.open(new MappingJournal<K, OffHeapValueHolder<V>>() {
+      @Override
+      public void mapped(K key, OffHeapValueHolder<V> value) {
+        if (value.isExpired(timeSource.getTimeMillis(), TimeUnit.MILLISECONDS)) {
+          localMap.remove(key);
+        } else {
+          try {
+            localMap.put(key, value);
+          } catch (OversizeMappingException e) {
+            localMap.remove(key);
+          }
+        }
+      }
+
+      @Override
+      public void removed(K key) {
+        localMap.remove(key);
+      }
+
+      @Override
+      public void cleared() {
+        localMap.clear();
+      }
+    })) {
+      LOGGER.info("Recovered {} mappings from the journal of data file {}", localMap.longSize(), getDataFile().getName());
+    }
+    localMap.setJournal(localJournal);
+    journal = localJournal;
+
+    final ScheduledExecutorService localExecutor = executionService.getScheduledExecutor(threadPoolAlias);
+    final Runnable flushTask = new Runnable() {
+      @Override
+      public void run() {
+        synchronized (localJournal) {
+          try {
+            localJournal.flush();
+            if (localJournal.needsCheckpoint(localMap.dataOccupiedMemory())) {
+              localJournal.checkpoint(localMap);
+            }
+          } catch (IOException e) {
+            LOGGER.warn("Unable to write the journal of data file {}", getDataFile().getName(), e);
+          }
+        }
+      }
+    };
+    localJournal.setFlushRequest(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          localExecutor.execute(flushTask);
+        } catch (RejectedExecutionException e) {
+          LOGGER.debug("Journal of data file {} is closing, dropping flush request", getDataFile().getName());
+        }
+      }
+    });
+    journalExecutor = localExecutor;
+    journalTask = localExecutor.scheduleWithFixedDelay(flushTask, journalInterval, journalInterval, journalIntervalUnit);
+  }
+
+  private void stopJournal() throws IOException {
+    DiskStoreJournal<K, OffHeapValueHolder<V>> localJournal = journal;
+    if (localJournal != null) {
+      journal = null;
+      journalTask.cancel(false);
+      shutdownNow(journalExecutor);
+      synchronized (localJournal) {
+        localJournal.close();
+      }
+    }
+  }
+
   @ServiceDependencies({TimeSourceService.class, SerializationProvider.class, ExecutionService.class, DiskResourceService.class})
   public static class Provider implements Store.Provider, AuthoritativeTier.Provider {
 
@@ -364,14 +518,21 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
 
       String threadPoolAlias;
       int writerConcurrency;
+      long journalInterval;
+      TimeUnit journalIntervalUnit;
       OffHeapDiskStoreConfiguration config = findSingletonAmongst(OffHeapDiskStoreConfiguration.class, (Object[]) serviceConfigs);
       if (config == null) {
         threadPoolAlias = defaultThreadPool;
         writerConcurrency = 1;
+        journalInterval = 0;
+        journalIntervalUnit = TimeUnit.SECONDS;
       } else {
-        threadPoolAlias = config.getThreadPoolAlias();
+        threadPoolAlias = config.getThreadPoolAlias() == null ? defaultThreadPool : config.getThreadPoolAlias();
         writerConcurrency = config.getWriterConcurrency();
+        journalInterval = config.getJournalInterval();
+        journalIntervalUnit = config.getJournalIntervalUnit();
       }
+      OffHeapStoreConfiguration sizingConfiguration = findSingletonAmongst(OffHeapStoreConfiguration.class, (Object[]) serviceConfigs);
       PersistenceSpaceIdentifier<?> space = findSingletonAmongst(PersistenceSpaceIdentifier.class, (Object[]) serviceConfigs);
       if (space == null) {
         throw new IllegalStateException("No LocalPersistenceService could be found - did you configure it at the CacheManager level?");
@@ -381,7 +542,8 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
 
         OffHeapDiskStore<K, V> offHeapStore = new OffHeapDiskStore<K, V>(persistenceContext,
                 executionService, threadPoolAlias, writerConcurrency,
-                storeConfig, timeSource, eventDispatcher, unit.toBytes(diskPool.getSize()));
+                storeConfig, timeSource, eventDispatcher, unit.toBytes(diskPool.getSize()), sizingConfiguration,
+                journalInterval, journalIntervalUnit);
         createdStores.put(offHeapStore, space);
         return offHeapStore;
       } catch (CachePersistenceException cpex) {
@@ -408,6 +570,11 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
       EhcachePersistentConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> localMap = resource.map;
       if (localMap != null) {
         resource.map = null;
+        try {
+          resource.stopJournal();
+        } finally {
+          localMap.setJournal(null);
+        }
         localMap.flush();
         ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(resource.getIndexFile()));
         try {
@@ -453,7 +620,17 @@ public class OffHeapDiskStore<K, V> extends AbstractOffHeapStore<K, V> implement
     }
 
     static <K, V> void init(final OffHeapDiskStore<K, V> resource) {
+      resource.recoveredFromIndex = false;
       resource.map = resource.getBackingMap(resource.sizeInBytes, resource.keySerializer, resource.valueSerializer, resource.evictionAdvisor);
+      if (resource.journalInterval > 0) {
+        try {
+          resource.startJournal();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      } else {
+        DiskStoreJournal.deleteJournal(resource.fileBasedPersistenceContext.getDirectory());
+      }
     }
 
     @Override
@@ -0,0 +1,158 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.internal.store.heap;
+
+/**
+ * A count-min sketch estimating the popularity of keys, as used by the TinyLFU admission policy.
+ * <p>
+ * Counters are 4 bits wide, sixteen of them being packed per {@code long}, and saturate at 15. Once the number of
+ * recorded accesses reaches ten times the table size, all counters are halved so that the sketch tracks recent
+ * popularity rather than all-time popularity.
+ * <p>
+ * Updates are not synchronized: concurrent increments may be lost, which only lowers the accuracy of what is an
+ * estimate in the first place.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+  private volatile long[] table;
+  private int sampleSize;
+  private int size;
+
+  FrequencySketch(long expectedSize) {
+    this.table = new long[tableSizeFor(expectedSize)];
+    this.sampleSize = sampleSizeFor(table.length);
+  }
+
+  /**
+   * Grows the sketch so that it can track {@code expectedSize} keys with reasonable accuracy.
+   * <p>
+   * Growing discards all frequencies recorded so far.
+   *
+   * @param expectedSize the expected number of keys
+   */
+  void ensureCapacity(long expectedSize) {
+    int tableSize = tableSizeFor(expectedSize);
+    if (table.length < tableSize) {
+      synchronized (this) {
+        if (table.length < tableSize) {
+          sampleSize = sampleSizeFor(tableSize);
+          size = 0;
+          table = new long[tableSize];
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated number of occurrences of the given hash, capped at 15.
+   *
+   * @param hashCode the key hash
+   * @return the estimated frequency
+   */
+  int frequency(int hashCode) {
+    long[] t = table;
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(t, hash, i);
+      int count = (int) ((t[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an occurrence of the given hash, aging the whole sketch when the sample period is reached.
+   *
+   * @param hashCode the key hash
+   */
+  void increment(int hashCode) {
+    long[] t = table;
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(t, indexOf(t, hash, i), start + i);
+    }
+
+    if (added && (++size >= sampleSize)) {
+      reset(t);
+    }
+  }
+
+  /**
+   * Returns {@code true} if a key with hash {@code candidateHash} deserves to replace the key with hash
+   * {@code victimHash}, that is if the candidate has been more popular recently.
+   *
+   * @param candidateHash the hash of the key being admitted
+   * @param victimHash the hash of the key that would be evicted
+   * @return {@code true} if the candidate should be admitted
+   */
+  boolean admit(int candidateHash, int victimHash) {
+    return frequency(candidateHash) > frequency(victimHash);
+  }
+
+  private static boolean incrementAt(long[] t, int i, int j) {
+    int offset = j << 2;
+    long mask = (0xfL << offset);
+    if ((t[i] & mask) != mask) {
+      t[i] += (1L << offset);
+      return true;
+    }
+    return false;
+  }
+
+  private void reset(long[] t) {
+    int count = 0;
+    for (int i = 0; i < t.length; i++) {
+      count += Long.bitCount(t[i] & ONE_MASK);
+      t[i] = (t[i] >>> 1) & RESET_MASK;
+    }
+    size = (size >>> 1) - (count >>> 2);
+  }
+
+  private static int indexOf(long[] t, int item, int i) {
+    long hash = (item + SEEDS[i]) * SEEDS[i];
+    hash += (hash >>> 32);
+    return ((int) hash) & (t.length - 1);
+  }
+
+  private static int spread(int x) {
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+
+  private static int tableSizeFor(long expectedSize) {
+    if (expectedSize >= MAXIMUM_TABLE_SIZE) {
+      return MAXIMUM_TABLE_SIZE;
+    }
+    int n = (int) Math.max(expectedSize, 1L);
+    return n == 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+  }
+
+  private static int sampleSizeFor(int tableSize) {
+    return (int) Math.min(10L * tableSize, Integer.MAX_VALUE);
+  }
+}
@@ -0,0 +1,679 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.internal.store.heap;
+
+import org.ehcache.config.EvictionAdvisor;
+import org.ehcache.core.spi.function.BiFunction;
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.impl.internal.store.heap.holders.OnHeapValueHolder;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Backend for {@code Long} and {@code Integer} keys, storing keys as primitive {@code long}s.
+ * <p>
+ * Mappings are spread over a fixed number of segments, each of them being an open addressing, linear probing table
+ * made of a {@code long[]} of keys and a parallel array of value holders. This removes the boxed key and the map node
+ * otherwise retained per mapping.
+ * <p>
+ * Mutations are performed under the segment lock, while reads are optimistic: a reader validates what it read
+ * against the segment modification stamp and falls back to locking when it keeps racing with writers. Table slots are
+ * read and written with volatile semantics, so that a validated read cannot observe a key and a value coming from two
+ * different mutations.
+ * <p>
+ * Tables grow past a load factor of {@code 0.75} and shrink back, down to their initial capacity, once less than a
+ * quarter of that is used.
+ *
+ * @param <K> the key type, either {@code Long} or {@code Integer}
+ * @param <V> the value type
+ */
+class LongKeyBackend<K, V> implements Backend<K, V> {
+
+  private static final int SEGMENT_COUNT = 16;
+  private static final int SEGMENT_SHIFT = 32 - Integer.numberOfTrailingZeros(SEGMENT_COUNT);
+  private static final int OPTIMISTIC_READ_ATTEMPTS = 2;
+
+  private final boolean byteSized;
+  private final boolean intKeys;
+  private final Class<K> keyType;
+  private final Segment<V>[] segments;
+  private final AtomicLong byteSize = new AtomicLong(0L);
+
+  @SuppressWarnings("unchecked")
+  LongKeyBackend(boolean byteSized, Class<K> keyType) {
+    if (keyType != Long.class && keyType != Integer.class) {
+      throw new IllegalArgumentException("Unsupported key type : " + keyType.getName());
+    }
+    this.byteSized = byteSized;
+    this.keyType = keyType;
+    this.intKeys = keyType == Integer.class;
+    this.segments = new Segment[SEGMENT_COUNT];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment<V>(intKeys);
+    }
+  }
+
+  static boolean supports(Class<?> keyType) {
+    return keyType == Long.class || keyType == Integer.class;
+  }
+
+  @Override
+  public OnHeapValueHolder<V> get(K key) {
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).get(k, hash);
+  }
+
+  @Override
+  public OnHeapValueHolder<V> putIfAbsent(K key, OnHeapValueHolder<V> value) {
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).putIfAbsent(k, hash, value);
+  }
+
+  @Override
+  public boolean replace(K key, OnHeapValueHolder<V> oldValue, OnHeapValueHolder<V> newValue) {
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).replace(k, hash, oldValue, newValue);
+  }
+
+  @Override
+  public OnHeapValueHolder<V> remove(K key) {
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).remove(k, hash, null);
+  }
+
+  @Override
+  public boolean remove(K key, OnHeapValueHolder<V> value) {
+    if (value == null) {
+      return false;
+    }
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).remove(k, hash, value) != null;
+  }
+
+  @Override
+  public OnHeapValueHolder<V> computeIfPresent(K key, BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>> biFunction) {
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).compute(k, hash, key, biFunction, true);
+  }
+
+  @Override
+  public OnHeapValueHolder<V> compute(K key, BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>> biFunction) {
+    long k = toLong(key);
+    int hash = spread(hashCode(k));
+    return segmentFor(hash).compute(k, hash, key, biFunction, false);
+  }
+
+  @Override
+  public Backend<K, V> clear() {
+    return new LongKeyBackend<K, V>(byteSized, keyType);
+  }
+
+  @Override
+  public Map<K, OnHeapValueHolder<V>> removeAllWithHash(int hash) {
+    Map<K, OnHeapValueHolder<V>> removed = new HashMap<K, OnHeapValueHolder<V>>();
+    int spreadHash = spread(hash);
+    segmentFor(spreadHash).removeAllWithHash(this, hash, spreadHash, removed);
+    if (byteSized) {
+      long delta = 0L;
+      for (OnHeapValueHolder<V> value : removed.values()) {
+        delta -= value.size();
+      }
+      updateUsageInBytesIfRequired(delta);
+    }
+    return removed;
+  }
+
+  @Override
+  public Iterable<K> keySet() {
+    return new Iterable<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        final Iterator<Map.Entry<K, OnHeapValueHolder<V>>> iter = entrySetIterator();
+        return new Iterator<K>() {
+          @Override
+          public boolean hasNext() {
+            return iter.hasNext();
+          }
+
+          @Override
+          public K next() {
+            return iter.next().getKey();
+          }
+
+          @Override
+          public void remove() {
+            iter.remove();
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public Iterator<Map.Entry<K, OnHeapValueHolder<V>>> entrySetIterator() {
+    return new EntryIterator();
+  }
+
+  @Override
+  public long mappingCount() {
+    long count = 0L;
+    for (Segment<V> segment : segments) {
+      count += segment.size;
+    }
+    return count;
+  }
+
+  @Override
+  public long byteSize() {
+    if (byteSized) {
+      return byteSize.get();
+    } else {
+      throw new IllegalStateException("This store is not byte sized");
+    }
+  }
+
+  @Override
+  public long naturalSize() {
+    if (byteSized) {
+      return byteSize.get();
+    } else {
+      return mappingCount();
+    }
+  }
+
+  @Override
+  public void updateUsageInBytesIfRequired(long delta) {
+    if (byteSized) {
+      byteSize.addAndGet(delta);
+    }
+  }
+
+  @Override
+  public Map.Entry<K, OnHeapValueHolder<V>> getEvictionCandidate(Random random, int size, Comparator<? super Store.ValueHolder<V>> prioritizer, EvictionAdvisor<Object, ? super OnHeapValueHolder<?>> evictionAdvisor) {
+    Candidate<V> candidate = new Candidate<V>(size);
+    int start = random.nextInt(segments.length);
+    for (int i = 0; i < segments.length && candidate.remaining > 0; i++) {
+      segments[(start + i) & (segments.length - 1)].sample(this, random, candidate, prioritizer, evictionAdvisor);
+    }
+    if (candidate.value == null) {
+      return null;
+    } else {
+      return new AbstractMap.SimpleEntry<K, OnHeapValueHolder<V>>(toKey(candidate.key), candidate.value);
+    }
+  }
+
+  private Segment<V> segmentFor(int spreadHash) {
+    return segments[spreadHash >>> SEGMENT_SHIFT];
+  }
+
+  private long toLong(K key) {
+    return ((Number) key).longValue();
+  }
+
+  private K toKey(long key) {
+    if (intKeys) {
+      return keyType.cast((int) key);
+    } else {
+      return keyType.cast(key);
+    }
+  }
+
+  private int hashCode(long key) {
+    return hashCode(key, intKeys);
+  }
+
+  /**
+   * Returns the {@code hashCode()} the boxed key would have.
+   */
+  private static int hashCode(long key, boolean intKeys) {
+    if (intKeys) {
+      return (int) key;
+    } else {
+      return (int) (key ^ (key >>> 32));
+    }
+  }
+
+  /**
+   * Murmur3 32-bit finalizer: the high bits select the segment, the low bits the slot.
+   */
+  private static int spread(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static final class Candidate<V> {
+    private int remaining;
+    private long key;
+    private OnHeapValueHolder<V> value;
+
+    Candidate(int remaining) {
+      this.remaining = remaining;
+    }
+  }
+
+  private static final class Table {
+    private final AtomicLongArray keys;
+    private final AtomicReferenceArray<Object> values;
+
+    Table(int capacity) {
+      this.keys = new AtomicLongArray(capacity);
+      this.values = new AtomicReferenceArray<Object>(capacity);
+    }
+
+    int capacity() {
+      return keys.length();
+    }
+  }
+
+  @SuppressWarnings("serial")
+  private static final class Segment<V> extends ReentrantLock {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Odd while a mutation is in progress, bumped twice per mutation.
+     */
+    private volatile int stamp;
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private volatile int size;
+
+    private final boolean intKeys;
+
+    Segment(boolean intKeys) {
+      this.intKeys = intKeys;
+    }
+
+    OnHeapValueHolder<V> get(long key, int hash) {
+      for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+        int s = stamp;
+        if ((s & 1) == 0) {
+          OnHeapValueHolder<V> value = find(table, key, hash);
+          if (stamp == s) {
+            return value;
+          }
+        }
+      }
+      lock();
+      try {
+        return find(table, key, hash);
+      } finally {
+        unlock();
+      }
+    }
+
+    OnHeapValueHolder<V> putIfAbsent(long key, int hash, OnHeapValueHolder<V> value) {
+      lock();
+      try {
+        int index = indexOf(table, key, hash);
+        if (index >= 0) {
+          return valueAt(table, index);
+        }
+        insert(key, hash, value);
+        return null;
+      } finally {
+        unlock();
+      }
+    }
+
+    boolean replace(long key, int hash, OnHeapValueHolder<V> oldValue, OnHeapValueHolder<V> newValue) {
+      lock();
+      try {
+        Table t = table;
+        int index = indexOf(t, key, hash);
+        if (index >= 0 && oldValue.equals(valueAt(t, index))) {
+          beginMutation();
+          t.values.set(index, newValue);
+          endMutation();
+          return true;
+        }
+        return false;
+      } finally {
+        unlock();
+      }
+    }
+
+    /**
+     * Removes the mapping for the given key, only if mapped to {@code expected} when it is not {@code null}.
+     */
+    OnHeapValueHolder<V> remove(long key, int hash, OnHeapValueHolder<V> expected) {
+      lock();
+      try {
+        Table t = table;
+        int index = indexOf(t, key, hash);
+        if (index < 0) {
+          return null;
+        }
+        OnHeapValueHolder<V> value = valueAt(t, index);
+        if (expected != null && !expected.equals(value)) {
+          return null;
+        }
+        removeAt(t, index);
+        shrinkIfSparse();
+        return value;
+      } finally {
+        unlock();
+      }
+    }
+
+    <K> OnHeapValueHolder<V> compute(long key, int hash, K boxedKey, BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>> function, boolean onlyIfPresent) {
+      lock();
+      try {
+        int index = indexOf(table, key, hash);
+        OnHeapValueHolder<V> oldValue = index >= 0 ? valueAt(table, index) : null;
+        if (oldValue == null && onlyIfPresent) {
+          return null;
+        }
+        OnHeapValueHolder<V> newValue = function.apply(boxedKey, oldValue);
+
+        // The function may have mutated this segment, the slot has to be looked up again
+        Table t = table;
+        index = indexOf(t, key, hash);
+        if (newValue == null) {
+          if (index >= 0) {
+            removeAt(t, index);
+            shrinkIfSparse();
+          }
+        } else if (index >= 0) {
+          if (t.values.get(index) != newValue) {
+            beginMutation();
+            t.values.set(index, newValue);
+            endMutation();
+          }
+        } else {
+          insert(key, hash, newValue);
+        }
+        return newValue;
+      } finally {
+        unlock();
+      }
+    }
+
+    <K> void removeAllWithHash(LongKeyBackend<K, V> backend, int hashCode, int hash, Map<K, OnHeapValueHolder<V>> removed) {
+      lock();
+      try {
+        Table t = table;
+        int mask = t.capacity() - 1;
+        int index = hash & mask;
+        for (int probes = 0; t.values.get(index) != null && probes <= mask; probes++) {
+          long key = t.keys.get(index);
+          if (LongKeyBackend.hashCode(key, intKeys) == hashCode) {
+            removed.put(backend.toKey(key), valueAt(t, index));
+            // backward shifting moved the next entry of the cluster into this slot
+            removeAt(t, index);
+          } else {
+            index = (index + 1) & mask;
+          }
+        }
+        shrinkIfSparse();
+      } finally {
+        unlock();
+      }
+    }
+
+    <K> void sample(LongKeyBackend<K, V> backend, Random random, Candidate<V> candidate,
+                    Comparator<? super Store.ValueHolder<V>> prioritizer, EvictionAdvisor<Object, ? super OnHeapValueHolder<?>> evictionAdvisor) {
+      lock();
+      try {
+        Table t = table;
+        int mask = t.capacity() - 1;
+        int start = random.nextInt(t.capacity());
+        for (int i = 0; i <= mask && candidate.remaining > 0; i++) {
+          int index = (start + i) & mask;
+          OnHeapValueHolder<V> value = valueAt(t, index);
+          if (value != null && !evictionAdvisor.adviseAgainstEviction(backend.toKey(t.keys.get(index)), value)) {
+            if (candidate.value == null || prioritizer.compare(value, candidate.value) > 0) {
+              candidate.key = t.keys.get(index);
+              candidate.value = value;
+            }
+            candidate.remaining--;
+          }
+        }
+      } finally {
+        unlock();
+      }
+    }
+
+    Table snapshot() {
+      lock();
+      try {
+        Table t = table;
+        Table copy = new Table(t.capacity());
+        for (int i = 0; i < t.capacity(); i++) {
+          Object value = t.values.get(i);
+          if (value != null) {
+            copy.keys.set(i, t.keys.get(i));
+            copy.values.set(i, value);
+          }
+        }
+        return copy;
+      } finally {
+        unlock();
+      }
+    }
+
+    private void insert(long key, int hash, OnHeapValueHolder<V> value) {
+      Table t = table;
+      if (size + 1 > t.capacity() * LOAD_FACTOR) {
+        t = resize(t, t.capacity() << 1);
+      }
+      int index = -(indexOf(t, key, hash) + 1);
+      beginMutation();
+      t.keys.set(index, key);
+      t.values.set(index, value);
+      endMutation();
+      size++;
+    }
+
+    /**
+     * Halves the table while less than a quarter of its load factor is used, so that mass removals give memory back.
+     */
+    private void shrinkIfSparse() {
+      Table t = table;
+      int capacity = t.capacity();
+      while (capacity > INITIAL_CAPACITY && size < capacity * LOAD_FACTOR / 4) {
+        capacity >>>= 1;
+      }
+      if (capacity < t.capacity()) {
+        resize(t, capacity);
+      }
+    }
+
+    /**
+     * Rehashes into a new table, only published once fully populated: readers of the old table, which is not mutated
+     * anymore, still see a consistent view of it.
+     */
+    private Table resize(Table old, int capacity) {
+      Table t = new Table(capacity);
+      int mask = capacity - 1;
+      for (int i = 0; i < old.capacity(); i++) {
+        Object value = old.values.get(i);
+        if (value != null) {
+          int index = spread(hashCodeOf(old, i)) & mask;
+          while (t.values.get(index) != null) {
+            index = (index + 1) & mask;
+          }
+          t.keys.set(index, old.keys.get(i));
+          t.values.set(index, value);
+        }
+      }
+      table = t;
+      return t;
+    }
+
+    /**
+     * Linear probing deletion with backward shifting, so that no tombstones are needed.
+     */
+    private void removeAt(Table t, int index) {
+      int mask = t.capacity() - 1;
+      beginMutation();
+      int hole = index;
+      int next = hole;
+      while (true) {
+        next = (next + 1) & mask;
+        Object value = t.values.get(next);
+        if (value == null) {
+          break;
+        }
+        int home = spread(hashCodeOf(t, next)) & mask;
+        // the entry at next may fill the hole unless its home slot is cyclically within (hole, next]
+        boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+        if (!stays) {
+          t.keys.set(hole, t.keys.get(next));
+          t.values.set(hole, value);
+          hole = next;
+        }
+      }
+      t.keys.set(hole, 0L);
+      t.values.set(hole, null);
+      endMutation();
+      size--;
+    }
+
+    private void beginMutation() {
+      stamp++;
+    }
+
+    private void endMutation() {
+      stamp++;
+    }
+
+    private int hashCodeOf(Table t, int index) {
+      return LongKeyBackend.hashCode(t.keys.get(index), intKeys);
+    }
+
+    private static <V> OnHeapValueHolder<V> find(Table t, long key, int hash) {
+      AtomicLongArray keys = t.keys;
+      AtomicReferenceArray<Object> values = t.values;
+      int mask = keys.length() - 1;
+      int index = hash & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        Object value = values.get(index);
+        if (value == null) {
+          return null;
+        } else if (keys.get(index) == key) {
+          @SuppressWarnings("unchecked")
+          OnHeapValueHolder<V> holder = (OnHeapValueHolder<V>) value;
+          return holder;
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+
+    /**
+     * Returns the slot holding {@code key}, or {@code -(insertion slot) - 1} when absent.
+     */
+    private static int indexOf(Table t, long key, int hash) {
+      int mask = t.capacity() - 1;
+      int index = hash & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        if (t.values.get(index) == null) {
+          return -index - 1;
+        } else if (t.keys.get(index) == key) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      throw new AssertionError("Segment table is full");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> OnHeapValueHolder<V> valueAt(Table t, int index) {
+      return (OnHeapValueHolder<V>) t.values.get(index);
+    }
+  }
+
+  /**
+   * Weakly consistent iterator, walking over a copy of one segment at a time.
+   */
+  private class EntryIterator implements Iterator<Map.Entry<K, OnHeapValueHolder<V>>> {
+
+    private int segmentIndex = 0;
+    private Table current;
+    private int slot;
+    private Map.Entry<K, OnHeapValueHolder<V>> next;
+    private Map.Entry<K, OnHeapValueHolder<V>> last;
+
+    EntryIterator() {
+      advance();
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null) {
+        if (current == null || slot >= current.capacity()) {
+          if (segmentIndex >= segments.length) {
+            return;
+          }
+          current = segments[segmentIndex++].snapshot();
+          slot = 0;
+        } else {
+          OnHeapValueHolder<V> value = Segment.valueAt(current, slot);
+          if (value != null) {
+            next = new AbstractMap.SimpleEntry<K, OnHeapValueHolder<V>>(toKey(current.keys.get(slot)), value);
+          }
+          slot++;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Map.Entry<K, OnHeapValueHolder<V>> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      advance();
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      LongKeyBackend.this.remove(last.getKey());
+      last = null;
+    }
+  }
+}
@@ -34,6 +34,7 @@ import org.ehcache.expiry.Expiry;
 import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
 import org.ehcache.core.spi.function.NullaryFunction;
+import org.ehcache.impl.config.store.heap.OnHeapStoreConfiguration;
 import org.ehcache.impl.copy.IdentityCopier;
 import org.ehcache.impl.internal.concurrent.ConcurrentHashMap;
 import org.ehcache.impl.copy.SerializingCopier;
@@ -43,6 +44,7 @@ import org.ehcache.impl.internal.sizeof.NoopSizeOfEngine;
 import org.ehcache.impl.internal.store.heap.holders.CopiedOnHeapValueHolder;
 import org.ehcache.impl.internal.store.heap.holders.OnHeapValueHolder;
 import org.ehcache.impl.internal.store.heap.holders.SerializedOnHeapValueHolder;
+import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.core.spi.time.TimeSource;
 import org.ehcache.core.spi.time.TimeSourceService;
 import org.ehcache.impl.serialization.TransientStateRepository;
@@ -74,6 +76,7 @@ import org.terracotta.offheapstore.util.FindbugsSuppressWarnings;
 import org.terracotta.statistics.StatisticsManager;
 import org.terracotta.statistics.observer.OperationObserver;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -87,12 +90,16 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.singletonMap;
 import static org.ehcache.config.Eviction.noAdvice;
+import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
 import static org.ehcache.core.exceptions.StorePassThroughException.handleRuntimeException;
 import static org.ehcache.core.internal.util.ValueSuppliers.supplierOf;
 import static org.terracotta.statistics.StatisticBuilder.operation;
@@ -109,7 +116,8 @@ import static org.terracotta.statistics.StatisticBuilder.operation;
  *   <li>Statistics</li>
  * </ul></p>
  *
- * The storage of mappings is handled by a {@link ConcurrentHashMap} accessed through {@link Backend}.
+ * The storage of mappings is handled by a {@link ConcurrentHashMap} accessed through {@link Backend}, or by a
+ * primitive keyed table for {@code Long} and {@code Integer} keys.
  */
 public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
 
@@ -160,6 +168,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
 
   private final SizeOfEngine sizeOfEngine;
   private final boolean byteSized;
+  private final FrequencySketch frequencySketch;
+  private final ExecutorService evictionExecutor;
+  private final float evictionBand;
+  private final AtomicBoolean evictionScheduled = new AtomicBoolean();
 
   private volatile long capacity;
   private final EvictionAdvisor<? super K, ? super V> evictionAdvisor;
@@ -183,6 +195,9 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
             capacity = ((MemoryUnit)pool.getUnit()).toBytes(pool.getSize());
           } else {
             capacity = pool.getSize();
+            if (frequencySketch != null) {
+              frequencySketch.ensureCapacity(capacity);
+            }
           }
         }
       }
@@ -217,6 +232,16 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
   };
 
   public OnHeapStore(final Configuration<K, V> config, final TimeSource timeSource, Copier<K> keyCopier, Copier<V> valueCopier, SizeOfEngine sizeOfEngine, StoreEventDispatcher<K, V> eventDispatcher) {
+    this(config, timeSource, keyCopier, valueCopier, sizeOfEngine, eventDispatcher, new OnHeapStoreConfiguration(OnHeapStoreConfiguration.DEFAULT_EVICTION_POLICY));
+  }
+
+  public OnHeapStore(final Configuration<K, V> config, final TimeSource timeSource, Copier<K> keyCopier, Copier<V> valueCopier, SizeOfEngine sizeOfEngine,
+                     StoreEventDispatcher<K, V> eventDispatcher, OnHeapStoreConfiguration heapConfig) {
+    this(config, timeSource, keyCopier, valueCopier, sizeOfEngine, eventDispatcher, heapConfig, null);
+  }
+
+  public OnHeapStore(final Configuration<K, V> config, final TimeSource timeSource, Copier<K> keyCopier, Copier<V> valueCopier, SizeOfEngine sizeOfEngine,
+                     StoreEventDispatcher<K, V> eventDispatcher, OnHeapStoreConfiguration heapConfig, ExecutionService executionService) {
     if (keyCopier == null) {
       throw new NullPointerException("keyCopier must not be null");
     }
@@ -233,10 +258,28 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     if (sizeOfEngine == null) {
       throw new NullPointerException("sizeOfEngine must not be null");
     }
+    if (heapConfig == null) {
+      throw new NullPointerException("heapConfig must not be null");
+    }
+    if (heapConfig.isBackgroundEviction() && executionService == null) {
+      throw new NullPointerException("executionService must not be null when evicting in the background");
+    }
     this.sizeOfEngine = sizeOfEngine;
     this.byteSized = this.sizeOfEngine instanceof NoopSizeOfEngine ? false : true;
     this.capacity = byteSized ? ((MemoryUnit) heapPool.getUnit()).toBytes(heapPool.getSize()) : heapPool.getSize();
     this.timeSource = timeSource;
+    if (heapConfig.getEvictionPolicy() == OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU) {
+      // Byte sized stores do not know their entry count upfront, the sketch grows as the store fills up
+      this.frequencySketch = new FrequencySketch(byteSized ? 0L : capacity);
+    } else {
+      this.frequencySketch = null;
+    }
+    if (heapConfig.isBackgroundEviction()) {
+      this.evictionExecutor = executionService.getOrderedExecutor(heapConfig.getThreadPoolAlias(), new LinkedBlockingQueue<Runnable>());
+    } else {
+      this.evictionExecutor = null;
+    }
+    this.evictionBand = heapConfig.getEvictionBand();
     if (config.getEvictionAdvisor() == null) {
       this.evictionAdvisor = noAdvice();
     } else {
@@ -247,7 +290,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     this.expiry = config.getExpiry();
     this.valueCopier = valueCopier;
     this.storeEventDispatcher = eventDispatcher;
-    if (keyCopier instanceof IdentityCopier) {
+    if (LongKeyBackend.supports(keyType)) {
+      // Long and Integer keys are immutable: storing their primitive value is as good as copying them
+      this.map = new LongKeyBackend<K, V>(byteSized, keyType);
+    } else if (keyCopier instanceof IdentityCopier) {
       this.map = new SimpleBackend<K, V>(byteSized);
     } else {
       this.map = new KeyCopyBackend<K, V>(byteSized, keyCopier);
@@ -311,6 +357,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       }
 
       if (updateAccess) {
+        recordAccess(key);
         setAccessTimeAndExpiryThenReturnMappingOutsideLock(key, mapping, timeSource.getTimeMillis());
       }
       getObserver.end(StoreOperationOutcomes.GetOutcome.HIT);
@@ -386,9 +433,14 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       });
       storeEventDispatcher.releaseEventSink(eventSink);
 
-      enforceCapacity();
-
       StoreOperationOutcomes.PutOutcome outcome = statOutcome.get();
+      recordAccess(key);
+      if (outcome == StoreOperationOutcomes.PutOutcome.PUT) {
+        enforceCapacity(key);
+      } else {
+        enforceCapacity();
+      }
+
       putObserver.end(outcome);
       switch (outcome) {
         case REPLACED:
@@ -493,8 +545,9 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
 
       storeEventDispatcher.releaseEventSink(eventSink);
 
+      recordAccess(key);
       if (entryActuallyAdded.get()) {
-        enforceCapacity();
+        enforceCapacity(key);
         putIfAbsentObserver.end(StoreOperationOutcomes.PutIfAbsentOutcome.PUT);
       } else {
         putIfAbsentObserver.end(StoreOperationOutcomes.PutIfAbsentOutcome.HIT);
@@ -715,6 +768,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     try {
       getOrComputeIfAbsentObserver.begin();
       Backend<K, V> backEnd = map;
+      recordAccess(key);
 
       // First try to find the value from heap
       OnHeapValueHolder<V> cachedValue = backEnd.get(key);
@@ -776,7 +830,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       if (backEnd.replace(key, fault, newValue)) {
         getOrComputeIfAbsentObserver.end(CachingTierOperationOutcomes.GetOrComputeIfAbsentOutcome.FAULTED);
         updateUsageInBytesIfRequired(newValue.size());
-        enforceCapacity();
+        enforceCapacity(key);
         return newValue;
       }
 
@@ -1195,7 +1249,12 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
         computeResult = valueHeld.get();
       }
       storeEventDispatcher.releaseEventSink(eventSink);
-      enforceCapacity();
+      recordAccess(key);
+      if (outcome.get() == StoreOperationOutcomes.ComputeOutcome.PUT) {
+        enforceCapacity(key);
+      } else {
+        enforceCapacity();
+      }
       computeObserver.end(outcome.get());
       return computeResult;
     } catch (RuntimeException re) {
@@ -1251,7 +1310,10 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       OnHeapValueHolder<V> previousValueHolder = previousValue.get();
 
       storeEventDispatcher.releaseEventSink(eventSink);
-      if (computeResult != null) {
+      recordAccess(key);
+      if (outcome.get() == StoreOperationOutcomes.ComputeIfAbsentOutcome.PUT) {
+        enforceCapacity(key);
+      } else if (computeResult != null) {
         enforceCapacity();
       }
       computeIfAbsentObserver.end(outcome.get());
@@ -1567,8 +1629,142 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     return map.byteSize();
   }
 
-  @FindbugsSuppressWarnings("QF_QUESTIONABLE_FOR_LOOP")
+  private void recordAccess(K key) {
+    if (frequencySketch != null) {
+      frequencySketch.increment(key.hashCode());
+    }
+  }
+
+  /**
+   * Enforces capacity after a mapping for {@code contender} got installed.
+   * <P>
+   *   When the TinyLFU policy is in use and the store is over capacity, the contender is first compared against the
+   *   eviction candidate: if its key was not more popular than the candidate's, the contender itself gets evicted.
+   * </P>
+   *
+   * @param contender the key of the newly installed mapping
+   */
+  private void enforceCapacity(K contender) {
+    if (frequencySketch != null && capacity < map.naturalSize()) {
+      if (byteSized) {
+        frequencySketch.ensureCapacity(map.mappingCount());
+      }
+      StoreEventSink<K, V> eventSink = storeEventDispatcher.eventSink();
+      try {
+        admit(contender, eventSink);
+        storeEventDispatcher.releaseEventSink(eventSink);
+      } catch (RuntimeException re){
+        storeEventDispatcher.releaseEventSinkAfterFailure(eventSink, re);
+        throw re;
+      }
+    }
+    enforceCapacity();
+  }
+
+  private void admit(K contender, StoreEventSink<K, V> eventSink) {
+    Map.Entry<K, OnHeapValueHolder<V>> victim = getEvictionCandidate();
+    if (victim == null || contender.equals(victim.getKey())) {
+      return;
+    }
+    if (!frequencySketch.admit(contender.hashCode(), victim.getKey().hashCode())) {
+      OnHeapValueHolder<V> contenderValue = map.get(contender);
+      if (contenderValue != null && !(contenderValue instanceof Fault) && !contenderValue.evictionAdvice()) {
+        evictionObserver.begin();
+        if (evict(new AbstractMap.SimpleEntry<K, OnHeapValueHolder<V>>(contender, contenderValue), eventSink)) {
+          evictionObserver.end(StoreOperationOutcomes.EvictionOutcome.SUCCESS);
+        } else {
+          evictionObserver.end(StoreOperationOutcomes.EvictionOutcome.FAILURE);
+        }
+      }
+    }
+  }
+
+  /**
+   * Enforces capacity, evicting on the calling thread unless background eviction is enabled.
+   * <P>
+   *   In background eviction mode, writers only schedule the eviction task once the store is over capacity, and only
+   *   evict themselves when the store overshoots its capacity by more than the eviction band.
+   * </P>
+   */
   protected void enforceCapacity() {
+    if (evictionExecutor == null) {
+      evictInline();
+    } else {
+      long size = map.naturalSize();
+      long capacity = this.capacity;
+      if (capacity < size) {
+        if (capacity + evictionBand(capacity) < size) {
+          evictInline();
+        }
+        scheduleEviction();
+      }
+    }
+  }
+
+  private long evictionBand(long capacity) {
+    return (long) (capacity * evictionBand);
+  }
+
+  private void scheduleEviction() {
+    if (evictionScheduled.compareAndSet(false, true)) {
+      try {
+        evictionExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            boolean progressed = false;
+            try {
+              progressed = evictToLowWaterMark();
+            } finally {
+              evictionScheduled.set(false);
+            }
+            // writers may have raced with the end of this task
+            if (progressed && capacity < map.naturalSize()) {
+              scheduleEviction();
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        evictionScheduled.set(false);
+        LOG.debug("Background eviction task rejected, store is being closed", e);
+      }
+    }
+  }
+
+  /**
+   * Evicts until the store is an eviction band below its capacity.
+   *
+   * @return {@code true} if the low water mark was reached
+   */
+  private boolean evictToLowWaterMark() {
+    StoreEventSink<K, V> eventSink = storeEventDispatcher.eventSink();
+    try {
+      int failures = 0;
+      long capacity = this.capacity;
+      long lowWaterMark = capacity - evictionBand(capacity);
+      while (lowWaterMark < map.naturalSize()) {
+        if (evict(eventSink)) {
+          failures = 0;
+        } else if (++failures >= ATTEMPT_RATIO) {
+          break;
+        }
+      }
+      storeEventDispatcher.releaseEventSink(eventSink);
+      return failures < ATTEMPT_RATIO;
+    } catch (RuntimeException re) {
+      storeEventDispatcher.releaseEventSinkAfterFailure(eventSink, re);
+      LOG.warn("Background eviction failed", re);
+      return false;
+    }
+  }
+
+  void shutdownBackgroundEviction() {
+    if (evictionExecutor != null) {
+      evictionExecutor.shutdown();
+    }
+  }
+
+  @FindbugsSuppressWarnings("QF_QUESTIONABLE_FOR_LOOP")
+  private void evictInline() {
     StoreEventSink<K, V> eventSink = storeEventDispatcher.eventSink();
     try {
       for (int attempts = 0, evicted = 0; attempts < ATTEMPT_RATIO && evicted < EVICTION_RATIO
@@ -1591,6 +1787,21 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
    */
   boolean evict(final StoreEventSink<K, V> eventSink) {
     evictionObserver.begin();
+
+    Map.Entry<K, OnHeapValueHolder<V>> candidate = getEvictionCandidate();
+
+    if (candidate == null) {
+      return false;
+    } else if (evict(candidate, eventSink)) {
+      evictionObserver.end(StoreOperationOutcomes.EvictionOutcome.SUCCESS);
+      return true;
+    } else {
+      evictionObserver.end(StoreOperationOutcomes.EvictionOutcome.FAILURE);
+      return false;
+    }
+  }
+
+  private Map.Entry<K, OnHeapValueHolder<V>> getEvictionCandidate() {
     final Random random = new Random();
 
     @SuppressWarnings("unchecked")
@@ -1600,35 +1811,27 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       // 2nd attempt without any advisor
       candidate = map.getEvictionCandidate(random, SAMPLE_SIZE, EVICTION_PRIORITIZER, noAdvice());
     }
+    return candidate;
+  }
 
-    if (candidate == null) {
-      return false;
-    } else {
-      final Map.Entry<K, OnHeapValueHolder<V>> evictionCandidate = candidate;
-      final AtomicBoolean removed = new AtomicBoolean(false);
-      map.computeIfPresent(evictionCandidate.getKey(), new BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>>() {
-        @Override
-        public OnHeapValueHolder<V> apply(K mappedKey, OnHeapValueHolder<V> mappedValue) {
-          if (mappedValue.equals(evictionCandidate.getValue())) {
-            removed.set(true);
-            if (!(evictionCandidate.getValue() instanceof Fault)) {
-              eventSink.evicted(evictionCandidate.getKey(), evictionCandidate.getValue());
-              invalidationListener.onInvalidation(mappedKey, evictionCandidate.getValue());
-            }
-            updateUsageInBytesIfRequired(-mappedValue.size());
-            return null;
+  private boolean evict(final Map.Entry<K, OnHeapValueHolder<V>> evictionCandidate, final StoreEventSink<K, V> eventSink) {
+    final AtomicBoolean removed = new AtomicBoolean(false);
+    map.computeIfPresent(evictionCandidate.getKey(), new BiFunction<K, OnHeapValueHolder<V>, OnHeapValueHolder<V>>() {
+      @Override
+      public OnHeapValueHolder<V> apply(K mappedKey, OnHeapValueHolder<V> mappedValue) {
+        if (mappedValue.equals(evictionCandidate.getValue())) {
+          removed.set(true);
+          if (!(evictionCandidate.getValue() instanceof Fault)) {
+            eventSink.evicted(evictionCandidate.getKey(), evictionCandidate.getValue());
+            invalidationListener.onInvalidation(mappedKey, evictionCandidate.getValue());
           }
-          return mappedValue;
+          updateUsageInBytesIfRequired(-mappedValue.size());
+          return null;
         }
-      });
-      if (removed.get()) {
-        evictionObserver.end(StoreOperationOutcomes.EvictionOutcome.SUCCESS);
-        return true;
-      } else {
-        evictionObserver.end(StoreOperationOutcomes.EvictionOutcome.FAILURE);
-        return false;
+        return mappedValue;
       }
-    }
+    });
+    return removed.get();
   }
 
   private void checkKey(K keyObject) {
@@ -1660,7 +1863,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     return (o1 == o2) || (o1 != null && o1.equals(o2));
   }
 
-  @ServiceDependencies({TimeSourceService.class, CopyProvider.class, SizeOfEngineProvider.class})
+  @ServiceDependencies({TimeSourceService.class, CopyProvider.class, SizeOfEngineProvider.class, ExecutionService.class})
   public static class Provider implements Store.Provider, CachingTier.Provider, HigherCachingTier.Provider {
 
     private volatile ServiceProvider<Service> serviceProvider;
@@ -1712,7 +1915,15 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
       SizeOfEngineProvider sizeOfEngineProvider = serviceProvider.getService(SizeOfEngineProvider.class);
       SizeOfEngine sizeOfEngine = sizeOfEngineProvider.createSizeOfEngine(
           storeConfig.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getUnit(), serviceConfigs);
-      OnHeapStore<K, V> onHeapStore = new OnHeapStore<K, V>(storeConfig, timeSource, keyCopier, valueCopier, sizeOfEngine, eventDispatcher);
+      OnHeapStoreConfiguration heapConfig = findSingletonAmongst(OnHeapStoreConfiguration.class, (Object[]) serviceConfigs);
+      if (heapConfig == null) {
+        heapConfig = new OnHeapStoreConfiguration(OnHeapStoreConfiguration.DEFAULT_EVICTION_POLICY);
+      }
+      ExecutionService executionService = null;
+      if (heapConfig.isBackgroundEviction()) {
+        executionService = serviceProvider.getService(ExecutionService.class);
+      }
+      OnHeapStore<K, V> onHeapStore = new OnHeapStore<K, V>(storeConfig, timeSource, keyCopier, valueCopier, sizeOfEngine, eventDispatcher, heapConfig, executionService);
       createdStores.put(onHeapStore, copiers);
       return onHeapStore;
     }
@@ -1739,6 +1950,7 @@ public class OnHeapStore<K, V> implements Store<K,V>, HigherCachingTier<K, V> {
     }
 
     static void close(final OnHeapStore onHeapStore) {
+      onHeapStore.shutdownBackgroundEviction();
       onHeapStore.clear();
     }
 
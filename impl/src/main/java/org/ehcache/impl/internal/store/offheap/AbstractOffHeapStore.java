@@ -16,10 +16,13 @@
 
 package org.ehcache.impl.internal.store.offheap;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -33,6 +36,7 @@ import org.ehcache.core.events.StoreEventDispatcher;
 import org.ehcache.core.events.StoreEventSink;
 import org.ehcache.core.spi.store.StoreAccessException;
 import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
 import org.ehcache.expiry.Expiry;
 import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
@@ -62,6 +66,11 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
 
   private static final Logger LOG = LoggerFactory.getLogger(AbstractOffHeapStore.class);
 
+  /**
+   * Number of reads whose access time and hit count updates are buffered before being written back.
+   */
+  private static final int ACCESS_BUFFER_SIZE = 128;
+
   private static final CachingTier.InvalidationListener<?, ?> NULL_INVALIDATION_LISTENER = new CachingTier.InvalidationListener<Object, Object>() {
     @Override
     public void onInvalidation(Object key, ValueHolder<Object> valueHolder) {
@@ -99,6 +108,15 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
   private final OperationObserver<LowerCachingTierOperationsOutcome.InstallMappingOutcome> installMappingObserver;
 
 
+  private final AccessBuffer<K> accessBuffer = new AccessBuffer<K>(ACCESS_BUFFER_SIZE);
+  private final AccessBuffer.Replay<K> accessReplay = new AccessBuffer.Replay<K>() {
+    @Override
+    public void replay(Map<K, AccessBuffer.Access<K>> accesses) {
+      replayAccesses(accesses);
+    }
+  };
+  private final boolean replayAccesses;
+
   private volatile InvalidationValve valve;
   protected BackingMapEvictionListener<K, V> mapEvictionListener;
   @SuppressWarnings("unchecked")
@@ -108,6 +126,7 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     keyType = config.getKeyType();
     valueType = config.getValueType();
     expiry = config.getExpiry();
+    replayAccesses = !ignoresAccesses(expiry);
 
     this.timeSource = timeSource;
     this.eventDispatcher = eventDispatcher;
@@ -232,7 +251,53 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     return result;
   }
 
-  private Store.ValueHolder<V> internalGet(K key, final boolean updateAccess, final boolean touchValue) throws StoreAccessException {
+  private Store.ValueHolder<V> internalGet(final K key, final boolean updateAccess, final boolean touchValue) throws StoreAccessException {
+
+    final AtomicReference<OffHeapValueHolder<V>> readValue = new AtomicReference<OffHeapValueHolder<V>>();
+    final AtomicReference<Duration> accessDuration = new AtomicReference<Duration>();
+    try {
+      OffHeapValueHolder<V> result = backingMap().readIfPresent(key, new Function<OffHeapValueHolder<V>, OffHeapValueHolder<V>>() {
+        @Override
+        public OffHeapValueHolder<V> apply(OffHeapValueHolder<V> mappedValue) {
+          long now = timeSource.getTimeMillis();
+
+          if (mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
+            readValue.set(mappedValue);
+            return null;
+          }
+
+          if (updateAccess) {
+            Duration duration = getExpiryForAccess(key, mappedValue);
+            if (duration != null) {
+              readValue.set(mappedValue);
+              accessDuration.set(duration);
+              return null;
+            }
+            mappedValue.forceDeserialization();
+            mappedValue.accessed(now, null);
+          } else if (touchValue) {
+            mappedValue.forceDeserialization();
+          }
+          return mappedValue;
+        }
+      });
+      if (result != null) {
+        if (updateAccess && replayAccesses && accessBuffer.record(key, result.getId(), result.lastAccessTime(OffHeapValueHolder.TIME_UNIT))) {
+          accessBuffer.drain(accessReplay);
+        }
+        return result;
+      } else if (readValue.get() == null) {
+        return null;
+      }
+    } catch (RuntimeException re) {
+      handleRuntimeException(re);
+      return null;
+    }
+
+    return internalGetUnderLock(key, readValue.get().getId(), accessDuration.get(), updateAccess, touchValue);
+  }
+
+  private Store.ValueHolder<V> internalGetUnderLock(K key, final long readId, final Duration readDuration, final boolean updateAccess, final boolean touchValue) throws StoreAccessException {
 
     final StoreEventSink<K, V> eventSink = eventDispatcher.eventSink();
     final AtomicReference<OffHeapValueHolder<V>> heldValue = new AtomicReference<OffHeapValueHolder<V>>();
@@ -249,7 +314,13 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
 
           if (updateAccess) {
             mappedValue.forceDeserialization();
-            OffHeapValueHolder<V> valueHolder = setAccessTimeAndExpiryThenReturnMapping(mappedKey, mappedValue, now, eventSink);
+            Duration duration;
+            if (readDuration != null && mappedValue.getId() == readId) {
+              duration = readDuration;
+            } else {
+              duration = getExpiryForAccess(mappedKey, mappedValue);
+            }
+            OffHeapValueHolder<V> valueHolder = setAccessTimeAndExpiryThenReturnMapping(mappedKey, mappedValue, now, duration, eventSink);
             if (valueHolder == null) {
               heldValue.set(mappedValue);
             }
@@ -622,73 +693,11 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     computeObserver.begin();
     checkKey(key);
 
-    final AtomicBoolean write = new AtomicBoolean(false);
-    final AtomicReference<OffHeapValueHolder<V>> valueHeld = new AtomicReference<OffHeapValueHolder<V>>();
     final StoreEventSink<K, V> eventSink = eventDispatcher.eventSink();
-    BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>> computeFunction = new BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>>() {
-      @Override
-      public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
-        long now = timeSource.getTimeMillis();
-        V existingValue = null;
-        if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
-          if (mappedValue != null) {
-            onExpiration(mappedKey, mappedValue, eventSink);
-          }
-          mappedValue = null;
-        } else {
-          existingValue = mappedValue.value();
-        }
-        V computedValue = mappingFunction.apply(mappedKey, existingValue);
-        if (computedValue == null) {
-          if (mappedValue != null) {
-            write.set(true);
-            eventSink.removed(mappedKey, mappedValue);
-          }
-          return null;
-        } else if (safeEquals(existingValue, computedValue) && !replaceEqual.apply()) {
-          if (mappedValue != null) {
-            OffHeapValueHolder<V> valueHolder = setAccessTimeAndExpiryThenReturnMapping(mappedKey, mappedValue, now, eventSink);
-            if (valueHolder == null) {
-              valueHeld.set(mappedValue);
-            }
-            return valueHolder;
-          } else {
-            return null;
-          }
-        }
-
-        checkValue(computedValue);
-        write.set(true);
-        if (mappedValue != null) {
-          OffHeapValueHolder<V> valueHolder = newUpdatedValueHolder(key, computedValue, mappedValue, now, eventSink);
-          if (valueHolder == null) {
-            valueHeld.set(new BasicOffHeapValueHolder<V>(mappedValue.getId(), computedValue, now, now));
-          }
-          return valueHolder;
-        } else {
-          return newCreateValueHolder(key, computedValue, now, eventSink);
-        }
-      }
-    };
-
-    OffHeapValueHolder<V> result;
+    ComputeFunction computeFunction = new ComputeFunction(mappingFunction, replaceEqual, eventSink);
     try {
-      result = computeWithRetry(key, computeFunction, false);
-      if (result == null && valueHeld.get() != null) {
-        result = valueHeld.get();
-      }
+      ValueHolder<V> result = computeFunction.complete(computeWithRetry(key, computeFunction, false));
       eventDispatcher.releaseEventSink(eventSink);
-      if (result == null) {
-        if (write.get()) {
-          computeObserver.end(StoreOperationOutcomes.ComputeOutcome.REMOVED);
-        } else {
-          computeObserver.end(StoreOperationOutcomes.ComputeOutcome.MISS);
-        }
-      } else if (write.get()) {
-        computeObserver.end(StoreOperationOutcomes.ComputeOutcome.PUT);
-      } else {
-        computeObserver.end(StoreOperationOutcomes.ComputeOutcome.HIT);
-      }
       return result;
     } catch (StoreAccessException caex) {
       eventDispatcher.releaseEventSinkAfterFailure(eventSink, caex);
@@ -712,69 +721,11 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     }
     checkKey(key);
 
-    final AtomicBoolean write = new AtomicBoolean(false);
-    final AtomicReference<OffHeapValueHolder<V>> valueHeld = new AtomicReference<OffHeapValueHolder<V>>();
     final StoreEventSink<K, V> eventSink = eventDispatcher.eventSink();
-    BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>> computeFunction = new BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>>() {
-      @Override
-      public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
-        long now = timeSource.getTimeMillis();
-        if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
-          if (mappedValue != null) {
-            onExpiration(mappedKey, mappedValue, eventSink);
-          }
-          write.set(true);
-          V computedValue = mappingFunction.apply(mappedKey);
-          if (computedValue == null) {
-            return null;
-          } else {
-            checkValue(computedValue);
-            return newCreateValueHolder(mappedKey, computedValue, now, eventSink);
-          }
-        } else {
-          OffHeapValueHolder<V> valueHolder = setAccessTimeAndExpiryThenReturnMapping(mappedKey, mappedValue, now, eventSink);
-          if (valueHolder != null) {
-            if (delayedDeserialization) {
-              mappedValue.detach();
-            } else {
-              mappedValue.forceDeserialization();
-            }
-          } else {
-            valueHeld.set(mappedValue);
-          }
-          return valueHolder;
-        }
-      }
-    };
-
-    OffHeapValueHolder<V> computeResult;
+    ComputeIfAbsentFunction computeFunction = new ComputeIfAbsentFunction(mappingFunction, fault, delayedDeserialization, eventSink);
     try {
-      computeResult = computeWithRetry(key, computeFunction, fault);
-      if (computeResult == null && valueHeld.get() != null) {
-        computeResult = valueHeld.get();
-      }
+      ValueHolder<V> computeResult = computeFunction.complete(computeWithRetry(key, computeFunction, fault));
       eventDispatcher.releaseEventSink(eventSink);
-      if (write.get()) {
-        if (computeResult != null) {
-          if (fault) {
-            computeIfAbsentAndFaultObserver.end(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.PUT);
-          } else {
-            computeIfAbsentObserver.end(StoreOperationOutcomes.ComputeIfAbsentOutcome.PUT);
-          }
-        } else {
-          if (fault) {
-            computeIfAbsentAndFaultObserver.end(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.NOOP);
-          } else {
-            computeIfAbsentObserver.end(StoreOperationOutcomes.ComputeIfAbsentOutcome.NOOP);
-          }
-        }
-      } else {
-        if (fault) {
-          computeIfAbsentAndFaultObserver.end(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.HIT);
-        } else {
-          computeIfAbsentObserver.end(StoreOperationOutcomes.ComputeIfAbsentOutcome.HIT);
-        }
-      }
       return computeResult;
     } catch (StoreAccessException caex) {
       eventDispatcher.releaseEventSinkAfterFailure(eventSink, caex);
@@ -791,68 +742,133 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
   }
 
   @Override
-  public Map<K, ValueHolder<V>> bulkCompute(Set<? extends K> keys, final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction, NullaryFunction<Boolean> replaceEqual) throws StoreAccessException {
-    Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+  public Map<K, ValueHolder<V>> bulkCompute(Set<? extends K> keys, final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction, final NullaryFunction<Boolean> replaceEqual) throws StoreAccessException {
     for (K key : keys) {
       checkKey(key);
-      BiFunction<K, V, V> biFunction = new BiFunction<K, V, V>() {
+    }
+
+    // Keys are processed one segment at a time: the remapping function sees all the keys of a segment at once
+    // and the resulting mappings are installed without releasing the segment lock in between.
+    final Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    final List<K> oversized = new ArrayList<K>();
+    final StoreEventSink<K, V> eventSink = eventDispatcher.eventSink();
+    try {
+      backingMap().computeBySegment(keys, new Function<List<K>, Void>() {
         @Override
-        public V apply(final K k, final V v) {
-          Map.Entry<K, V> entry = new Map.Entry<K, V>() {
-            @Override
-            public K getKey() {
-              return k;
+        public Void apply(List<K> segmentKeys) {
+          long now = timeSource.getTimeMillis();
+          Map<K, V> existing = new LinkedHashMap<K, V>();
+          for (K key : segmentKeys) {
+            OffHeapValueHolder<V> mappedValue = backingMap().get(key);
+            if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
+              existing.put(key, null);
+            } else {
+              existing.put(key, mappedValue.value());
             }
+          }
 
-            @Override
-            public V getValue() {
-              return v;
+          Map<K, V> computed = new LinkedHashMap<K, V>();
+          for (Map.Entry<? extends K, ? extends V> entry : remappingFunction.apply(Collections.unmodifiableMap(existing).entrySet())) {
+            checkKey(entry.getKey());
+            if (existing.containsKey(entry.getKey())) {
+              computed.put(entry.getKey(), entry.getValue());
             }
+          }
 
-            @Override
-            public V setValue(V value) {
-              throw new UnsupportedOperationException();
+          for (Map.Entry<K, V> entry : computed.entrySet()) {
+            computeObserver.begin();
+            ComputeFunction computeFunction = new ComputeFunction(constantFunction(entry.getValue()), replaceEqual, eventSink);
+            try {
+              result.put(entry.getKey(), computeFunction.complete(backingMap().compute(entry.getKey(), computeFunction, false)));
+            } catch (OversizeMappingException e) {
+              oversized.add(entry.getKey());
             }
-          };
-          java.util.Iterator<? extends Map.Entry<? extends K, ? extends V>> iterator = remappingFunction.apply(Collections
-              .singleton(entry)).iterator();
-          Map.Entry<? extends K, ? extends V> result = iterator.next();
-          if (result != null) {
-            checkKey(result.getKey());
-            return result.getValue();
-          } else {
-            return null;
           }
+          return null;
         }
-      };
-      ValueHolder<V> computed = compute(key, biFunction, replaceEqual);
-      result.put(key, computed);
+      });
+      // The segment lock was released in between: the value computed under it may be stale, so these keys are
+      // remapped again on their own against their current value.
+      for (K key : oversized) {
+        ComputeFunction computeFunction = new ComputeFunction(singleKeyRemapping(remappingFunction), replaceEqual, eventSink);
+        result.put(key, computeFunction.complete(computeWithRetry(key, computeFunction, false)));
+      }
+      eventDispatcher.releaseEventSink(eventSink);
+      return result;
+    } catch (StoreAccessException caex) {
+      eventDispatcher.releaseEventSinkAfterFailure(eventSink, caex);
+      throw caex;
+    } catch (RuntimeException re) {
+      eventDispatcher.releaseEventSinkAfterFailure(eventSink, re);
+      handleRuntimeException(re);
+      return null;
     }
-    return result;
   }
 
   @Override
   public Map<K, ValueHolder<V>> bulkComputeIfAbsent(Set<? extends K> keys, final Function<Iterable<? extends K>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> mappingFunction) throws StoreAccessException {
-    Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
     for (K key : keys) {
       checkKey(key);
-      Function<K, V> function = new Function<K, V>() {
+    }
+
+    // Same segment at a time processing as bulkCompute, the mapping function is only handed the absent keys.
+    final Map<K, ValueHolder<V>> result = new HashMap<K, ValueHolder<V>>();
+    final List<K> oversized = new ArrayList<K>();
+    final StoreEventSink<K, V> eventSink = eventDispatcher.eventSink();
+    try {
+      backingMap().computeBySegment(keys, new Function<List<K>, Void>() {
         @Override
-        public V apply(K k) {
-          java.util.Iterator<? extends Map.Entry<? extends K, ? extends V>> iterator = mappingFunction.apply(Collections.singleton(k)).iterator();
-          Map.Entry<? extends K, ? extends V> result = iterator.next();
-          if (result != null) {
-            checkKey(result.getKey());
-            return result.getValue();
-          } else {
-            return null;
+        public Void apply(List<K> segmentKeys) {
+          long now = timeSource.getTimeMillis();
+          List<K> absent = new ArrayList<K>();
+          for (K key : segmentKeys) {
+            OffHeapValueHolder<V> mappedValue = backingMap().get(key);
+            if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
+              absent.add(key);
+            }
+          }
+
+          final Map<K, V> computed = new HashMap<K, V>();
+          if (!absent.isEmpty()) {
+            for (Map.Entry<? extends K, ? extends V> entry : mappingFunction.apply(Collections.unmodifiableList(absent))) {
+              checkKey(entry.getKey());
+              computed.put(entry.getKey(), entry.getValue());
+            }
+          }
+          Function<K, V> computedLookup = new Function<K, V>() {
+            @Override
+            public V apply(K key) {
+              return computed.get(key);
+            }
+          };
+
+          for (K key : segmentKeys) {
+            computeIfAbsentObserver.begin();
+            ComputeIfAbsentFunction computeFunction = new ComputeIfAbsentFunction(computedLookup, false, false, eventSink);
+            try {
+              result.put(key, computeFunction.complete(backingMap().compute(key, computeFunction, false)));
+            } catch (OversizeMappingException e) {
+              oversized.add(key);
+            }
           }
+          return null;
         }
-      };
-      ValueHolder<V> computed = computeIfAbsent(key, function);
-      result.put(key, computed);
+      });
+      // As in bulkCompute, these keys are mapped again on their own, only if still absent.
+      for (K key : oversized) {
+        ComputeIfAbsentFunction computeFunction = new ComputeIfAbsentFunction(singleKeyMapping(mappingFunction), false, false, eventSink);
+        result.put(key, computeFunction.complete(computeWithRetry(key, computeFunction, false)));
+      }
+      eventDispatcher.releaseEventSink(eventSink);
+      return result;
+    } catch (StoreAccessException caex) {
+      eventDispatcher.releaseEventSinkAfterFailure(eventSink, caex);
+      throw caex;
+    } catch (RuntimeException re) {
+      eventDispatcher.releaseEventSinkAfterFailure(eventSink, re);
+      handleRuntimeException(re);
+      return null;
     }
-    return result;
   }
 
   @Override
@@ -1118,12 +1134,10 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
   };
 
   private OffHeapValueHolder<V> setAccessTimeAndExpiryThenReturnMapping(K key, OffHeapValueHolder<V> valueHolder, long now, StoreEventSink<K, V> eventSink) {
-    Duration duration = Duration.ZERO;
-    try {
-      duration = expiry.getExpiryForAccess(key, valueHolder);
-    } catch (RuntimeException re) {
-      LOG.error("Expiry computation caused an exception - Expiry duration will be 0 ", re);
-    }
+    return setAccessTimeAndExpiryThenReturnMapping(key, valueHolder, now, getExpiryForAccess(key, valueHolder), eventSink);
+  }
+
+  private OffHeapValueHolder<V> setAccessTimeAndExpiryThenReturnMapping(K key, OffHeapValueHolder<V> valueHolder, long now, Duration duration, StoreEventSink<K, V> eventSink) {
     if (Duration.ZERO.equals(duration)) {
       onExpiration(key, valueHolder, eventSink);
       return null;
@@ -1133,6 +1147,59 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     return valueHolder;
   }
 
+  private Duration getExpiryForAccess(K key, OffHeapValueHolder<V> valueHolder) {
+    try {
+      return expiry.getExpiryForAccess(key, valueHolder);
+    } catch (RuntimeException re) {
+      LOG.error("Expiry computation caused an exception - Expiry duration will be 0 ", re);
+      return Duration.ZERO;
+    }
+  }
+
+  /**
+   * Built-in expiries that leave the expiration time unchanged on access never look at access times, deferred accesses
+   * then only feed the hit statistics of the mappings and are not worth replaying under the exclusive lock.
+   */
+  private static boolean ignoresAccesses(Expiry<?, ?> expiry) {
+    return expiry.getClass().getEnclosingClass() == Expirations.class && expiry.getExpiryForAccess(null, null) == null;
+  }
+
+  /**
+   * Replays deferred accesses one segment at a time, skipping segments whose exclusive lock is busy: the accesses are
+   * lossy statistics, not worth making the reading thread wait.
+   */
+  private void replayAccesses(final Map<K, AccessBuffer.Access<K>> accesses) {
+    try {
+      backingMap().tryComputeBySegment(accesses.keySet(), new Function<List<K>, Void>() {
+        @Override
+        public Void apply(List<K> keys) {
+          for (K key : keys) {
+            replayAccess(accesses.get(key));
+          }
+          return null;
+        }
+      });
+    } catch (RuntimeException re) {
+      LOG.debug("Failed to replay deferred accesses", re);
+    }
+  }
+
+  private void replayAccess(final AccessBuffer.Access<K> access) {
+    backingMap().computeIfPresent(access.key, new BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>>() {
+      @Override
+      public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
+        if (mappedValue.getId() == access.id) {
+          long time = Math.max(access.time, mappedValue.lastAccessTime(OffHeapValueHolder.TIME_UNIT));
+          for (int i = 0; i < access.count; i++) {
+            mappedValue.accessed(time, null);
+          }
+          mappedValue.writeBack();
+        }
+        return mappedValue;
+      }
+    });
+  }
+
   private OffHeapValueHolder<V> newUpdatedValueHolder(K key, V value, OffHeapValueHolder<V> existing, long now, StoreEventSink<K, V> eventSink) {
     eventSink.updated(key, existing, value);
     Duration duration = Duration.ZERO;
@@ -1247,6 +1314,217 @@ public abstract class AbstractOffHeapStore<K, V> implements AuthoritativeTier<K,
     return new OffHeapEvictionAdvisorWrapper<K, V>(delegate);
   }
 
+  /**
+   * Remaps a single key through a bulk remapping function, the key keeping its value if the function skips it.
+   */
+  private static <K, V> BiFunction<K, V, V> singleKeyRemapping(final Function<Iterable<? extends Map.Entry<? extends K, ? extends V>>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> remappingFunction) {
+    return new BiFunction<K, V, V>() {
+      @Override
+      public V apply(K key, V existing) {
+        for (Map.Entry<? extends K, ? extends V> entry : remappingFunction.apply(Collections.singletonMap(key, existing).entrySet())) {
+          if (key.equals(entry.getKey())) {
+            return entry.getValue();
+          }
+        }
+        return existing;
+      }
+    };
+  }
+
+  /**
+   * Maps a single key through a bulk mapping function.
+   */
+  private static <K, V> Function<K, V> singleKeyMapping(final Function<Iterable<? extends K>, Iterable<? extends Map.Entry<? extends K, ? extends V>>> mappingFunction) {
+    return new Function<K, V>() {
+      @Override
+      public V apply(K key) {
+        for (Map.Entry<? extends K, ? extends V> entry : mappingFunction.apply(Collections.singletonList(key))) {
+          if (key.equals(entry.getKey())) {
+            return entry.getValue();
+          }
+        }
+        return null;
+      }
+    };
+  }
+
+  private static <K, V> BiFunction<K, V, V> constantFunction(final V value) {
+    return new BiFunction<K, V, V>() {
+      @Override
+      public V apply(K key, V existing) {
+        return value;
+      }
+    };
+  }
+
+  /**
+   * Backing map compute function implementing {@link #compute(Object, BiFunction, NullaryFunction)}, the outcome
+   * is reported once the computed mapping has been handed to {@link #complete(OffHeapValueHolder)}.
+   */
+  private final class ComputeFunction implements BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>> {
+
+    private final BiFunction<? super K, ? super V, ? extends V> mappingFunction;
+    private final NullaryFunction<Boolean> replaceEqual;
+    private final StoreEventSink<K, V> eventSink;
+
+    private boolean write;
+    private OffHeapValueHolder<V> valueHeld;
+
+    ComputeFunction(BiFunction<? super K, ? super V, ? extends V> mappingFunction, NullaryFunction<Boolean> replaceEqual, StoreEventSink<K, V> eventSink) {
+      this.mappingFunction = mappingFunction;
+      this.replaceEqual = replaceEqual;
+      this.eventSink = eventSink;
+    }
+
+    @Override
+    public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
+      write = false;
+      valueHeld = null;
+      long now = timeSource.getTimeMillis();
+      V existingValue = null;
+      if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
+        if (mappedValue != null) {
+          onExpiration(mappedKey, mappedValue, eventSink);
+        }
+        mappedValue = null;
+      } else {
+        existingValue = mappedValue.value();
+      }
+      V computedValue = mappingFunction.apply(mappedKey, existingValue);
+      if (computedValue == null) {
+        if (mappedValue != null) {
+          write = true;
+          eventSink.removed(mappedKey, mappedValue);
+        }
+        return null;
+      } else if (safeEquals(existingValue, computedValue) && !replaceEqual.apply()) {
+        if (mappedValue != null) {
+          OffHeapValueHolder<V> valueHolder = setAccessTimeAndExpiryThenReturnMapping(mappedKey, mappedValue, now, eventSink);
+          if (valueHolder == null) {
+            valueHeld = mappedValue;
+          }
+          return valueHolder;
+        } else {
+          return null;
+        }
+      }
+
+      checkValue(computedValue);
+      write = true;
+      if (mappedValue != null) {
+        OffHeapValueHolder<V> valueHolder = newUpdatedValueHolder(mappedKey, computedValue, mappedValue, now, eventSink);
+        if (valueHolder == null) {
+          valueHeld = new BasicOffHeapValueHolder<V>(mappedValue.getId(), computedValue, now, now);
+        }
+        return valueHolder;
+      } else {
+        return newCreateValueHolder(mappedKey, computedValue, now, eventSink);
+      }
+    }
+
+    ValueHolder<V> complete(OffHeapValueHolder<V> computeResult) {
+      OffHeapValueHolder<V> result = computeResult;
+      if (result == null && valueHeld != null) {
+        result = valueHeld;
+      }
+      if (result == null) {
+        if (write) {
+          computeObserver.end(StoreOperationOutcomes.ComputeOutcome.REMOVED);
+        } else {
+          computeObserver.end(StoreOperationOutcomes.ComputeOutcome.MISS);
+        }
+      } else if (write) {
+        computeObserver.end(StoreOperationOutcomes.ComputeOutcome.PUT);
+      } else {
+        computeObserver.end(StoreOperationOutcomes.ComputeOutcome.HIT);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Backing map compute function implementing {@link #computeIfAbsent(Object, Function)} and its faulting variant,
+   * the outcome is reported once the computed mapping has been handed to {@link #complete(OffHeapValueHolder)}.
+   */
+  private final class ComputeIfAbsentFunction implements BiFunction<K, OffHeapValueHolder<V>, OffHeapValueHolder<V>> {
+
+    private final Function<? super K, ? extends V> mappingFunction;
+    private final boolean fault;
+    private final boolean delayedDeserialization;
+    private final StoreEventSink<K, V> eventSink;
+
+    private boolean write;
+    private OffHeapValueHolder<V> valueHeld;
+
+    ComputeIfAbsentFunction(Function<? super K, ? extends V> mappingFunction, boolean fault, boolean delayedDeserialization, StoreEventSink<K, V> eventSink) {
+      this.mappingFunction = mappingFunction;
+      this.fault = fault;
+      this.delayedDeserialization = delayedDeserialization;
+      this.eventSink = eventSink;
+    }
+
+    @Override
+    public OffHeapValueHolder<V> apply(K mappedKey, OffHeapValueHolder<V> mappedValue) {
+      write = false;
+      valueHeld = null;
+      long now = timeSource.getTimeMillis();
+      if (mappedValue == null || mappedValue.isExpired(now, TimeUnit.MILLISECONDS)) {
+        if (mappedValue != null) {
+          onExpiration(mappedKey, mappedValue, eventSink);
+        }
+        write = true;
+        V computedValue = mappingFunction.apply(mappedKey);
+        if (computedValue == null) {
+          return null;
+        } else {
+          checkValue(computedValue);
+          return newCreateValueHolder(mappedKey, computedValue, now, eventSink);
+        }
+      } else {
+        OffHeapValueHolder<V> valueHolder = setAccessTimeAndExpiryThenReturnMapping(mappedKey, mappedValue, now, eventSink);
+        if (valueHolder != null) {
+          if (delayedDeserialization) {
+            mappedValue.detach();
+          } else {
+            mappedValue.forceDeserialization();
+          }
+        } else {
+          valueHeld = mappedValue;
+        }
+        return valueHolder;
+      }
+    }
+
+    ValueHolder<V> complete(OffHeapValueHolder<V> computeResult) {
+      OffHeapValueHolder<V> result = computeResult;
+      if (result == null && valueHeld != null) {
+        result = valueHeld;
+      }
+      if (write) {
+        if (result != null) {
+          if (fault) {
+            computeIfAbsentAndFaultObserver.end(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.PUT);
+          } else {
+            computeIfAbsentObserver.end(StoreOperationOutcomes.ComputeIfAbsentOutcome.PUT);
+          }
+        } else {
+          if (fault) {
+            computeIfAbsentAndFaultObserver.end(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.NOOP);
+          } else {
+            computeIfAbsentObserver.end(StoreOperationOutcomes.ComputeIfAbsentOutcome.NOOP);
+          }
+        }
+      } else {
+        if (fault) {
+          computeIfAbsentAndFaultObserver.end(AuthoritativeTierOperationOutcomes.ComputeIfAbsentAndFaultOutcome.HIT);
+        } else {
+          computeIfAbsentObserver.end(StoreOperationOutcomes.ComputeIfAbsentOutcome.HIT);
+        }
+      }
+      return result;
+    }
+  }
+
   private static class OffHeapEvictionAdvisorWrapper<K, V> implements SwitchableEvictionAdvisor<K, OffHeapValueHolder<V>> {
 
     private final EvictionAdvisor<? super K, ? super V> delegate;
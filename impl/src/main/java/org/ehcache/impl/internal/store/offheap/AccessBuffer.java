@@ -0,0 +1,133 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.internal.store.offheap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded and lossy buffer of accesses performed under a shared segment lock.
+ * <P>
+ *   Accesses are recorded in a ring, a full ring silently overwrites its oldest entries. The recorded accesses
+ *   are replayed in batches, merged by key, so that the metadata updates they imply can be applied under the
+ *   exclusive lock once per key and segment rather than once per access.
+ * </P>
+ *
+ * @param <K> the key type
+ */
+final class AccessBuffer<K> {
+
+  private final AtomicReferenceArray<Access<K>> slots;
+  private final AtomicInteger tail = new AtomicInteger();
+  private final AtomicBoolean draining = new AtomicBoolean();
+  private final int mask;
+
+  AccessBuffer(int size) {
+    if (size <= 0 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("Buffer size must be a positive power of two : " + size);
+    }
+    this.slots = new AtomicReferenceArray<Access<K>>(size);
+    this.mask = size - 1;
+  }
+
+  /**
+   * Records an access to the mapping with the given key and id.
+   *
+   * @param key the key of the accessed mapping
+   * @param id the id of the accessed mapping
+   * @param time the access time
+   *
+   * @return {@code true} if the buffer wrapped and should be drained
+   */
+  boolean record(K key, long id, long time) {
+    int index = tail.getAndIncrement() & mask;
+    slots.set(index, new Access<K>(key, id, time));
+    return index == mask;
+  }
+
+  /**
+   * Hands all recorded accesses, merged by key, to the given {@link Replay}, unless another thread is already
+   * draining.
+   *
+   * @param replay the replay target
+   */
+  void drain(Replay<K> replay) {
+    if (draining.compareAndSet(false, true)) {
+      try {
+        Map<K, Access<K>> accesses = new LinkedHashMap<K, Access<K>>();
+        for (int i = 0; i < slots.length(); i++) {
+          Access<K> access = slots.getAndSet(i, null);
+          if (access != null) {
+            Access<K> previous = accesses.get(access.key);
+            accesses.put(access.key, previous == null ? access : previous.merge(access));
+          }
+        }
+        if (!accesses.isEmpty()) {
+          replay.replay(accesses);
+        }
+      } finally {
+        draining.set(false);
+      }
+    }
+  }
+
+  interface Replay<K> {
+
+    /**
+     * Replays a batch of accesses.
+     *
+     * @param accesses the accesses, one per key
+     */
+    void replay(Map<K, Access<K>> accesses);
+  }
+
+  /**
+   * The accesses recorded against a key: how many there were and the latest of them.
+   */
+  static final class Access<K> {
+    final K key;
+    final long id;
+    final long time;
+    final int count;
+
+    Access(K key, long id, long time) {
+      this(key, id, time, 1);
+    }
+
+    private Access(K key, long id, long time, int count) {
+      this.key = key;
+      this.id = id;
+      this.time = time;
+      this.count = count;
+    }
+
+    /**
+     * Merges with another access of the same key. Of accesses recorded against different mappings only the most
+     * recent is kept, the older mapping having most likely been replaced already.
+     */
+    Access<K> merge(Access<K> other) {
+      if (other.id == id) {
+        return new Access<K>(key, id, Math.max(time, other.time), count + other.count);
+      } else {
+        return other.time >= time ? other : this;
+      }
+    }
+  }
+}
@@ -27,7 +27,12 @@ import org.terracotta.offheapstore.concurrent.AbstractConcurrentOffHeapCache;
 import org.terracotta.offheapstore.pinning.PinnableSegment;
 import org.terracotta.offheapstore.util.Factory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 
 import static org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory.EhcacheSegment.ADVISED_AGAINST_EVICTION;
 import org.terracotta.offheapstore.Metadata;
@@ -236,6 +241,60 @@ public class EhcacheConcurrentOffHeapClockCache<K, V> extends AbstractConcurrent
     return unpin.get();
   }
 
+  @Override
+  public V readIfPresent(final K key, final Function<V, V> readFunction) {
+    Segment<K, V> segment = segments[getIndexFor(key.hashCode())];
+    Lock lock = segment.readLock();
+    lock.lock();
+    try {
+      V value = segment.get(key);
+      if (value == null) {
+        return null;
+      } else {
+        return readFunction.apply(value);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void computeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction) {
+    computeBySegment(keys, segmentFunction, true);
+  }
+
+  @Override
+  public void tryComputeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction) {
+    computeBySegment(keys, segmentFunction, false);
+  }
+
+  private void computeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction, boolean wait) {
+    Map<Integer, List<K>> keysBySegment = new TreeMap<Integer, List<K>>();
+    for (K key : keys) {
+      Integer index = getIndexFor(key.hashCode());
+      List<K> segmentKeys = keysBySegment.get(index);
+      if (segmentKeys == null) {
+        segmentKeys = new ArrayList<K>();
+        keysBySegment.put(index, segmentKeys);
+      }
+      segmentKeys.add(key);
+    }
+
+    for (Map.Entry<Integer, List<K>> segmentKeys : keysBySegment.entrySet()) {
+      Lock lock = segments[segmentKeys.getKey()].writeLock();
+      if (wait) {
+        lock.lock();
+      } else if (!lock.tryLock()) {
+        continue;
+      }
+      try {
+        segmentFunction.apply(segmentKeys.getValue());
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
   @Override
   public long nextIdFor(final K key) {
     return counters[getIndexFor(key.hashCode())].getAndIncrement();
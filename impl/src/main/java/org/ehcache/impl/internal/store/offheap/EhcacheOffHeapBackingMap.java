@@ -78,6 +78,42 @@ public interface EhcacheOffHeapBackingMap<K, V> extends ConcurrentMap<K, V>, Off
    */
   V computeIfPresentAndPin(K key, BiFunction<K, V, V> mappingFunction);
 
+  /**
+   * Reads the mapping for the given key and passes it to the function passed in, while holding the shared lock
+   * of the segment the key belongs to. The function is not invoked if no mapping exists.
+   * <P>
+   *   Concurrent readers of the same segment may be running, the function must therefore not mutate the mapping.
+   * </P>
+   *
+   * @param key the key to read the mapping for
+   * @param readFunction the function invoked with the mapped value
+   *
+   * @return the result of the function, or {@code null} if no mapping exists
+   */
+  V readIfPresent(K key, Function<V, V> readFunction);
+
+  /**
+   * Groups the given keys by the segment they belong to and invokes the function passed in once per group, while
+   * holding the exclusive lock of the corresponding segment.
+   * <P>
+   *   Segments are locked one at a time. The function can read and compute the mappings of its keys through this
+   *   map without any further contention.
+   * </P>
+   *
+   * @param keys the keys to group
+   * @param segmentFunction the function invoked with the keys of each segment
+   */
+  void computeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction);
+
+  /**
+   * Like {@link #computeBySegment(Iterable, Function)}, except that the keys of a segment whose exclusive lock is not
+   * immediately available are skipped instead of waited for.
+   *
+   * @param keys the keys to group
+   * @param segmentFunction the function invoked with the keys of each segment that could be locked
+   */
+  void tryComputeBySegment(Iterable<? extends K> keys, Function<List<K>, Void> segmentFunction);
+
   long nextIdFor(K key);
 
   V getAndPin(K key);
@@ -16,11 +16,14 @@
 
 package org.ehcache.impl.internal.store.offheap;
 
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.impl.internal.store.offheap.MemorySizeParser;
 import org.terracotta.offheapstore.util.DebuggingUtils;
 
 import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.getAdvancedBooleanConfigProperty;
 import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.getAdvancedMemorySizeConfigProperty;
+import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.getDefaultConcurrency;
+import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.roundUpToPowerOfTwo;
 
 /**
  * Configuration class for sizing offheap.
@@ -34,6 +37,7 @@ public class HeuristicConfiguration {
   private static final int MAXIMUM_CHUNK_SIZE = 1 * 1024 * 1024 * 1024;
   private static final int MINIMUM_SEGMENT_COUNT = 16;
   private static final int MAXIMUM_SEGMENT_COUNT = 16 * 1024;
+  private static final int MINIMUM_SEGMENT_SIZE = 64 * 1024;
   private static final int MAXIMAL_SEGMENT_SIZE_RATIO = 4;
   private static final int INITIAL_SEGMENT_SIZE_RATIO = 16;
   private static final int ASSUMED_KEY_VALUE_SIZE = 1024;
@@ -49,8 +53,25 @@ public class HeuristicConfiguration {
   private final int maximalSegmentSizeRatio;
   private final int initialSegmentSizeRatio;
   private final int assumedKeyValueSize;
+  private final int minimumSegmentSize;
+
+  private final int configuredConcurrency;
+  private final int configuredInitialTableSize;
+  private final int configuredMinimumPageSize;
+  private final int configuredMaximumPageSize;
 
   public HeuristicConfiguration(long maximumSize) {
+    this(maximumSize, null);
+  }
+
+  /**
+   * Creates a sizing configuration where the explicitly configured values of {@code overrides} take precedence over
+   * the heuristics.
+   *
+   * @param maximumSize the size of the off heap pool
+   * @param overrides the user configuration, may be {@code null}
+   */
+  public HeuristicConfiguration(long maximumSize, OffHeapStoreConfiguration overrides) {
     if (maximumSize < MINIMUM_MAX_MEMORY_IN_BYTES) {
         throw new IllegalArgumentException("The value of maxBytesLocalOffHeap is less than the minimum allowed value of " + MINIMUM_MAX_MEMORY +
                 ". Reconfigure maxBytesLocalOffHeap in ehcache.xml or programmatically.");
@@ -74,6 +95,19 @@ public class HeuristicConfiguration {
       this.initialSegmentSizeRatio = (int) getAdvancedMemorySizeConfigProperty("initialSegmentSizeRatio", INITIAL_SEGMENT_SIZE_RATIO);
       this.assumedKeyValueSize = (int) getAdvancedMemorySizeConfigProperty("assumedKeyValueSize", ASSUMED_KEY_VALUE_SIZE);
     }
+    this.minimumSegmentSize = (int) getAdvancedMemorySizeConfigProperty("minimumSegmentSize", MINIMUM_SEGMENT_SIZE);
+
+    if (overrides == null) {
+      this.configuredConcurrency = OffHeapStoreConfiguration.AUTO;
+      this.configuredInitialTableSize = OffHeapStoreConfiguration.AUTO;
+      this.configuredMinimumPageSize = OffHeapStoreConfiguration.AUTO;
+      this.configuredMaximumPageSize = OffHeapStoreConfiguration.AUTO;
+    } else {
+      this.configuredConcurrency = overrides.getConcurrency();
+      this.configuredInitialTableSize = overrides.getInitialTableSize();
+      this.configuredMinimumPageSize = (int) overrides.getMinimumPageSize();
+      this.configuredMaximumPageSize = (int) overrides.getMaximumPageSize();
+    }
   }
 
   public long getMaximumSize() {
@@ -81,22 +115,34 @@ public class HeuristicConfiguration {
   }
 
   public int getMinimumChunkSize() {
-    return (int) Math.min(maximumChunkSize, maximalSegmentSizeRatio * (getMaximumSize() / getConcurrency()));
+    return (int) Math.min(getMaximumChunkSize(), maximalSegmentSizeRatio * (getMaximumSize() / getConcurrency()));
   }
 
   public int getMaximumChunkSize() {
+    if (configuredMaximumPageSize != OffHeapStoreConfiguration.AUTO) {
+      return (int) Math.min(getMaximumSize(), configuredMaximumPageSize);
+    }
     return (int) Math.min(getMaximumSize(), maximumChunkSize);
   }
 
   public int getConcurrency() {
-    return Integer.highestOneBit((int) Math.min(maximumSegmentCount, Math.max(minimumSegmentCount, getMaximumSize() / idealMaxSegmentSize)));
+    if (configuredConcurrency != OffHeapStoreConfiguration.AUTO) {
+      return roundUpToPowerOfTwo(configuredConcurrency);
+    }
+    return getDefaultConcurrency(getMaximumSize(), minimumSegmentCount, idealMaxSegmentSize, minimumSegmentSize, maximumSegmentCount);
   }
 
   public int getInitialSegmentTableSize() {
+    if (configuredInitialTableSize != OffHeapStoreConfiguration.AUTO) {
+      return configuredInitialTableSize;
+    }
     return Math.max(1, getSegmentDataPageSize() / assumedKeyValueSize);
   }
 
   public int getSegmentDataPageSize() {
+    if (configuredMinimumPageSize != OffHeapStoreConfiguration.AUTO) {
+      return Integer.highestOneBit(Math.min(getMinimumChunkSize(), configuredMinimumPageSize));
+    }
     return Integer.highestOneBit((int) Math.min(getMinimumChunkSize(), getInitialSegmentCapacity() * assumedKeyValueSize));
   }
 
@@ -18,6 +18,7 @@ package org.ehcache.impl.internal.store.offheap;
 
 import org.ehcache.core.spi.store.Store;
 import org.ehcache.impl.internal.store.BinaryValueHolder;
+import org.ehcache.impl.serialization.BinaryPassthroughSerializer;
 import org.ehcache.spi.serialization.SerializerException;
 import org.ehcache.impl.internal.store.offheap.portability.OffHeapValueHolderPortability;
 import org.ehcache.spi.serialization.Serializer;
@@ -91,12 +92,21 @@ public final class LazyOffHeapValueHolder<V> extends OffHeapValueHolder<V> imple
 
   /**
    * Must be called under offheap lock (when it actually does something)
+   * <P>
+   *   Once detached, the binary value is a private copy. Serializers supporting it will then back the value by this
+   *   copy instead of copying it once more.
+   * </P>
    */
   @Override
+  @SuppressWarnings("unchecked")
   void forceDeserialization() {
     if (value == null) {
       try {
-        value = valueSerializer.read(binaryValue.duplicate());
+        if (mode == Mode.DETACHED && valueSerializer instanceof BinaryPassthroughSerializer) {
+          value = ((BinaryPassthroughSerializer<V>) valueSerializer).adopt(binaryValue.duplicate());
+        } else {
+          value = valueSerializer.read(binaryValue.duplicate());
+        }
       } catch (ClassNotFoundException e) {
         throw new SerializerException(e);
       } catch (SerializerException e) {
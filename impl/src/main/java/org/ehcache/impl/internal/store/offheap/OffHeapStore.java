@@ -26,6 +26,7 @@ import org.ehcache.core.spi.store.StoreAccessException;
 import org.ehcache.core.statistics.AuthoritativeTierOperationOutcomes;
 import org.ehcache.core.statistics.LowerCachingTierOperationsOutcome;
 import org.ehcache.core.statistics.StoreOperationOutcomes;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.impl.internal.events.NullStoreEventDispatcher;
 import org.ehcache.impl.internal.events.ThreadLocalStoreEventDispatcher;
 import org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory;
@@ -66,6 +67,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.ehcache.config.Eviction.noAdvice;
+import static org.ehcache.core.internal.service.ServiceLocator.findSingletonAmongst;
 import static org.ehcache.impl.internal.store.offheap.OffHeapStoreUtils.getBufferSource;
 
 /**
@@ -79,10 +81,16 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
   private final Serializer<K> keySerializer;
   private final Serializer<V> valueSerializer;
   private final long sizeInBytes;
+  private final OffHeapStoreConfiguration sizingConfiguration;
 
   private volatile EhcacheConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> map;
 
   public OffHeapStore(final Configuration<K, V> config, TimeSource timeSource, StoreEventDispatcher<K, V> eventDispatcher, long sizeInBytes) {
+    this(config, timeSource, eventDispatcher, sizeInBytes, null);
+  }
+
+  public OffHeapStore(final Configuration<K, V> config, TimeSource timeSource, StoreEventDispatcher<K, V> eventDispatcher, long sizeInBytes,
+                      OffHeapStoreConfiguration sizingConfiguration) {
     super(STATISTICS_TAG, config, timeSource, eventDispatcher);
     EvictionAdvisor<? super K, ? super V> evictionAdvisor = config.getEvictionAdvisor();
     if (evictionAdvisor != null) {
@@ -93,6 +101,7 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
     this.keySerializer = config.getKeySerializer();
     this.valueSerializer = config.getValueSerializer();
     this.sizeInBytes = sizeInBytes;
+    this.sizingConfiguration = sizingConfiguration;
   }
 
   @Override
@@ -101,7 +110,7 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
   }
 
   private EhcacheConcurrentOffHeapClockCache<K, OffHeapValueHolder<V>> createBackingMap(long size, Serializer<K> keySerializer, Serializer<V> valueSerializer, SwitchableEvictionAdvisor<K, OffHeapValueHolder<V>> evictionAdvisor) {
-    HeuristicConfiguration config = new HeuristicConfiguration(size);
+    HeuristicConfiguration config = new HeuristicConfiguration(size, sizingConfiguration);
     PageSource source = new UpfrontAllocatingPageSource(getBufferSource(), config.getMaximumSize(), config.getMaximumChunkSize(), config.getMinimumChunkSize());
     Portability<K> keyPortability = new SerializerPortability<K>(keySerializer);
     Portability<OffHeapValueHolder<V>> elementPortability = new OffHeapValueHolderPortability<V>(valueSerializer);
@@ -179,9 +188,9 @@ public class OffHeapStore<K, V> extends AbstractOffHeapStore<K, V> {
         throw new IllegalArgumentException("OffHeapStore only supports resources with memory unit");
       }
       MemoryUnit unit = (MemoryUnit)offHeapPool.getUnit();
+      OffHeapStoreConfiguration sizingConfiguration = findSingletonAmongst(OffHeapStoreConfiguration.class, (Object[]) serviceConfigs);
 
-
-      OffHeapStore<K, V> offHeapStore = new OffHeapStore<K, V>(storeConfig, timeSource, eventDispatcher, unit.toBytes(offHeapPool.getSize()));
+      OffHeapStore<K, V> offHeapStore = new OffHeapStore<K, V>(storeConfig, timeSource, eventDispatcher, unit.toBytes(offHeapPool.getSize()), sizingConfiguration);
       createdStores.add(offHeapStore);
       return offHeapStore;
     }
@@ -45,6 +45,43 @@ public class OffHeapStoreUtils {
     return new TimingBufferSource(new OffHeapBufferSource(), slowDelay, TimeUnit.MILLISECONDS, critDelay, TimeUnit.MILLISECONDS, haltOnCrit);
   }
 
+  /**
+   * Returns a power of two segment count suited to a pool of the given size.
+   * <P>
+   *   The count grows with the pool so that segments stay around {@code idealMaxSegmentSize}, and is never lower than
+   *   either {@code minimumSegmentCount} or the number of available processors, so that lock striping keeps up with
+   *   the host. It is however reduced for small pools so that no segment is smaller than {@code minimumSegmentSize}.
+   * </P>
+   *
+   * @param size the pool size in bytes
+   * @param minimumSegmentCount the preferred minimum segment count
+   * @param idealMaxSegmentSize the size above which segments should be split
+   * @param minimumSegmentSize the size below which segments should not be split
+   * @param maximumSegmentCount the maximum segment count
+   * @return the segment count
+   */
+  public static int getDefaultConcurrency(long size, int minimumSegmentCount, long idealMaxSegmentSize, long minimumSegmentSize, int maximumSegmentCount) {
+    long preferred = Math.max(Math.max(minimumSegmentCount, Runtime.getRuntime().availableProcessors()), size / idealMaxSegmentSize);
+    long largest = Math.max(1, size / minimumSegmentSize);
+    return Integer.highestOneBit((int) Math.min(maximumSegmentCount, Math.min(roundUpToPowerOfTwo((int) Math.min(preferred, 1 << 30)), largest)));
+  }
+
+  /**
+   * Rounds the given positive value up to the closest power of two.
+   *
+   * @param value the value to round
+   * @return the smallest power of two greater than or equal to {@code value}
+   */
+  public static int roundUpToPowerOfTwo(int value) {
+    if (value <= 1) {
+      return 1;
+    } else if (value > 1 << 30) {
+      return 1 << 30;
+    } else {
+      return Integer.highestOneBit(value - 1) << 1;
+    }
+  }
+
   public static long getAdvancedMemorySizeConfigProperty(String property, long defaultValue) {
     String globalPropertyKey = "net.sf.ehcache.offheap.config." + property;
     return MemorySizeParser.parse(System.getProperty(globalPropertyKey, Long.toString(defaultValue)));
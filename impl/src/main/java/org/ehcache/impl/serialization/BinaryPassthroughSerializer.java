@@ -0,0 +1,48 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.serialization;
+
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Companion interface for {@link Serializer} implementations whose values can be backed directly by their binary form.
+ * <p>
+ * When a store owns a private copy of the binary form of a value, it will call {@link #adopt(ByteBuffer)} instead of
+ * {@link #read(ByteBuffer)} so that reading the value does not require a second copy of its bytes.
+ * </p>
+ *
+ * @param <T> the type of the instances to serialize
+ */
+public interface BinaryPassthroughSerializer<T> extends Serializer<T> {
+
+  /**
+   * Reconstructs an instance from the given binary form, the returned instance may share its content with the buffer.
+   * <p>
+   * The caller hands over the content of the buffer and guarantees it will not be modified afterwards. As with
+   * {@link #read(ByteBuffer)}, the buffer position is moved past the consumed bytes.
+   * </p>
+   *
+   * @param binary the binary representation of the instance
+   * @return the instance, possibly backed by the buffer content
+   * @throws ClassNotFoundException if a class cannot be resolved
+   * @throws SerializerException if reading the byte buffer fails
+   */
+  T adopt(ByteBuffer binary) throws ClassNotFoundException, SerializerException;
+}
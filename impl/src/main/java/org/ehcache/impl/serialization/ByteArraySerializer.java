@@ -25,11 +25,15 @@ import java.nio.ByteBuffer;
  * Default {@link Serializer} for {@code byte[]} type. Simply writes the byte array
  * to a byte buffer.
  * <p>
+ * Whenever the store owns a private copy of the bytes, the array backing that copy is handed out as is, see
+ * {@link BinaryPassthroughSerializer}.
+ * </p>
+ * <p>
  * Note that {@link #equals(byte[], ByteBuffer)} does not follow the {@code byte[].equals(Object)} contract but does
  * byte-to-byte comparison of both byte arrays.
  * </p>
  */
-public class ByteArraySerializer implements Serializer<byte[]> {
+public class ByteArraySerializer implements BinaryPassthroughSerializer<byte[]> {
 
   /**
    * No arg constructor
@@ -68,6 +72,19 @@ public class ByteArraySerializer implements Serializer<byte[]> {
     return bytes;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte[] adopt(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+    if (binary.hasArray() && binary.arrayOffset() == 0 && binary.position() == 0 && binary.limit() == binary.array().length) {
+      binary.position(binary.limit());
+      return binary.array();
+    } else {
+      return read(binary);
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
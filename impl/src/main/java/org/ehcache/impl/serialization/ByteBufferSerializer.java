@@ -0,0 +1,98 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.serialization;
+
+import org.ehcache.spi.serialization.SerializerException;
+import org.ehcache.spi.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Serializer} for {@link ByteBuffer} type. Simply writes the remaining bytes of the buffer.
+ * <p>
+ * Not registered by default: a value held by the heap tier is handed out as the same buffer instance on every read,
+ * so readers sharing it would also share its position. Register it together with a copier, or only read through
+ * {@link ByteBuffer#duplicate()}.
+ * </p>
+ * <p>
+ * Buffers read back are read-only. Whenever the store owns a private copy of the bytes the returned buffer is a view
+ * over that copy, see {@link BinaryPassthroughSerializer}.
+ * </p>
+ * <p>
+ * Note that {@link #equals(ByteBuffer, ByteBuffer)} compares the remaining bytes of both buffers, as
+ * {@link ByteBuffer#equals(Object)} does.
+ * </p>
+ */
+public class ByteBufferSerializer implements BinaryPassthroughSerializer<ByteBuffer> {
+
+  /**
+   * No arg constructor
+   */
+  public ByteBufferSerializer() {
+  }
+
+  /**
+   * Constructor to enable this serializer as a transient one.
+   * <P>
+   *   Parameter is ignored as {@link ByteBuffer} is a base java type.
+   * </P>
+   *
+   * @param classLoader the classloader to use
+   *
+   * @see Serializer
+   */
+  public ByteBufferSerializer(ClassLoader classLoader) {
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ByteBuffer serialize(ByteBuffer object) throws SerializerException {
+    return object.duplicate();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ByteBuffer read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+    ByteBuffer copy = ByteBuffer.allocate(binary.remaining());
+    copy.put(binary).flip();
+    return copy.asReadOnlyBuffer();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ByteBuffer adopt(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+    ByteBuffer view = binary.slice().asReadOnlyBuffer();
+    binary.position(binary.limit());
+    return view;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(ByteBuffer object, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+    boolean equals = binary.equals(object);
+    binary.position(binary.limit());
+    return equals;
+  }
+}
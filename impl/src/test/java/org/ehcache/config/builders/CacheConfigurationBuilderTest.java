@@ -26,7 +26,10 @@ import org.ehcache.expiry.Expiry;
 import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
 import org.ehcache.impl.config.loaderwriter.DefaultCacheLoaderWriterConfiguration;
 import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
+import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
+import org.ehcache.impl.config.store.heap.OnHeapStoreConfiguration;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.impl.internal.classes.ClassInstanceConfiguration;
 import org.ehcache.spi.copy.Copier;
 import org.ehcache.spi.loaderwriter.BulkCacheWritingException;
@@ -43,6 +46,7 @@ import org.mockito.Mockito;
 
 import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
 import static org.hamcrest.Matchers.*;
@@ -280,6 +284,112 @@ public class CacheConfigurationBuilderTest {
 
   }
 
+  @Test
+  public void testSizeOfLayoutCaching() {
+    CacheConfigurationBuilder<String, String> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10));
+
+    CacheConfiguration<String, String> configuration = builder.withSizeOfMaxObjectGraph(42L).withSizeOfLayoutCaching()
+        .withSizeOfMaxObjectSize(1, MemoryUnit.KB).build();
+
+    DefaultSizeOfEngineConfiguration sizeOfEngineConfiguration = ServiceLocator.findSingletonAmongst(DefaultSizeOfEngineConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(sizeOfEngineConfiguration.isLayoutCaching(), is(true));
+    assertThat(sizeOfEngineConfiguration.getMaxObjectGraphSize(), is(42L));
+    assertThat(sizeOfEngineConfiguration.getMaxObjectSize(), is(1L));
+  }
+
+  @Test
+  public void testHeapEvictionPolicy() {
+    CacheConfigurationBuilder<String, String> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10));
+
+    CacheConfiguration<String, String> configuration = builder.withHeapEvictionPolicy(OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU).build();
+
+    OnHeapStoreConfiguration heapConfiguration = ServiceLocator.findSingletonAmongst(OnHeapStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(heapConfiguration, notNullValue());
+    assertEquals(heapConfiguration.getEvictionPolicy(), OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU);
+
+    configuration = builder.withHeapEvictionPolicy(OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU)
+        .withHeapEvictionPolicy(OnHeapStoreConfiguration.EvictionPolicy.SAMPLED_LRU).build();
+
+    heapConfiguration = ServiceLocator.findSingletonAmongst(OnHeapStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertEquals(heapConfiguration.getEvictionPolicy(), OnHeapStoreConfiguration.EvictionPolicy.SAMPLED_LRU);
+  }
+
+  @Test
+  public void testHeapBackgroundEviction() {
+    CacheConfigurationBuilder<String, String> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10));
+
+    CacheConfiguration<String, String> configuration = builder.withHeapEvictionPolicy(OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU)
+        .withHeapBackgroundEviction("eviction", 0.1f).build();
+
+    OnHeapStoreConfiguration heapConfiguration = ServiceLocator.findSingletonAmongst(OnHeapStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(heapConfiguration.isBackgroundEviction(), is(true));
+    assertThat(heapConfiguration.getThreadPoolAlias(), is("eviction"));
+    assertThat(heapConfiguration.getEvictionBand(), is(0.1f));
+    assertEquals(heapConfiguration.getEvictionPolicy(), OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHeapBackgroundEvictionRejectsInvalidBand() {
+    CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10))
+        .withHeapBackgroundEviction(null, 1.5f);
+  }
+
+  @Test
+  public void testOffHeapStoreSettings() {
+    CacheConfigurationBuilder<String, String> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10));
+
+    CacheConfiguration<String, String> configuration = builder.withOffHeapStorePageSizes(64, 8 * 1024, MemoryUnit.KB)
+        .withOffHeapStoreSegments(128, OffHeapStoreConfiguration.AUTO).build();
+
+    OffHeapStoreConfiguration offHeapConfiguration = ServiceLocator.findSingletonAmongst(OffHeapStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(offHeapConfiguration, notNullValue());
+    assertThat(offHeapConfiguration.getConcurrency(), is(128));
+    assertThat(offHeapConfiguration.getInitialTableSize(), is(OffHeapStoreConfiguration.AUTO));
+    assertThat(offHeapConfiguration.getMinimumPageSize(), is(64L * 1024));
+    assertThat(offHeapConfiguration.getMaximumPageSize(), is(8L * 1024 * 1024));
+
+    configuration = builder.withOffHeapStoreSegments(128, 1024).withOffHeapStoreSegments(32, 512).build();
+
+    offHeapConfiguration = ServiceLocator.findSingletonAmongst(OffHeapStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(offHeapConfiguration.getConcurrency(), is(32));
+    assertThat(offHeapConfiguration.getInitialTableSize(), is(512));
+    assertThat(offHeapConfiguration.getMaximumPageSize(), is((long) OffHeapStoreConfiguration.AUTO));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOffHeapStorePageSizesRejectsInvertedBounds() {
+    CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10))
+        .withOffHeapStorePageSizes(2, 1, MemoryUnit.MB);
+  }
+
+  @Test
+  public void testDiskStoreJournal() {
+    CacheConfigurationBuilder<String, String> builder = CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10));
+
+    CacheConfiguration<String, String> configuration = builder.withDiskStoreThreadPool("disk-pool", 4)
+        .withDiskStoreJournal(500, TimeUnit.MILLISECONDS).build();
+
+    OffHeapDiskStoreConfiguration diskConfiguration = ServiceLocator.findSingletonAmongst(OffHeapDiskStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(diskConfiguration.getThreadPoolAlias(), is("disk-pool"));
+    assertThat(diskConfiguration.getWriterConcurrency(), is(4));
+    assertThat(diskConfiguration.getJournalInterval(), is(500L));
+    assertThat(diskConfiguration.getJournalIntervalUnit(), is(TimeUnit.MILLISECONDS));
+
+    configuration = builder.withDiskStoreJournal(2, TimeUnit.SECONDS).withDiskStoreThreadPool("other-pool", 2).build();
+
+    diskConfiguration = ServiceLocator.findSingletonAmongst(OffHeapDiskStoreConfiguration.class, configuration.getServiceConfigurations());
+    assertThat(diskConfiguration.getThreadPoolAlias(), is("other-pool"));
+    assertThat(diskConfiguration.getWriterConcurrency(), is(2));
+    assertThat(diskConfiguration.getJournalInterval(), is(2L));
+    assertThat(diskConfiguration.getJournalIntervalUnit(), is(TimeUnit.SECONDS));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDiskStoreJournalRejectsNegativeInterval() {
+    CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, heap(10))
+        .withDiskStoreJournal(-1, TimeUnit.SECONDS);
+  }
+
   @Test
   public void testCopyingOfExistingConfiguration() {
     Class<Integer> keyClass = Integer.class;
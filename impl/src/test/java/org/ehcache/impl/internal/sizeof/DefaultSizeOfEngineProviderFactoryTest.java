@@ -16,6 +16,7 @@
 package org.ehcache.impl.internal.sizeof;
 
 import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
 import org.ehcache.spi.service.ServiceConfiguration;
 import org.ehcache.core.spi.store.heap.SizeOfEngine;
 import org.ehcache.core.spi.store.heap.SizeOfEngineProvider;
@@ -52,4 +53,13 @@ public class DefaultSizeOfEngineProviderFactoryTest {
     assertThat(sizeOfEngine, notNullValue());
     assertThat(sizeOfEngine, instanceOf(NoopSizeOfEngine.class));
   }
+
+  @Test
+  public void testLayoutCachingSizeOfEngineConfig() {
+    DefaultSizeOfEngineProviderFactory factory = new DefaultSizeOfEngineProviderFactory();
+    SizeOfEngineProvider sizeOfEngineProvider = factory.create(null);
+    SizeOfEngine sizeOfEngine = sizeOfEngineProvider.createSizeOfEngine(MemoryUnit.B,
+        new DefaultSizeOfEngineConfiguration(100, MemoryUnit.KB, 1000, true));
+    assertThat(sizeOfEngine, instanceOf(LayoutCachingSizeOfEngine.class));
+  }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.internal.sizeof;
+
+import org.ehcache.core.spi.store.heap.LimitExceededException;
+import org.ehcache.core.spi.store.heap.SizeOfEngine;
+import org.ehcache.core.spi.store.heap.SizeOfEstimator;
+import org.ehcache.impl.copy.IdentityCopier;
+import org.ehcache.impl.internal.store.heap.holders.CopiedOnHeapValueHolder;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class LayoutCachingSizeOfEngineTest {
+
+  @Test
+  public void testMaxObjectGraphSizeExceededException() {
+    SizeOfEngine sizeOfEngine = new LayoutCachingSizeOfEngine(3, Long.MAX_VALUE);
+    try {
+      sizeOfEngine.sizeof(new MaxDepthGreaterThanThree(), holder(new MaxDepthGreaterThanThree()));
+      fail();
+    } catch (LimitExceededException e) {
+      assertThat(e.getMessage(), containsString("Max Object Graph Size reached for the object"));
+    }
+  }
+
+  @Test
+  public void testMaxObjectSizeExceededException() {
+    SizeOfEngine sizeOfEngine = new LayoutCachingSizeOfEngine(Long.MAX_VALUE, 1000);
+    try {
+      sizeOfEngine.sizeof(new String(new byte[1000]), holder("test"));
+      fail();
+    } catch (LimitExceededException e) {
+      assertThat(e.getMessage(), containsString("Max Object Size reached for the object"));
+    }
+  }
+
+  @Test
+  public void testSizingIsStableAcrossInvocations() throws Exception {
+    SizeOfEngine sizeOfEngine = new LayoutCachingSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE);
+    long first = sizeOfEngine.sizeof("key", holder(new Node(new byte[128], new Node(new byte[64], null))));
+    long second = sizeOfEngine.sizeof("key", holder(new Node(new byte[128], new Node(new byte[64], null))));
+    assertThat(first, greaterThan(192L));
+    assertThat(second, is(first));
+  }
+
+  @Test
+  public void testSharedReferencesAreSizedOnce() throws Exception {
+    SizeOfEngine sizeOfEngine = new LayoutCachingSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE);
+    byte[] payload = new byte[1024];
+    long distinct = sizeOfEngine.sizeof("key", holder(new Node(new byte[1024], new Node(new byte[1024], null))));
+    long shared = sizeOfEngine.sizeof("key", holder(new Node(payload, new Node(payload, null))));
+    assertThat(distinct - shared, greaterThanOrEqualTo(1024L));
+  }
+
+  @Test
+  public void testEstimatorReplacesTraversal() throws Exception {
+    Map<Class<?>, SizeOfEstimator<?>> estimators = Collections.<Class<?>, SizeOfEstimator<?>>singletonMap(Node.class, new SizeOfEstimator<Node>() {
+      @Override
+      public long sizeof(Node instance) {
+        return 1L << 20;
+      }
+    });
+    SizeOfEngine traversing = new LayoutCachingSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE);
+    SizeOfEngine estimating = new LayoutCachingSizeOfEngine(Long.MAX_VALUE, Long.MAX_VALUE, estimators);
+
+    Node node = new Node(new byte[16], new Node(new byte[16], null));
+    long traversed = traversing.sizeof("key", holder(node));
+    long estimated = estimating.sizeof("key", holder(node));
+
+    assertThat(estimated, greaterThanOrEqualTo(1L << 20));
+    assertThat(estimated, greaterThan(traversed));
+  }
+
+  private static <V> CopiedOnHeapValueHolder<V> holder(V value) {
+    return new CopiedOnHeapValueHolder<V>(value, 0L, true, new IdentityCopier<V>());
+  }
+
+  private static class MaxDepthGreaterThanThree {
+    private Object second = new Object();
+    private Object third = new Object();
+    private Object fourth = new Object();
+  }
+
+  private static class Node {
+    private final byte[] payload;
+    private final Node next;
+
+    Node(byte[] payload, Node next) {
+      this.payload = payload;
+      this.next = next;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import org.ehcache.core.spi.service.LocalPersistenceService;
 import org.ehcache.impl.config.serializer.DefaultSerializationProviderConfiguration;
 import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
 import org.ehcache.impl.serialization.ByteArraySerializer;
+import org.ehcache.impl.serialization.ByteBufferSerializer;
 import org.ehcache.impl.serialization.CharSerializer;
 import org.ehcache.impl.serialization.CompactJavaSerializer;
 import org.ehcache.impl.serialization.DoubleSerializer;
@@ -293,6 +294,27 @@ public class DefaultSerializationProviderTest {
     assertThat(keySerializer, instanceOf(ByteArraySerializer.class));
   }
 
+  @Test
+  public void testNoDefaultByteBufferSerializer() throws Exception {
+    DefaultSerializationProvider provider = getStartedProvider();
+    try {
+      provider.createValueSerializer(ByteBuffer.class, getSystemClassLoader());
+      fail("expected UnsupportedTypeException");
+    } catch (UnsupportedTypeException ute) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRegisteredByteBufferSerializer() throws Exception {
+    DefaultSerializationProviderConfiguration dspfConfig = new DefaultSerializationProviderConfiguration();
+    dspfConfig.addSerializerFor(ByteBuffer.class, ByteBufferSerializer.class);
+    DefaultSerializationProvider provider = new DefaultSerializationProvider(dspfConfig);
+    provider.start(providerContaining());
+
+    assertThat(provider.createValueSerializer(ByteBuffer.class, getSystemClassLoader()), instanceOf(ByteBufferSerializer.class));
+  }
+
   @Test
   public void testCreateTransientSerializerWithoutConstructor() throws Exception {
     expectedException.expect(RuntimeException.class);
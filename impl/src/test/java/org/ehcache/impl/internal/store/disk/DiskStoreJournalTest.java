@@ -0,0 +1,235 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehcache.impl.internal.store.disk;
+
+import org.ehcache.impl.internal.store.offheap.portability.SerializerPortability;
+import org.ehcache.impl.serialization.StringSerializer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DiskStoreJournalTest {
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testReplayRestoresChanges() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    assertThat(journal.open(new RecordingJournal()), is(false));
+    journal.mapped("a", "1");
+    journal.mapped("b", "2");
+    journal.removed("a");
+    journal.mapped("b", "3");
+    journal.mapped("c", "4");
+    journal.flush();
+    journal.close();
+
+    RecordingJournal recovered = new RecordingJournal();
+    assertThat(newJournal(directory).open(recovered), is(true));
+    assertThat(recovered.mappings.size(), is(2));
+    assertThat(recovered.mappings, hasEntry("b", "3"));
+    assertThat(recovered.mappings, hasEntry("c", "4"));
+  }
+
+  @Test
+  public void testReplayAppliesClear() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    journal.open(null);
+    journal.mapped("a", "1");
+    journal.cleared();
+    journal.mapped("b", "2");
+    journal.close();
+
+    RecordingJournal recovered = new RecordingJournal();
+    newJournal(directory).open(recovered);
+    assertThat(recovered.mappings.size(), is(1));
+    assertThat(recovered.mappings, hasEntry("b", "2"));
+  }
+
+  @Test
+  public void testReplayStopsAtTornRecord() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    journal.open(null);
+    journal.mapped("a", "1");
+    journal.mapped("b", "2");
+    journal.close();
+
+    File[] logs = journalFiles(directory);
+    assertThat(logs, arrayWithSize(1));
+    RandomAccessFile log = new RandomAccessFile(logs[0], "rw");
+    try {
+      log.setLength(log.length() - 1);
+    } finally {
+      log.close();
+    }
+
+    RecordingJournal recovered = new RecordingJournal();
+    newJournal(directory).open(recovered);
+    assertThat(recovered.mappings.size(), is(1));
+    assertThat(recovered.mappings, hasEntry("a", "1"));
+  }
+
+  @Test
+  public void testReplayStopsAtCorruptRecord() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    journal.open(null);
+    journal.mapped("a", "1");
+    journal.mapped("b", "2");
+    journal.close();
+
+    File log = journalFiles(directory)[0];
+    RandomAccessFile file = new RandomAccessFile(log, "rw");
+    try {
+      file.seek(file.length() - 1);
+      int last = file.read();
+      file.seek(file.length() - 1);
+      file.write(last ^ 0xff);
+    } finally {
+      file.close();
+    }
+
+    RecordingJournal recovered = new RecordingJournal();
+    newJournal(directory).open(recovered);
+    assertThat(recovered.mappings.size(), is(1));
+    assertThat(recovered.mappings, hasEntry("a", "1"));
+  }
+
+  @Test
+  public void testCheckpointReplacesPreviousGenerations() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    journal.open(null);
+    RecordingJournal source = new RecordingJournal();
+    for (int i = 0; i < 100; i++) {
+      journal.mapped("key" + i, "value" + i);
+      source.mapped("key" + i, "value" + i);
+    }
+    journal.flush();
+    journal.checkpoint(source);
+    journal.removed("key0");
+    journal.close();
+
+    File[] files = journalFiles(directory);
+    assertThat(files, arrayWithSize(2));
+    for (File file : files) {
+      assertThat(file.getName().startsWith("ehcache-disk-store.journal.1."), is(true));
+    }
+
+    RecordingJournal recovered = new RecordingJournal();
+    newJournal(directory).open(recovered);
+    assertThat(recovered.mappings.size(), is(99));
+    assertThat(recovered.mappings, hasEntry("key99", "value99"));
+  }
+
+  @Test
+  public void testOpenContinuesInNewGeneration() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    journal.open(null);
+    journal.mapped("a", "1");
+    journal.close();
+
+    journal = newJournal(directory);
+    journal.open(new RecordingJournal());
+    journal.mapped("a", "2");
+    journal.close();
+
+    RecordingJournal recovered = new RecordingJournal();
+    newJournal(directory).open(recovered);
+    assertThat(recovered.mappings.size(), is(1));
+    assertThat(recovered.mappings, hasEntry("a", "2"));
+  }
+
+  @Test
+  public void testDeleteJournal() throws IOException {
+    File directory = folder.newFolder();
+    DiskStoreJournal<String, String> journal = newJournal(directory);
+    journal.open(null);
+    journal.mapped("a", "1");
+    journal.close();
+    File other = new File(directory, "ehcache-disk-store.data");
+    assertThat(other.createNewFile(), is(true));
+
+    DiskStoreJournal.deleteJournal(directory);
+
+    assertThat(journalFiles(directory), arrayWithSize(0));
+    assertThat(other.exists(), is(true));
+    assertThat(newJournal(directory).open(null), is(false));
+  }
+
+  private static DiskStoreJournal<String, String> newJournal(File directory) {
+    return new DiskStoreJournal<String, String>(directory,
+        new SerializerPortability<String>(new StringSerializer()), new SerializerPortability<String>(new StringSerializer()));
+  }
+
+  private static File[] journalFiles(File directory) {
+    File[] files = directory.listFiles();
+    int count = 0;
+    for (File file : files) {
+      if (file.getName().startsWith("ehcache-disk-store.journal.")) {
+        files[count++] = file;
+      }
+    }
+    File[] result = new File[count];
+    System.arraycopy(files, 0, result, 0, count);
+    return result;
+  }
+
+  private static class RecordingJournal implements MappingJournal<String, String>, MappingJournal.Source<String, String> {
+
+    private final Map<String, String> mappings = new HashMap<String, String>();
+
+    @Override
+    public void mapped(String key, String value) {
+      mappings.put(key, value);
+    }
+
+    @Override
+    public void removed(String key) {
+      mappings.remove(key);
+    }
+
+    @Override
+    public void cleared() {
+      mappings.clear();
+    }
+
+    @Override
+    public void writeTo(MappingJournal.SnapshotWriter<String, String> journal) {
+      for (Map.Entry<String, String> entry : mappings.entrySet()) {
+        journal.mapped(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+}
@@ -33,6 +33,7 @@ import org.ehcache.impl.internal.events.TestStoreEventDispatcher;
 import org.ehcache.impl.internal.executor.OnDemandExecutionService;
 import org.ehcache.impl.internal.persistence.TestDiskResourceService;
 import org.ehcache.impl.internal.store.offheap.AbstractOffHeapStore;
+import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.impl.internal.store.offheap.AbstractOffHeapStoreTest;
 import org.ehcache.impl.internal.spi.serialization.DefaultSerializationProvider;
 import org.ehcache.core.spi.time.SystemTimeSource;
@@ -52,11 +53,13 @@ import org.ehcache.spi.service.ServiceConfiguration;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.terracotta.context.query.Matcher;
 import org.terracotta.context.query.Query;
 import org.terracotta.context.query.QueryBuilder;
 import org.terracotta.statistics.OperationStatistic;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Arrays;
@@ -68,6 +71,8 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.Collections.EMPTY_LIST;
@@ -83,10 +88,16 @@ import static org.ehcache.expiry.Expirations.noExpiration;
 import static org.ehcache.impl.internal.spi.TestServiceProvider.providerContaining;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.terracotta.context.ContextManager.nodeFor;
 import static org.terracotta.context.query.Matchers.attributes;
@@ -117,6 +128,93 @@ public class OffHeapDiskStoreTest extends AbstractOffHeapStoreTest {
     }
   }
 
+  @Test
+  public void testJournalRecoveryAfterCrash() throws Exception {
+    FileBasedPersistenceContext persistenceContext = getPersistenceContext();
+
+    ScheduledExecutorService crashedScheduler = journalScheduler();
+    OffHeapDiskStore<String, String> crashedStore = createAndInitJournaledStore(persistenceContext, crashedScheduler);
+    crashedStore.put("key1", "value1");
+    crashedStore.put("key2", "value2");
+    crashedStore.put("key3", "value3");
+    crashedStore.remove("key2");
+    crashedStore.put("key3", "value3-updated");
+    journalFlush(crashedScheduler).run();
+    // the store is never closed: no index is written, as after a kill -9
+
+    OffHeapDiskStore<String, String> recoveredStore = createAndInitJournaledStore(persistenceContext, journalScheduler());
+    try {
+      assertThat(recoveredStore.get("key1").value(), is("value1"));
+      assertThat(recoveredStore.get("key2"), nullValue());
+      assertThat(recoveredStore.get("key3").value(), is("value3-updated"));
+    } finally {
+      destroyStore(recoveredStore);
+    }
+  }
+
+  @Test
+  public void testJournaledStoreSnapshotsIndexOnCleanRestart() throws Exception {
+    FileBasedPersistenceContext persistenceContext = getPersistenceContext();
+    File indexFile = new File(persistenceContext.getDirectory(), "ehcache-disk-store.index");
+
+    OffHeapDiskStore<String, String> closedStore = createAndInitJournaledStore(persistenceContext, journalScheduler());
+    closedStore.put("key1", "value1");
+    destroyStore(closedStore);
+    assertThat(indexFile.isFile(), is(true));
+
+    ScheduledExecutorService crashedScheduler = journalScheduler();
+    OffHeapDiskStore<String, String> crashedStore = createAndInitJournaledStore(persistenceContext, crashedScheduler);
+    assertThat(indexFile.exists(), is(false));
+    assertThat(crashedStore.get("key1").value(), is("value1"));
+    crashedStore.put("key2", "value2");
+    journalFlush(crashedScheduler).run();
+
+    OffHeapDiskStore<String, String> recoveredStore = createAndInitJournaledStore(persistenceContext, journalScheduler());
+    try {
+      assertThat(recoveredStore.get("key1").value(), is("value1"));
+      assertThat(recoveredStore.get("key2").value(), is("value2"));
+    } finally {
+      destroyStore(recoveredStore);
+    }
+  }
+
+  private OffHeapDiskStore<String, String> createAndInitJournaledStore(FileBasedPersistenceContext persistenceContext,
+                                                                       ScheduledExecutorService journalScheduler) throws UnsupportedTypeException {
+    SerializationProvider serializationProvider = new DefaultSerializationProvider(null);
+    serializationProvider.start(providerContaining(diskResourceService));
+    ClassLoader classLoader = getClass().getClassLoader();
+    Serializer<String> keySerializer = serializationProvider.createKeySerializer(String.class, classLoader);
+    Serializer<String> valueSerializer = serializationProvider.createValueSerializer(String.class, classLoader);
+    StoreConfigurationImpl<String, String> storeConfiguration = new StoreConfigurationImpl<String, String>(String.class, String.class,
+        null, classLoader, noExpiration(), null, 0, keySerializer, valueSerializer);
+    ExecutionService executionService = spy(new OnDemandExecutionService());
+    doReturn(journalScheduler).when(executionService).getScheduledExecutor(any(String.class));
+    OffHeapDiskStore<String, String> offHeapStore = new OffHeapDiskStore<String, String>(
+            persistenceContext,
+            executionService, null, 1,
+            storeConfiguration, SystemTimeSource.INSTANCE,
+            new TestStoreEventDispatcher<String, String>(),
+            MB.toBytes(1), null, 1, TimeUnit.SECONDS);
+    OffHeapDiskStore.Provider.init(offHeapStore);
+    return offHeapStore;
+  }
+
+  /**
+   * A journal scheduler that never runs anything on its own: tests decide when the periodic flush happens.
+   */
+  private static ScheduledExecutorService journalScheduler() throws InterruptedException {
+    ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    doReturn(mock(ScheduledFuture.class)).when(scheduler).scheduleWithFixedDelay(any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+    when(scheduler.awaitTermination(anyLong(), any(TimeUnit.class))).thenReturn(true);
+    return scheduler;
+  }
+
+  private static Runnable journalFlush(ScheduledExecutorService scheduler) {
+    ArgumentCaptor<Runnable> flushTask = ArgumentCaptor.forClass(Runnable.class);
+    verify(scheduler).scheduleWithFixedDelay(flushTask.capture(), anyLong(), anyLong(), any(TimeUnit.class));
+    return flushTask.getValue();
+  }
+
   @Test
   public void testRecoveryFailureWhenValueTypeChangesToIncompatibleClass() throws Exception {
     OffHeapDiskStore.Provider provider = new OffHeapDiskStore.Provider();
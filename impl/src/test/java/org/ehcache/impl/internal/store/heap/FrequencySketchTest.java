@@ -0,0 +1,82 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class FrequencySketchTest {
+
+  @Test
+  public void testUnseenHashHasNoFrequency() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    assertThat(sketch.frequency(42), is(0));
+  }
+
+  @Test
+  public void testIncrementIsCounted() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment(42);
+    }
+    assertThat(sketch.frequency(42), greaterThanOrEqualTo(5));
+  }
+
+  @Test
+  public void testFrequencySaturates() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 100; i++) {
+      sketch.increment(42);
+    }
+    assertThat(sketch.frequency(42), is(15));
+  }
+
+  @Test
+  public void testSketchAges() {
+    FrequencySketch sketch = new FrequencySketch(64);
+    for (int i = 0; i < 15; i++) {
+      sketch.increment(42);
+    }
+    for (int i = 0; i < 64 * 10; i++) {
+      sketch.increment(1000 + i);
+    }
+    assertThat(sketch.frequency(42), lessThan(15));
+  }
+
+  @Test
+  public void testAdmitsMorePopularCandidate() {
+    FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment(1);
+    }
+    sketch.increment(2);
+
+    assertThat(sketch.admit(1, 2), is(true));
+    assertThat(sketch.admit(2, 1), is(false));
+  }
+
+  @Test
+  public void testEnsureCapacityGrowsSketch() {
+    FrequencySketch sketch = new FrequencySketch(0);
+    sketch.ensureCapacity(1024);
+    sketch.increment(42);
+    assertThat(sketch.frequency(42), is(1));
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ehcache.impl.internal.store.heap;
+
+import org.ehcache.config.Eviction;
+import org.ehcache.core.spi.function.BiFunction;
+import org.ehcache.core.spi.store.Store;
+import org.ehcache.impl.copy.IdentityCopier;
+import org.ehcache.impl.internal.store.heap.holders.CopiedOnHeapValueHolder;
+import org.ehcache.impl.internal.store.heap.holders.OnHeapValueHolder;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class LongKeyBackendTest {
+
+  private static final Comparator<Store.ValueHolder<String>> ANY = new Comparator<Store.ValueHolder<String>>() {
+    @Override
+    public int compare(Store.ValueHolder<String> o1, Store.ValueHolder<String> o2) {
+      return 0;
+    }
+  };
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsUnsupportedKeyType() {
+    new LongKeyBackend<String, String>(false, String.class);
+  }
+
+  @Test
+  public void testPutIfAbsentAndGet() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    OnHeapValueHolder<String> value = holder("one");
+
+    assertThat(backend.putIfAbsent(1L, value), nullValue());
+    assertThat(backend.putIfAbsent(1L, holder("other")), sameInstance(value));
+    assertThat(backend.get(1L), sameInstance(value));
+    assertThat(backend.get(2L), nullValue());
+    assertThat(backend.mappingCount(), is(1L));
+  }
+
+  @Test
+  public void testComputeInstallsUpdatesAndRemoves() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    final OnHeapValueHolder<String> first = holder("first");
+    final OnHeapValueHolder<String> second = holder("second");
+
+    backend.compute(42L, new BiFunction<Long, OnHeapValueHolder<String>, OnHeapValueHolder<String>>() {
+      @Override
+      public OnHeapValueHolder<String> apply(Long key, OnHeapValueHolder<String> mapped) {
+        assertThat(mapped, nullValue());
+        return first;
+      }
+    });
+    assertThat(backend.get(42L), sameInstance(first));
+
+    backend.computeIfPresent(42L, new BiFunction<Long, OnHeapValueHolder<String>, OnHeapValueHolder<String>>() {
+      @Override
+      public OnHeapValueHolder<String> apply(Long key, OnHeapValueHolder<String> mapped) {
+        assertThat(mapped, sameInstance(first));
+        return second;
+      }
+    });
+    assertThat(backend.get(42L), sameInstance(second));
+
+    backend.compute(42L, new BiFunction<Long, OnHeapValueHolder<String>, OnHeapValueHolder<String>>() {
+      @Override
+      public OnHeapValueHolder<String> apply(Long key, OnHeapValueHolder<String> mapped) {
+        return null;
+      }
+    });
+    assertThat(backend.get(42L), nullValue());
+    assertThat(backend.mappingCount(), is(0L));
+  }
+
+  @Test
+  public void testComputeIfPresentOnAbsentKey() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+
+    OnHeapValueHolder<String> result = backend.computeIfPresent(42L, new BiFunction<Long, OnHeapValueHolder<String>, OnHeapValueHolder<String>>() {
+      @Override
+      public OnHeapValueHolder<String> apply(Long key, OnHeapValueHolder<String> mapped) {
+        throw new AssertionError();
+      }
+    });
+    assertThat(result, nullValue());
+    assertThat(backend.mappingCount(), is(0L));
+  }
+
+  @Test
+  public void testReplaceAndConditionalRemove() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    OnHeapValueHolder<String> value = holder("one");
+    OnHeapValueHolder<String> other = holder("other");
+    backend.putIfAbsent(1L, value);
+
+    assertThat(backend.replace(1L, other, holder("two")), is(false));
+    assertThat(backend.replace(1L, value, other), is(true));
+    assertThat(backend.get(1L), sameInstance(other));
+
+    assertThat(backend.remove(1L, value), is(false));
+    assertThat(backend.remove(1L, other), is(true));
+    assertThat(backend.get(1L), nullValue());
+  }
+
+  @Test
+  public void testManyMappingsSurviveResizeAndRemoval() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    for (long i = 0; i < 10000; i++) {
+      backend.putIfAbsent(i * 31, holder(Long.toString(i)));
+    }
+    assertThat(backend.mappingCount(), is(10000L));
+
+    for (long i = 0; i < 10000; i += 2) {
+      assertThat(backend.remove(i * 31), notNullValue());
+    }
+    assertThat(backend.mappingCount(), is(5000L));
+
+    for (long i = 0; i < 10000; i++) {
+      OnHeapValueHolder<String> value = backend.get(i * 31);
+      if (i % 2 == 0) {
+        assertThat(value, nullValue());
+      } else {
+        assertThat(value.value(), is(Long.toString(i)));
+      }
+    }
+  }
+
+  @Test
+  public void testMappingsSurviveShrinkAfterMassRemoval() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    for (long i = 0; i < 10000; i++) {
+      backend.putIfAbsent(i, holder(Long.toString(i)));
+    }
+    for (long i = 0; i < 10000; i++) {
+      if (i % 1000 != 0) {
+        assertThat(backend.remove(i), notNullValue());
+      }
+    }
+    assertThat(backend.mappingCount(), is(10L));
+
+    for (long i = 0; i < 10000; i++) {
+      OnHeapValueHolder<String> value = backend.get(i);
+      if (i % 1000 == 0) {
+        assertThat(value.value(), is(Long.toString(i)));
+      } else {
+        assertThat(value, nullValue());
+      }
+    }
+
+    for (long i = 0; i < 10000; i++) {
+      backend.putIfAbsent(i, holder(Long.toString(i)));
+    }
+    assertThat(backend.mappingCount(), is(10000L));
+  }
+
+  @Test
+  public void testIntegerKeys() {
+    LongKeyBackend<Integer, String> backend = new LongKeyBackend<Integer, String>(false, Integer.class);
+    for (int i = -500; i < 500; i++) {
+      backend.putIfAbsent(i, holder(Integer.toString(i)));
+    }
+
+    Set<Integer> keys = new HashSet<Integer>();
+    for (Integer key : backend.keySet()) {
+      keys.add(key);
+    }
+    assertThat(keys.size(), is(1000));
+    assertThat(keys.contains(-500), is(true));
+    assertThat(backend.get(-1).value(), is("-1"));
+  }
+
+  @Test
+  public void testRemoveAllWithHash() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    long key = 0x100000001L;
+    long collidingKey = 0L;
+    backend.putIfAbsent(key, holder("one"));
+    backend.putIfAbsent(collidingKey, holder("zero"));
+    backend.putIfAbsent(5L, holder("five"));
+
+    Map<Long, OnHeapValueHolder<String>> removed = backend.removeAllWithHash(Long.valueOf(key).hashCode());
+
+    assertThat(removed.size(), is(2));
+    assertThat(removed.containsKey(key), is(true));
+    assertThat(removed.containsKey(collidingKey), is(true));
+    assertThat(backend.get(5L), notNullValue());
+    assertThat(backend.mappingCount(), is(1L));
+  }
+
+  @Test
+  public void testIteratorRemove() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    for (long i = 0; i < 100; i++) {
+      backend.putIfAbsent(i, holder(Long.toString(i)));
+    }
+
+    Iterator<Map.Entry<Long, OnHeapValueHolder<String>>> iterator = backend.entrySetIterator();
+    int count = 0;
+    while (iterator.hasNext()) {
+      Map.Entry<Long, OnHeapValueHolder<String>> entry = iterator.next();
+      assertThat(entry.getValue().value(), is(Long.toString(entry.getKey())));
+      iterator.remove();
+      count++;
+    }
+    assertThat(count, is(100));
+    assertThat(backend.mappingCount(), is(0L));
+  }
+
+  @Test
+  public void testEvictionCandidate() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(false, Long.class);
+    assertThat(backend.getEvictionCandidate(new Random(), 8, ANY, Eviction.noAdvice()), nullValue());
+
+    backend.putIfAbsent(1L, holder("one"));
+    Map.Entry<Long, OnHeapValueHolder<String>> candidate = backend.getEvictionCandidate(new Random(), 8, ANY, Eviction.noAdvice());
+    assertThat(candidate.getKey(), is(1L));
+  }
+
+  @Test
+  public void testByteSizing() {
+    LongKeyBackend<Long, String> backend = new LongKeyBackend<Long, String>(true, Long.class);
+    backend.updateUsageInBytesIfRequired(100L);
+    assertThat(backend.byteSize(), is(100L));
+    assertThat(backend.naturalSize(), is(100L));
+  }
+
+  private static OnHeapValueHolder<String> holder(String value) {
+    return new CopiedOnHeapValueHolder<String>(value, 0L, false, new IdentityCopier<String>());
+  }
+}
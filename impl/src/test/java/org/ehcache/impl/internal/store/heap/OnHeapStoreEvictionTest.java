@@ -23,11 +23,13 @@ import org.ehcache.core.internal.store.StoreConfigurationImpl;
 import org.ehcache.core.spi.store.StoreAccessException;
 import org.ehcache.core.spi.store.events.StoreEvent;
 import org.ehcache.core.spi.store.events.StoreEventListener;
+import org.ehcache.core.spi.service.ExecutionService;
 import org.ehcache.event.EventType;
 import org.ehcache.expiry.Expirations;
 import org.ehcache.expiry.Expiry;
 import org.ehcache.core.spi.function.BiFunction;
 import org.ehcache.core.spi.function.Function;
+import org.ehcache.impl.config.store.heap.OnHeapStoreConfiguration;
 import org.ehcache.impl.copy.IdentityCopier;
 import org.ehcache.impl.internal.events.NullStoreEventDispatcher;
 import org.ehcache.impl.internal.events.TestStoreEventDispatcher;
@@ -44,16 +46,25 @@ import org.ehcache.core.spi.store.heap.SizeOfEngine;
 import org.junit.Test;
 
 import java.io.Serializable;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static org.ehcache.config.Eviction.noAdvice;
 import static org.ehcache.config.builders.ResourcePoolsBuilder.heap;
 import static org.ehcache.config.builders.ResourcePoolsBuilder.newResourcePoolsBuilder;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class OnHeapStoreEvictionTest {
 
@@ -150,6 +161,95 @@ public class OnHeapStoreEvictionTest {
     store.put("other", "otherValue");
   }
 
+  @Test
+  public void testTinyLfuRejectsUnpopularContender() throws Exception {
+    TestTimeSource timeSource = new TestTimeSource();
+    StoreConfigurationImpl<String, String> configuration = new StoreConfigurationImpl<String, String>(
+        String.class, String.class, noAdvice(),
+        getClass().getClassLoader(), Expirations.noExpiration(), heap(1).build(), 1, null, null);
+    OnHeapStore<String, String> store = new OnHeapStore<String, String>(configuration, timeSource,
+        new IdentityCopier<String>(), new IdentityCopier<String>(), new NoopSizeOfEngine(),
+        NullStoreEventDispatcher.<String, String>nullStoreEventDispatcher(),
+        new OnHeapStoreConfiguration(OnHeapStoreConfiguration.EvictionPolicy.TINY_LFU));
+
+    store.put("hot", "value");
+    for (int i = 0; i < 5; i++) {
+      store.get("hot");
+    }
+    timeSource.advanceTime(10000L);
+    store.put("cold", "value");
+
+    assertThat(store.get("hot"), notNullValue());
+    assertThat(store.get("cold"), nullValue());
+  }
+
+  @Test
+  public void testSampledLruEvictsLeastRecentlyUsed() throws Exception {
+    TestTimeSource timeSource = new TestTimeSource();
+    StoreConfigurationImpl<String, String> configuration = new StoreConfigurationImpl<String, String>(
+        String.class, String.class, noAdvice(),
+        getClass().getClassLoader(), Expirations.noExpiration(), heap(1).build(), 1, null, null);
+    OnHeapStore<String, String> store = new OnHeapStore<String, String>(configuration, timeSource,
+        new IdentityCopier<String>(), new IdentityCopier<String>(), new NoopSizeOfEngine(),
+        NullStoreEventDispatcher.<String, String>nullStoreEventDispatcher(),
+        new OnHeapStoreConfiguration(OnHeapStoreConfiguration.EvictionPolicy.SAMPLED_LRU));
+
+    store.put("hot", "value");
+    for (int i = 0; i < 5; i++) {
+      store.get("hot");
+    }
+    timeSource.advanceTime(10000L);
+    store.put("cold", "value");
+
+    assertThat(store.get("hot"), nullValue());
+    assertThat(store.get("cold"), notNullValue());
+  }
+
+  @Test
+  public void testBackgroundEvictionReachesLowWaterMark() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    ExecutionService executionService = mock(ExecutionService.class);
+    when(executionService.getOrderedExecutor(eq("eviction"), any(BlockingQueue.class))).thenReturn(executor);
+
+    StoreConfigurationImpl<String, String> configuration = new StoreConfigurationImpl<String, String>(
+        String.class, String.class, noAdvice(),
+        getClass().getClassLoader(), Expirations.noExpiration(), heap(100).build(), 1, null, null);
+    OnHeapStore<String, String> store = new OnHeapStore<String, String>(configuration, SystemTimeSource.INSTANCE,
+        new IdentityCopier<String>(), new IdentityCopier<String>(), new NoopSizeOfEngine(),
+        NullStoreEventDispatcher.<String, String>nullStoreEventDispatcher(),
+        new OnHeapStoreConfiguration(OnHeapStoreConfiguration.EvictionPolicy.SAMPLED_LRU, true, "eviction", 0.1f),
+        executionService);
+
+    for (int i = 0; i < 101; i++) {
+      store.put("key" + i, "value");
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+    assertThat(sizeOf(store), lessThanOrEqualTo(90));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testBackgroundEvictionRequiresExecutionService() throws Exception {
+    StoreConfigurationImpl<String, String> configuration = new StoreConfigurationImpl<String, String>(
+        String.class, String.class, noAdvice(),
+        getClass().getClassLoader(), Expirations.noExpiration(), heap(100).build(), 1, null, null);
+    new OnHeapStore<String, String>(configuration, SystemTimeSource.INSTANCE,
+        new IdentityCopier<String>(), new IdentityCopier<String>(), new NoopSizeOfEngine(),
+        NullStoreEventDispatcher.<String, String>nullStoreEventDispatcher(),
+        new OnHeapStoreConfiguration(OnHeapStoreConfiguration.EvictionPolicy.SAMPLED_LRU, true, null, 0.1f));
+  }
+
+  private static int sizeOf(Store<?, ?> store) throws StoreAccessException {
+    int size = 0;
+    Store.Iterator<?> iterator = store.iterator();
+    while (iterator.hasNext()) {
+      iterator.next();
+      size++;
+    }
+    return size;
+  }
+
   protected <K, V> OnHeapStoreForTests<K, V> newStore(final TimeSource timeSource,
       final EvictionAdvisor<? super K, ? super V> evictionAdvisor) {
     return new OnHeapStoreForTests<K, V>(new Store.Configuration<K, V>() {
@@ -23,9 +23,12 @@ import org.ehcache.impl.internal.store.offheap.factories.EhcacheSegmentFactory;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -502,6 +505,72 @@ public abstract class AbstractEhcacheOffHeapBackingMapTest {
     assertThat(segment.get("key"), is(newValue));
   }
 
+  @Test
+  public void testReadIfPresentNotCalledOnNotContainedKey() throws Exception {
+    EhcacheOffHeapBackingMap<String, String> segment = createTestSegment();
+    try {
+      String value = segment.readIfPresent("key", new Function<String, String>() {
+        @Override
+        public String apply(String s) {
+          fail("Function should not be called");
+          return null;
+        }
+      });
+      assertThat(value, nullValue());
+    } finally {
+      destroySegment(segment);
+    }
+  }
+
+  @Test
+  public void testReadIfPresentReturnsFunctionResultWithoutChangingMapping() throws Exception {
+    EhcacheOffHeapBackingMap<String, String> segment = createTestSegment();
+    try {
+      putPinned("key", "value", segment);
+      String value = segment.readIfPresent("key", new Function<String, String>() {
+        @Override
+        public String apply(String s) {
+          assertThat(s, is("value"));
+          return "read";
+        }
+      });
+      assertThat(value, is("read"));
+      assertThat(segment.get("key"), is("value"));
+      assertThat(isPinned("key", segment), is(true));
+    } finally {
+      destroySegment(segment);
+    }
+  }
+
+  @Test
+  public void testComputeBySegmentVisitsEachKeyOnce() throws Exception {
+    EhcacheOffHeapBackingMap<String, String> segment = createTestSegment();
+    try {
+      List<String> keys = new ArrayList<String>();
+      for (int i = 0; i < 32; i++) {
+        keys.add("key" + i);
+      }
+      final List<String> visited = new ArrayList<String>();
+      final EhcacheOffHeapBackingMap<String, String> map = segment;
+      segment.computeBySegment(keys, new Function<List<String>, Void>() {
+        @Override
+        public Void apply(List<String> segmentKeys) {
+          for (String key : segmentKeys) {
+            visited.add(key);
+            map.put(key, "value");
+          }
+          return null;
+        }
+      });
+      assertThat(visited, containsInAnyOrder(keys.toArray()));
+      for (String key : keys) {
+        assertThat(segment.get(key), is("value"));
+      }
+    } finally {
+      destroySegment(segment);
+    }
+  }
+
   @Test
   public void testPutAdvicedAgainstEvictionComputesMetadata() throws Exception {
     EhcacheOffHeapBackingMap<String, String> segment = createTestSegment(new EvictionAdvisor<String, String>() {
@@ -49,8 +49,12 @@ import org.terracotta.statistics.StatisticsManager;
 
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -254,6 +258,134 @@ public abstract class AbstractOffHeapStoreTest {
     }
   }
 
+  @Test
+  public void testDeferredWriteBackOfAccesses() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, new Expiry<Object, Object>() {
+      @Override
+      public Duration getExpiryForCreation(Object key, Object value) {
+        return Duration.INFINITE;
+      }
+
+      @Override
+      public Duration getExpiryForAccess(Object key, ValueSupplier<?> value) {
+        return null;
+      }
+
+      @Override
+      public Duration getExpiryForUpdate(Object key, ValueSupplier<?> oldValue, Object newValue) {
+        return null;
+      }
+    });
+    try {
+      offHeapStore.put("key1", "value1");
+      for (int i = 0; i < 128; i++) {
+        timeSource.advanceTime(1);
+        assertThat(offHeapStore.get("key1").lastAccessTime(TimeUnit.MILLISECONDS), is(i + 1L));
+      }
+      Store.ValueHolder<String> valueHolder = offHeapStore.getAndFault("key1");
+      assertThat(valueHolder.hits(), is(128L));
+      assertThat(valueHolder.lastAccessTime(TimeUnit.MILLISECONDS), is(128L));
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  public void testBulkComputeBatchesKeysBySegment() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      Set<String> keys = new HashSet<String>();
+      for (int i = 0; i < 64; i++) {
+        offHeapStore.put("key" + i, "value" + i);
+        keys.add("key" + i);
+      }
+
+      final List<Integer> batchSizes = new ArrayList<Integer>();
+      Map<String, Store.ValueHolder<String>> result = offHeapStore.bulkCompute(keys, new Function<Iterable<? extends Map.Entry<? extends String, ? extends String>>, Iterable<? extends Map.Entry<? extends String, ? extends String>>>() {
+        @Override
+        public Iterable<? extends Map.Entry<? extends String, ? extends String>> apply(Iterable<? extends Map.Entry<? extends String, ? extends String>> entries) {
+          Map<String, String> computed = new HashMap<String, String>();
+          for (Map.Entry<? extends String, ? extends String> entry : entries) {
+            computed.put(entry.getKey(), entry.getValue() + "!");
+          }
+          batchSizes.add(computed.size());
+          return computed.entrySet();
+        }
+      });
+
+      int total = 0;
+      for (Integer batchSize : batchSizes) {
+        total += batchSize;
+      }
+      assertThat(total, is(64));
+      assertThat(batchSizes.size(), lessThan(64));
+      assertThat(result.size(), is(64));
+      for (int i = 0; i < 64; i++) {
+        assertThat(result.get("key" + i), valueHeld("value" + i + "!"));
+        assertThat(offHeapStore.get("key" + i), valueHeld("value" + i + "!"));
+      }
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  public void testBulkComputeIfAbsentOnlyComputesAbsentKeys() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      Set<String> keys = new HashSet<String>();
+      for (int i = 0; i < 64; i++) {
+        if (i % 2 == 0) {
+          offHeapStore.put("key" + i, "value" + i);
+        }
+        keys.add("key" + i);
+      }
+
+      final List<String> computedKeys = new ArrayList<String>();
+      Map<String, Store.ValueHolder<String>> result = offHeapStore.bulkComputeIfAbsent(keys, new Function<Iterable<? extends String>, Iterable<? extends Map.Entry<? extends String, ? extends String>>>() {
+        @Override
+        public Iterable<? extends Map.Entry<? extends String, ? extends String>> apply(Iterable<? extends String> absentKeys) {
+          Map<String, String> computed = new HashMap<String, String>();
+          for (String key : absentKeys) {
+            computedKeys.add(key);
+            computed.put(key, "computed");
+          }
+          return computed.entrySet();
+        }
+      });
+
+      assertThat(computedKeys.size(), is(32));
+      assertThat(result.size(), is(64));
+      for (int i = 0; i < 64; i++) {
+        String expected = i % 2 == 0 ? "value" + i : "computed";
+        assertThat(result.get("key" + i), valueHeld(expected));
+        assertThat(offHeapStore.get("key" + i), valueHeld(expected));
+      }
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
+  @Test
+  public void testAccessesAreNotWrittenBackWhenExpiryIgnoresThem() throws StoreAccessException {
+    TestTimeSource timeSource = new TestTimeSource();
+    AbstractOffHeapStore<String, String> offHeapStore = createAndInitStore(timeSource, Expirations.noExpiration());
+    try {
+      offHeapStore.put("key1", "value1");
+      for (int i = 0; i < 128; i++) {
+        timeSource.advanceTime(1);
+        assertThat(offHeapStore.get("key1").lastAccessTime(TimeUnit.MILLISECONDS), is(i + 1L));
+      }
+      Store.ValueHolder<String> valueHolder = offHeapStore.getAndFault("key1");
+      assertThat(valueHolder.hits(), is(0L));
+    } finally {
+      destroyStore(offHeapStore);
+    }
+  }
+
   @Test
   public void testEvictionAdvisor() throws StoreAccessException {
     TestTimeSource timeSource = new TestTimeSource();
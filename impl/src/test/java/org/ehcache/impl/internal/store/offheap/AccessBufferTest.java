@@ -0,0 +1,135 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.internal.store.offheap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * AccessBufferTest
+ */
+public class AccessBufferTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeMustBePowerOfTwo() {
+    new AccessBuffer<String>(6);
+  }
+
+  @Test
+  public void testRecordSignalsDrainWhenWrapping() {
+    AccessBuffer<String> buffer = new AccessBuffer<String>(4);
+    assertThat(buffer.record("a", 1L, 10L), is(false));
+    assertThat(buffer.record("b", 2L, 20L), is(false));
+    assertThat(buffer.record("c", 3L, 30L), is(false));
+    assertThat(buffer.record("d", 4L, 40L), is(true));
+    assertThat(buffer.record("e", 5L, 50L), is(false));
+  }
+
+  @Test
+  public void testDrainReplaysAndEmpties() {
+    AccessBuffer<String> buffer = new AccessBuffer<String>(4);
+    buffer.record("a", 1L, 10L);
+    buffer.record("b", 2L, 20L);
+
+    RecordingReplay replay = new RecordingReplay();
+    buffer.drain(replay);
+    assertThat(replay.replayed.toString(), is("[a:1@10x1, b:2@20x1]"));
+
+    replay.replayed.clear();
+    buffer.drain(replay);
+    assertThat(replay.replayed.isEmpty(), is(true));
+  }
+
+  @Test
+  public void testFullBufferOverwritesOldestAccesses() {
+    AccessBuffer<String> buffer = new AccessBuffer<String>(2);
+    buffer.record("a", 1L, 10L);
+    buffer.record("b", 2L, 20L);
+    buffer.record("c", 3L, 30L);
+
+    RecordingReplay replay = new RecordingReplay();
+    buffer.drain(replay);
+    assertThat(replay.replayed.toString(), is("[c:3@30x1, b:2@20x1]"));
+  }
+
+  @Test
+  public void testDrainMergesAccessesByKey() {
+    AccessBuffer<String> buffer = new AccessBuffer<String>(8);
+    buffer.record("a", 1L, 10L);
+    buffer.record("b", 2L, 20L);
+    buffer.record("a", 1L, 30L);
+    buffer.record("a", 1L, 25L);
+    buffer.record("b", 3L, 40L);
+
+    RecordingReplay replay = new RecordingReplay();
+    buffer.drain(replay);
+    assertThat(replay.replayed.toString(), is("[a:1@30x3, b:3@40x1]"));
+  }
+
+  @Test
+  public void testDrainOfEmptyBufferDoesNotReplay() {
+    AccessBuffer<String> buffer = new AccessBuffer<String>(4);
+    buffer.drain(new AccessBuffer.Replay<String>() {
+      @Override
+      public void replay(Map<String, AccessBuffer.Access<String>> accesses) {
+        fail("Nothing should be replayed");
+      }
+    });
+  }
+
+  @Test
+  public void testReentrantDrainIsSkipped() {
+    final AccessBuffer<String> buffer = new AccessBuffer<String>(2);
+    buffer.record("a", 1L, 10L);
+    buffer.record("b", 2L, 20L);
+
+    final List<String> replayed = new ArrayList<String>();
+    buffer.drain(new AccessBuffer.Replay<String>() {
+      @Override
+      public void replay(Map<String, AccessBuffer.Access<String>> accesses) {
+        replayed.addAll(accesses.keySet());
+        buffer.record("c", 3L, 30L);
+        buffer.drain(new AccessBuffer.Replay<String>() {
+          @Override
+          public void replay(Map<String, AccessBuffer.Access<String>> accesses) {
+            fail("Concurrent drain should not replay anything");
+          }
+        });
+      }
+    });
+    assertThat(replayed.size(), is(2));
+  }
+
+  private static class RecordingReplay implements AccessBuffer.Replay<String> {
+
+    private final List<String> replayed = new ArrayList<String>();
+
+    @Override
+    public void replay(Map<String, AccessBuffer.Access<String>> accesses) {
+      for (AccessBuffer.Access<String> access : accesses.values()) {
+        replayed.add(access.key + ":" + access.id + "@" + access.time + "x" + access.count);
+      }
+    }
+  }
+}
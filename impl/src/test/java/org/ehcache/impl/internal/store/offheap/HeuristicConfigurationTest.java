@@ -0,0 +1,78 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ehcache.impl.internal.store.offheap;
+
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * HeuristicConfigurationTest
+ */
+public class HeuristicConfigurationTest {
+
+  @Test
+  public void testDefaultConcurrencyFollowsProcessorsAndPoolSize() {
+    int processors = Runtime.getRuntime().availableProcessors();
+
+    HeuristicConfiguration small = new HeuristicConfiguration(MemoryUnit.MB.toBytes(1));
+    assertThat(small.getConcurrency(), is(16));
+
+    HeuristicConfiguration large = new HeuristicConfiguration(MemoryUnit.GB.toBytes(1));
+    assertThat(large.getConcurrency(), greaterThanOrEqualTo(32));
+    assertThat(large.getConcurrency(), greaterThanOrEqualTo(Math.min(processors, (int) (MemoryUnit.GB.toBytes(1) / (64 * 1024)))));
+    assertThat(Integer.bitCount(large.getConcurrency()), is(1));
+  }
+
+  @Test
+  public void testConfiguredValuesOverrideHeuristics() {
+    OffHeapStoreConfiguration overrides = new OffHeapStoreConfiguration(100, 2048, 32, 4096, MemoryUnit.KB);
+    HeuristicConfiguration configuration = new HeuristicConfiguration(MemoryUnit.GB.toBytes(1), overrides);
+
+    assertThat(configuration.getConcurrency(), is(128));
+    assertThat(configuration.getInitialSegmentTableSize(), is(2048));
+    assertThat(configuration.getSegmentDataPageSize(), is(32 * 1024));
+    assertThat(configuration.getMaximumChunkSize(), is(4096 * 1024));
+    assertThat(configuration.getMinimumChunkSize(), lessThanOrEqualTo(configuration.getMaximumChunkSize()));
+  }
+
+  @Test
+  public void testAutoValuesKeepHeuristics() {
+    HeuristicConfiguration reference = new HeuristicConfiguration(MemoryUnit.MB.toBytes(64));
+    HeuristicConfiguration configuration = new HeuristicConfiguration(MemoryUnit.MB.toBytes(64),
+        new OffHeapStoreConfiguration(OffHeapStoreConfiguration.AUTO, OffHeapStoreConfiguration.AUTO));
+
+    assertThat(configuration.getConcurrency(), is(reference.getConcurrency()));
+    assertThat(configuration.getInitialSegmentTableSize(), is(reference.getInitialSegmentTableSize()));
+    assertThat(configuration.getSegmentDataPageSize(), is(reference.getSegmentDataPageSize()));
+    assertThat(configuration.getMaximumChunkSize(), is(reference.getMaximumChunkSize()));
+  }
+
+  @Test
+  public void testRoundUpToPowerOfTwo() {
+    assertThat(OffHeapStoreUtils.roundUpToPowerOfTwo(1), is(1));
+    assertThat(OffHeapStoreUtils.roundUpToPowerOfTwo(3), is(4));
+    assertThat(OffHeapStoreUtils.roundUpToPowerOfTwo(64), is(64));
+    assertThat(OffHeapStoreUtils.roundUpToPowerOfTwo(65), is(128));
+  }
+}
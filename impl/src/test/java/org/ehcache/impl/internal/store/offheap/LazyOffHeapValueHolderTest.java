@@ -16,13 +16,17 @@
 
 package org.ehcache.impl.internal.store.offheap;
 
+import org.ehcache.impl.serialization.ByteArraySerializer;
 import org.ehcache.impl.serialization.JavaSerializer;
 import org.junit.Test;
 import org.terracotta.offheapstore.storage.portability.WriteContext;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -45,6 +49,30 @@ public class LazyOffHeapValueHolderTest {
     assertThat(valueHolder.value(), is(testValue));
   }
 
+  @Test
+  public void testDetachedValueIsBackedByBinaryForPassthroughSerializer() {
+    ByteArraySerializer serializer = new ByteArraySerializer();
+    ByteBuffer serialized = serializer.serialize(new byte[] { 1, 2, 3 });
+    LazyOffHeapValueHolder<byte[]> valueHolder = new LazyOffHeapValueHolder<byte[]>(1L, serialized, serializer, 10L, 20L, 15L, 3, mock(WriteContext.class));
+
+    valueHolder.detach();
+    serialized.clear();
+    serialized.put(0, (byte) 42);
+
+    byte[] value = valueHolder.value();
+    assertThat(Arrays.equals(value, new byte[] { 1, 2, 3 }), is(true));
+    assertThat(valueHolder.getBinaryValue().array(), sameInstance(value));
+  }
+
+  @Test
+  public void testAttachedValueIsCopiedForPassthroughSerializer() {
+    ByteArraySerializer serializer = new ByteArraySerializer();
+    ByteBuffer serialized = serializer.serialize(new byte[] { 1, 2, 3 });
+    LazyOffHeapValueHolder<byte[]> valueHolder = new LazyOffHeapValueHolder<byte[]>(1L, serialized, serializer, 10L, 20L, 15L, 3, mock(WriteContext.class));
+
+    assertThat(valueHolder.value(), not(sameInstance(serialized.array())));
+  }
+
   @Test
   public void testCanAccessBinaryValue() throws ClassNotFoundException {
     JavaSerializer<String> serializer = new JavaSerializer<String>(getClass().getClassLoader());
@@ -25,6 +25,8 @@ import java.util.Arrays;
 import java.util.Random;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 public class ByteArraySerializerTest {
@@ -67,6 +69,27 @@ public class ByteArraySerializerTest {
     assertThat(Arrays.equals(read, bytes), is(true));
   }
 
+  @Test
+  public void testAdoptReusesWholeBackingArray() throws ClassNotFoundException {
+    ByteArraySerializer serializer = new ByteArraySerializer();
+    byte[] bytes = new byte[] { 1, 2, 3 };
+    ByteBuffer binary = ByteBuffer.wrap(bytes);
+
+    assertThat(serializer.adopt(binary), sameInstance(bytes));
+    assertThat(binary.remaining(), is(0));
+  }
+
+  @Test
+  public void testAdoptCopiesPartialBuffer() throws ClassNotFoundException {
+    ByteArraySerializer serializer = new ByteArraySerializer();
+    byte[] bytes = new byte[] { 1, 2, 3 };
+    ByteBuffer binary = ByteBuffer.wrap(bytes, 1, 2);
+
+    byte[] adopted = serializer.adopt(binary);
+    assertThat(Arrays.equals(adopted, new byte[] { 2, 3 }), is(true));
+    assertThat(adopted, not(sameInstance(bytes)));
+  }
+
   @Test(expected = NullPointerException.class)
   public void testReadThrowsOnNullInput() throws ClassNotFoundException {
     new ByteArraySerializer().read(null);
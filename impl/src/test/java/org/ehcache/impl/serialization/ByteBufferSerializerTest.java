@@ -0,0 +1,87 @@
+/*
+ * Copyright Terracotta, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ehcache.impl.serialization;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ByteBufferSerializerTest {
+
+  @Test
+  public void testCanSerializeAndDeserialize() throws ClassNotFoundException {
+    ByteBufferSerializer serializer = new ByteBufferSerializer();
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 });
+    buffer.position(1);
+
+    ByteBuffer read = serializer.read(serializer.serialize(buffer));
+
+    assertThat(read, is(buffer));
+    assertThat(buffer.position(), is(1));
+  }
+
+  @Test(expected = ReadOnlyBufferException.class)
+  public void testReadBuffersAreReadOnly() throws ClassNotFoundException {
+    ByteBufferSerializer serializer = new ByteBufferSerializer();
+    ByteBuffer read = serializer.read(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+    read.put(0, (byte) 0);
+  }
+
+  @Test
+  public void testReadCopiesTheBinary() throws ClassNotFoundException {
+    ByteBufferSerializer serializer = new ByteBufferSerializer();
+    byte[] bytes = new byte[] { 1, 2, 3 };
+    ByteBuffer read = serializer.read(ByteBuffer.wrap(bytes));
+    bytes[0] = 42;
+
+    assertThat(read.get(0), is((byte) 1));
+  }
+
+  @Test
+  public void testAdoptSharesTheBinary() throws ClassNotFoundException {
+    ByteBufferSerializer serializer = new ByteBufferSerializer();
+    byte[] bytes = new byte[] { 1, 2, 3 };
+    ByteBuffer binary = ByteBuffer.wrap(bytes);
+    ByteBuffer adopted = serializer.adopt(binary);
+    bytes[0] = 42;
+
+    assertThat(adopted.get(0), is((byte) 42));
+    assertThat(adopted.isReadOnly(), is(true));
+    assertThat(binary.remaining(), is(0));
+  }
+
+  @Test
+  public void testEquals() throws Exception {
+    ByteBufferSerializer serializer = new ByteBufferSerializer();
+    ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, 2, 3 });
+
+    ByteBuffer serialized = serializer.serialize(buffer);
+    assertThat(serializer.equals(buffer, serialized), is(true));
+    assertThat(serialized.remaining(), is(0));
+
+    assertThat(serializer.equals(ByteBuffer.wrap(new byte[] { 1, 2 }), serializer.serialize(buffer)), is(false));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testSerializeThrowsOnNullInput() {
+    new ByteBufferSerializer().serialize(null);
+  }
+}
@@ -40,6 +40,7 @@ import org.ehcache.xml.model.ListenersType;
 import org.ehcache.xml.model.MemoryType;
 import org.ehcache.xml.model.ObjectFactory;
 import org.ehcache.xml.model.Offheap;
+import org.ehcache.xml.model.OffheapStoreSettingsType;
 import org.ehcache.xml.model.PersistableMemoryType;
 import org.ehcache.xml.model.PersistenceType;
 import org.ehcache.xml.model.ResourceType;
@@ -445,6 +446,16 @@ class ConfigurationParser {
             }
           }
 
+          @Override
+          public OffHeapStoreSettings offHeapStoreSettings() {
+            OffheapStoreSettingsType value = null;
+            for (BaseCacheType source : sources) {
+              value = source.getOffheapStoreSettings();
+              if (value != null) break;
+            }
+            return value != null ? new XmlOffHeapStoreSettings(value) : null;
+          }
+
           @Override
           public SizeOfEngineLimits heapStoreSettings() {
             SizeofType sizeofType = null;
@@ -571,6 +582,12 @@ class ConfigurationParser {
             return diskStoreSettings == null ? null : new XmlDiskStoreSettings(diskStoreSettings);
           }
 
+          @Override
+          public OffHeapStoreSettings offHeapStoreSettings() {
+            final OffheapStoreSettingsType offHeapStoreSettings = cacheTemplate.getOffheapStoreSettings();
+            return offHeapStoreSettings == null ? null : new XmlOffHeapStoreSettings(offHeapStoreSettings);
+          }
+
           @Override
           public SizeOfEngineLimits heapStoreSettings() {
             SizeofType type = cacheTemplate.getHeapStoreSettings();
@@ -710,6 +727,8 @@ class ConfigurationParser {
 
     DiskStoreSettings diskStoreSettings();
 
+    OffHeapStoreSettings offHeapStoreSettings();
+
     SizeOfEngineLimits heapStoreSettings();
 
   }
@@ -784,6 +803,21 @@ class ConfigurationParser {
     int writerConcurrency();
 
     String threadPool();
+
+    long journalInterval();
+
+    TimeUnit journalIntervalUnit();
+  }
+
+  interface OffHeapStoreSettings {
+
+    int concurrency();
+
+    int initialTableSize();
+
+    long minimumPageSize();
+
+    long maximumPageSize();
   }
 
 
@@ -1042,6 +1076,58 @@ class ConfigurationParser {
       return this.diskStoreSettings.getThreadPool();
     }
 
+    @Override
+    public long journalInterval() {
+      TimeType journal = this.diskStoreSettings.getJournal();
+      return journal == null ? 0 : journal.getValue().longValue();
+    }
+
+    @Override
+    public TimeUnit journalIntervalUnit() {
+      TimeType journal = this.diskStoreSettings.getJournal();
+      return journal == null ? TimeUnit.SECONDS : XmlModel.convertToJavaTimeUnit(journal.getUnit());
+    }
+
+  }
+
+  private static class XmlOffHeapStoreSettings implements OffHeapStoreSettings {
+
+    private final OffheapStoreSettingsType offHeapStoreSettings;
+
+    private XmlOffHeapStoreSettings(OffheapStoreSettingsType offHeapStoreSettings) {
+      this.offHeapStoreSettings = offHeapStoreSettings;
+    }
+
+    @Override
+    public int concurrency() {
+      BigInteger value = this.offHeapStoreSettings.getConcurrency();
+      return value == null ? 0 : value.intValue();
+    }
+
+    @Override
+    public int initialTableSize() {
+      BigInteger value = this.offHeapStoreSettings.getInitialTableSize();
+      return value == null ? 0 : value.intValue();
+    }
+
+    @Override
+    public long minimumPageSize() {
+      return toBytes(this.offHeapStoreSettings.getMinimumPageSize());
+    }
+
+    @Override
+    public long maximumPageSize() {
+      return toBytes(this.offHeapStoreSettings.getMaximumPageSize());
+    }
+
+    private static long toBytes(MemoryType value) {
+      if (value == null) {
+        return 0;
+      } else {
+        return MemoryUnit.valueOf(value.getUnit().value().toUpperCase()).toBytes(value.getValue().longValue());
+      }
+    }
+
   }
 
 }
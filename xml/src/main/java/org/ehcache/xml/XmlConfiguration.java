@@ -27,6 +27,7 @@ import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
 import org.ehcache.config.builders.WriteBehindConfigurationBuilder;
 import org.ehcache.config.builders.WriteBehindConfigurationBuilder.BatchedWriteBehindConfigurationBuilder;
+import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.internal.util.ClassLoading;
 import org.ehcache.event.CacheEventListener;
 import org.ehcache.event.EventFiring;
@@ -48,6 +49,7 @@ import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreProviderConfiguration;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.spi.copy.Copier;
 import org.ehcache.spi.loaderwriter.CacheLoaderWriter;
 import org.ehcache.spi.serialization.Serializer;
@@ -290,7 +292,13 @@ public class XmlConfiguration implements Configuration {
       }
       final ConfigurationParser.DiskStoreSettings parsedDiskStoreSettings = cacheDefinition.diskStoreSettings();
       if (parsedDiskStoreSettings != null) {
-        builder = builder.add(new OffHeapDiskStoreConfiguration(parsedDiskStoreSettings.threadPool(), parsedDiskStoreSettings.writerConcurrency()));
+        builder = builder.add(new OffHeapDiskStoreConfiguration(parsedDiskStoreSettings.threadPool(), parsedDiskStoreSettings.writerConcurrency(),
+            parsedDiskStoreSettings.journalInterval(), parsedDiskStoreSettings.journalIntervalUnit()));
+      }
+      final ConfigurationParser.OffHeapStoreSettings parsedOffHeapStoreSettings = cacheDefinition.offHeapStoreSettings();
+      if (parsedOffHeapStoreSettings != null) {
+        builder = builder.add(new OffHeapStoreConfiguration(parsedOffHeapStoreSettings.concurrency(), parsedOffHeapStoreSettings.initialTableSize(),
+            parsedOffHeapStoreSettings.minimumPageSize(), parsedOffHeapStoreSettings.maximumPageSize(), MemoryUnit.B));
       }
       for (ServiceConfiguration<?> serviceConfig : cacheDefinition.serviceConfigs()) {
         builder = builder.add(serviceConfig);
@@ -519,6 +527,11 @@ public class XmlConfiguration implements Configuration {
       builder = builder.add(new DefaultSizeOfEngineConfiguration(cacheTemplate.heapStoreSettings().getMaxObjectSize(), cacheTemplate.heapStoreSettings().getUnit(),
         cacheTemplate.heapStoreSettings().getMaxObjectGraphSize()));
     }
+    if (cacheTemplate.offHeapStoreSettings() != null) {
+      ConfigurationParser.OffHeapStoreSettings offHeapStoreSettings = cacheTemplate.offHeapStoreSettings();
+      builder = builder.add(new OffHeapStoreConfiguration(offHeapStoreSettings.concurrency(), offHeapStoreSettings.initialTableSize(),
+        offHeapStoreSettings.minimumPageSize(), offHeapStoreSettings.maximumPageSize(), MemoryUnit.B));
+    }
     final String loaderWriter = cacheTemplate.loaderWriter();
     if(loaderWriter!= null) {
       final Class<CacheLoaderWriter<?, ?>> cacheLoaderWriterClass = (Class<CacheLoaderWriter<?,?>>)getClassForName(loaderWriter, defaultClassLoader);
@@ -37,6 +37,7 @@ import org.ehcache.impl.config.serializer.DefaultSerializationProviderConfigurat
 import org.ehcache.impl.config.serializer.DefaultSerializerConfiguration;
 import org.ehcache.impl.config.store.disk.OffHeapDiskStoreConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineConfiguration;
+import org.ehcache.impl.config.store.offheap.OffHeapStoreConfiguration;
 import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
 import org.ehcache.impl.copy.SerializingCopier;
 import org.ehcache.spi.copy.Copier;
@@ -586,6 +587,22 @@ public class XmlConfigurationTest {
 
     assertThat(diskConfig.getThreadPoolAlias(), is("some-pool"));
     assertThat(diskConfig.getWriterConcurrency(), is(2));
+    assertThat(diskConfig.getJournalInterval(), is(0L));
+  }
+
+  @Test
+  public void testDiskStoreJournal() throws Exception {
+    final URL resource = XmlConfigurationTest.class.getResource("/configs/resources-caches.xml");
+    XmlConfiguration xmlConfig = new XmlConfiguration(resource);
+
+    CacheConfiguration<?, ?> cacheConfig = xmlConfig.getCacheConfigurations().get("tieredPersistent");
+
+    OffHeapDiskStoreConfiguration diskConfig = findSingletonAmongst(OffHeapDiskStoreConfiguration.class, cacheConfig.getServiceConfigurations().toArray());
+
+    assertThat(diskConfig.getThreadPoolAlias(), nullValue());
+    assertThat(diskConfig.getWriterConcurrency(), is(1));
+    assertThat(diskConfig.getJournalInterval(), is(500L));
+    assertThat(diskConfig.getJournalIntervalUnit(), is(TimeUnit.MILLISECONDS));
   }
 
   @Test
@@ -646,6 +663,31 @@ public class XmlConfigurationTest {
     assertThat(sizeOfEngineConfig3.getMaxObjectSize(), is(200000L));
   }
 
+  @Test
+  public void testOffHeapStoreSettings() throws Exception {
+    final URL resource = XmlConfigurationTest.class.getResource("/configs/offheap-store-settings.xml");
+    XmlConfiguration xmlConfig = new XmlConfiguration(resource);
+
+    CacheConfiguration<?, ?> fullyConfigured = xmlConfig.getCacheConfigurations().get("fullyConfigured");
+    OffHeapStoreConfiguration config = findSingletonAmongst(OffHeapStoreConfiguration.class, fullyConfigured.getServiceConfigurations());
+    assertThat(config.getConcurrency(), is(64));
+    assertThat(config.getInitialTableSize(), is(1024));
+    assertThat(config.getMinimumPageSize(), is(MemoryUnit.KB.toBytes(32)));
+    assertThat(config.getMaximumPageSize(), is(MemoryUnit.MB.toBytes(4)));
+
+    CacheConfiguration<?, ?> partiallyConfigured = xmlConfig.getCacheConfigurations().get("partiallyConfigured");
+    config = findSingletonAmongst(OffHeapStoreConfiguration.class, partiallyConfigured.getServiceConfigurations());
+    assertThat(config.getConcurrency(), is(128));
+    assertThat(config.getInitialTableSize(), is(OffHeapStoreConfiguration.AUTO));
+    assertThat(config.getMinimumPageSize(), is((long) OffHeapStoreConfiguration.AUTO));
+    assertThat(config.getMaximumPageSize(), is((long) OffHeapStoreConfiguration.AUTO));
+
+    CacheConfiguration<String, String> fromTemplate = xmlConfig.newCacheConfigurationBuilderFromTemplate("tuned", String.class, String.class, heap(10)).build();
+    config = findSingletonAmongst(OffHeapStoreConfiguration.class, fromTemplate.getServiceConfigurations());
+    assertThat(config.getConcurrency(), is(OffHeapStoreConfiguration.AUTO));
+    assertThat(config.getInitialTableSize(), is(256));
+  }
+
   @Test
   public void testCacheManagerDefaultObjectGraphSize() throws Exception {
     final URL resource = XmlConfigurationTest.class.getResource("/configs/sizeof-engine-cm-defaults-one.xml");